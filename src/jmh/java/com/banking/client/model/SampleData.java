@@ -0,0 +1,46 @@
+package com.banking.client.model;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Deterministic accounts and transactions shared by the benchmarks.
+ */
+public final class SampleData {
+    
+    private static final long EPOCH_MILLIS = 1_600_000_000_000L;
+    
+    private SampleData() {
+    }
+    
+    public static Account account(String accountNumber) {
+        Account account = new Account(accountNumber, "Account Holder " + accountNumber, 12_345.67);
+        account.setCreationDate(new Date(EPOCH_MILLIS));
+        return account;
+    }
+    
+    public static Transaction transaction(int index) {
+        Transaction transaction = new Transaction();
+        Transaction.TransactionType type = Transaction.TransactionType.values()[index % 4];
+        transaction.setTransactionId("TX" + (1_000_000 + index));
+        transaction.setTimestamp(new Date(EPOCH_MILLIS + index * 60_000L));
+        transaction.setType(type.name());
+        transaction.setAmount(10 + index % 500);
+        transaction.setResultingBalance(10_000 + index);
+        transaction.setDescription(type.name().toLowerCase() + " reference " + index);
+        if (type == Transaction.TransactionType.TRANSFER_IN || type == Transaction.TransactionType.TRANSFER_OUT) {
+            transaction.setSourceAccountNumber("100001");
+            transaction.setDestinationAccountNumber("200002");
+        }
+        return transaction;
+    }
+    
+    public static List<Transaction> history(int size) {
+        List<Transaction> transactions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            transactions.add(transaction(i));
+        }
+        return transactions;
+    }
+}
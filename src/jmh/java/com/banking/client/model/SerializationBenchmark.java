@@ -0,0 +1,88 @@
+package com.banking.client.model;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson encoding and decoding of the models to and from JSON strings; see
+ * RestCodecBenchmark for the byte-based path the REST transport uses.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    
+    private static final TypeReference<List<Transaction>> TRANSACTION_LIST = new TypeReference<List<Transaction>>() {};
+    
+    private ObjectMapper objectMapper;
+    private Account account;
+    private String accountJson;
+    private Transaction transaction;
+    private String transactionJson;
+    
+    @State(Scope.Benchmark)
+    public static class HistoryState {
+        
+        @Param({"100", "10000", "100000"})
+        public int historySize;
+        
+        List<Transaction> history;
+        String historyJson;
+        
+        @Setup
+        public void setUp(SerializationBenchmark benchmark) throws Exception {
+            history = SampleData.history(historySize);
+            historyJson = benchmark.objectMapper.writeValueAsString(history);
+        }
+    }
+    
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        account = SampleData.account("100001");
+        accountJson = objectMapper.writeValueAsString(account);
+        transaction = SampleData.transaction(42);
+        transactionJson = objectMapper.writeValueAsString(transaction);
+    }
+    
+    @Benchmark
+    public String encodeAccount() throws Exception {
+        return objectMapper.writeValueAsString(account);
+    }
+    
+    @Benchmark
+    public Account decodeAccount() throws Exception {
+        return objectMapper.readValue(accountJson, Account.class);
+    }
+    
+    @Benchmark
+    public String encodeTransaction() throws Exception {
+        return objectMapper.writeValueAsString(transaction);
+    }
+    
+    @Benchmark
+    public Transaction decodeTransaction() throws Exception {
+        return objectMapper.readValue(transactionJson, Transaction.class);
+    }
+    
+    @Benchmark
+    public String encodeHistory(HistoryState state) throws Exception {
+        return objectMapper.writeValueAsString(state.history);
+    }
+    
+    @Benchmark
+    public List<Transaction> decodeHistory(HistoryState state) throws Exception {
+        return objectMapper.readValue(state.historyJson, TRANSACTION_LIST);
+    }
+}
@@ -0,0 +1,117 @@
+package com.banking.client.service;
+
+import com.banking.client.model.Account;
+import com.banking.client.model.BankingOperation;
+import com.banking.client.model.SampleData;
+import com.banking.client.model.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request encoding, response decoding and the insufficient-funds error path of the
+ * REST codec, in each wire format. Requests are encoded into the thread's reusable
+ * buffer and responses decoded from a stream, as the blocking transport does.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class RestCodecBenchmark {
+    
+    private static final int HISTORY_SIZE = 1000;
+    private static final int BATCH_SIZE = 100;
+    
+    @Param({"JSON", "SMILE"})
+    public RestClientConfig.WireFormat wireFormat;
+    
+    private RestCodec codec;
+    private byte[] insufficientFundsBody;
+    private byte[] accountBody;
+    private byte[] historyBody;
+    private List<BankingOperation> batch;
+    
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper;
+        if (wireFormat == RestClientConfig.WireFormat.SMILE) {
+            objectMapper = new ObjectMapper(new SmileFactory());
+            codec = RestCodec.smile();
+        } else {
+            objectMapper = new ObjectMapper();
+            codec = RestCodec.json(objectMapper);
+        }
+        
+        Map<String, Object> insufficientFunds = new LinkedHashMap<>();
+        insufficientFunds.put("error", "Insufficient funds");
+        insufficientFunds.put("requestedAmount", 250.0);
+        insufficientFunds.put("availableBalance", 99.5);
+        insufficientFundsBody = objectMapper.writeValueAsBytes(insufficientFunds);
+        accountBody = objectMapper.writeValueAsBytes(SampleData.account("100001"));
+        historyBody = objectMapper.writeValueAsBytes(SampleData.history(HISTORY_SIZE));
+        
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(BankingOperation.transfer("op-" + i, "100001", "200002", 10 + i));
+        }
+    }
+    
+    @Benchmark
+    public int encodeAmount() throws Exception {
+        RequestBuffer buffer = RequestBuffer.forCurrentThread();
+        codec.encodeAmount(125.0, buffer);
+        return buffer.size();
+    }
+    
+    @Benchmark
+    public int encodeTransfer() throws Exception {
+        RequestBuffer buffer = RequestBuffer.forCurrentThread();
+        codec.encodeTransfer("200002", 125.0, buffer);
+        return buffer.size();
+    }
+    
+    @Benchmark
+    public int encodeBatch() throws Exception {
+        RequestBuffer buffer = RequestBuffer.forCurrentThread();
+        codec.encodeBatch(batch, buffer);
+        return buffer.size();
+    }
+    
+    @Benchmark
+    public Account decodeAccount() throws Exception {
+        return codec.toAccount(200, new ByteArrayInputStream(accountBody), "100001");
+    }
+    
+    @Benchmark
+    public List<Transaction> decodeHistory() throws Exception {
+        return codec.toTransactionHistory(200, new ByteArrayInputStream(historyBody), "100001");
+    }
+    
+    @Benchmark
+    public Exception parseInsufficientFunds() throws Exception {
+        return codec.toBadRequest(new ByteArrayInputStream(insufficientFundsBody));
+    }
+    
+    @Benchmark
+    public Exception mapWithdrawInsufficientFunds() {
+        try {
+            codec.toWithdrawResult(400, new ByteArrayInputStream(insufficientFundsBody), "100001");
+            return null;
+        } catch (Exception e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.banking.client.service;
+
+import com.banking.client.model.Account;
+import com.banking.client.model.Transaction;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end RestBankingService calls against an in-process stub server, in each wire
+ * format with and without compressed responses.
+ * The nested subclasses run the same benchmarks at 1, 8 and 64 client threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public abstract class RestTransportBenchmark {
+    
+    private static final int HISTORY_SIZE = 1000;
+    
+    @Param({"JSON", "SMILE"})
+    public RestClientConfig.WireFormat wireFormat;
+    
+    @Param({"NONE", "GZIP"})
+    public RestClientConfig.Compression compression;
+    
+    private StubBankingServer server;
+    private RestBankingService service;
+    
+    @Setup
+    public void setUp() throws Exception {
+        // Per-call INFO logging would dominate the measurement
+        Configurator.setLevel("com.banking.client", Level.WARN);
+        
+        server = new StubBankingServer(HISTORY_SIZE);
+        RestClientConfig config = new RestClientConfig();
+        config.setMaxTotalConnections(128);
+        config.setMaxConnectionsPerRoute(128);
+        config.setWireFormat(wireFormat);
+        config.setCompression(compression);
+        config.setAcceptCompressedResponses(compression != RestClientConfig.Compression.NONE);
+        service = new RestBankingService(server.getBaseUrl(), config);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        service.close();
+        server.close();
+    }
+    
+    @Benchmark
+    public Account getAccount() throws Exception {
+        return service.getAccount("100001");
+    }
+    
+    @Benchmark
+    public Account deposit() throws Exception {
+        return service.deposit("100001", 10.0);
+    }
+    
+    @Benchmark
+    public Exception withdrawInsufficientFunds() {
+        try {
+            service.withdraw("overdrawn", 1_000_000.0);
+            return null;
+        } catch (Exception e) {
+            return e;
+        }
+    }
+    
+    @Benchmark
+    public boolean transfer() throws Exception {
+        return service.transfer("100001", "200002", 10.0);
+    }
+    
+    @Benchmark
+    public List<Transaction> getTransactionHistory() throws Exception {
+        return service.getTransactionHistory("100001");
+    }
+    
+    @Threads(1)
+    public static class OneThread extends RestTransportBenchmark {
+    }
+    
+    @Threads(8)
+    public static class EightThreads extends RestTransportBenchmark {
+    }
+    
+    @Threads(64)
+    public static class SixtyFourThreads extends RestTransportBenchmark {
+    }
+}
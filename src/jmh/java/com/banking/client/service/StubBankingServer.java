@@ -0,0 +1,137 @@
+package com.banking.client.service;
+
+import com.banking.client.model.SampleData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-process application tier stub for transport benchmarks.
+ * Serves pre-encoded responses so the measurement is dominated by the client: in Smile
+ * when the request accepts it, in JSON otherwise, and gzip-compressed when the request
+ * accepts gzip and the body is at least {@value #COMPRESSION_THRESHOLD_BYTES} bytes.
+ */
+public class StubBankingServer implements AutoCloseable {
+    
+    private static final String SMILE = "application/x-jackson-smile";
+    private static final String JSON = "application/json";
+    private static final int COMPRESSION_THRESHOLD_BYTES = 1024;
+    
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Body account;
+    private final Body history;
+    private final Body transfer;
+    private final Body insufficientFunds;
+    
+    /**
+     * One response body, pre-encoded in each format and, when large enough, compressed.
+     */
+    private static class Body {
+        
+        final byte[] json;
+        final byte[] smile;
+        final byte[] jsonGzip;
+        final byte[] smileGzip;
+        
+        Body(Object value, ObjectMapper jsonMapper, ObjectMapper smileMapper) throws IOException {
+            json = jsonMapper.writeValueAsBytes(value);
+            smile = smileMapper.writeValueAsBytes(value);
+            jsonGzip = json.length >= COMPRESSION_THRESHOLD_BYTES ? gzip(json) : null;
+            smileGzip = smile.length >= COMPRESSION_THRESHOLD_BYTES ? gzip(smile) : null;
+        }
+        
+        private static byte[] gzip(byte[] content) throws IOException {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try (OutputStream out = new GZIPOutputStream(buffer)) {
+                out.write(content);
+            }
+            return buffer.toByteArray();
+        }
+    }
+    
+    public StubBankingServer(int historySize) throws IOException {
+        ObjectMapper jsonMapper = new ObjectMapper();
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+        account = new Body(SampleData.account("100001"), jsonMapper, smileMapper);
+        history = new Body(SampleData.history(historySize), jsonMapper, smileMapper);
+        
+        Map<String, Object> success = new LinkedHashMap<>();
+        success.put("success", true);
+        transfer = new Body(success, jsonMapper, smileMapper);
+        
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("error", "Insufficient funds");
+        error.put("requestedAmount", 1000000.0);
+        error.put("availableBalance", 12345.67);
+        insufficientFunds = new Body(error, jsonMapper, smileMapper);
+        
+        // Without TCP_NODELAY small responses stall on delayed ACKs and every call takes ~40 ms
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        executor = Executors.newFixedThreadPool(64);
+        server.setExecutor(executor);
+        server.createContext("/api/accounts", this::handle);
+        server.start();
+    }
+    
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream requestBody = exchange.getRequestBody()) {
+            requestBody.readAllBytes();
+        }
+        
+        String path = exchange.getRequestURI().getPath();
+        if (path.endsWith("/transactions")) {
+            respond(exchange, 200, history);
+        } else if (path.endsWith("/transfer")) {
+            respond(exchange, 200, transfer);
+        } else if (path.endsWith("/withdraw") && path.contains("/overdrawn/")) {
+            respond(exchange, 400, insufficientFunds);
+        } else if (path.equals("/api/accounts") && "POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 201, account);
+        } else {
+            respond(exchange, 200, account);
+        }
+    }
+    
+    private static void respond(HttpExchange exchange, int status, Body response) throws IOException {
+        String accept = exchange.getRequestHeaders().getFirst("Accept");
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        boolean smile = accept != null && accept.contains(SMILE);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        
+        byte[] compressed = smile ? response.smileGzip : response.jsonGzip;
+        byte[] body = gzip && compressed != null ? compressed : smile ? response.smile : response.json;
+        exchange.getResponseHeaders().set("Content-Type", smile ? SMILE : JSON);
+        if (body == compressed) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+    
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,112 @@
+package com.banking.client.store;
+
+import com.banking.client.model.SampleData;
+import com.banking.client.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Columnar store against a plain List of Transactions.
+ * The retained heap per row of both is printed when each trial is set up. The build
+ * benchmarks convert decoded transactions into each form; the scan benchmarks sum amounts over a time window and type, the shape of a filter
+ * or an export pass.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ColumnarStoreBenchmark {
+    
+    @Param({"100000", "1000000"})
+    public int historySize;
+    
+    private List<Transaction> history;
+    private ColumnarTransactionStore store;
+    private long windowStart;
+    private long windowEnd;
+    
+    @Setup
+    public void setUp() {
+        // Each representation is built from its own objects, so their retained sizes are independent
+        long before = usedHeap();
+        history = SampleData.history(historySize);
+        long listBytes = usedHeap() - before;
+        
+        before = usedHeap();
+        store = new ColumnarTransactionStore(historySize);
+        store.addAll(SampleData.history(historySize));
+        long columnarBytes = usedHeap() - before;
+        
+        System.out.printf("%nRetained heap for %d transactions: list %d bytes/row, columnar %d bytes/row%n",
+                historySize, listBytes / historySize, columnarBytes / historySize);
+        
+        // The middle half of the history
+        windowStart = history.get(historySize / 4).getTimestamp().getTime();
+        windowEnd = history.get(historySize / 4 * 3).getTimestamp().getTime();
+    }
+    
+    @Benchmark
+    public List<Transaction> buildList() {
+        // Objects as the JSON decoder produces them, one per transaction
+        List<Transaction> copy = new ArrayList<>(historySize);
+        for (int i = 0; i < historySize; i++) {
+            copy.add(SampleData.transaction(i));
+        }
+        return copy;
+    }
+    
+    @Benchmark
+    public ColumnarTransactionStore buildColumnar() {
+        ColumnarTransactionStore columnar = new ColumnarTransactionStore(historySize);
+        for (int i = 0; i < historySize; i++) {
+            columnar.add(SampleData.transaction(i));
+        }
+        return columnar;
+    }
+    
+    @Benchmark
+    public double scanList() {
+        double total = 0;
+        for (Transaction transaction : history) {
+            long time = transaction.getTimestamp().getTime();
+            if (time >= windowStart && time < windowEnd
+                    && Transaction.TransactionType.DEPOSIT.name().equals(transaction.getType())) {
+                total += transaction.getAmount();
+            }
+        }
+        return total;
+    }
+    
+    @Benchmark
+    public double scanColumnar() {
+        byte deposit = (byte) Transaction.TransactionType.DEPOSIT.ordinal();
+        long total = 0;
+        ColumnarTransactionStore.Cursor cursor = store.cursor();
+        while (cursor.next()) {
+            long time = cursor.getTimestampMillis();
+            if (time >= windowStart && time < windowEnd && cursor.getTypeCode() == deposit) {
+                total += cursor.getAmountMinor();
+            }
+        }
+        return ColumnarTransactionStore.toMajorUnits(total);
+    }
+    
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
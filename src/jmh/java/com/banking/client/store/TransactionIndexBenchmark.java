@@ -0,0 +1,79 @@
+package com.banking.client.store;
+
+import com.banking.client.model.SampleData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filter queries against the transaction index, one per kind of criterion and one
+ * combining them, as the main view runs them on each change of the filter controls.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class TransactionIndexBenchmark {
+    
+    @Param({"100000", "1000000"})
+    public int historySize;
+    
+    private TransactionIndex index;
+    private TransactionFilter textFilter;
+    private TransactionFilter dateRangeFilter;
+    private TransactionFilter amountRangeFilter;
+    private TransactionFilter combinedFilter;
+    
+    @Setup
+    public void setUp() {
+        index = new TransactionIndex();
+        index.addAll(SampleData.history(historySize));
+        long firstMillis = SampleData.transaction(0).getTimestamp().getTime();
+        long quarter = SampleData.transaction(historySize / 4).getTimestamp().getTime() - firstMillis;
+        
+        textFilter = new TransactionFilter();
+        textFilter.setText("transfer 2000");
+        
+        dateRangeFilter = new TransactionFilter();
+        dateRangeFilter.setFromMillis(firstMillis + quarter);
+        dateRangeFilter.setToMillis(firstMillis + 2 * quarter);
+        
+        amountRangeFilter = new TransactionFilter();
+        amountRangeFilter.setMinAmount(100.0);
+        amountRangeFilter.setMaxAmount(120.0);
+        
+        combinedFilter = new TransactionFilter();
+        combinedFilter.setText("reference");
+        combinedFilter.setTypes(Collections.singleton("DEPOSIT"));
+        combinedFilter.setFromMillis(firstMillis + quarter);
+        combinedFilter.setToMillis(firstMillis + 3 * quarter);
+        combinedFilter.setMinAmount(50.0);
+    }
+    
+    @Benchmark
+    public int[] text() {
+        return index.query(textFilter, true);
+    }
+    
+    @Benchmark
+    public int[] dateRange() {
+        return index.query(dateRangeFilter, true);
+    }
+    
+    @Benchmark
+    public int[] amountRange() {
+        return index.query(amountRangeFilter, true);
+    }
+    
+    @Benchmark
+    public int[] combined() {
+        return index.query(combinedFilter, true);
+    }
+}
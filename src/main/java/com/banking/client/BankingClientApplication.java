@@ -1,6 +1,9 @@
 package com.banking.client;
 
+import com.banking.client.batch.FileImporter;
 import com.banking.client.gui.BankingClientGUI;
+import com.banking.client.load.LoadGenerator;
+import com.banking.client.metrics.BankingMetrics;
 import com.sun.net.httpserver.HttpServer;
 import javafx.application.Application;
 import javafx.application.Platform;
@@ -9,22 +12,39 @@ import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.concurrent.Executors;
 
 /**
  * Main class for the Banking Client application.
- * This launches the JavaFX GUI and a simple HTTP server for cloud deployments.
+ * This launches the JavaFX GUI and a simple HTTP server for cloud deployments,
+ * or runs the headless load generator when started with --load-test and the headless
+ * file importer when started with --import.
  */
 public class BankingClientApplication {
     
     private static final Logger logger = LogManager.getLogger(BankingClientApplication.class);
     
+    private static final String LOAD_TEST_FLAG = "--load-test";
+    private static final String IMPORT_FLAG = "--import";
+    
     public static void main(String[] args) {
         logger.info("Starting Banking Client application");
         
         // Start HTTP server in a background thread
         startHttpServer();
         
+        // Headless load generator mode for capacity planning
+        if (Arrays.asList(args).contains(LOAD_TEST_FLAG)) {
+            System.exit(LoadGenerator.runFromCommandLine(args));
+        }
+        
+        // Headless bulk import of operations from a CSV or JSON Lines file
+        if (Arrays.asList(args).contains(IMPORT_FLAG)) {
+            System.exit(FileImporter.runFromCommandLine(args));
+        }
+        
         // Launch the JavaFX application
         Application.launch(BankingClientGUI.class, args);
     }
@@ -74,15 +94,25 @@ public class BankingClientApplication {
                     exchange.getResponseBody().close();
                 });
                 
+                // Expose client metrics in the Prometheus text format
+                server.createContext("/metrics", (exchange) -> {
+                    byte[] response = BankingMetrics.getDefault().scrape().getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                    exchange.sendResponseHeaders(200, response.length);
+                    exchange.getResponseBody().write(response);
+                    exchange.getResponseBody().close();
+                });
+                
                 server.setExecutor(Executors.newFixedThreadPool(10));
                 server.start();
                 
                 logger.info("HTTP server started on port {}", port);
                 
                 // Register shutdown hook to stop the server when the application exits
+                HttpServer startedServer = server;
                 Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                     logger.info("Stopping HTTP server");
-                    server.stop(0);
+                    startedServer.stop(0);
                 }));
                 
             } catch (Exception e) {
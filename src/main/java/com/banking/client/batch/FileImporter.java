@@ -0,0 +1,392 @@
+package com.banking.client.batch;
+
+import com.banking.client.model.BankingOperation;
+import com.banking.client.model.OperationResult;
+import com.banking.client.service.BankingService;
+import com.banking.client.service.BankingServiceFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Headless import of deposits, withdrawals and transfers from a CSV or JSON Lines file,
+ * optionally gzip-compressed, through a BankingService.
+ * <p>
+ * The file is streamed: lines are read in chunks and parsed and validated on a pool of
+ * validator threads, while the results are taken back in file order. Valid operations
+ * are sent in {@code executeBatch} calls on dispatcher threads. Reading pauses while the
+ * configured number of operations is outstanding, and a batch touching an account that
+ * an outstanding batch also touches waits for it, so each account's operations reach
+ * the server in file order.
+ * <p>
+ * Every line's outcome goes to the result file. Before a batch is sent its line range is
+ * forced to the checkpoint file. A rerun against the same files skips lines that already
+ * have a result, and reports lines that were sent without a recorded result as unknown
+ * rather than sending them a second time. Lines of a batch whose call fails are
+ * reported as unknown too, since the server may have applied any of them.
+ */
+public class FileImporter {
+    
+    private static final Logger logger = LogManager.getLogger(FileImporter.class);
+    
+    private static final int BUFFER_BYTES = 64 * 1024;
+    // Lines handed to a validator at a time
+    private static final int CHUNK_LINES = 512;
+    
+    private final BankingService bankingService;
+    private final ImportConfig config;
+    
+    public FileImporter(BankingService bankingService, ImportConfig config) {
+        this.bankingService = bankingService;
+        this.config = config;
+    }
+    
+    /**
+     * Import a file configured from command-line options through the service created
+     * from application properties, printing progress and the report to standard output.
+     *
+     * @param args Command-line arguments
+     * @return process exit code: 0 if every row succeeded or was refused for
+     *         insufficient funds, 1 otherwise
+     */
+    public static int runFromCommandLine(String[] args) {
+        ImportConfig config;
+        try {
+            config = ImportConfig.fromArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Options: --file=<path> --format=csv|jsonl --results=<path> --checkpoint=<path> "
+                    + "--validators=<n> --in-flight=<n> --batch-size=<n> --report-interval=<s>");
+            return 2;
+        }
+        
+        try (BankingService bankingService = BankingServiceFactory.createService()) {
+            ImportReport report = new FileImporter(bankingService, config).run();
+            report.print(System.out);
+            return report.getFailed() + report.getInvalid() + report.getUnknown() > 0 ? 1 : 0;
+        } catch (Exception e) {
+            logger.error("Import failed: {}", e.getMessage(), e);
+            return 1;
+        }
+    }
+    
+    /**
+     * Import the configured file to the end.
+     *
+     * @return ImportReport with the rows this run processed
+     * @throws IOException If the input, result or checkpoint file cannot be used
+     */
+    public ImportReport run() throws Exception {
+        logger.info("Starting import: {}", config);
+        ImportReport report = new ImportReport();
+        int batchSize = config.getBatchSize();
+        ExecutorService validators = newPool(config.getValidators(), "import-validator");
+        ExecutorService dispatchers = newPool((config.getMaxInFlight() + batchSize - 1) / batchSize,
+                "import-dispatcher");
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "import-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        try (ImportCheckpoint checkpoint = ImportCheckpoint.open(config.getCheckpointFile(), config.getFile());
+             ImportResults results = ImportResults.open(config.getResultFile());
+             BufferedReader reader = openInput(config.getFile())) {
+            if (config.getReportIntervalSeconds() > 0) {
+                long interval = config.getReportIntervalSeconds();
+                reporter.scheduleAtFixedRate(() -> report.printProgress(System.out), interval, interval,
+                        TimeUnit.SECONDS);
+            }
+            
+            Dispatcher dispatcher = new Dispatcher(checkpoint, results, report, dispatchers);
+            try {
+                readAndValidate(reader, results.getCompletedLines(), validators, dispatcher, report);
+                dispatcher.sendPending();
+            } finally {
+                dispatcher.awaitIdle();
+            }
+        } finally {
+            reporter.shutdownNow();
+            validators.shutdownNow();
+            dispatchers.shutdownNow();
+        }
+        
+        report.finish();
+        logger.info("Import of {} finished: {} rows at {} rows/s", config.getFile(), report.getProcessed(),
+                String.format(Locale.ROOT, "%.0f", report.getRowsPerSecond()));
+        return report;
+    }
+    
+    /**
+     * Read the input in chunks, validate chunks in parallel and hand the rows to the
+     * dispatcher in file order. At most two chunks per validator are read ahead.
+     */
+    private void readAndValidate(BufferedReader reader, BitSet completedLines, ExecutorService validators,
+                                 Dispatcher dispatcher, ImportReport report) throws Exception {
+        int lineNumber = 0;
+        ImportRowParser parser;
+        if (config.getFormat() == ImportConfig.Format.CSV) {
+            String header;
+            do {
+                header = reader.readLine();
+                lineNumber++;
+            } while (header != null && header.trim().isEmpty());
+            if (header == null) {
+                return;
+            }
+            parser = ImportRowParser.csv(header);
+        } else {
+            parser = ImportRowParser.jsonLines();
+        }
+        
+        Deque<Future<List<ImportRow>>> validating = new ArrayDeque<>();
+        int maxReadAhead = config.getValidators() * 2;
+        int[] lineNumbers = new int[CHUNK_LINES];
+        String[] lines = new String[CHUNK_LINES];
+        int chunkSize = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            if (completedLines.get(lineNumber)) {
+                report.recordSkipped();
+                continue;
+            }
+            lineNumbers[chunkSize] = lineNumber;
+            lines[chunkSize] = line;
+            if (++chunkSize == CHUNK_LINES) {
+                validating.add(validators.submit(validate(parser, lineNumbers, lines, chunkSize)));
+                lineNumbers = new int[CHUNK_LINES];
+                lines = new String[CHUNK_LINES];
+                chunkSize = 0;
+                if (validating.size() >= maxReadAhead) {
+                    dispatcher.accept(awaitChunk(validating.poll()));
+                }
+            }
+        }
+        if (chunkSize > 0) {
+            validating.add(validators.submit(validate(parser, lineNumbers, lines, chunkSize)));
+        }
+        while (!validating.isEmpty()) {
+            dispatcher.accept(awaitChunk(validating.poll()));
+        }
+    }
+    
+    private static Callable<List<ImportRow>> validate(ImportRowParser parser, int[] lineNumbers, String[] lines,
+                                                      int count) {
+        return () -> {
+            List<ImportRow> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                rows.add(parser.parse(lineNumbers[i], lines[i]));
+            }
+            return rows;
+        };
+    }
+    
+    private static List<ImportRow> awaitChunk(Future<List<ImportRow>> chunk) throws Exception {
+        try {
+            return chunk.get();
+        } catch (ExecutionException e) {
+            throw new Exception("Validation failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+    
+    private BufferedReader openInput(Path file) throws IOException {
+        InputStream input = Files.newInputStream(file);
+        if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz")) {
+            input = new GZIPInputStream(input, BUFFER_BYTES);
+        }
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), BUFFER_BYTES);
+    }
+    
+    private static ExecutorService newPool(int threads, String name) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Groups validated rows into batches and sends them, holding back a batch while too
+     * many operations are outstanding or while an outstanding batch touches one of its
+     * accounts.
+     */
+    private class Dispatcher {
+        private final ImportCheckpoint checkpoint;
+        private final ImportResults results;
+        private final ImportReport report;
+        private final ExecutorService executor;
+        private final BitSet sentLines;
+        private List<ImportRow> pending;
+        
+        // Guarded by this dispatcher
+        private final Map<String, Integer> busyAccounts = new HashMap<>();
+        private int operationsInFlight;
+        private IOException writeFailure;
+        
+        Dispatcher(ImportCheckpoint checkpoint, ImportResults results, ImportReport report, ExecutorService executor) {
+            this.checkpoint = checkpoint;
+            this.results = results;
+            this.report = report;
+            this.executor = executor;
+            this.sentLines = checkpoint.getSentLines();
+            this.pending = new ArrayList<>(config.getBatchSize());
+        }
+        
+        void accept(List<ImportRow> rows) throws Exception {
+            for (ImportRow row : rows) {
+                if (!row.isValid()) {
+                    results.write(row.getLineNumber(), null, "INVALID", null, row.getError());
+                    report.recordInvalid();
+                } else if (sentLines.get(row.getLineNumber())) {
+                    results.write(row.getLineNumber(), row.getOperation().getOperationId(), "UNKNOWN", null,
+                            "Sent by an earlier run that stopped before recording the result; not sent again");
+                    report.recordUnknown();
+                } else {
+                    pending.add(row);
+                    if (pending.size() == config.getBatchSize()) {
+                        sendPending();
+                    }
+                }
+            }
+        }
+        
+        void sendPending() throws Exception {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<ImportRow> batch = pending;
+            pending = new ArrayList<>(config.getBatchSize());
+            Set<String> accounts = new HashSet<>();
+            for (ImportRow row : batch) {
+                Collections.addAll(accounts, row.getOperation().touchedAccounts());
+            }
+            
+            synchronized (this) {
+                while (writeFailure == null && (isBusy(accounts)
+                        || operationsInFlight > 0 && operationsInFlight + batch.size() > config.getMaxInFlight())) {
+                    wait();
+                }
+                if (writeFailure != null) {
+                    throw writeFailure;
+                }
+                operationsInFlight += batch.size();
+                for (String accountNumber : accounts) {
+                    busyAccounts.merge(accountNumber, 1, Integer::sum);
+                }
+            }
+            
+            try {
+                checkpoint.recordSending(batch.get(0).getLineNumber(), batch.get(batch.size() - 1).getLineNumber());
+                executor.execute(() -> execute(batch, accounts));
+            } catch (Exception e) {
+                finished(batch.size(), accounts, null);
+                throw e;
+            }
+        }
+        
+        private boolean isBusy(Set<String> accounts) {
+            for (String accountNumber : accounts) {
+                if (busyAccounts.containsKey(accountNumber)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        private void execute(List<ImportRow> batch, Set<String> accounts) {
+            List<BankingOperation> operations = new ArrayList<>(batch.size());
+            for (ImportRow row : batch) {
+                operations.add(row.getOperation());
+            }
+            
+            List<OperationResult> outcomes = null;
+            String failure = null;
+            try {
+                outcomes = bankingService.executeBatch(operations);
+            } catch (Exception e) {
+                failure = "Batch failed, outcome unknown: " + e.getMessage();
+            }
+            
+            IOException writeError = null;
+            try {
+                for (int i = 0; i < batch.size(); i++) {
+                    BankingOperation operation = operations.get(i);
+                    if (outcomes == null) {
+                        // The server may have applied any of them, so none is reported as failed
+                        results.write(batch.get(i).getLineNumber(), operation.getOperationId(), "UNKNOWN", null,
+                                failure);
+                        report.recordUnknown();
+                        continue;
+                    }
+                    OperationResult outcome = outcomes.get(i);
+                    results.write(batch.get(i).getLineNumber(), operation.getOperationId(),
+                            outcome.getStatus().name(),
+                            outcome.getAccount() != null ? outcome.getAccount().getBalance() : null,
+                            outcome.getMessage());
+                    report.record(outcome.getStatus());
+                }
+                results.flush();
+            } catch (IOException e) {
+                logger.error("Failed to write import results: {}", e.getMessage(), e);
+                writeError = e;
+            } finally {
+                finished(batch.size(), accounts, writeError);
+            }
+        }
+        
+        private synchronized void finished(int operations, Set<String> accounts, IOException writeError) {
+            operationsInFlight -= operations;
+            for (String accountNumber : accounts) {
+                busyAccounts.computeIfPresent(accountNumber, (key, count) -> count > 1 ? count - 1 : null);
+            }
+            if (writeError != null && writeFailure == null) {
+                writeFailure = writeError;
+            }
+            notifyAll();
+        }
+        
+        /**
+         * Wait for every batch sent so far.
+         */
+        synchronized void awaitIdle() throws Exception {
+            while (operationsInFlight > 0) {
+                wait();
+            }
+            if (writeFailure != null) {
+                throw writeFailure;
+            }
+        }
+    }
+}
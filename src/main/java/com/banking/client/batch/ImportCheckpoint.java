@@ -0,0 +1,105 @@
+package com.banking.client.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * Write-ahead record of the input lines sent to the server. Before a batch is sent,
+ * the range of lines it covers is appended and forced to disk, so after a crash every
+ * line that may have reached the server is known, whether or not its result was
+ * written. The first line identifies the input file, and a checkpoint is only resumed
+ * against the same file.
+ */
+class ImportCheckpoint implements Closeable {
+    
+    private final FileChannel channel;
+    private final BitSet sentLines;
+    
+    private ImportCheckpoint(FileChannel channel, BitSet sentLines) {
+        this.channel = channel;
+        this.sentLines = sentLines;
+    }
+    
+    /**
+     * Open the checkpoint of an input file, creating it if it does not exist.
+     *
+     * @throws IOException If the checkpoint cannot be read or written, or belongs to
+     *         a different input file
+     */
+    static ImportCheckpoint open(Path file, Path input) throws IOException {
+        String identity = "input " + Files.size(input) + " " + input.toAbsolutePath().normalize();
+        BitSet sentLines = new BitSet();
+        long validLength = 0;
+        
+        if (Files.exists(file)) {
+            // Only newline-terminated records count; a torn record at the end of a crashed
+            // run was written before its batch was sent, so the batch never left
+            byte[] content = Files.readAllBytes(file);
+            int start = 0;
+            for (int end = 0; end < content.length; end++) {
+                if (content[end] != '\n') {
+                    continue;
+                }
+                String line = new String(content, start, end - start, StandardCharsets.UTF_8);
+                if (start == 0) {
+                    if (!line.equals(identity)) {
+                        throw new IOException("Checkpoint " + file + " belongs to a different input (" + line
+                                + "); remove it and the result file to import " + input + " from the start");
+                    }
+                } else {
+                    String[] range = line.split(" ");
+                    if (range.length != 3 || !range[0].equals("S")) {
+                        throw new IOException("Corrupt checkpoint " + file + ": " + line);
+                    }
+                    sentLines.set(Integer.parseInt(range[1]), Integer.parseInt(range[2]) + 1);
+                }
+                start = end + 1;
+            }
+            validLength = start;
+        }
+        
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(validLength);
+        channel.position(validLength);
+        ImportCheckpoint checkpoint = new ImportCheckpoint(channel, sentLines);
+        if (validLength == 0) {
+            checkpoint.append(identity);
+        }
+        return checkpoint;
+    }
+    
+    /**
+     * Lines recorded as sent by earlier runs.
+     */
+    BitSet getSentLines() {
+        return sentLines;
+    }
+    
+    /**
+     * Record that the lines from first to last, inclusive, are about to be sent. Returns
+     * once the record is on disk.
+     */
+    synchronized void recordSending(int firstLine, int lastLine) throws IOException {
+        append("S " + firstLine + " " + lastLine);
+    }
+    
+    private void append(String line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
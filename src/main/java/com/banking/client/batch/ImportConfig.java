@@ -0,0 +1,215 @@
+package com.banking.client.batch;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Settings for a headless file import, parsed from {@code --name=value} command-line options.
+ */
+public class ImportConfig {
+    
+    /**
+     * Input file layout.
+     */
+    public enum Format {
+        /** Comma-separated values with a header row naming the columns. */
+        CSV,
+        /** One JSON object per line. */
+        JSON_LINES
+    }
+    
+    private Path file;
+    private Format format;
+    private Path resultFile;
+    private Path checkpointFile;
+    private int validators = Runtime.getRuntime().availableProcessors();
+    private int maxInFlight = 256;
+    private int batchSize = 100;
+    private long reportIntervalSeconds = 1;
+    
+    /**
+     * Parse command-line options. Arguments that are not {@code --name=value} options
+     * are ignored, so the application's own mode flag can stay in the list.
+     *
+     * @param args Command-line arguments
+     * @return ImportConfig instance
+     */
+    public static ImportConfig fromArgs(String[] args) {
+        ImportConfig config = new ImportConfig();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                continue;
+            }
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            switch (name) {
+                case "file":
+                    config.setFile(Paths.get(value));
+                    break;
+                case "format":
+                    config.setFormat(parseFormat(value));
+                    break;
+                case "results":
+                    config.setResultFile(Paths.get(value));
+                    break;
+                case "checkpoint":
+                    config.setCheckpointFile(Paths.get(value));
+                    break;
+                case "validators":
+                    config.setValidators(Integer.parseInt(value));
+                    break;
+                case "in-flight":
+                    config.setMaxInFlight(Integer.parseInt(value));
+                    break;
+                case "batch-size":
+                    config.setBatchSize(Integer.parseInt(value));
+                    break;
+                case "report-interval":
+                    config.setReportIntervalSeconds(Long.parseLong(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown import option: --" + name);
+            }
+        }
+        config.validate();
+        return config;
+    }
+    
+    private static Format parseFormat(String value) {
+        switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "csv":
+                return Format.CSV;
+            case "jsonl":
+            case "json-lines":
+            case "json_lines":
+                return Format.JSON_LINES;
+            default:
+                throw new IllegalArgumentException("Unknown import format: " + value + " (use csv or jsonl)");
+        }
+    }
+    
+    private void validate() {
+        if (file == null) {
+            throw new IllegalArgumentException("--file is required");
+        }
+        if (validators <= 0 || maxInFlight <= 0 || batchSize <= 0 || reportIntervalSeconds < 0) {
+            throw new IllegalArgumentException("validators, in-flight and batch-size must be positive");
+        }
+    }
+    
+    public Path getFile() {
+        return file;
+    }
+    
+    public void setFile(Path file) {
+        this.file = file;
+    }
+    
+    /**
+     * The input format; unless set, JSON Lines for files named {@code .jsonl} or
+     * {@code .ndjson} (optionally followed by {@code .gz}) and CSV otherwise.
+     */
+    public Format getFormat() {
+        if (format != null) {
+            return format;
+        }
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        return name.endsWith(".jsonl") || name.endsWith(".ndjson") ? Format.JSON_LINES : Format.CSV;
+    }
+    
+    public void setFormat(Format format) {
+        this.format = format;
+    }
+    
+    /**
+     * Where each row's outcome is written; defaults to the input file name followed by
+     * {@code .results.csv}.
+     */
+    public Path getResultFile() {
+        return resultFile != null ? resultFile : siblingOfInput(".results.csv");
+    }
+    
+    public void setResultFile(Path resultFile) {
+        this.resultFile = resultFile;
+    }
+    
+    /**
+     * Where the rows sent to the server are recorded; defaults to the input file name
+     * followed by {@code .checkpoint}.
+     */
+    public Path getCheckpointFile() {
+        return checkpointFile != null ? checkpointFile : siblingOfInput(".checkpoint");
+    }
+    
+    public void setCheckpointFile(Path checkpointFile) {
+        this.checkpointFile = checkpointFile;
+    }
+    
+    private Path siblingOfInput(String suffix) {
+        return file.resolveSibling(file.getFileName() + suffix);
+    }
+    
+    public int getValidators() {
+        return validators;
+    }
+    
+    /**
+     * Threads parsing and validating rows.
+     */
+    public void setValidators(int validators) {
+        this.validators = validators;
+    }
+    
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+    
+    /**
+     * Operations sent to the server and not yet answered; reading the file pauses
+     * while this many are outstanding.
+     */
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+    
+    public int getBatchSize() {
+        return batchSize;
+    }
+    
+    /**
+     * Operations per {@code executeBatch} call.
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+    
+    public long getReportIntervalSeconds() {
+        return reportIntervalSeconds;
+    }
+    
+    /**
+     * Interval between progress lines on standard output; 0 prints only the final report.
+     */
+    public void setReportIntervalSeconds(long reportIntervalSeconds) {
+        this.reportIntervalSeconds = reportIntervalSeconds;
+    }
+    
+    @Override
+    public String toString() {
+        return "ImportConfig{" +
+                "file=" + file +
+                ", format=" + getFormat() +
+                ", resultFile=" + getResultFile() +
+                ", checkpointFile=" + getCheckpointFile() +
+                ", validators=" + validators +
+                ", maxInFlight=" + maxInFlight +
+                ", batchSize=" + batchSize +
+                ", reportIntervalSeconds=" + reportIntervalSeconds +
+                '}';
+    }
+}
@@ -0,0 +1,117 @@
+package com.banking.client.batch;
+
+import com.banking.client.model.OperationResult;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Row counts of an import run, by outcome.
+ * Rows an earlier run already completed are counted as skipped; rows an earlier run
+ * sent without recording a result are counted as unknown and not sent again, as are
+ * rows of a batch whose call failed without an answer.
+ */
+public class ImportReport {
+    
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder insufficientFunds = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder invalid = new LongAdder();
+    private final LongAdder unknown = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final long startNanos = System.nanoTime();
+    private long elapsedNanos;
+    // Rows and time at the previous progress line
+    private long lastProcessed;
+    private long lastNanos = startNanos;
+    
+    void record(OperationResult.Status status) {
+        switch (status) {
+            case SUCCEEDED:
+                succeeded.increment();
+                break;
+            case INSUFFICIENT_FUNDS:
+                insufficientFunds.increment();
+                break;
+            default:
+                failed.increment();
+                break;
+        }
+    }
+    
+    void recordInvalid() {
+        invalid.increment();
+    }
+    
+    void recordUnknown() {
+        unknown.increment();
+    }
+    
+    void recordSkipped() {
+        skipped.increment();
+    }
+    
+    void finish() {
+        elapsedNanos = System.nanoTime() - startNanos;
+    }
+    
+    /**
+     * Rows given an outcome by this run.
+     */
+    public long getProcessed() {
+        return succeeded.sum() + insufficientFunds.sum() + failed.sum() + invalid.sum() + unknown.sum();
+    }
+    
+    public long getSucceeded() {
+        return succeeded.sum();
+    }
+    
+    public long getInsufficientFunds() {
+        return insufficientFunds.sum();
+    }
+    
+    public long getFailed() {
+        return failed.sum();
+    }
+    
+    public long getInvalid() {
+        return invalid.sum();
+    }
+    
+    public long getUnknown() {
+        return unknown.sum();
+    }
+    
+    public long getSkipped() {
+        return skipped.sum();
+    }
+    
+    public double getRowsPerSecond() {
+        long nanos = elapsedNanos > 0 ? elapsedNanos : System.nanoTime() - startNanos;
+        return nanos > 0 ? getProcessed() * 1e9 / nanos : 0;
+    }
+    
+    /**
+     * Print one progress line with the rate since the previous line and overall.
+     */
+    synchronized void printProgress(PrintStream out) {
+        long now = System.nanoTime();
+        long processed = getProcessed();
+        double currentRate = now > lastNanos ? (processed - lastProcessed) * 1e9 / (now - lastNanos) : 0;
+        lastProcessed = processed;
+        lastNanos = now;
+        out.printf("%,d rows, %.0f rows/s (%.0f rows/s overall): %,d succeeded, %,d insufficient funds, "
+                        + "%,d failed, %,d invalid, %,d unknown, %,d skipped%n",
+                processed, currentRate, getRowsPerSecond(), getSucceeded(), getInsufficientFunds(),
+                getFailed(), getInvalid(), getUnknown(), getSkipped());
+    }
+    
+    public void print(PrintStream out) {
+        out.printf("Import: %,d rows in %.1f s, %.0f rows/s%n", getProcessed(), elapsedNanos / 1e9,
+                getRowsPerSecond());
+        out.printf("Succeeded: %,d, insufficient funds: %,d, failed: %,d, invalid: %,d%n",
+                getSucceeded(), getInsufficientFunds(), getFailed(), getInvalid());
+        out.printf("Skipped (completed by an earlier run): %,d, unknown (outcome not known, not resent): %,d%n",
+                getSkipped(), getUnknown());
+    }
+}
@@ -0,0 +1,133 @@
+package com.banking.client.batch;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * CSV file with one outcome per input line, in completion order:
+ * {@code line,operationId,status,balance,message}. Reopening the file for a resumed
+ * import keeps its results and reports which lines they cover.
+ */
+class ImportResults implements Closeable {
+    
+    private static final String HEADER = "line,operationId,status,balance,message\n";
+    private static final int BUFFER_CHARS = 64 * 1024;
+    
+    private final Writer writer;
+    private final BitSet completedLines;
+    private final StringBuilder row = new StringBuilder();
+    
+    private ImportResults(Writer writer, BitSet completedLines) {
+        this.writer = writer;
+        this.completedLines = completedLines;
+    }
+    
+    /**
+     * Open a result file for appending, creating it if it does not exist. A partial row
+     * left at the end by a crashed run is dropped.
+     */
+    static ImportResults open(Path file) throws IOException {
+        BitSet completedLines = new BitSet();
+        long validLength = 0;
+        if (Files.exists(file)) {
+            byte[] content = Files.readAllBytes(file);
+            int start = 0;
+            for (int end = 0; end < content.length; end++) {
+                if (content[end] != '\n') {
+                    continue;
+                }
+                if (start > 0) {
+                    int separator = start;
+                    while (separator < end && content[separator] != ',') {
+                        separator++;
+                    }
+                    completedLines.set(Integer.parseInt(
+                            new String(content, start, separator - start, StandardCharsets.US_ASCII)));
+                }
+                start = end + 1;
+            }
+            validLength = start;
+        }
+        
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(validLength);
+        channel.position(validLength);
+        ImportResults results = new ImportResults(new BufferedWriter(new OutputStreamWriter(
+                Channels.newOutputStream(channel), StandardCharsets.UTF_8), BUFFER_CHARS), completedLines);
+        if (validLength == 0) {
+            results.writer.write(HEADER);
+        }
+        return results;
+    }
+    
+    /**
+     * Lines whose results earlier runs wrote.
+     */
+    BitSet getCompletedLines() {
+        return completedLines;
+    }
+    
+    /**
+     * @param balance Balance after the operation, or null if unknown
+     */
+    synchronized void write(int lineNumber, String operationId, String status, Double balance, String message)
+            throws IOException {
+        row.setLength(0);
+        row.append(lineNumber).append(',');
+        appendField(operationId);
+        row.append(',').append(status).append(',');
+        if (balance != null) {
+            row.append(balance);
+        }
+        row.append(',');
+        appendField(message);
+        row.append('\n');
+        writer.append(row);
+    }
+    
+    /**
+     * Hand buffered results to the operating system, so they survive the process.
+     */
+    synchronized void flush() throws IOException {
+        writer.flush();
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+    
+    /**
+     * Quote a field only when it contains a separator or quote. Line breaks become
+     * spaces, so every result stays on one line.
+     */
+    private void appendField(String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0;
+        if (quote) {
+            row.append('"');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                row.append('"');
+            }
+            row.append(c == '\n' || c == '\r' ? ' ' : c);
+        }
+        if (quote) {
+            row.append('"');
+        }
+    }
+}
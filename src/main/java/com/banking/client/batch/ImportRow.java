@@ -0,0 +1,46 @@
+package com.banking.client.batch;
+
+import com.banking.client.model.BankingOperation;
+
+/**
+ * One parsed input line: either a valid operation or the reason it was rejected.
+ */
+class ImportRow {
+    
+    private final int lineNumber;
+    private final BankingOperation operation;
+    private final String error;
+    
+    private ImportRow(int lineNumber, BankingOperation operation, String error) {
+        this.lineNumber = lineNumber;
+        this.operation = operation;
+        this.error = error;
+    }
+    
+    static ImportRow valid(int lineNumber, BankingOperation operation) {
+        return new ImportRow(lineNumber, operation, null);
+    }
+    
+    static ImportRow invalid(int lineNumber, String error) {
+        return new ImportRow(lineNumber, null, error);
+    }
+    
+    int getLineNumber() {
+        return lineNumber;
+    }
+    
+    /**
+     * The operation, or null if the row is invalid.
+     */
+    BankingOperation getOperation() {
+        return operation;
+    }
+    
+    String getError() {
+        return error;
+    }
+    
+    boolean isValid() {
+        return error == null;
+    }
+}
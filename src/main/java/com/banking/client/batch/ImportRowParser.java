@@ -0,0 +1,153 @@
+package com.banking.client.batch;
+
+import com.banking.client.model.BankingOperation;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Turns input lines into validated operations. CSV files start with a header naming
+ * the columns {@code operationId}, {@code type}, {@code accountNumber},
+ * {@code destinationAccountNumber} and {@code amount}, in any order; JSON Lines
+ * objects use the same names. Columns and fields other than these are ignored.
+ * A parser holds no mutable state, so one instance serves every validator thread.
+ */
+class ImportRowParser {
+    
+    private static final String[] COLUMNS = {
+            "operationId", "type", "accountNumber", "destinationAccountNumber", "amount"
+    };
+    
+    private final ObjectReader jsonReader;
+    // CSV: position of each known column in a row, or -1 when the file has no such column
+    private final int[] columnIndexes;
+    
+    private ImportRowParser(ObjectReader jsonReader, int[] columnIndexes) {
+        this.jsonReader = jsonReader;
+        this.columnIndexes = columnIndexes;
+    }
+    
+    static ImportRowParser jsonLines() {
+        return new ImportRowParser(new ObjectMapper()
+                .readerFor(BankingOperation.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES), null);
+    }
+    
+    /**
+     * @throws IllegalArgumentException If the header lacks a required column
+     */
+    static ImportRowParser csv(String header) {
+        Map<String, Integer> positions = new HashMap<>();
+        List<String> names = splitCsv(header);
+        for (int i = 0; i < names.size(); i++) {
+            positions.put(names.get(i).trim(), i);
+        }
+        int[] columnIndexes = new int[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            columnIndexes[i] = positions.getOrDefault(COLUMNS[i], -1);
+        }
+        for (String required : new String[] {"type", "accountNumber", "amount"}) {
+            if (!positions.containsKey(required)) {
+                throw new IllegalArgumentException("The CSV header has no " + required + " column: " + header);
+            }
+        }
+        return new ImportRowParser(null, columnIndexes);
+    }
+    
+    ImportRow parse(int lineNumber, String line) {
+        BankingOperation operation;
+        try {
+            operation = jsonReader != null ? jsonReader.readValue(line) : parseCsv(line);
+        } catch (Exception e) {
+            return ImportRow.invalid(lineNumber, "Cannot parse row: " + e.getMessage());
+        }
+        String error = validate(operation);
+        return error == null ? ImportRow.valid(lineNumber, operation) : ImportRow.invalid(lineNumber, error);
+    }
+    
+    private BankingOperation parseCsv(String line) {
+        List<String> fields = splitCsv(line);
+        String[] values = new String[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            int index = columnIndexes[i];
+            String value = index >= 0 && index < fields.size() ? fields.get(index).trim() : "";
+            values[i] = value.isEmpty() ? null : value;
+        }
+        BankingOperation operation = new BankingOperation();
+        operation.setOperationId(values[0]);
+        if (values[1] != null) {
+            operation.setType(BankingOperation.Type.valueOf(values[1].toUpperCase(Locale.ROOT)));
+        }
+        operation.setAccountNumber(values[2]);
+        operation.setDestinationAccountNumber(values[3]);
+        if (values[4] != null) {
+            operation.setAmount(Double.parseDouble(values[4]));
+        }
+        return operation;
+    }
+    
+    private static String validate(BankingOperation operation) {
+        if (operation.getType() == null) {
+            return "Missing operation type";
+        }
+        if (isBlank(operation.getAccountNumber())) {
+            return "Missing account number";
+        }
+        if (!(operation.getAmount() > 0) || Double.isInfinite(operation.getAmount())) {
+            return "Amount must be a positive number";
+        }
+        if (operation.getType() == BankingOperation.Type.TRANSFER) {
+            if (isBlank(operation.getDestinationAccountNumber())) {
+                return "Missing destination account number";
+            }
+            if (operation.getDestinationAccountNumber().equals(operation.getAccountNumber())) {
+                return "Transfer to the source account";
+            }
+        } else {
+            operation.setDestinationAccountNumber(null);
+        }
+        return null;
+    }
+    
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+    
+    /**
+     * Split one CSV line into fields. Quoted fields may contain separators and doubled
+     * quotes, but not line breaks.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -2,6 +2,7 @@ package com.banking.client.gui;
 
 import com.banking.client.service.BankingService;
 import com.banking.client.service.BankingServiceFactory;
+import com.banking.client.store.HistoryStore;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -14,12 +15,15 @@ public class BankingClientGUI extends Application {
     
     private static final Logger logger = LogManager.getLogger(BankingClientGUI.class);
     
+    private BankingService bankingService;
+    
     @Override
     public void start(Stage primaryStage) throws Exception {
         logger.info("Starting Banking Client GUI");
         
         // Create the banking service using the factory
-        BankingService bankingService = BankingServiceFactory.createService();
+        bankingService = BankingServiceFactory.createService();
+        HistoryStore historyStore = BankingServiceFactory.createHistoryStore();
         
         // Load the FXML and set the controller
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/LoginView.fxml"));
@@ -28,6 +32,7 @@ public class BankingClientGUI extends Application {
         // Get the controller and set the banking service
         LoginController controller = loader.getController();
         controller.setBankingService(bankingService);
+        controller.setHistoryStore(historyStore);
         controller.setPrimaryStage(primaryStage);
         
         // Set up the stage
@@ -37,4 +42,13 @@ public class BankingClientGUI extends Application {
         
         logger.info("Banking Client GUI started");
     }
+    
+    @Override
+    public void stop() {
+        logger.info("Stopping Banking Client GUI");
+        
+        if (bankingService != null) {
+            bankingService.close();
+        }
+    }
 }
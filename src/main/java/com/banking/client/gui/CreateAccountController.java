@@ -5,6 +5,7 @@ import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TextField;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -21,10 +22,18 @@ public class CreateAccountController {
     @FXML private TextField initialBalanceField;
     @FXML private Button createButton;
     @FXML private Button cancelButton;
+    @FXML private ProgressIndicator progressIndicator;
     
+    private final UiTaskRunner taskRunner = new UiTaskRunner();
     private BankingService bankingService;
     private LoginController loginController;
     
+    @FXML
+    private void initialize() {
+        createButton.disableProperty().bind(taskRunner.busyProperty());
+        progressIndicator.visibleProperty().bind(taskRunner.busyProperty());
+    }
+    
     public void setBankingService(BankingService bankingService) {
         this.bankingService = bankingService;
     }
@@ -44,32 +53,40 @@ public class CreateAccountController {
             return;
         }
         
+        double initialBalance;
         try {
-            double initialBalance = Double.parseDouble(initialBalanceText);
-            
-            if (initialBalance < 0) {
-                showAlert("Error", "Initial balance cannot be negative.");
-                return;
-            }
-            
-            bankingService.createAccount(accountNumber, accountHolder, initialBalance);
-            
-            showAlert("Success", "Account created successfully!");
-            
-            // Return to login view
-          loginController.setPrimaryStage((Stage) cancelButton.getScene().getWindow());
-            
+            initialBalance = Double.parseDouble(initialBalanceText);
         } catch (NumberFormatException e) {
             showAlert("Error", "Please enter a valid number for initial balance.");
-        } catch (Exception e) {
-            logger.error("Account creation error: {}", e.getMessage(), e);
-            showAlert("Error", "Failed to create account: " + e.getMessage());
+            return;
         }
+        
+        if (initialBalance < 0) {
+            showAlert("Error", "Initial balance cannot be negative.");
+            return;
+        }
+        
+        taskRunner.submit("Creating account...",
+                () -> bankingService.createAccount(accountNumber, accountHolder, initialBalance),
+                created -> accountCreated(), this::accountCreationFailed);
+    }
+    
+    private void accountCreated() {
+        showAlert("Success", "Account created successfully!");
+        
+        // Return to login view
+        loginController.setPrimaryStage((Stage) cancelButton.getScene().getWindow());
+    }
+    
+    private void accountCreationFailed(Throwable error) {
+        logger.error("Account creation error: {}", error.getMessage(), error);
+        showAlert("Error", "Failed to create account: " + error.getMessage());
     }
     
     @FXML
     private void handleCancel(ActionEvent event) {
-        // Return to login view
+        // Abandon a pending creation and return to login view
+        taskRunner.cancelAll();
         loginController.setPrimaryStage((Stage) cancelButton.getScene().getWindow());
     }
     
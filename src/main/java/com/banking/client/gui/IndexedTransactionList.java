@@ -0,0 +1,38 @@
+package com.banking.client.gui;
+
+import com.banking.client.store.ColumnarTransactionStore;
+import javafx.collections.ObservableListBase;
+
+/**
+ * Read-only table items for the rows a {@link com.banking.client.store.TransactionIndex}
+ * query matched. A row object is only created when the table first shows it, so a
+ * query matching a million transactions creates objects for the rows on screen only,
+ * and a shown row stays the same object while the result is displayed.
+ */
+final class IndexedTransactionList extends ObservableListBase<TransactionRow> {
+    
+    private final ColumnarTransactionStore store;
+    private final int[] rows;
+    private final TransactionRow[] materialized;
+    
+    IndexedTransactionList(ColumnarTransactionStore store, int[] rows) {
+        this.store = store;
+        this.rows = rows;
+        this.materialized = new TransactionRow[rows.length];
+    }
+    
+    @Override
+    public TransactionRow get(int index) {
+        TransactionRow row = materialized[index];
+        if (row == null) {
+            row = new TransactionRow(store.get(rows[index]));
+            materialized[index] = row;
+        }
+        return row;
+    }
+    
+    @Override
+    public int size() {
+        return rows.length;
+    }
+}
@@ -2,6 +2,8 @@ package com.banking.client.gui;
 
 import com.banking.client.model.Account;
 import com.banking.client.service.BankingService;
+import com.banking.client.store.HistoryStore;
+import com.banking.client.store.StoredHistory;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -10,6 +12,7 @@ import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
 import org.apache.logging.log4j.LogManager;
@@ -28,14 +31,33 @@ public class LoginController {
     @FXML private Button loginButton;
     @FXML private Button createAccountButton;
     @FXML private Label statusLabel;
+    @FXML private Button cancelButton;
+    @FXML private ProgressIndicator progressIndicator;
     
+    private final UiTaskRunner taskRunner = new UiTaskRunner();
     private BankingService bankingService;
+    private HistoryStore historyStore;
     private Stage primaryStage;
     
+    @FXML
+    private void initialize() {
+        // Keep the window responsive during login and show that it is in progress
+        accountNumberField.disableProperty().bind(taskRunner.busyProperty());
+        loginButton.disableProperty().bind(taskRunner.busyProperty());
+        createAccountButton.disableProperty().bind(taskRunner.busyProperty());
+        cancelButton.visibleProperty().bind(taskRunner.busyProperty());
+        progressIndicator.visibleProperty().bind(taskRunner.busyProperty());
+        statusLabel.textProperty().bind(taskRunner.messageProperty());
+    }
+    
     public void setBankingService(BankingService bankingService) {
         this.bankingService = bankingService;
     }
     
+    public void setHistoryStore(HistoryStore historyStore) {
+        this.historyStore = historyStore;
+    }
+    
     public void setPrimaryStage(Stage primaryStage) {
         this.primaryStage = primaryStage;
     }
@@ -49,17 +71,39 @@ public class LoginController {
             return;
         }
         
-        try {
-            Account account = bankingService.getAccount(accountNumber);
-            
+        // A stored snapshot opens the view straight away; it is synced with the server from there
+        taskRunner.submit("Logging in...", () -> loadStoredHistory(accountNumber), stored -> {
+            if (stored != null && stored.getAccount() != null) {
+                logger.info("Opened stored history of account: {}", accountNumber);
+                openMainView(stored.getAccount(), stored);
+            } else {
+                loginOnline(accountNumber, stored);
+            }
+        }, error -> {
+            logger.warn("Could not read stored history of account {}: {}", accountNumber, error.getMessage());
+            loginOnline(accountNumber, null);
+        });
+    }
+    
+    private StoredHistory loadStoredHistory(String accountNumber) throws Exception {
+        return historyStore != null ? historyStore.load(accountNumber) : null;
+    }
+    
+    private void loginOnline(String accountNumber, StoredHistory stored) {
+        taskRunner.submit("Logging in...", () -> bankingService.getAccount(accountNumber), account -> {
             if (account != null) {
                 logger.info("Logged in to account: {}", accountNumber);
-                openMainView(account);
+                openMainView(account, stored);
             }
-        } catch (Exception e) {
-            logger.error("Login error: {}", e.getMessage(), e);
-            showAlert("Login Error", "Could not log in: " + e.getMessage());
-        }
+        }, error -> {
+            logger.error("Login error: {}", error.getMessage(), error);
+            showAlert("Login Error", "Could not log in: " + error.getMessage());
+        });
+    }
+    
+    @FXML
+    private void handleCancel(ActionEvent event) {
+        taskRunner.cancelAll();
     }
     
     @FXML
@@ -74,14 +118,14 @@ public class LoginController {
             
             Scene scene = new Scene(root, 600, 400);
             primaryStage.setScene(scene);
-            
+        
         } catch (IOException e) {
             logger.error("Error opening create account view: {}", e.getMessage(), e);
             showAlert("Error", "Could not open create account view: " + e.getMessage());
         }
     }
     
-    private void openMainView(Account account) {
+    private void openMainView(Account account, StoredHistory stored) {
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/MainView.fxml"));
             Parent root = loader.load();
@@ -89,11 +133,12 @@ public class LoginController {
             MainController controller = loader.getController();
             controller.setBankingService(bankingService);
             controller.setAccount(account);
+            controller.setHistoryStore(historyStore, stored);
             controller.initialize();
             
             Scene scene = new Scene(root, 800, 600);
             primaryStage.setScene(scene);
-            
+        
         } catch (IOException e) {
             logger.error("Error opening main view: {}", e.getMessage(), e);
             showAlert("Error", "Could not open main view: " + e.getMessage());
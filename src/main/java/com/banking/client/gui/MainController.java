@@ -1,21 +1,45 @@
 package com.banking.client.gui;
 
 import com.banking.client.model.Account;
+import com.banking.client.model.AccountUpdate;
 import com.banking.client.model.InsufficientFundsException;
 import com.banking.client.model.Transaction;
+import com.banking.client.service.AccountUpdateListener;
 import com.banking.client.service.BankingService;
+import com.banking.client.service.ExportOptions;
+import com.banking.client.service.HistoryExporter;
+import com.banking.client.store.HistoryStore;
+import com.banking.client.store.StoredHistory;
+import com.banking.client.store.TransactionFilter;
+import com.banking.client.store.TransactionIndex;
 import javafx.application.Platform;
-import javafx.collections.FXCollections;
+import javafx.beans.binding.BooleanBinding;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.collections.ListChangeListener;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.FileChooser;
+import org.apache.hc.client5.http.ConnectTimeoutException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.text.SimpleDateFormat;
+import java.io.File;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.rmi.RemoteException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
 
 /**
  * Controller for the main view.
@@ -23,20 +47,51 @@ import java.util.Optional;
 public class MainController {
     
     private static final Logger logger = LogManager.getLogger(MainController.class);
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    private static final int PAGE_SIZE = 100;
+    private static final int PREFETCH_ROWS = 20;
+    private static final String ALL_TYPES = "All types";
     
     @FXML private Label accountNumberLabel;
     @FXML private Label accountHolderLabel;
     @FXML private Label balanceLabel;
     
-    @FXML private TableView<Transaction> transactionsTable;
-    @FXML private TableColumn<Transaction, String> dateColumn;
-    @FXML private TableColumn<Transaction, String> typeColumn;
-    @FXML private TableColumn<Transaction, Double> amountColumn;
-    @FXML private TableColumn<Transaction, String> descriptionColumn;
+    @FXML private Button depositButton;
+    @FXML private Button withdrawButton;
+    @FXML private Button transferButton;
+    @FXML private Button refreshButton;
+    @FXML private Button exportButton;
+    @FXML private Button cancelButton;
+    @FXML private ProgressIndicator progressIndicator;
+    @FXML private Label statusLabel;
+    @FXML private Label offlineLabel;
+    
+    @FXML private TextField searchField;
+    @FXML private ComboBox<String> typeFilterBox;
+    @FXML private DatePicker fromDatePicker;
+    @FXML private DatePicker toDatePicker;
+    @FXML private TextField minAmountField;
+    @FXML private TextField maxAmountField;
+    @FXML private Label filterCountLabel;
+    
+    @FXML private TableView<TransactionRow> transactionsTable;
+    @FXML private TableColumn<TransactionRow, String> dateColumn;
+    @FXML private TableColumn<TransactionRow, String> typeColumn;
+    @FXML private TableColumn<TransactionRow, Double> amountColumn;
+    @FXML private TableColumn<TransactionRow, String> descriptionColumn;
     
     private BankingService bankingService;
     private Account account;
+    private final UiTaskRunner taskRunner = new UiTaskRunner();
+    private final TransactionTableModel transactionModel = new TransactionTableModel();
+    private TransactionPager transactionPager;
+    private final TransactionIndex transactionIndex = new TransactionIndex();
+    private boolean subscriptionConnected;
+    private HistoryStore historyStore;
+    private StoredHistory storedHistory;
+    // Display order recorded with the last stored snapshot
+    private boolean storedNewestFirst;
+    // Set while the server cannot be reached and the view shows stored history only
+    private final BooleanProperty offline = new SimpleBooleanProperty();
     
     public void setBankingService(BankingService bankingService) {
         this.bankingService = bankingService;
@@ -46,25 +101,255 @@ public class MainController {
         this.account = account;
     }
     
+    /**
+     * Keep the history shown in a local store, and show what it already holds first.
+     * 
+     * @param historyStore The store, or null to keep no local history
+     * @param storedHistory History loaded from the store for this account, or null
+     */
+    public void setHistoryStore(HistoryStore historyStore, StoredHistory storedHistory) {
+        this.historyStore = historyStore;
+        this.storedHistory = storedHistory;
+    }
+    
     public void initialize() {
         // Set up account information
         accountNumberLabel.setText(account.getAccountNumber());
         accountHolderLabel.setText(account.getAccountHolderName());
         updateBalanceLabel();
         
-        // Set up transactions table
-        dateColumn.setCellValueFactory(cellData -> {
-            String formattedDate = DATE_FORMAT.format(cellData.getValue().getTimestamp());
-            return javafx.beans.binding.Bindings.createStringBinding(() -> formattedDate);
+        // Disable the actions and show progress while a service call is running; while
+        // offline the view is read-only and only a refresh can be attempted
+        BooleanBinding busy = taskRunner.busyProperty();
+        BooleanBinding readOnly = busy.or(offline);
+        depositButton.disableProperty().bind(readOnly);
+        withdrawButton.disableProperty().bind(readOnly);
+        transferButton.disableProperty().bind(readOnly);
+        refreshButton.disableProperty().bind(busy);
+        exportButton.disableProperty().bind(readOnly);
+        offlineLabel.visibleProperty().bind(offline);
+        offlineLabel.managedProperty().bind(offline);
+        cancelButton.disableProperty().bind(busy.not());
+        progressIndicator.visibleProperty().bind(busy);
+        statusLabel.textProperty().bind(taskRunner.messageProperty());
+        
+        // Set up transactions table; rows carry their formatted timestamp
+        dateColumn.setCellValueFactory(cellData ->
+                new ReadOnlyStringWrapper(cellData.getValue().getFormattedTimestamp()));
+        typeColumn.setCellValueFactory(cellData ->
+                new ReadOnlyStringWrapper(cellData.getValue().getType()));
+        amountColumn.setCellValueFactory(cellData ->
+                new ReadOnlyObjectWrapper<>(cellData.getValue().getAmount()));
+        descriptionColumn.setCellValueFactory(cellData ->
+                new ReadOnlyStringWrapper(cellData.getValue().getDescription()));
+        
+        // Fetch further pages when a row close to the end of the loaded history is shown
+        transactionsTable.setRowFactory(table -> new TableRow<TransactionRow>() {
+            @Override
+            public void updateIndex(int index) {
+                super.updateIndex(index);
+                // Only while the loaded history is shown; a filter result is not paged
+                if (index >= 0 && table.getItems() == transactionModel.getRows()
+                        && index >= table.getItems().size() - PREFETCH_ROWS) {
+                    requestNextPage();
+                }
+            }
         });
-        typeColumn.setCellValueFactory(new PropertyValueFactory<>("type"));
-        amountColumn.setCellValueFactory(new PropertyValueFactory<>("amount"));
-        descriptionColumn.setCellValueFactory(new PropertyValueFactory<>("description"));
         
-        // Load transactions
+        transactionsTable.setItems(transactionModel.getRows());
+        transactionPager = new TransactionPager(bankingService, taskRunner, account.getAccountNumber(),
+                transactionModel, PAGE_SIZE);
+        setUpFilter();
+        
+        // Show the stored history at once, then only record what the server adds to it
+        if (storedHistory != null) {
+            transactionModel.merge(storedHistory.getTransactions(), true);
+            storedNewestFirst = storedHistory.isNewestFirst();
+        }
+        recordHistory();
+        
+        // Subscribe before the first load so no update falls between the two
+        subscribeToUpdates();
+        
+        // Load transactions; a stored account snapshot is brought up to date as well
+        if (storedHistory != null && storedHistory.getAccount() != null) {
+            refreshAccount();
+        } else {
+            storeSnapshot();
+        }
         loadTransactions();
     }
     
+    /**
+     * Filter the loaded history through an index as the filter controls change. The
+     * index is kept up to date with every row added to the table, and an active filter
+     * is applied again when rows arrive.
+     */
+    private void setUpFilter() {
+        typeFilterBox.getItems().add(ALL_TYPES);
+        for (Transaction.TransactionType type : Transaction.TransactionType.values()) {
+            typeFilterBox.getItems().add(type.name());
+        }
+        typeFilterBox.getSelectionModel().selectFirst();
+        
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> applyFilter());
+        typeFilterBox.valueProperty().addListener((observable, oldValue, newValue) -> applyFilter());
+        fromDatePicker.valueProperty().addListener((observable, oldValue, newValue) -> applyFilter());
+        toDatePicker.valueProperty().addListener((observable, oldValue, newValue) -> applyFilter());
+        minAmountField.textProperty().addListener((observable, oldValue, newValue) -> applyFilter());
+        maxAmountField.textProperty().addListener((observable, oldValue, newValue) -> applyFilter());
+        
+        transactionModel.getRows().addListener((ListChangeListener<TransactionRow>) change -> {
+            List<Transaction> added = new ArrayList<>();
+            while (change.next()) {
+                for (TransactionRow row : change.getAddedSubList()) {
+                    added.add(row.getTransaction());
+                }
+            }
+            // A reload starts the history over
+            if (transactionModel.getRows().isEmpty()) {
+                transactionIndex.clear();
+            }
+            transactionIndex.addAll(added);
+            if (transactionsTable.getItems() != transactionModel.getRows()) {
+                applyFilter();
+            }
+        });
+    }
+    
+    private void applyFilter() {
+        TransactionFilter filter = new TransactionFilter();
+        try {
+            filter.setMinAmount(parseAmount(minAmountField.getText()));
+            filter.setMaxAmount(parseAmount(maxAmountField.getText()));
+        } catch (NumberFormatException e) {
+            // Keep the current result until the amount is complete
+            return;
+        }
+        filter.setText(searchField.getText());
+        if (!ALL_TYPES.equals(typeFilterBox.getValue()) && typeFilterBox.getValue() != null) {
+            filter.setTypes(Collections.singleton(typeFilterBox.getValue()));
+        }
+        if (fromDatePicker.getValue() != null) {
+            filter.setFromMillis(startOfDay(fromDatePicker.getValue()));
+        }
+        if (toDatePicker.getValue() != null) {
+            filter.setToMillis(startOfDay(toDatePicker.getValue().plusDays(1)));
+        }
+        
+        if (filter.isEmpty()) {
+            transactionsTable.setItems(transactionModel.getRows());
+            filterCountLabel.setText("");
+            return;
+        }
+        int[] rows = transactionIndex.query(filter, transactionModel.isNewestFirst());
+        transactionsTable.setItems(new IndexedTransactionList(transactionIndex.getStore(), rows));
+        filterCountLabel.setText(rows.length + " of " + transactionIndex.size() + " loaded transactions");
+    }
+    
+    private static Double parseAmount(String text) {
+        return text == null || text.trim().isEmpty() ? null : Double.valueOf(text.trim());
+    }
+    
+    private static long startOfDay(LocalDate date) {
+        return date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+    
+    /**
+     * Append every row added to the table to the history store, so the next login can
+     * show it before the server answers and it stays viewable offline.
+     */
+    private void recordHistory() {
+        if (historyStore == null) {
+            return;
+        }
+        
+        String accountNumber = account.getAccountNumber();
+        transactionModel.getRows().addListener((ListChangeListener<TransactionRow>) change -> {
+            List<Transaction> added = new ArrayList<>();
+            while (change.next()) {
+                for (TransactionRow row : change.getAddedSubList()) {
+                    added.add(row.getTransaction());
+                }
+            }
+            if (!added.isEmpty()) {
+                writeToStore(() -> {
+                    historyStore.append(accountNumber, added);
+                    return null;
+                });
+            }
+            // The order is only known once enough rows are loaded
+            if (transactionModel.isNewestFirst() != storedNewestFirst) {
+                storeSnapshot();
+            }
+        });
+    }
+    
+    private void storeSnapshot() {
+        if (historyStore == null) {
+            return;
+        }
+        
+        Account snapshot = account;
+        boolean newestFirst = transactionModel.isNewestFirst();
+        storedNewestFirst = newestFirst;
+        writeToStore(() -> {
+            historyStore.saveSnapshot(snapshot, newestFirst);
+            return null;
+        });
+    }
+    
+    private void writeToStore(Callable<Void> write) {
+        // The store is only a cache of the server, so a failed write is not worth interrupting the user for
+        taskRunner.submitInBackground(write, ignored -> { }, error ->
+                logger.warn("Could not update stored history: {}", error.getMessage()));
+    }
+    
+    /**
+     * Keep the balance and history current with updates pushed by the server.
+     * Transports without push support leave the view on manual refresh. The
+     * subscription lives as long as the service and is cancelled when it is closed.
+     */
+    private void subscribeToUpdates() {
+        try {
+            bankingService.subscribe(account.getAccountNumber(), new AccountUpdateListener() {
+                @Override
+                public void onUpdate(AccountUpdate update) {
+                    Platform.runLater(() -> applyUpdate(update));
+                }
+                
+                @Override
+                public void onConnectionLost(Throwable cause, boolean permanent) {
+                    logger.warn("Live updates interrupted{}: {}", permanent ? " permanently" : "", cause.getMessage());
+                }
+                
+                @Override
+                public void onConnected() {
+                    Platform.runLater(() -> updatesConnected());
+                }
+            });
+        } catch (Exception e) {
+            logger.info("Live account updates not available: {}", e.getMessage());
+        }
+    }
+    
+    private void applyUpdate(AccountUpdate update) {
+        account.setBalance(update.getBalance());
+        accountChanged();
+        if (update.getTransaction() != null) {
+            transactionModel.mergeLatest(Collections.singletonList(update.getTransaction()));
+        }
+    }
+    
+    private void updatesConnected() {
+        // After a reconnect, catch up on anything the stream could not resume
+        if (subscriptionConnected) {
+            refreshAccount();
+            loadTransactions();
+        }
+        subscriptionConnected = true;
+    }
+    
     @FXML
     private void handleDeposit(ActionEvent event) {
         TextInputDialog dialog = new TextInputDialog();
@@ -74,26 +359,30 @@ public class MainController {
         
         Optional<String> result = dialog.showAndWait();
         if (result.isPresent()) {
+            double amount;
             try {
-                double amount = Double.parseDouble(result.get());
-                
-                if (amount <= 0) {
-                    showAlert("Error", "Deposit amount must be positive.");
-                    return;
-                }
-                
-                account = bankingService.deposit(account.getAccountNumber(), amount);
-                updateBalanceLabel();
-                loadTransactions();
-                
-                showAlert("Success", "Deposit successful!");
-                
+                amount = Double.parseDouble(result.get());
             } catch (NumberFormatException e) {
                 showAlert("Error", "Please enter a valid number.");
-            } catch (Exception e) {
-                logger.error("Deposit error: {}", e.getMessage(), e);
-                showAlert("Error", "Deposit failed: " + e.getMessage());
+                return;
+            }
+            
+            if (amount <= 0) {
+                showAlert("Error", "Deposit amount must be positive.");
+                return;
             }
+            
+            String accountNumber = account.getAccountNumber();
+            taskRunner.submit("Depositing...", () -> bankingService.deposit(accountNumber, amount), updated -> {
+                account = updated;
+                accountChanged();
+                loadTransactions();
+                
+                showAlert("Success", "Deposit successful!");
+            }, error -> {
+                logger.error("Deposit error: {}", error.getMessage(), error);
+                showAlert("Error", "Deposit failed: " + error.getMessage());
+            });
         }
     }
     
@@ -106,29 +395,34 @@ public class MainController {
         
         Optional<String> result = dialog.showAndWait();
         if (result.isPresent()) {
+            double amount;
             try {
-                double amount = Double.parseDouble(result.get());
-                
-                if (amount <= 0) {
-                    showAlert("Error", "Withdrawal amount must be positive.");
-                    return;
-                }
-                
-                account = bankingService.withdraw(account.getAccountNumber(), amount);
-                updateBalanceLabel();
-                loadTransactions();
-                
-                showAlert("Success", "Withdrawal successful!");
-                
+                amount = Double.parseDouble(result.get());
             } catch (NumberFormatException e) {
                 showAlert("Error", "Please enter a valid number.");
-            } catch (InsufficientFundsException e) {
-                showAlert("Error", "Insufficient funds! Requested: $" + e.getRequestedAmount() + 
-                        " Available: $" + e.getAvailableBalance());
-            } catch (Exception e) {
-                logger.error("Withdrawal error: {}", e.getMessage(), e);
-                showAlert("Error", "Withdrawal failed: " + e.getMessage());
+                return;
             }
+            
+            if (amount <= 0) {
+                showAlert("Error", "Withdrawal amount must be positive.");
+                return;
+            }
+            
+            String accountNumber = account.getAccountNumber();
+            taskRunner.submit("Withdrawing...", () -> bankingService.withdraw(accountNumber, amount), updated -> {
+                account = updated;
+                accountChanged();
+                loadTransactions();
+                
+                showAlert("Success", "Withdrawal successful!");
+            }, error -> {
+                if (error instanceof InsufficientFundsException) {
+                    showInsufficientFunds((InsufficientFundsException) error);
+                } else {
+                    logger.error("Withdrawal error: {}", error.getMessage(), error);
+                    showAlert("Error", "Withdrawal failed: " + error.getMessage());
+                }
+            });
         }
     }
     
@@ -163,56 +457,127 @@ public class MainController {
         Optional<TransferData> result = dialog.showAndWait();
         
         result.ifPresent(transferData -> {
+            String destinationAccount = transferData.accountNumber;
+            double amount;
             try {
-                String destinationAccount = transferData.accountNumber;
-                double amount = Double.parseDouble(transferData.amount);
-                
-                if (destinationAccount.isEmpty()) {
-                    showAlert("Error", "Please enter a destination account number.");
-                    return;
-                }
-                
-                if (amount <= 0) {
-                    showAlert("Error", "Transfer amount must be positive.");
-                    return;
-                }
-                
-                boolean success = bankingService.transfer(
-                        account.getAccountNumber(), destinationAccount, amount);
-                
-                if (success) {
-                    // Update account after transfer
-                    account = bankingService.getAccount(account.getAccountNumber());
-                    updateBalanceLabel();
-                    loadTransactions();
-                    
-                    showAlert("Success", "Transfer successful!");
-                } else {
-                    showAlert("Error", "Transfer failed.");
-                }
-                
+                amount = Double.parseDouble(transferData.amount);
             } catch (NumberFormatException e) {
                 showAlert("Error", "Please enter a valid amount.");
-            } catch (InsufficientFundsException e) {
-                showAlert("Error", "Insufficient funds! Requested: $" + e.getRequestedAmount() + 
-                        " Available: $" + e.getAvailableBalance());
-            } catch (Exception e) {
-                logger.error("Transfer error: {}", e.getMessage(), e);
-                showAlert("Error", "Transfer failed: " + e.getMessage());
+                return;
             }
+            
+            if (destinationAccount.isEmpty()) {
+                showAlert("Error", "Please enter a destination account number.");
+                return;
+            }
+            
+            if (amount <= 0) {
+                showAlert("Error", "Transfer amount must be positive.");
+                return;
+            }
+            
+            String accountNumber = account.getAccountNumber();
+            taskRunner.submit("Transferring...",
+                    () -> bankingService.transfer(accountNumber, destinationAccount, amount),
+                    this::transferCompleted, this::transferFailed);
         });
     }
     
+    private void transferCompleted(boolean success) {
+        if (success) {
+            // Update account and history after transfer, in parallel
+            refreshAccount();
+            loadTransactions();
+            
+            showAlert("Success", "Transfer successful!");
+        } else {
+            showAlert("Error", "Transfer failed.");
+        }
+    }
+    
+    private void transferFailed(Throwable error) {
+        if (error instanceof InsufficientFundsException) {
+            showInsufficientFunds((InsufficientFundsException) error);
+        } else {
+            logger.error("Transfer error: {}", error.getMessage(), error);
+            showAlert("Error", "Transfer failed: " + error.getMessage());
+        }
+    }
+    
     @FXML
     private void handleRefresh(ActionEvent event) {
-        try {
-            account = bankingService.getAccount(account.getAccountNumber());
-            updateBalanceLabel();
-            loadTransactions();
-        } catch (Exception e) {
-            logger.error("Refresh error: {}", e.getMessage(), e);
-            showAlert("Error", "Failed to refresh data: " + e.getMessage());
+        // The account and its history are independent, so fetch them in parallel
+        refreshAccount();
+        loadTransactions();
+    }
+    
+    /**
+     * Export the account history, limited to the dates chosen in the filter bar. The
+     * export streams from the server straight to the file, so it covers the whole
+     * history rather than the pages loaded into the table.
+     */
+    @FXML
+    private void handleExport(ActionEvent event) {
+        FileChooser.ExtensionFilter csv = new FileChooser.ExtensionFilter("CSV (*.csv)", "*.csv");
+        FileChooser.ExtensionFilter csvGzip = new FileChooser.ExtensionFilter("Compressed CSV (*.csv.gz)", "*.csv.gz");
+        FileChooser.ExtensionFilter jsonLines = new FileChooser.ExtensionFilter("JSON Lines (*.jsonl)", "*.jsonl");
+        FileChooser.ExtensionFilter jsonLinesGzip =
+                new FileChooser.ExtensionFilter("Compressed JSON Lines (*.jsonl.gz)", "*.jsonl.gz");
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export Transactions");
+        chooser.getExtensionFilters().addAll(csv, csvGzip, jsonLines, jsonLinesGzip);
+        chooser.setInitialFileName("transactions-" + account.getAccountNumber() + ".csv");
+        File file = chooser.showSaveDialog(transactionsTable.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        
+        ExportOptions options = new ExportOptions();
+        FileChooser.ExtensionFilter chosen = chooser.getSelectedExtensionFilter();
+        String name = file.getName().toLowerCase();
+        options.setFormat(chosen == jsonLines || chosen == jsonLinesGzip || name.endsWith(".jsonl")
+                || name.endsWith(".jsonl.gz") ? ExportOptions.Format.JSON_LINES : ExportOptions.Format.CSV);
+        options.setGzip(chosen == csvGzip || chosen == jsonLinesGzip || name.endsWith(".gz"));
+        if (fromDatePicker.getValue() != null) {
+            options.setFromMillis(startOfDay(fromDatePicker.getValue()));
+        }
+        if (toDatePicker.getValue() != null) {
+            options.setToMillis(startOfDay(toDatePicker.getValue().plusDays(1)));
         }
+        
+        HistoryExporter exporter = new HistoryExporter(bankingService);
+        String accountNumber = account.getAccountNumber();
+        taskRunner.submit("Exporting transactions...", () -> exporter.export(accountNumber, file.toPath(), options,
+                (exported, bytesWritten) -> Platform.runLater(() ->
+                        taskRunner.updateMessage("Exported " + exported + " transactions..."))), exported ->
+                showAlert("Export", "Exported " + exported + " transactions to " + file.getName()), error -> {
+            logger.error("Export error: {}", error.getMessage(), error);
+            showAlert("Error", "Export failed: " + error.getMessage());
+        });
+    }
+    
+    @FXML
+    private void handleCancel(ActionEvent event) {
+        taskRunner.cancelAll();
+    }
+    
+    private void refreshAccount() {
+        String accountNumber = account.getAccountNumber();
+        taskRunner.submit("Refreshing account...", () -> bankingService.getAccount(accountNumber), updated -> {
+            account = updated;
+            offline.set(false);
+            accountChanged();
+        }, error -> {
+            logger.error("Refresh error: {}", error.getMessage(), error);
+            if (!goOffline(error)) {
+                showAlert("Error", "Failed to refresh data: " + error.getMessage());
+            }
+        });
+    }
+    
+    private void accountChanged() {
+        updateBalanceLabel();
+        storeSnapshot();
     }
     
     private void updateBalanceLabel() {
@@ -220,13 +585,55 @@ public class MainController {
     }
     
     private void loadTransactions() {
-        try {
-            List<Transaction> transactions = bankingService.getTransactionHistory(account.getAccountNumber());
-            transactionsTable.setItems(FXCollections.observableArrayList(transactions));
-        } catch (Exception e) {
-            logger.error("Error loading transactions: {}", e.getMessage(), e);
-            showAlert("Error", "Failed to load transactions: " + e.getMessage());
+        // Merges changes into the rows already shown instead of reloading them
+        transactionPager.refresh(error -> {
+            logger.error("Error loading transactions: {}", error.getMessage(), error);
+            if (!goOffline(error)) {
+                showAlert("Error", "Failed to load transactions: " + error.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * Switch to read-only viewing of the stored history after the server could not be
+     * reached. Without a history store there is nothing to fall back on, and any other
+     * failure, such as an error response, leaves the view online.
+     * 
+     * @return whether the view is now offline
+     */
+    private boolean goOffline(Throwable error) {
+        if (historyStore == null || !isConnectivityFailure(error)) {
+            return false;
         }
+        offline.set(true);
+        return true;
+    }
+    
+    /**
+     * Whether a call failed because the server could not be reached or did not answer
+     * in time, rather than answering with an error.
+     */
+    private static boolean isConnectivityFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException
+                    || cause instanceof SocketTimeoutException || cause instanceof UnknownHostException
+                    || cause instanceof NoRouteToHostException || cause instanceof RemoteException) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private void requestNextPage() {
+        // The page is fetched in the background and appended after the current layout pass
+        if (transactionPager.hasMore()) {
+            transactionPager.loadNextPage();
+        }
+    }
+    
+    private void showInsufficientFunds(InsufficientFundsException e) {
+        showAlert("Error", "Insufficient funds! Requested: $" + e.getRequestedAmount() + 
+                " Available: $" + e.getAvailableBalance());
     }
     
     private void showAlert(String title, String message) {
@@ -0,0 +1,170 @@
+package com.banking.client.gui;
+
+import com.banking.client.model.TransactionDelta;
+import com.banking.client.model.TransactionPage;
+import com.banking.client.service.BankingService;
+import javafx.concurrent.Task;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.function.Consumer;
+
+/**
+ * Loads an account's transaction history into a table one page at a time.
+ * Pages are merged into the same table model, and the next page is only fetched when
+ * asked for, so the client holds no more history than the user has scrolled through.
+ * Pages are fetched in the background; all methods must be called on the JavaFX
+ * Application Thread.
+ */
+class TransactionPager {
+    
+    private static final Logger logger = LogManager.getLogger(TransactionPager.class);
+    
+    private final BankingService bankingService;
+    private final UiTaskRunner taskRunner;
+    private final String accountNumber;
+    private final TransactionTableModel model;
+    private final int pageSize;
+    private String nextCursor;
+    // Cursor the most recently loaded page was fetched with, null for the first page
+    private String lastPageCursor;
+    private int loadedPages;
+    private boolean exhausted;
+    private Task<?> loading;
+    // Incremented on refresh so a page that completes after the refresh is dropped
+    private int generation;
+    
+    TransactionPager(BankingService bankingService, UiTaskRunner taskRunner, String accountNumber,
+                     TransactionTableModel model, int pageSize) {
+        this.bankingService = bankingService;
+        this.taskRunner = taskRunner;
+        this.accountNumber = accountNumber;
+        this.model = model;
+        this.pageSize = pageSize;
+    }
+    
+    /**
+     * Bring the loaded rows up to date. When the newest end of the history is loaded,
+     * only the transactions after the newest one shown are fetched and merged; a server
+     * that no longer knows that transaction triggers a full reload from the first page.
+     * Otherwise the first page is fetched again, and when the whole history has been
+     * loaded the last page as well, so new transactions show up whichever end of the
+     * history the server lists them at.
+     * A page still in flight from before the refresh is cancelled and never merged.
+     * 
+     * @param onFailure Receives the error if the history cannot be loaded
+     */
+    void refresh(Consumer<Throwable> onFailure) {
+        if (loading != null) {
+            loading.cancel();
+            loading = null;
+        }
+        
+        int expectedGeneration = ++generation;
+        String since = model.isNewestFirst() || exhausted ? model.getLatestTransactionId() : null;
+        String tailCursor = exhausted && loadedPages > 1 ? lastPageCursor : null;
+        loading = taskRunner.submit("Loading transactions...", () -> {
+            if (since != null) {
+                TransactionDelta delta = bankingService.getTransactionsSince(accountNumber, since);
+                if (!delta.isReloadRequired()) {
+                    return new Refresh(delta, null, null, false);
+                }
+                logger.info("Transaction {} is too old to sync from, reloading account {}", since, accountNumber);
+                return new Refresh(null, fetchPage(null), null, true);
+            }
+            return new Refresh(null, fetchPage(null), tailCursor != null ? fetchPage(tailCursor) : null, false);
+        }, refresh -> {
+            if (expectedGeneration != generation) {
+                return;
+            }
+            loading = null;
+            
+            int changed;
+            if (refresh.delta != null) {
+                changed = model.mergeLatest(refresh.delta.getTransactions());
+            } else {
+                if (refresh.reload) {
+                    model.clear();
+                    loadedPages = 0;
+                }
+                changed = model.merge(refresh.firstPage.getTransactions(), true);
+                if (loadedPages <= 1) {
+                    loadedPages = 1;
+                    lastPageCursor = null;
+                    updatePosition(refresh.firstPage);
+                }
+                if (refresh.tailPage != null) {
+                    changed += model.merge(refresh.tailPage.getTransactions(), false);
+                    updatePosition(refresh.tailPage);
+                }
+            }
+            logger.debug("Refreshed transactions for account {}, {} rows changed", accountNumber, changed);
+        }, error -> {
+            if (expectedGeneration == generation) {
+                loading = null;
+                onFailure.accept(error);
+            }
+        });
+    }
+    
+    /**
+     * Append the next page, if there is one and no page is already being loaded.
+     */
+    void loadNextPage() {
+        if (exhausted || loading != null) {
+            return;
+        }
+        
+        String cursor = nextCursor;
+        int expectedGeneration = generation;
+        loading = taskRunner.submitInBackground(() -> fetchPage(cursor), page -> {
+            if (expectedGeneration != generation) {
+                return;
+            }
+            loading = null;
+            
+            model.merge(page.getTransactions(), false);
+            loadedPages++;
+            lastPageCursor = cursor;
+            updatePosition(page);
+            
+            logger.debug("Loaded {} transactions for account {}, more available: {}",
+                    page.getTransactions().size(), accountNumber, !exhausted);
+        }, error -> {
+            if (expectedGeneration == generation) {
+                loading = null;
+                logger.error("Error loading more transactions: {}", error.getMessage(), error);
+            }
+        });
+    }
+    
+    private TransactionPage fetchPage(String cursor) throws Exception {
+        return bankingService.getTransactionHistory(accountNumber, cursor, pageSize);
+    }
+    
+    private void updatePosition(TransactionPage page) {
+        nextCursor = page.getNextCursor();
+        exhausted = !page.hasMore();
+    }
+    
+    boolean hasMore() {
+        return !exhausted;
+    }
+    
+    /**
+     * What a refresh fetched: either a delta, or the first page and optionally the last.
+     */
+    private static class Refresh {
+        private final TransactionDelta delta;
+        private final TransactionPage firstPage;
+        private final TransactionPage tailPage;
+        private final boolean reload;
+        
+        Refresh(TransactionDelta delta, TransactionPage firstPage, TransactionPage tailPage, boolean reload) {
+            this.delta = delta;
+            this.firstPage = firstPage;
+            this.tailPage = tailPage;
+            this.reload = reload;
+        }
+    }
+}
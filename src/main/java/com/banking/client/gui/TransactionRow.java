@@ -0,0 +1,78 @@
+package com.banking.client.gui;
+
+import com.banking.client.model.Transaction;
+
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Objects;
+
+/**
+ * One row of the transactions table.
+ * The display timestamp is formatted the first time the row is shown and kept, so
+ * scrolling and refreshing never format the same transaction twice. Rows compare by
+ * identity, which keeps position lookups in the table's item list cheap.
+ */
+final class TransactionRow {
+    
+    // DateTimeFormatter is immutable and thread-safe, unlike SimpleDateFormat
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+    
+    private final Transaction transaction;
+    private String formattedTimestamp;
+    
+    TransactionRow(Transaction transaction) {
+        this.transaction = transaction;
+    }
+    
+    /**
+     * Key that identifies a transaction across refreshes. Transactions without an id
+     * fall back to their content.
+     */
+    static String keyOf(Transaction transaction) {
+        if (transaction.getTransactionId() != null) {
+            return transaction.getTransactionId();
+        }
+        long time = transaction.getTimestamp() != null ? transaction.getTimestamp().getTime() : 0;
+        return time + "|" + transaction.getType() + "|" + transaction.getAmount() + "|"
+                + transaction.getResultingBalance();
+    }
+    
+    /**
+     * Whether another copy of this transaction has the same displayed content.
+     */
+    boolean matches(Transaction other) {
+        return Objects.equals(transaction.getTimestamp(), other.getTimestamp())
+                && Objects.equals(transaction.getType(), other.getType())
+                && transaction.getAmount() == other.getAmount()
+                && transaction.getResultingBalance() == other.getResultingBalance()
+                && Objects.equals(transaction.getDescription(), other.getDescription())
+                && Objects.equals(transaction.getSourceAccountNumber(), other.getSourceAccountNumber())
+                && Objects.equals(transaction.getDestinationAccountNumber(), other.getDestinationAccountNumber());
+    }
+    
+    Transaction getTransaction() {
+        return transaction;
+    }
+    
+    String getFormattedTimestamp() {
+        if (formattedTimestamp == null) {
+            formattedTimestamp = transaction.getTimestamp() != null
+                    ? TIMESTAMP_FORMAT.format(transaction.getTimestamp().toInstant())
+                    : "";
+        }
+        return formattedTimestamp;
+    }
+    
+    String getType() {
+        return transaction.getType();
+    }
+    
+    double getAmount() {
+        return transaction.getAmount();
+    }
+    
+    String getDescription() {
+        return transaction.getDescription();
+    }
+}
@@ -0,0 +1,128 @@
+package com.banking.client.gui;
+
+import com.banking.client.model.Transaction;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stable item list for the transactions table that is updated by merging instead of
+ * being replaced.
+ * Rows are keyed by transaction id. Merging a batch leaves unchanged rows untouched,
+ * replaces rows whose content changed and inserts new rows next to their neighbours
+ * in the batch, so the table keeps its cells and scroll position and a refresh only
+ * costs work for the rows that actually changed. Must be used on the JavaFX
+ * Application Thread.
+ */
+class TransactionTableModel {
+    
+    private final ObservableList<TransactionRow> rows = FXCollections.observableArrayList();
+    private final Map<String, TransactionRow> rowsByKey = new HashMap<>();
+    
+    ObservableList<TransactionRow> getRows() {
+        return rows;
+    }
+    
+    void clear() {
+        rows.clear();
+        rowsByKey.clear();
+    }
+    
+    /**
+     * Merge a batch of transactions in display order.
+     * 
+     * @param transactions Transactions in the order the server listed them
+     * @param atHead Where rows go that have no known neighbour in the batch: the start
+     *               of the list for the first page, otherwise the end
+     * @return number of rows that were inserted or replaced
+     */
+    int merge(List<Transaction> transactions, boolean atHead) {
+        int changed = 0;
+        TransactionRow anchor = null;
+        List<TransactionRow> pending = new ArrayList<>();
+        Map<String, TransactionRow> pendingByKey = new HashMap<>();
+        
+        for (Transaction transaction : transactions) {
+            String key = TransactionRow.keyOf(transaction);
+            TransactionRow existing = rowsByKey.get(key);
+            if (existing == null) {
+                if (!pendingByKey.containsKey(key)) {
+                    TransactionRow row = new TransactionRow(transaction);
+                    pendingByKey.put(key, row);
+                    pending.add(row);
+                }
+                continue;
+            }
+            
+            // New rows seen so far belong between the previous known row and this one
+            if (!pending.isEmpty()) {
+                int index = anchor != null ? rows.indexOf(anchor) + 1 : rows.indexOf(existing);
+                changed += insert(index, pending);
+            }
+            
+            if (!existing.matches(transaction)) {
+                TransactionRow replacement = new TransactionRow(transaction);
+                rows.set(rows.indexOf(existing), replacement);
+                rowsByKey.put(key, replacement);
+                existing = replacement;
+                changed++;
+            }
+            anchor = existing;
+        }
+        
+        if (!pending.isEmpty()) {
+            int index = anchor != null ? rows.indexOf(anchor) + 1 : (atHead ? 0 : rows.size());
+            changed += insert(index, pending);
+        }
+        return changed;
+    }
+    
+    /**
+     * Merge transactions newer than any row shown, such as pushed updates, at whichever
+     * end of the list holds the newest rows.
+     * 
+     * @return number of rows that were inserted or replaced
+     */
+    int mergeLatest(List<Transaction> transactions) {
+        return merge(transactions, isNewestFirst());
+    }
+    
+    /**
+     * Id of the newest transaction shown, or null if none is.
+     */
+    String getLatestTransactionId() {
+        if (rows.isEmpty()) {
+            return null;
+        }
+        TransactionRow latest = isNewestFirst() ? rows.get(0) : rows.get(rows.size() - 1);
+        return latest.getTransaction().getTransactionId();
+    }
+    
+    /**
+     * Whether the server lists newest transactions first, judged from the rows shown.
+     * Assumed true until there are enough rows to tell.
+     */
+    boolean isNewestFirst() {
+        if (rows.size() < 2) {
+            return true;
+        }
+        Date first = rows.get(0).getTransaction().getTimestamp();
+        Date last = rows.get(rows.size() - 1).getTransaction().getTimestamp();
+        return first == null || last == null || !first.before(last);
+    }
+    
+    private int insert(int index, List<TransactionRow> pending) {
+        int count = pending.size();
+        rows.addAll(index, pending);
+        for (TransactionRow row : pending) {
+            rowsByKey.put(TransactionRow.keyOf(row.getTransaction()), row);
+        }
+        pending.clear();
+        return count;
+    }
+}
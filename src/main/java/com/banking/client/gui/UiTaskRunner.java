@@ -0,0 +1,135 @@
+package com.banking.client.gui;
+
+import javafx.beans.binding.Bindings;
+import javafx.beans.binding.BooleanBinding;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs blocking service calls as JavaFX {@link Task}s on a shared background executor,
+ * so a slow backend never freezes the window.
+ * Result and failure callbacks are delivered on the JavaFX Application Thread. Tracked
+ * tasks drive a busy state and status message that views bind their controls and
+ * progress indicator to, and can be cancelled as a group. Independent calls submitted
+ * one after another run in parallel.
+ */
+class UiTaskRunner {
+    
+    private static final Logger logger = LogManager.getLogger(UiTaskRunner.class);
+    private static final int THREADS = 4;
+    private static final ExecutorService EXECUTOR = createExecutor();
+    
+    private final ObservableList<Task<?>> runningTasks = FXCollections.observableArrayList();
+    private final BooleanBinding busy = Bindings.isNotEmpty(runningTasks);
+    private final StringProperty message = new SimpleStringProperty("");
+    
+    private static ExecutorService createExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "banking-ui-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Run a call in the background and mark the view busy until it finishes.
+     * Must be called on the JavaFX Application Thread.
+     * 
+     * @param message Status text shown while the call runs
+     * @param call The blocking call
+     * @param onSuccess Receives the result on the JavaFX Application Thread
+     * @param onFailure Receives the error on the JavaFX Application Thread; not called on cancellation
+     * @return the running task
+     */
+    <T> Task<T> submit(String message, Callable<T> call, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        Task<T> task = createTask(call, onSuccess, onFailure, true);
+        runningTasks.add(task);
+        this.message.set(message);
+        EXECUTOR.execute(task);
+        return task;
+    }
+    
+    /**
+     * Run a call in the background without marking the view busy, for loads the user
+     * did not explicitly ask for, such as the next page while scrolling.
+     */
+    <T> Task<T> submitInBackground(Callable<T> call, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        Task<T> task = createTask(call, onSuccess, onFailure, false);
+        EXECUTOR.execute(task);
+        return task;
+    }
+    
+    private <T> Task<T> createTask(Callable<T> call, Consumer<T> onSuccess, Consumer<Throwable> onFailure,
+                                   boolean tracked) {
+        Task<T> task = new Task<T>() {
+            @Override
+            protected T call() throws Exception {
+                return call.call();
+            }
+        };
+        task.setOnSucceeded(event -> {
+            finished(task, tracked);
+            onSuccess.accept(task.getValue());
+        });
+        task.setOnFailed(event -> {
+            finished(task, tracked);
+            onFailure.accept(task.getException());
+        });
+        task.setOnCancelled(event -> finished(task, tracked));
+        return task;
+    }
+    
+    private void finished(Task<?> task, boolean tracked) {
+        if (tracked) {
+            runningTasks.remove(task);
+            if (runningTasks.isEmpty()) {
+                message.set("");
+            }
+        }
+    }
+    
+    /**
+     * Cancel every tracked task. Callbacks of cancelled tasks are not invoked; a call
+     * that already reached the server may still complete there.
+     */
+    void cancelAll() {
+        if (!runningTasks.isEmpty()) {
+            logger.info("Cancelling {} running task(s)", runningTasks.size());
+        }
+        for (Task<?> task : new ArrayList<>(runningTasks)) {
+            task.cancel();
+        }
+    }
+    
+    /**
+     * Replace the status text while tracked tasks run, for example with the progress
+     * of a long call. Must be called on the JavaFX Application Thread.
+     */
+    void updateMessage(String message) {
+        if (!runningTasks.isEmpty()) {
+            this.message.set(message);
+        }
+    }
+    
+    BooleanBinding busyProperty() {
+        return busy;
+    }
+    
+    ReadOnlyStringProperty messageProperty() {
+        return message;
+    }
+}
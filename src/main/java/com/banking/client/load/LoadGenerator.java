@@ -0,0 +1,241 @@
+package com.banking.client.load;
+
+import com.banking.client.service.BankingService;
+import com.banking.client.service.BankingServiceFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Headless, open-loop load generator that drives a BankingService with a weighted mix
+ * of operations at a fixed target rate.
+ * Each worker owns an equal share of the rate and a fixed schedule of intended start
+ * times. A worker that falls behind sends its next call immediately, but the call is
+ * still timed from its intended start, so a slow server shows up as latency instead of
+ * as a silently reduced request rate.
+ */
+public class LoadGenerator {
+    
+    private static final Logger logger = LogManager.getLogger(LoadGenerator.class);
+    
+    private static final double INITIAL_BALANCE = 1_000_000.0;
+    
+    private final BankingService bankingService;
+    private final LoadTestConfig config;
+    private final LoadOperation[] operations;
+    private final int[] cumulativeWeights;
+    
+    public LoadGenerator(BankingService bankingService, LoadTestConfig config) {
+        this.bankingService = bankingService;
+        this.config = config;
+        
+        List<LoadOperation> weighted = new ArrayList<>();
+        List<Integer> cumulative = new ArrayList<>();
+        int totalWeight = 0;
+        for (Map.Entry<LoadOperation, Integer> entry : config.getMix().entrySet()) {
+            if (entry.getValue() > 0) {
+                totalWeight += entry.getValue();
+                weighted.add(entry.getKey());
+                cumulative.add(totalWeight);
+            }
+        }
+        this.operations = weighted.toArray(new LoadOperation[0]);
+        this.cumulativeWeights = cumulative.stream().mapToInt(Integer::intValue).toArray();
+    }
+    
+    /**
+     * Run a load test configured from command-line options against the transport
+     * created from application properties, without the client-side cache and request
+     * coalescing, and print the report to standard output.
+     * 
+     * @param args Command-line arguments
+     * @return process exit code
+     */
+    public static int runFromCommandLine(String[] args) {
+        LoadTestConfig config;
+        try {
+            config = LoadTestConfig.fromArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Options: --rate=<ops/s> --workers=<n> --duration=<s> --warmup=<s> "
+                    + "--accounts=<n> | --account-numbers=<a,b,...> --amount=<x> "
+                    + "--mix=get:50,deposit:15,withdraw:15,transfer:10,history:10");
+            return 2;
+        }
+        
+        try (BankingService bankingService = BankingServiceFactory.createLoadTestService()) {
+            LoadReport report = new LoadGenerator(bankingService, config).run();
+            report.print(System.out);
+            return report.getErrors() > 0 ? 1 : 0;
+        } catch (Exception e) {
+            logger.error("Load test failed: {}", e.getMessage(), e);
+            return 1;
+        }
+    }
+    
+    /**
+     * Run the configured workload to completion.
+     * 
+     * @return LoadReport with the calls made after the warmup period
+     */
+    public LoadReport run() throws Exception {
+        List<String> accounts = prepareAccounts();
+        int workers = config.getWorkers();
+        long intervalNanos = (long) (workers * 1e9 / config.getTargetRate());
+        
+        ExecutorService executor = newVirtualThreadExecutor();
+        String workerKind = executor != null ? "virtual" : "platform";
+        if (executor == null) {
+            executor = newPlatformThreadExecutor(workers);
+        }
+        LoadReport report = new LoadReport(config, workerKind);
+        logger.info("Starting load test: {}", config);
+        
+        long startNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long recordFromNanos = startNanos + TimeUnit.SECONDS.toNanos(config.getWarmupSeconds());
+        long endNanos = recordFromNanos + TimeUnit.SECONDS.toNanos(config.getDurationSeconds());
+        try {
+            List<Future<?>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                // Stagger the workers so the combined schedule is evenly spaced
+                long firstStartNanos = startNanos + intervalNanos * i / workers;
+                futures.add(executor.submit(() ->
+                        runWorker(accounts, firstStartNanos, intervalNanos, recordFromNanos, endNanos, report)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new Exception("Load worker failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        report.setElapsedNanos(Math.max(System.nanoTime(), endNanos) - recordFromNanos);
+        return report;
+    }
+    
+    private void runWorker(List<String> accounts, long firstStartNanos, long intervalNanos,
+                           long recordFromNanos, long endNanos, LoadReport report) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (long intendedStart = firstStartNanos; intendedStart < endNanos; intendedStart += intervalNanos) {
+            long remaining;
+            while ((remaining = intendedStart - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+            }
+            
+            LoadOperation operation = nextOperation(random);
+            long sentNanos = System.nanoTime();
+            Throwable error = null;
+            try {
+                execute(operation, accounts, random);
+            } catch (Exception e) {
+                error = e;
+                logger.debug("{} failed: {}", operation, e.getMessage());
+            }
+            long completedNanos = System.nanoTime();
+            
+            if (intendedStart >= recordFromNanos) {
+                report.record(operation, completedNanos - intendedStart, completedNanos - sentNanos, error);
+            }
+        }
+    }
+    
+    private LoadOperation nextOperation(ThreadLocalRandom random) {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+    
+    private void execute(LoadOperation operation, List<String> accounts, ThreadLocalRandom random)
+            throws Exception {
+        String accountNumber = accounts.get(random.nextInt(accounts.size()));
+        switch (operation) {
+            case GET_ACCOUNT:
+                bankingService.getAccount(accountNumber);
+                break;
+            case DEPOSIT:
+                bankingService.deposit(accountNumber, config.getAmount());
+                break;
+            case WITHDRAW:
+                bankingService.withdraw(accountNumber, config.getAmount());
+                break;
+            case TRANSFER:
+                String destination = accounts.get(random.nextInt(accounts.size()));
+                while (destination.equals(accountNumber)) {
+                    destination = accounts.get(random.nextInt(accounts.size()));
+                }
+                bankingService.transfer(accountNumber, destination, config.getAmount());
+                break;
+            case HISTORY:
+                bankingService.getTransactionHistory(accountNumber);
+                break;
+            default:
+                throw new IllegalStateException("Unhandled operation: " + operation);
+        }
+    }
+    
+    /**
+     * Use the configured accounts, or create a fresh set with a large balance so
+     * withdrawals and transfers do not run dry during the test.
+     */
+    private List<String> prepareAccounts() throws Exception {
+        if (!config.getAccountNumbers().isEmpty()) {
+            return new ArrayList<>(config.getAccountNumbers());
+        }
+        
+        String prefix = "LT" + Long.toString(System.currentTimeMillis(), 36).toUpperCase();
+        List<String> accounts = new ArrayList<>(config.getAccountCount());
+        for (int i = 0; i < config.getAccountCount(); i++) {
+            String accountNumber = prefix + i;
+            bankingService.createAccount(accountNumber, "Load Test " + i, INITIAL_BALANCE);
+            accounts.add(accountNumber);
+        }
+        logger.info("Created {} load test accounts with prefix {}", accounts.size(), prefix);
+        return accounts;
+    }
+    
+    /**
+     * One virtual thread per worker when the JDK provides them. The lookup is reflective
+     * because the build targets Java 11.
+     * 
+     * @return the executor, or null if virtual threads are not available
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.debug("Virtual threads not available, using platform threads");
+            return null;
+        }
+    }
+    
+    private static ExecutorService newPlatformThreadExecutor(int workers) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "load-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,32 @@
+package com.banking.client.load;
+
+/**
+ * Operations the load generator can issue, with the name used for them in
+ * the {@code --mix} option and in the report.
+ */
+public enum LoadOperation {
+    GET_ACCOUNT("get"),
+    DEPOSIT("deposit"),
+    WITHDRAW("withdraw"),
+    TRANSFER("transfer"),
+    HISTORY("history");
+    
+    private final String optionName;
+    
+    LoadOperation(String optionName) {
+        this.optionName = optionName;
+    }
+    
+    public String getOptionName() {
+        return optionName;
+    }
+    
+    public static LoadOperation fromOptionName(String name) {
+        for (LoadOperation operation : values()) {
+            if (operation.optionName.equalsIgnoreCase(name)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation in mix: " + name);
+    }
+}
@@ -0,0 +1,118 @@
+package com.banking.client.load;
+
+import com.banking.client.metrics.LatencyHistogram;
+import com.banking.client.model.InsufficientFundsException;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outcome counts and latency distributions collected during a load run.
+ * Every call is recorded twice: once from its intended start time on the open-loop
+ * schedule, which includes the time it spent waiting behind slower calls and so is
+ * corrected for coordinated omission, and once from the moment it was actually sent.
+ */
+public class LoadReport {
+    
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    
+    private final LoadTestConfig config;
+    private final String workerKind;
+    private final Map<LoadOperation, OperationStats> operations = new EnumMap<>(LoadOperation.class);
+    private final OperationStats total = new OperationStats();
+    private long elapsedNanos;
+    
+    LoadReport(LoadTestConfig config, String workerKind) {
+        this.config = config;
+        this.workerKind = workerKind;
+        for (LoadOperation operation : LoadOperation.values()) {
+            operations.put(operation, new OperationStats());
+        }
+    }
+    
+    void record(LoadOperation operation, long correctedNanos, long serviceNanos, Throwable error) {
+        operations.get(operation).record(correctedNanos, serviceNanos, error);
+        total.record(correctedNanos, serviceNanos, error);
+    }
+    
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+    
+    public long getCount() {
+        return total.corrected.getCount();
+    }
+    
+    public long getErrors() {
+        return total.errors.sum();
+    }
+    
+    public double getThroughput() {
+        return elapsedNanos > 0 ? getCount() * 1e9 / elapsedNanos : 0;
+    }
+    
+    /**
+     * Latency from intended start at the given percentile, in microseconds.
+     */
+    public long getCorrectedLatencyMicros(double percentile) {
+        return total.corrected.getValueAtPercentile(percentile);
+    }
+    
+    public void print(PrintStream out) {
+        out.printf("Load test: target %.1f ops/s, achieved %.1f ops/s over %.1f s with %d %s workers%n",
+                config.getTargetRate(), getThroughput(), elapsedNanos / 1e9, config.getWorkers(), workerKind);
+        out.printf("Calls: %d, insufficient funds: %d, errors: %d%n",
+                getCount(), total.insufficientFunds.sum(), getErrors());
+        
+        out.println();
+        out.println("Latency from intended start (corrected for coordinated omission), ms");
+        printTable(out, true);
+        
+        out.println();
+        out.println("Service time from actual send, ms");
+        printTable(out, false);
+    }
+    
+    private void printTable(PrintStream out, boolean corrected) {
+        out.printf("%-12s %10s %10s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "mean", "p50", "p90", "p99", "p99.9", "max");
+        for (Map.Entry<LoadOperation, OperationStats> entry : operations.entrySet()) {
+            if (entry.getValue().corrected.getCount() > 0) {
+                printRow(out, entry.getKey().getOptionName(), entry.getValue(), corrected);
+            }
+        }
+        printRow(out, "all", total, corrected);
+    }
+    
+    private static void printRow(PrintStream out, String name, OperationStats stats, boolean corrected) {
+        LatencyHistogram histogram = corrected ? stats.corrected : stats.service;
+        long count = histogram.getCount();
+        StringBuilder row = new StringBuilder(String.format("%-12s %10d %10.2f", name, count,
+                count > 0 ? histogram.getTotalMicros() / 1000.0 / count : 0));
+        for (double percentile : PERCENTILES) {
+            row.append(String.format(" %10.2f", histogram.getValueAtPercentile(percentile) / 1000.0));
+        }
+        row.append(String.format(" %10.2f", histogram.getMaxMicros() / 1000.0));
+        out.println(row);
+    }
+    
+    private static class OperationStats {
+        
+        private final LatencyHistogram corrected = new LatencyHistogram();
+        private final LatencyHistogram service = new LatencyHistogram();
+        private final LongAdder insufficientFunds = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        
+        void record(long correctedNanos, long serviceNanos, Throwable error) {
+            corrected.recordNanos(correctedNanos);
+            service.recordNanos(serviceNanos);
+            if (error instanceof InsufficientFundsException) {
+                insufficientFunds.increment();
+            } else if (error != null) {
+                errors.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.banking.client.load;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settings for a headless load run, parsed from {@code --name=value} command-line options.
+ */
+public class LoadTestConfig {
+    
+    private double targetRate = 100;
+    private int workers = 16;
+    private long durationSeconds = 60;
+    private long warmupSeconds = 5;
+    private int accountCount = 20;
+    private List<String> accountNumbers = new ArrayList<>();
+    private double amount = 10.0;
+    private final Map<LoadOperation, Integer> mix = new EnumMap<>(LoadOperation.class);
+    
+    public LoadTestConfig() {
+        mix.put(LoadOperation.GET_ACCOUNT, 50);
+        mix.put(LoadOperation.DEPOSIT, 15);
+        mix.put(LoadOperation.WITHDRAW, 15);
+        mix.put(LoadOperation.TRANSFER, 10);
+        mix.put(LoadOperation.HISTORY, 10);
+    }
+    
+    /**
+     * Parse command-line options. Arguments that are not {@code --name=value} options
+     * are ignored, so the application's own mode flag can stay in the list.
+     * 
+     * @param args Command-line arguments
+     * @return LoadTestConfig instance
+     */
+    public static LoadTestConfig fromArgs(String[] args) {
+        LoadTestConfig config = new LoadTestConfig();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                continue;
+            }
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            switch (name) {
+                case "rate":
+                    config.setTargetRate(Double.parseDouble(value));
+                    break;
+                case "workers":
+                    config.setWorkers(Integer.parseInt(value));
+                    break;
+                case "duration":
+                    config.setDurationSeconds(Long.parseLong(value));
+                    break;
+                case "warmup":
+                    config.setWarmupSeconds(Long.parseLong(value));
+                    break;
+                case "accounts":
+                    config.setAccountCount(Integer.parseInt(value));
+                    break;
+                case "account-numbers":
+                    config.setAccountNumbers(Arrays.asList(value.split(",")));
+                    break;
+                case "amount":
+                    config.setAmount(Double.parseDouble(value));
+                    break;
+                case "mix":
+                    config.setMix(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown load test option: --" + name);
+            }
+        }
+        config.validate();
+        return config;
+    }
+    
+    private void validate() {
+        if (targetRate <= 0 || workers <= 0 || durationSeconds <= 0 || warmupSeconds < 0) {
+            throw new IllegalArgumentException("rate, workers and duration must be positive");
+        }
+        if (accountNumbers.isEmpty() && accountCount < 2) {
+            throw new IllegalArgumentException("At least two accounts are needed for transfers");
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("The operation mix must have a positive total weight");
+        }
+    }
+    
+    /**
+     * Set the workload mix from a list such as {@code get:50,deposit:15,transfer:10}.
+     * Operations that are not listed are not issued.
+     */
+    public void setMix(String mixOption) {
+        mix.clear();
+        for (String entry : mixOption.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + entry);
+            }
+            mix.put(LoadOperation.fromOptionName(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+    }
+    
+    public Map<LoadOperation, Integer> getMix() {
+        return mix;
+    }
+    
+    public double getTargetRate() {
+        return targetRate;
+    }
+    
+    public void setTargetRate(double targetRate) {
+        this.targetRate = targetRate;
+    }
+    
+    public int getWorkers() {
+        return workers;
+    }
+    
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+    
+    public long getDurationSeconds() {
+        return durationSeconds;
+    }
+    
+    public void setDurationSeconds(long durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+    
+    public long getWarmupSeconds() {
+        return warmupSeconds;
+    }
+    
+    public void setWarmupSeconds(long warmupSeconds) {
+        this.warmupSeconds = warmupSeconds;
+    }
+    
+    public int getAccountCount() {
+        return accountCount;
+    }
+    
+    public void setAccountCount(int accountCount) {
+        this.accountCount = accountCount;
+    }
+    
+    public List<String> getAccountNumbers() {
+        return accountNumbers;
+    }
+    
+    public void setAccountNumbers(List<String> accountNumbers) {
+        this.accountNumbers = accountNumbers;
+    }
+    
+    public double getAmount() {
+        return amount;
+    }
+    
+    public void setAmount(double amount) {
+        this.amount = amount;
+    }
+    
+    @Override
+    public String toString() {
+        return "LoadTestConfig{" +
+                "targetRate=" + targetRate +
+                ", workers=" + workers +
+                ", durationSeconds=" + durationSeconds +
+                ", warmupSeconds=" + warmupSeconds +
+                ", accounts=" + (accountNumbers.isEmpty() ? accountCount : accountNumbers.size()) +
+                ", amount=" + amount +
+                ", mix=" + mix +
+                '}';
+    }
+}
@@ -0,0 +1,143 @@
+package com.banking.client.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Process-wide registry of client metrics, rendered in the Prometheus text format.
+ * Holds per-operation metrics plus sampled values (connection pool, cache) that are
+ * read from their owners when scraped.
+ */
+public class BankingMetrics {
+    
+    private static final BankingMetrics DEFAULT = new BankingMetrics();
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    
+    private final Map<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private final Map<String, Sampled> sampled = new ConcurrentSkipListMap<>();
+    
+    private static final class Sampled {
+        private final String name;
+        private final String type;
+        private final String help;
+        private final String labels;
+        private final DoubleSupplier value;
+        
+        Sampled(String name, String type, String help, String labels, DoubleSupplier value) {
+            this.name = name;
+            this.type = type;
+            this.help = help;
+            this.labels = labels;
+            this.value = value;
+        }
+    }
+    
+    /**
+     * The registry exposed on the application's /metrics endpoint.
+     */
+    public static BankingMetrics getDefault() {
+        return DEFAULT;
+    }
+    
+    /**
+     * Get or create the metrics for an operation on a transport.
+     */
+    public OperationMetrics operation(String operation, String transport) {
+        return operations.computeIfAbsent(transport + ":" + operation, key -> new OperationMetrics(operation, transport));
+    }
+    
+    /**
+     * Register a value that is sampled at scrape time, replacing any earlier registration
+     * with the same name and labels.
+     * 
+     * @param labels Prometheus label set without braces, e.g. {@code state="leased"}, or empty
+     */
+    public void registerGauge(String name, String help, String labels, DoubleSupplier value) {
+        sampled.put(name + "{" + labels + "}", new Sampled(name, "gauge", help, labels, value));
+    }
+    
+    /**
+     * Register a monotonically increasing count that is sampled at scrape time.
+     */
+    public void registerCounter(String name, String help, String labels, DoubleSupplier value) {
+        sampled.put(name + "{" + labels + "}", new Sampled(name, "counter", help, labels, value));
+    }
+    
+    /**
+     * Render every metric in the Prometheus text exposition format (version 0.0.4).
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        List<OperationMetrics> snapshot = new ArrayList<>(operations.values());
+        snapshot.sort((a, b) -> (a.getTransport() + a.getOperation()).compareTo(b.getTransport() + b.getOperation()));
+        
+        out.append("# HELP banking_client_operation_latency_seconds Client-observed latency of banking operations\n");
+        out.append("# TYPE banking_client_operation_latency_seconds summary\n");
+        for (OperationMetrics metrics : snapshot) {
+            String labels = labels(metrics);
+            LatencyHistogram latency = metrics.getLatency();
+            for (double quantile : QUANTILES) {
+                out.append("banking_client_operation_latency_seconds{").append(labels)
+                        .append(",quantile=\"").append(quantile).append("\"} ")
+                        .append(seconds(latency.getValueAtPercentile(quantile * 100))).append('\n');
+            }
+            out.append("banking_client_operation_latency_seconds_sum{").append(labels).append("} ")
+                    .append(seconds(latency.getTotalMicros())).append('\n');
+            out.append("banking_client_operation_latency_seconds_count{").append(labels).append("} ")
+                    .append(latency.getCount()).append('\n');
+        }
+        
+        out.append("# HELP banking_client_operation_latency_max_seconds Largest observed latency of banking operations\n");
+        out.append("# TYPE banking_client_operation_latency_max_seconds gauge\n");
+        for (OperationMetrics metrics : snapshot) {
+            out.append("banking_client_operation_latency_max_seconds{").append(labels(metrics)).append("} ")
+                    .append(seconds(metrics.getLatency().getMaxMicros())).append('\n');
+        }
+        
+        out.append("# HELP banking_client_operations_total Completed banking operations by outcome\n");
+        out.append("# TYPE banking_client_operations_total counter\n");
+        for (OperationMetrics metrics : snapshot) {
+            String labels = labels(metrics);
+            out.append("banking_client_operations_total{").append(labels).append(",outcome=\"success\"} ")
+                    .append(metrics.getSuccesses()).append('\n');
+            out.append("banking_client_operations_total{").append(labels).append(",outcome=\"error\"} ")
+                    .append(metrics.getErrors()).append('\n');
+            out.append("banking_client_operations_total{").append(labels).append(",outcome=\"insufficient_funds\"} ")
+                    .append(metrics.getInsufficientFunds()).append('\n');
+        }
+        
+        out.append("# HELP banking_client_operations_in_flight Banking operations currently awaiting a response\n");
+        out.append("# TYPE banking_client_operations_in_flight gauge\n");
+        for (OperationMetrics metrics : snapshot) {
+            out.append("banking_client_operations_in_flight{").append(labels(metrics)).append("} ")
+                    .append(metrics.getInFlight()).append('\n');
+        }
+        
+        String lastName = null;
+        for (Sampled metric : sampled.values()) {
+            if (!metric.name.equals(lastName)) {
+                out.append("# HELP ").append(metric.name).append(' ').append(metric.help).append('\n');
+                out.append("# TYPE ").append(metric.name).append(' ').append(metric.type).append('\n');
+                lastName = metric.name;
+            }
+            out.append(metric.name);
+            if (!metric.labels.isEmpty()) {
+                out.append('{').append(metric.labels).append('}');
+            }
+            out.append(' ').append(metric.value.getAsDouble()).append('\n');
+        }
+        return out.toString();
+    }
+    
+    private static String labels(OperationMetrics metrics) {
+        return "operation=\"" + metrics.getOperation() + "\",transport=\"" + metrics.getTransport() + "\"";
+    }
+    
+    private static double seconds(long micros) {
+        return micros / 1_000_000.0;
+    }
+}
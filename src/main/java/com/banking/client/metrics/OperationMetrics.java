@@ -0,0 +1,81 @@
+package com.banking.client.metrics;
+
+import com.banking.client.model.InsufficientFundsException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, outcome counts and in-flight gauge for one banking operation on one transport.
+ * Callers obtain an instance once and keep it, so recording a call is a handful of
+ * counter updates with no lookups or allocation.
+ */
+public class OperationMetrics {
+    
+    private final String operation;
+    private final String transport;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder insufficientFunds = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    
+    OperationMetrics(String operation, String transport) {
+        this.operation = operation;
+        this.transport = transport;
+    }
+    
+    /**
+     * Mark the start of a call.
+     * 
+     * @return start timestamp to pass to {@link #succeeded} or {@link #failed}
+     */
+    public long start() {
+        inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+    
+    public void succeeded(long startNanos) {
+        latency.recordNanos(System.nanoTime() - startNanos);
+        successes.increment();
+        inFlight.decrementAndGet();
+    }
+    
+    public void failed(long startNanos, Throwable error) {
+        latency.recordNanos(System.nanoTime() - startNanos);
+        if (error instanceof InsufficientFundsException) {
+            insufficientFunds.increment();
+        } else {
+            errors.increment();
+        }
+        inFlight.decrementAndGet();
+    }
+    
+    public String getOperation() {
+        return operation;
+    }
+    
+    public String getTransport() {
+        return transport;
+    }
+    
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+    
+    public long getSuccesses() {
+        return successes.sum();
+    }
+    
+    public long getErrors() {
+        return errors.sum();
+    }
+    
+    public long getInsufficientFunds() {
+        return insufficientFunds.sum();
+    }
+    
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
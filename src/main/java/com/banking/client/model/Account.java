@@ -1,11 +1,15 @@
 package com.banking.client.model;
 
+import java.io.Serializable;
 import java.util.Date;
 
 /**
  * Model class for Account information.
+ * Serializable so the RMI transport can receive a whole account snapshot in one call.
  */
-public class Account {
+public class Account implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
     private String accountNumber;
     private String accountHolderName;
     private double balance;
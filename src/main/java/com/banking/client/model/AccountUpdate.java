@@ -0,0 +1,59 @@
+package com.banking.client.model;
+
+import java.io.Serializable;
+
+/**
+ * Model class for a change to an account pushed by the application tier: the new
+ * balance and, when the change was caused by one, the transaction that caused it.
+ */
+public class AccountUpdate implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    private String accountNumber;
+    private double balance;
+    private Transaction transaction;
+    
+    // Default constructor for JSON deserialization
+    public AccountUpdate() {
+    }
+    
+    public AccountUpdate(String accountNumber, double balance, Transaction transaction) {
+        this.accountNumber = accountNumber;
+        this.balance = balance;
+        this.transaction = transaction;
+    }
+    
+    // Getters and setters
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+    
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+    
+    public double getBalance() {
+        return balance;
+    }
+    
+    public void setBalance(double balance) {
+        this.balance = balance;
+    }
+    
+    public Transaction getTransaction() {
+        return transaction;
+    }
+    
+    public void setTransaction(Transaction transaction) {
+        this.transaction = transaction;
+    }
+    
+    @Override
+    public String toString() {
+        return "AccountUpdate{" +
+                "accountNumber='" + accountNumber + '\'' +
+                ", balance=" + balance +
+                ", transaction=" + (transaction != null ? transaction.getTransactionId() : null) +
+                '}';
+    }
+}
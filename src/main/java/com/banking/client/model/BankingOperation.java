@@ -0,0 +1,114 @@
+package com.banking.client.model;
+
+import java.io.Serializable;
+
+/**
+ * Model class for one deposit, withdrawal or transfer in a batch.
+ * The operation id is optional; when set it is echoed in the operation's result.
+ */
+public class BankingOperation implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    public enum Type {
+        DEPOSIT,
+        WITHDRAW,
+        TRANSFER
+    }
+    
+    private String operationId;
+    private Type type;
+    private String accountNumber;
+    private String destinationAccountNumber;
+    private double amount;
+    
+    // Default constructor for JSON deserialization
+    public BankingOperation() {
+    }
+    
+    public BankingOperation(String operationId, Type type, String accountNumber,
+                            String destinationAccountNumber, double amount) {
+        this.operationId = operationId;
+        this.type = type;
+        this.accountNumber = accountNumber;
+        this.destinationAccountNumber = destinationAccountNumber;
+        this.amount = amount;
+    }
+    
+    public static BankingOperation deposit(String operationId, String accountNumber, double amount) {
+        return new BankingOperation(operationId, Type.DEPOSIT, accountNumber, null, amount);
+    }
+    
+    public static BankingOperation withdraw(String operationId, String accountNumber, double amount) {
+        return new BankingOperation(operationId, Type.WITHDRAW, accountNumber, null, amount);
+    }
+    
+    public static BankingOperation transfer(String operationId, String sourceAccountNumber,
+                                            String destinationAccountNumber, double amount) {
+        return new BankingOperation(operationId, Type.TRANSFER, sourceAccountNumber, destinationAccountNumber, amount);
+    }
+    
+    /**
+     * The accounts whose balance the operation changes: the account, and for a transfer
+     * also the destination.
+     */
+    public String[] touchedAccounts() {
+        return type == Type.TRANSFER && destinationAccountNumber != null
+                ? new String[] {accountNumber, destinationAccountNumber}
+                : new String[] {accountNumber};
+    }
+    
+    // Getters and setters
+    public String getOperationId() {
+        return operationId;
+    }
+    
+    public void setOperationId(String operationId) {
+        this.operationId = operationId;
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    public void setType(Type type) {
+        this.type = type;
+    }
+    
+    /**
+     * The account deposited to or withdrawn from, or the source account of a transfer.
+     */
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+    
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+    
+    public String getDestinationAccountNumber() {
+        return destinationAccountNumber;
+    }
+    
+    public void setDestinationAccountNumber(String destinationAccountNumber) {
+        this.destinationAccountNumber = destinationAccountNumber;
+    }
+    
+    public double getAmount() {
+        return amount;
+    }
+    
+    public void setAmount(double amount) {
+        this.amount = amount;
+    }
+    
+    @Override
+    public String toString() {
+        return "BankingOperation{" +
+                "operationId='" + operationId + '\'' +
+                ", type=" + type +
+                ", accountNumber='" + accountNumber + '\'' +
+                (type == Type.TRANSFER ? ", destinationAccountNumber='" + destinationAccountNumber + '\'' : "") +
+                ", amount=" + amount +
+                '}';
+    }
+}
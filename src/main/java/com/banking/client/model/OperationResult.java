@@ -0,0 +1,118 @@
+package com.banking.client.model;
+
+import java.io.Serializable;
+
+/**
+ * Model class for the outcome of one operation in a batch.
+ * A successful deposit or withdrawal carries the updated account; an operation refused
+ * for insufficient funds carries the requested amount and the balance available.
+ */
+public class OperationResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    public enum Status {
+        SUCCEEDED,
+        INSUFFICIENT_FUNDS,
+        /**
+         * The operation failed, or its outcome is unknown because the request carrying
+         * it failed; the message says why.
+         */
+        FAILED
+    }
+    
+    private String operationId;
+    private Status status;
+    private Account account;
+    private String message;
+    private double requestedAmount;
+    private double availableBalance;
+    
+    // Default constructor for JSON deserialization
+    public OperationResult() {
+    }
+    
+    public static OperationResult succeeded(String operationId, Account account) {
+        OperationResult result = new OperationResult();
+        result.operationId = operationId;
+        result.status = Status.SUCCEEDED;
+        result.account = account;
+        return result;
+    }
+    
+    public static OperationResult insufficientFunds(String operationId, InsufficientFundsException e) {
+        OperationResult result = new OperationResult();
+        result.operationId = operationId;
+        result.status = Status.INSUFFICIENT_FUNDS;
+        result.message = e.getMessage();
+        result.requestedAmount = e.getRequestedAmount();
+        result.availableBalance = e.getAvailableBalance();
+        return result;
+    }
+    
+    public static OperationResult failed(String operationId, String message) {
+        OperationResult result = new OperationResult();
+        result.operationId = operationId;
+        result.status = Status.FAILED;
+        result.message = message;
+        return result;
+    }
+    
+    // Getters and setters
+    public String getOperationId() {
+        return operationId;
+    }
+    
+    public void setOperationId(String operationId) {
+        this.operationId = operationId;
+    }
+    
+    public Status getStatus() {
+        return status;
+    }
+    
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+    
+    public Account getAccount() {
+        return account;
+    }
+    
+    public void setAccount(Account account) {
+        this.account = account;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+    
+    public double getRequestedAmount() {
+        return requestedAmount;
+    }
+    
+    public void setRequestedAmount(double requestedAmount) {
+        this.requestedAmount = requestedAmount;
+    }
+    
+    public double getAvailableBalance() {
+        return availableBalance;
+    }
+    
+    public void setAvailableBalance(double availableBalance) {
+        this.availableBalance = availableBalance;
+    }
+    
+    @Override
+    public String toString() {
+        return "OperationResult{" +
+                "operationId='" + operationId + '\'' +
+                ", status=" + status +
+                (account != null ? ", balance=" + account.getBalance() : "") +
+                (message != null ? ", message='" + message + '\'' : "") +
+                '}';
+    }
+}
@@ -1,11 +1,14 @@
 package com.banking.client.model;
 
+import java.io.Serializable;
 import java.util.Date;
 
 /**
  * Model class for Transaction information.
  */
-public class Transaction {
+public class Transaction implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
     public enum TransactionType {
         DEPOSIT, WITHDRAWAL, TRANSFER_IN, TRANSFER_OUT
     }
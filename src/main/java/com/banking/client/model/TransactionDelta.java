@@ -0,0 +1,59 @@
+package com.banking.client.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Model class for the transactions recorded after a known transaction.
+ * When the server no longer holds enough history to answer from that point, the
+ * delta is empty and flagged as requiring a full reload instead.
+ */
+public class TransactionDelta implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    private List<Transaction> transactions = new ArrayList<>();
+    private boolean reloadRequired;
+    
+    // Default constructor for JSON deserialization
+    public TransactionDelta() {
+    }
+    
+    public TransactionDelta(List<Transaction> transactions, boolean reloadRequired) {
+        this.transactions = transactions;
+        this.reloadRequired = reloadRequired;
+    }
+    
+    public static TransactionDelta of(List<Transaction> transactions) {
+        return new TransactionDelta(transactions, false);
+    }
+    
+    public static TransactionDelta reload() {
+        return new TransactionDelta(new ArrayList<>(), true);
+    }
+    
+    // Getters and setters
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+    
+    public void setTransactions(List<Transaction> transactions) {
+        this.transactions = transactions;
+    }
+    
+    public boolean isReloadRequired() {
+        return reloadRequired;
+    }
+    
+    public void setReloadRequired(boolean reloadRequired) {
+        this.reloadRequired = reloadRequired;
+    }
+    
+    @Override
+    public String toString() {
+        return "TransactionDelta{" +
+                "transactions=" + transactions.size() +
+                ", reloadRequired=" + reloadRequired +
+                '}';
+    }
+}
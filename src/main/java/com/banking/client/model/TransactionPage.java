@@ -0,0 +1,54 @@
+package com.banking.client.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Model class for one page of an account's transaction history.
+ * A null next cursor means there are no further pages.
+ */
+public class TransactionPage implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    private List<Transaction> transactions = new ArrayList<>();
+    private String nextCursor;
+    
+    // Default constructor for JSON deserialization
+    public TransactionPage() {
+    }
+    
+    public TransactionPage(List<Transaction> transactions, String nextCursor) {
+        this.transactions = transactions;
+        this.nextCursor = nextCursor;
+    }
+    
+    // Getters and setters
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+    
+    public void setTransactions(List<Transaction> transactions) {
+        this.transactions = transactions;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+    
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+    
+    @Override
+    public String toString() {
+        return "TransactionPage{" +
+                "transactions=" + transactions.size() +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
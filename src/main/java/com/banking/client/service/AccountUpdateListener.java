@@ -0,0 +1,29 @@
+package com.banking.client.service;
+
+import com.banking.client.model.AccountUpdate;
+
+/**
+ * Receives account updates pushed through {@link BankingService#subscribe}.
+ * Methods are called on a background thread; GUI listeners must hand the update
+ * over to their UI thread.
+ */
+public interface AccountUpdateListener {
+    
+    /**
+     * Called for every balance change, in the order the server sent them.
+     */
+    void onUpdate(AccountUpdate update);
+    
+    /**
+     * Called when the connection to the server is lost. The subscription keeps trying
+     * to reconnect unless {@code permanent} is true.
+     */
+    default void onConnectionLost(Throwable cause, boolean permanent) {
+    }
+    
+    /**
+     * Called each time the subscription is (re)established.
+     */
+    default void onConnected() {
+    }
+}
@@ -0,0 +1,64 @@
+package com.banking.client.service;
+
+import com.banking.client.model.Account;
+import com.banking.client.model.Transaction;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link BankingService}.
+ * Every operation returns immediately with a future that completes when the
+ * application tier responds, so callers can compose calls (for example an account
+ * together with its history) without parking a thread per round trip.
+ * Failures, including {@link com.banking.client.model.InsufficientFundsException},
+ * complete the returned future exceptionally.
+ * <p>
+ * The GUI and the import and load test tools do not use it yet: they go through the
+ * blocking BankingService, whose cache, coalescing, retries and metrics have no async
+ * counterpart.
+ */
+public interface AsyncBankingService extends AutoCloseable {
+    
+    /**
+     * Create a new account.
+     */
+    CompletableFuture<Account> createAccount(String accountNumber, String accountHolderName, double initialBalance);
+    
+    /**
+     * Get an account by account number.
+     */
+    CompletableFuture<Account> getAccount(String accountNumber);
+    
+    /**
+     * Get all accounts.
+     */
+    CompletableFuture<List<Account>> getAllAccounts();
+    
+    /**
+     * Deposit money into an account.
+     */
+    CompletableFuture<Account> deposit(String accountNumber, double amount);
+    
+    /**
+     * Withdraw money from an account.
+     */
+    CompletableFuture<Account> withdraw(String accountNumber, double amount);
+    
+    /**
+     * Transfer money between accounts.
+     */
+    CompletableFuture<Boolean> transfer(String sourceAccountNumber, String destinationAccountNumber, double amount);
+    
+    /**
+     * Get transaction history for an account.
+     */
+    CompletableFuture<List<Transaction>> getTransactionHistory(String accountNumber);
+    
+    /**
+     * Release any connections or threads held by this service.
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,108 @@
+package com.banking.client.service;
+
+import com.banking.client.model.Account;
+import com.banking.client.model.Transaction;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exposes a blocking {@link BankingService} (for example {@link RmiBankingService})
+ * through the {@link AsyncBankingService} API.
+ * Calls run on a bounded executor; when both the workers and the queue are full the
+ * returned future fails with a {@link RejectedExecutionException} instead of blocking
+ * the caller.
+ */
+public class AsyncBankingServiceAdapter implements AsyncBankingService {
+    
+    private static final Logger logger = LogManager.getLogger(AsyncBankingServiceAdapter.class);
+    private final BankingService delegate;
+    private final ThreadPoolExecutor executor;
+    
+    public AsyncBankingServiceAdapter(BankingService delegate, int threads, int queueCapacity) {
+        this.delegate = delegate;
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "banking-async-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        
+        logger.info("Async adapter started with {} threads and queue capacity {}", threads, queueCapacity);
+    }
+    
+    private <T> CompletableFuture<T> submit(Callable<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(call.call());
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+    
+    @Override
+    public CompletableFuture<Account> createAccount(String accountNumber, String accountHolderName,
+                                                    double initialBalance) {
+        return submit(() -> delegate.createAccount(accountNumber, accountHolderName, initialBalance));
+    }
+    
+    @Override
+    public CompletableFuture<Account> getAccount(String accountNumber) {
+        return submit(() -> delegate.getAccount(accountNumber));
+    }
+    
+    @Override
+    public CompletableFuture<List<Account>> getAllAccounts() {
+        return submit(delegate::getAllAccounts);
+    }
+    
+    @Override
+    public CompletableFuture<Account> deposit(String accountNumber, double amount) {
+        return submit(() -> delegate.deposit(accountNumber, amount));
+    }
+    
+    @Override
+    public CompletableFuture<Account> withdraw(String accountNumber, double amount) {
+        return submit(() -> delegate.withdraw(accountNumber, amount));
+    }
+    
+    @Override
+    public CompletableFuture<Boolean> transfer(String sourceAccountNumber, String destinationAccountNumber,
+                                               double amount) {
+        return submit(() -> delegate.transfer(sourceAccountNumber, destinationAccountNumber, amount));
+    }
+    
+    @Override
+    public CompletableFuture<List<Transaction>> getTransactionHistory(String accountNumber) {
+        return submit(() -> delegate.getTransactionHistory(accountNumber));
+    }
+    
+    @Override
+    public void close() {
+        logger.info("Shutting down async adapter");
+        executor.shutdown();
+        delegate.close();
+    }
+}
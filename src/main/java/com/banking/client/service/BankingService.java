@@ -1,16 +1,25 @@
 package com.banking.client.service;
 
 import com.banking.client.model.Account;
+import com.banking.client.model.BankingOperation;
 import com.banking.client.model.InsufficientFundsException;
+import com.banking.client.model.OperationResult;
 import com.banking.client.model.Transaction;
+import com.banking.client.model.TransactionDelta;
+import com.banking.client.model.TransactionPage;
 
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.Flow;
 
 /**
  * Service interface for banking operations.
  * This can be implemented using different communication strategies (REST, RMI).
+ * Implementations may hold connections or threads, so callers should close the
+ * service when they no longer need it.
  */
-public interface BankingService {
+public interface BankingService extends AutoCloseable {
     
     /**
      * Create a new account.
@@ -22,6 +31,17 @@ public interface BankingService {
      */
     Account getAccount(String accountNumber) throws Exception;
     
+    /**
+     * Get an account, revalidating a previously fetched copy where the transport supports it.
+     * The default implementation always fetches the account again.
+     * 
+     * @param previous Result of an earlier call, or null if there is none
+     */
+    default ConditionalResult<Account> getAccountIfModified(String accountNumber,
+                                                           ConditionalResult<Account> previous) throws Exception {
+        return ConditionalResult.modified(getAccount(accountNumber), null, null);
+    }
+    
     /**
      * Get all accounts.
      */
@@ -43,8 +63,102 @@ public interface BankingService {
     boolean transfer(String sourceAccountNumber, String destinationAccountNumber, double amount) 
             throws Exception, InsufficientFundsException;
     
+    /**
+     * Execute a batch of deposits, withdrawals and transfers. Each operation gets its own
+     * result, so an operation refused for insufficient funds or failing otherwise does
+     * not fail the rest of the batch. Operations on the same account take effect in batch
+     * order; transports may run operations on different accounts in parallel. The default
+     * implementation runs the operations one at a time.
+     * 
+     * @return one result per operation, in batch order
+     */
+    default List<OperationResult> executeBatch(List<BankingOperation> operations) throws Exception {
+        List<OperationResult> results = new ArrayList<>(operations.size());
+        for (BankingOperation operation : operations) {
+            results.add(BatchPipeline.execute(this, operation));
+        }
+        return results;
+    }
+    
     /**
      * Get transaction history for an account.
      */
     List<Transaction> getTransactionHistory(String accountNumber) throws Exception;
+    
+    /**
+     * Get transaction history, revalidating a previously fetched copy where the transport
+     * supports it. The default implementation always fetches the history again.
+     * 
+     * @param previous Result of an earlier call, or null if there is none
+     */
+    default ConditionalResult<List<Transaction>> getTransactionHistoryIfModified(
+            String accountNumber, ConditionalResult<List<Transaction>> previous) throws Exception {
+        return ConditionalResult.modified(getTransactionHistory(accountNumber), null, null);
+    }
+    
+    /**
+     * Get one page of transaction history for an account.
+     * 
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param limit Maximum number of transactions to return
+     */
+    TransactionPage getTransactionHistory(String accountNumber, String cursor, int limit) throws Exception;
+    
+    /**
+     * Get the transactions recorded after a known transaction, in the same order as the
+     * history listing. The default implementation fetches the full history and cuts it
+     * client-side; transports that can ask the server for the delta override it.
+     * 
+     * @param lastTransactionId Id of the newest transaction the caller already holds
+     * @return the newer transactions, or a delta flagged for full reload when the server
+     *         no longer knows the given transaction
+     */
+    default TransactionDelta getTransactionsSince(String accountNumber, String lastTransactionId) throws Exception {
+        List<Transaction> history = getTransactionHistory(accountNumber);
+        for (int i = 0; i < history.size(); i++) {
+            if (lastTransactionId.equals(history.get(i).getTransactionId())) {
+                Date first = history.get(0).getTimestamp();
+                Date last = history.get(history.size() - 1).getTimestamp();
+                boolean newestFirst = first != null && last != null && first.after(last);
+                return TransactionDelta.of(new ArrayList<>(newestFirst
+                        ? history.subList(0, i) : history.subList(i + 1, history.size())));
+            }
+        }
+        return TransactionDelta.reload();
+    }
+    
+    /**
+     * Stream transaction history for an account, honouring subscriber demand.
+     * Each subscription issues a new request. The default implementation loads the
+     * full history and replays it; transports that can parse incrementally override it.
+     */
+    default Flow.Publisher<Transaction> streamTransactionHistory(String accountNumber) {
+        return new StreamPublisher<>(StreamPublisher.threadPerSubscription("history-stream"), sink -> {
+            for (Transaction transaction : getTransactionHistory(accountNumber)) {
+                if (!sink.emit(transaction)) {
+                    return;
+                }
+            }
+        });
+    }
+    
+    /**
+     * Receive balance changes and new transactions for an account as the server pushes
+     * them. The subscription reconnects by itself after connection failures and resumes
+     * after the last transaction delivered, until it is cancelled.
+     * 
+     * @param listener Receives updates on a background thread
+     * @return Subscription handle used to stop the updates
+     * @throws UnsupportedOperationException if the transport cannot push updates
+     */
+    default Subscription subscribe(String accountNumber, AccountUpdateListener listener) throws Exception {
+        throw new UnsupportedOperationException("Account updates are not supported by this service");
+    }
+    
+    /**
+     * Release any connections or threads held by this service.
+     */
+    @Override
+    default void close() {
+    }
 }
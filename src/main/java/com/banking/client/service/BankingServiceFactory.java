@@ -1,10 +1,16 @@
 package com.banking.client.service;
 
+import com.banking.client.metrics.BankingMetrics;
+import com.banking.client.store.HistoryStore;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -15,11 +21,268 @@ public class BankingServiceFactory {
     private static final Logger logger = LogManager.getLogger(BankingServiceFactory.class);
     
     /**
-     * Create a BankingService based on configuration.
+     * Create a BankingService based on configuration. Without a configuration file it
+     * connects to http://localhost:8080 over REST with default settings.
      * 
      * @return BankingService instance
+     * @throws IllegalStateException if the configured shard map cannot be read
      */
     public static BankingService createService() {
+        Properties properties = loadPropertiesOrDefaults();
+        return decorate(createTransport(properties), properties);
+    }
+    
+    /**
+     * Create a BankingService for load tests: the configured transport with only the
+     * resilience and metrics layers. The client-side cache and request coalescing are
+     * always left out, as they would answer most reads in-process and the results would
+     * not measure the application tier.
+     * 
+     * @return BankingService instance
+     * @throws IllegalStateException if the configured shard map cannot be read
+     */
+    public static BankingService createLoadTestService() {
+        Properties properties = loadPropertiesOrDefaults();
+        properties.setProperty("cache.enabled", "false");
+        properties.setProperty("coalescing.enabled", "false");
+        
+        return decorate(createTransport(properties), properties);
+    }
+    
+    /**
+     * Create the local transaction history store, if enabled by configuration.
+     * 
+     * @return HistoryStore instance, or null if the store is disabled
+     */
+    public static HistoryStore createHistoryStore() {
+        Properties properties = loadPropertiesOrDefaults();
+        
+        if (!Boolean.parseBoolean(properties.getProperty("history.store.enabled", "true"))) {
+            return null;
+        }
+        String directory = properties.getProperty("history.store.dir", "");
+        Path path = directory.isEmpty()
+                ? Paths.get(System.getProperty("user.home"), ".banking-client", "history")
+                : Paths.get(directory);
+        long maxBytes = Long.parseLong(properties.getProperty("history.store.max.bytes", "16777216"));
+        logger.info("Storing transaction history in {}", path);
+        return new HistoryStore(path, maxBytes);
+    }
+    
+    /**
+     * Create the bare REST or RMI transport selected by configuration. A shard map that
+     * is configured but cannot be read fails the call rather than silently connecting
+     * somewhere else.
+     */
+    private static BankingService createTransport(Properties properties) {
+        String connectionType = properties.getProperty("connection.type", "REST");
+        
+        if ("RMI".equalsIgnoreCase(connectionType)) {
+            String host = properties.getProperty("rmi.host", "localhost");
+            int port = Integer.parseInt(properties.getProperty("rmi.port", "1099"));
+            return createRmiService(host, port);
+        }
+        
+        String shardMapFile = properties.getProperty("shard.map.file", "").trim();
+        if (!shardMapFile.isEmpty()) {
+            long reloadMillis = Long.parseLong(properties.getProperty("shard.map.reload.seconds", "10")) * 1000;
+            try {
+                return createShardedService(Paths.get(shardMapFile), reloadMillis,
+                        RestClientConfig.fromProperties(properties), LoadBalancerConfig.fromProperties(properties));
+            } catch (IOException e) {
+                logger.error("Failed to load shard map {}: {}", shardMapFile, e.getMessage(), e);
+                throw new IllegalStateException("Unable to load shard map " + shardMapFile + ": " + e.getMessage(), e);
+            }
+        }
+        
+        List<String> baseUrls = parseUrls(properties.getProperty("rest.api.urls", ""));
+        if (!baseUrls.isEmpty()) {
+            return createLoadBalancedService(baseUrls, RestClientConfig.fromProperties(properties),
+                    LoadBalancerConfig.fromProperties(properties));
+        }
+        String baseUrl = properties.getProperty("rest.api.url", "http://localhost:8080");
+        return createRestService(baseUrl, RestClientConfig.fromProperties(properties));
+    }
+    
+    private static List<String> parseUrls(String urls) {
+        List<String> baseUrls = new ArrayList<>();
+        for (String url : urls.split(",")) {
+            if (!url.trim().isEmpty()) {
+                baseUrls.add(url.trim());
+            }
+        }
+        return baseUrls;
+    }
+    
+    /**
+     * Wrap a transport in the decorators enabled by configuration.
+     */
+    private static BankingService decorate(BankingService service, Properties properties) {
+        BankingMetrics metrics = BankingMetrics.getDefault();
+        
+        BankingService transport = service;
+        if (service instanceof RestBankingService) {
+            registerPoolMetrics((RestBankingService) service, metrics);
+        } else if (service instanceof LoadBalancedBankingService) {
+            registerEndpointMetrics((LoadBalancedBankingService) service, metrics);
+        }
+        
+        // Around the transport itself, so every request that goes out is timed, retries and
+        // hedges included, and cache hits and shared reads are not
+        if (Boolean.parseBoolean(properties.getProperty("metrics.enabled", "true"))) {
+            String transportName = properties.getProperty("connection.type", "REST").toLowerCase();
+            service = new InstrumentedBankingService(service, transportName, metrics);
+        }
+        
+        // Below coalescing, so a read shared by several callers is retried once for all of them
+        if (Boolean.parseBoolean(properties.getProperty("resilience.enabled", "true"))) {
+            ResilientBankingService resilientService = new ResilientBankingService(service,
+                    ResilienceConfig.fromProperties(properties), !(transport instanceof RmiBankingService));
+            registerResilienceMetrics(resilientService, metrics);
+            service = resilientService;
+        }
+        
+        // Below the cache, so concurrent cache misses and revalidations share one request
+        if (Boolean.parseBoolean(properties.getProperty("coalescing.enabled", "true"))) {
+            CoalescingBankingService coalescingService = createCoalescingService(service);
+            registerCoalescingMetrics(coalescingService, metrics);
+            service = coalescingService;
+        }
+        
+        if (Boolean.parseBoolean(properties.getProperty("cache.enabled", "true"))) {
+            int maxEntries = Integer.parseInt(properties.getProperty("cache.max.entries", "1000"));
+            long ttlMillis = Long.parseLong(properties.getProperty("cache.ttl.seconds", "5")) * 1000;
+            CachingBankingService cachingService = createCachingService(service, maxEntries, ttlMillis);
+            registerCacheMetrics(cachingService, metrics);
+            service = cachingService;
+        }
+        return service;
+    }
+    
+    private static void registerPoolMetrics(RestBankingService service, BankingMetrics metrics) {
+        String help = "Connections in the REST connection pool by state";
+        metrics.registerGauge("banking_client_http_pool_connections", help, "state=\"leased\"",
+                () -> service.getPoolStats().getLeased());
+        metrics.registerGauge("banking_client_http_pool_connections", help, "state=\"pending\"",
+                () -> service.getPoolStats().getPending());
+        metrics.registerGauge("banking_client_http_pool_connections", help, "state=\"available\"",
+                () -> service.getPoolStats().getAvailable());
+        metrics.registerGauge("banking_client_http_pool_max_connections", "Maximum size of the REST connection pool",
+                "", () -> service.getPoolStats().getMax());
+    }
+    
+    private static void registerEndpointMetrics(LoadBalancedBankingService service, BankingMetrics metrics) {
+        List<EndpointStats> endpoints = service.getEndpointStats();
+        for (int i = 0; i < endpoints.size(); i++) {
+            int index = i;
+            String labels = "endpoint=\"" + endpoints.get(i).getUrl() + "\"";
+            metrics.registerGauge("banking_client_endpoint_outstanding_requests",
+                    "Requests sent to a REST endpoint that have not completed", labels,
+                    () -> service.getEndpointStats().get(index).getOutstanding());
+            metrics.registerCounter("banking_client_endpoint_requests_total",
+                    "Requests sent to a REST endpoint", labels,
+                    () -> service.getEndpointStats().get(index).getRequests());
+            metrics.registerCounter("banking_client_endpoint_failures_total",
+                    "Calls and health probes that could not reach a REST endpoint", labels,
+                    () -> service.getEndpointStats().get(index).getFailures());
+            metrics.registerCounter("banking_client_endpoint_ejections_total",
+                    "Times a REST endpoint was taken out of rotation", labels,
+                    () -> service.getEndpointStats().get(index).getEjections());
+            metrics.registerGauge("banking_client_endpoint_latency_ms",
+                    "Moving average of a REST endpoint's response time", labels,
+                    () -> service.getEndpointStats().get(index).getLatencyMillis());
+            metrics.registerGauge("banking_client_endpoint_weight",
+                    "Share of new requests a REST endpoint receives, 0 while ejected", labels,
+                    () -> service.getEndpointStats().get(index).getWeight());
+        }
+    }
+    
+    private static void registerResilienceMetrics(ResilientBankingService service, BankingMetrics metrics) {
+        metrics.registerCounter("banking_client_resilience_calls_total", "Calls made through the retry layer",
+                "", () -> service.getStats().getCalls());
+        metrics.registerCounter("banking_client_retries_total", "Attempts made after a call's previous attempt failed",
+                "", () -> service.getStats().getRetries());
+        metrics.registerCounter("banking_client_retries_exhausted_total",
+                "Calls that failed on the network after every attempt they were allowed",
+                "", () -> service.getStats().getExhausted());
+        String help = "Reads eligible for hedging, second requests sent for slow reads, "
+                + "and second requests that answered first";
+        metrics.registerCounter("banking_client_hedging_events_total", help, "event=\"eligible\"",
+                () -> service.getStats().getHedgeableReads());
+        metrics.registerCounter("banking_client_hedging_events_total", help, "event=\"hedged\"",
+                () -> service.getStats().getHedges());
+        metrics.registerCounter("banking_client_hedging_events_total", help, "event=\"won\"",
+                () -> service.getStats().getHedgeWins());
+    }
+    
+    private static void registerCoalescingMetrics(CoalescingBankingService service, BankingMetrics metrics) {
+        String help = "Reads sent to the backend, and reads served by an identical read already in flight";
+        metrics.registerCounter("banking_client_coalescing_reads_total", help, "outcome=\"requested\"",
+                () -> service.getStats().getRequests());
+        metrics.registerCounter("banking_client_coalescing_reads_total", help, "outcome=\"coalesced\"",
+                () -> service.getStats().getCoalesced());
+        metrics.registerGauge("banking_client_coalescing_in_flight", "Distinct reads currently in flight",
+                "", () -> service.getStats().getInFlight());
+    }
+    
+    private static void registerCacheMetrics(CachingBankingService service, BankingMetrics metrics) {
+        String help = "Client-side cache lookups and evictions by event";
+        metrics.registerCounter("banking_client_cache_events_total", help, "event=\"hit\"",
+                () -> service.getStats().getHits());
+        metrics.registerCounter("banking_client_cache_events_total", help, "event=\"miss\"",
+                () -> service.getStats().getMisses());
+        metrics.registerCounter("banking_client_cache_events_total", help, "event=\"revalidation\"",
+                () -> service.getStats().getRevalidations());
+        metrics.registerCounter("banking_client_cache_events_total", help, "event=\"not_modified\"",
+                () -> service.getStats().getNotModified());
+        metrics.registerCounter("banking_client_cache_events_total", help, "event=\"eviction\"",
+                () -> service.getStats().getEvictions());
+        metrics.registerGauge("banking_client_cache_entries", "Entries currently held by the client-side cache",
+                "", () -> service.getStats().getSize());
+    }
+    
+    /**
+     * Wrap a BankingService in a bounded, TTL-based cache.
+     * 
+     * @param service Service to wrap
+     * @param maxEntries Maximum number of cached entries
+     * @param ttlMillis Time an entry is served without revalidation
+     * @return BankingService instance
+     */
+    public static CachingBankingService createCachingService(BankingService service, int maxEntries, long ttlMillis) {
+        return new CachingBankingService(service, maxEntries, ttlMillis);
+    }
+    
+    /**
+     * Wrap a BankingService in retries, idempotency keys for writes and, if enabled,
+     * hedged reads. Writes are retried after any network failure only over REST, which
+     * sends their idempotency keys, and only when write retries are configured.
+     * 
+     * @param service Service to wrap
+     * @param config Retry and hedging settings
+     * @return ResilientBankingService instance
+     */
+    public static ResilientBankingService createResilientService(BankingService service, ResilienceConfig config) {
+        return new ResilientBankingService(service, config, !(service instanceof RmiBankingService));
+    }
+    
+    /**
+     * Wrap a BankingService so concurrent identical reads share one request.
+     * 
+     * @param service Service to wrap
+     * @return CoalescingBankingService instance
+     */
+    public static CoalescingBankingService createCoalescingService(BankingService service) {
+        return new CoalescingBankingService(service);
+    }
+    
+    /**
+     * Create an AsyncBankingService based on configuration.
+     * REST uses the non-blocking client directly; RMI is wrapped in a bounded executor.
+     * 
+     * @return AsyncBankingService instance
+     */
+    public static AsyncBankingService createAsyncService() {
         try {
             Properties properties = loadProperties();
             
@@ -28,18 +291,45 @@ public class BankingServiceFactory {
             if ("RMI".equalsIgnoreCase(connectionType)) {
                 String host = properties.getProperty("rmi.host", "localhost");
                 int port = Integer.parseInt(properties.getProperty("rmi.port", "1099"));
-                return createRmiService(host, port);
+                int threads = Integer.parseInt(properties.getProperty("async.adapter.threads", "16"));
+                int queueCapacity = Integer.parseInt(properties.getProperty("async.adapter.queue.capacity", "1000"));
+                return createAsyncAdapter(createRmiService(host, port), threads, queueCapacity);
             } else {
                 String baseUrl = properties.getProperty("rest.api.url", "http://localhost:8080");
-                return createRestService(baseUrl);
+                return createAsyncRestService(baseUrl, RestClientConfig.fromProperties(properties));
             }
         } catch (IOException e) {
             logger.error("Failed to load properties: {}", e.getMessage(), e);
             // Default to REST with localhost
-            return createRestService("http://localhost:8080");
+            return createAsyncRestService("http://localhost:8080", new RestClientConfig());
         }
     }
     
+    /**
+     * Create a non-blocking REST-based AsyncBankingService.
+     * 
+     * @param baseUrl Base URL of the application tier
+     * @param config Connection pool and timeout settings
+     * @return AsyncBankingService instance
+     */
+    public static AsyncBankingService createAsyncRestService(String baseUrl, RestClientConfig config) {
+        logger.info("Creating async REST banking service with URL: {}", baseUrl);
+        return new RestAsyncBankingService(baseUrl, config);
+    }
+    
+    /**
+     * Expose a blocking BankingService through the async API using a bounded executor.
+     * 
+     * @param service Blocking service to wrap
+     * @param threads Number of worker threads
+     * @param queueCapacity Maximum number of queued calls before new calls are rejected
+     * @return AsyncBankingService instance
+     */
+    public static AsyncBankingService createAsyncAdapter(BankingService service, int threads, int queueCapacity) {
+        logger.info("Creating async adapter with {} threads", threads);
+        return new AsyncBankingServiceAdapter(service, threads, queueCapacity);
+    }
+    
     /**
      * Create a REST-based BankingService.
      * 
@@ -47,8 +337,60 @@ public class BankingServiceFactory {
      * @return BankingService instance
      */
     public static BankingService createRestService(String baseUrl) {
+        return createRestService(baseUrl, new RestClientConfig());
+    }
+    
+    /**
+     * Create a REST-based BankingService with explicit connection pool settings.
+     * 
+     * @param baseUrl Base URL of the application tier
+     * @param config Connection pool and timeout settings
+     * @return BankingService instance
+     */
+    public static BankingService createRestService(String baseUrl, RestClientConfig config) {
         logger.info("Creating REST banking service with URL: {}", baseUrl);
-        return new RestBankingService(baseUrl);
+        return new RestBankingService(baseUrl, config);
+    }
+    
+    /**
+     * Create a REST-based BankingService that balances calls over several replicas.
+     * 
+     * @param baseUrls Base URLs of the application-tier replicas
+     * @param config Connection pool and timeout settings, applied to each endpoint
+     * @param loadBalancerConfig Endpoint selection, ejection, probe and slow start settings
+     * @return LoadBalancedBankingService instance
+     */
+    public static LoadBalancedBankingService createLoadBalancedService(List<String> baseUrls, RestClientConfig config,
+                                                                       LoadBalancerConfig loadBalancerConfig) {
+        logger.info("Creating load-balanced REST banking service with URLs: {}", baseUrls);
+        return new LoadBalancedBankingService(baseUrls, config, loadBalancerConfig);
+    }
+    
+    /**
+     * Create a REST-based BankingService that routes each call to the shard owning its
+     * account. A shard listing several URLs is load-balanced over them.
+     * 
+     * @param shardMapFile Properties file describing the shard map, see {@link ShardMap}
+     * @param reloadMillis Interval at which the file is checked for changes; 0 to never reload
+     * @param config Connection pool and timeout settings, applied to each shard endpoint
+     * @param loadBalancerConfig Settings for shards with several URLs
+     * @return ShardedBankingService instance
+     * @throws IOException If the shard map file cannot be read
+     */
+    public static ShardedBankingService createShardedService(Path shardMapFile, long reloadMillis,
+                                                             RestClientConfig config,
+                                                             LoadBalancerConfig loadBalancerConfig) throws IOException {
+        logger.info("Creating sharded REST banking service with shard map {}", shardMapFile);
+        ShardedBankingService service = new ShardedBankingService(ShardMap.load(shardMapFile), urls -> {
+            List<String> baseUrls = parseUrls(urls);
+            return baseUrls.size() > 1
+                    ? createLoadBalancedService(baseUrls, config, loadBalancerConfig)
+                    : createRestService(baseUrls.get(0), config);
+        });
+        if (reloadMillis > 0) {
+            service.watch(shardMapFile, reloadMillis);
+        }
+        return service;
     }
     
     /**
@@ -63,6 +405,21 @@ public class BankingServiceFactory {
         return new RmiBankingService(host, port);
     }
     
+    /**
+     * Load properties from the configuration file, or use the defaults of every setting
+     * if it cannot be loaded.
+     * 
+     * @return Properties, empty if the file could not be loaded
+     */
+    private static Properties loadPropertiesOrDefaults() {
+        try {
+            return loadProperties();
+        } catch (IOException e) {
+            logger.error("Failed to load configuration, using defaults: {}", e.getMessage(), e);
+            return new Properties();
+        }
+    }
+    
     /**
      * Load properties from configuration file.
      * 
@@ -87,6 +444,16 @@ public class BankingServiceFactory {
             properties.setProperty("rest.api.url", restApiUrl);
         }
         
+        String restApiUrls = System.getenv("REST_API_URLS");
+        if (restApiUrls != null && !restApiUrls.isEmpty()) {
+            properties.setProperty("rest.api.urls", restApiUrls);
+        }
+        
+        String shardMapFile = System.getenv("SHARD_MAP_FILE");
+        if (shardMapFile != null && !shardMapFile.isEmpty()) {
+            properties.setProperty("shard.map.file", shardMapFile);
+        }
+        
         String connectionType = System.getenv("CONNECTION_TYPE");
         if (connectionType != null && !connectionType.isEmpty()) {
             properties.setProperty("connection.type", connectionType);
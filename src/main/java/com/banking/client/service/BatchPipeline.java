@@ -0,0 +1,171 @@
+package com.banking.client.service;
+
+import com.banking.client.model.BankingOperation;
+import com.banking.client.model.InsufficientFundsException;
+import com.banking.client.model.OperationResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the operations of a batch as individual calls, several at a time.
+ * Operations touching the same account run one after another in batch order, each
+ * starting once the previous one has completed; operations on unrelated accounts run
+ * in parallel on a fixed number of threads shared by every batch of the service, so
+ * a batch never holds more connections than that. A transfer waits for the earlier
+ * operations of both its accounts.
+ */
+class BatchPipeline {
+    
+    private final BankingService service;
+    private final ExecutorService executor;
+    
+    /**
+     * @param service Runs each operation
+     * @param concurrency Maximum operations in flight across all batches
+     */
+    BatchPipeline(BankingService service, int concurrency, String threadName) {
+        this.service = service;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, concurrency), runnable -> {
+            Thread thread = new Thread(runnable, threadName + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Run one operation, turning its outcome into a result rather than an exception.
+     */
+    static OperationResult execute(BankingService service, BankingOperation operation) {
+        String operationId = operation.getOperationId();
+        try {
+            switch (operation.getType()) {
+                case DEPOSIT:
+                    return OperationResult.succeeded(operationId,
+                            service.deposit(operation.getAccountNumber(), operation.getAmount()));
+                case WITHDRAW:
+                    return OperationResult.succeeded(operationId,
+                            service.withdraw(operation.getAccountNumber(), operation.getAmount()));
+                case TRANSFER:
+                    boolean success = service.transfer(operation.getAccountNumber(),
+                            operation.getDestinationAccountNumber(), operation.getAmount());
+                    return success ? OperationResult.succeeded(operationId, null)
+                            : OperationResult.failed(operationId, "Transfer was not completed");
+                default:
+                    return OperationResult.failed(operationId, "Unsupported operation: " + operation.getType());
+            }
+        } catch (InsufficientFundsException e) {
+            return OperationResult.insufficientFunds(operationId, e);
+        } catch (Exception e) {
+            return OperationResult.failed(operationId, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+    
+    /**
+     * Run a batch and wait for all of its operations.
+     *
+     * @return one result per operation, in batch order
+     * @throws InterruptedException If the caller is interrupted; operations not yet
+     *         started are then skipped
+     */
+    List<OperationResult> execute(List<BankingOperation> operations) throws InterruptedException {
+        Batch batch = new Batch(operations);
+        batch.start();
+        return batch.await();
+    }
+    
+    void close() {
+        executor.shutdownNow();
+    }
+    
+    /**
+     * One batch in progress: which operations each operation waits for, and which
+     * wait for it.
+     */
+    private class Batch {
+        private final List<BankingOperation> operations;
+        private final OperationResult[] results;
+        private final AtomicInteger[] waitingFor;
+        private final List<List<Integer>> dependents;
+        private final CountDownLatch remaining;
+        private final AtomicBoolean abandoned = new AtomicBoolean();
+        
+        Batch(List<BankingOperation> operations) {
+            int size = operations.size();
+            this.operations = operations;
+            this.results = new OperationResult[size];
+            this.waitingFor = new AtomicInteger[size];
+            this.dependents = new ArrayList<>(size);
+            this.remaining = new CountDownLatch(size);
+            
+            // Each operation depends on the latest earlier operation of every account it touches
+            Map<String, Integer> lastByAccount = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                dependents.add(new ArrayList<>(1));
+                int predecessors = 0;
+                for (String accountNumber : operations.get(i).touchedAccounts()) {
+                    Integer previous = lastByAccount.put(accountNumber, i);
+                    if (previous != null && !dependents.get(previous).contains(i)) {
+                        dependents.get(previous).add(i);
+                        predecessors++;
+                    }
+                }
+                waitingFor[i] = new AtomicInteger(predecessors);
+            }
+        }
+        
+        void start() {
+            for (int i = 0; i < results.length; i++) {
+                if (waitingFor[i].get() == 0) {
+                    submit(i);
+                }
+            }
+        }
+        
+        private void submit(int index) {
+            try {
+                executor.execute(() -> run(index));
+            } catch (RejectedExecutionException e) {
+                complete(index, OperationResult.failed(operations.get(index).getOperationId(),
+                        "Service is closed"));
+            }
+        }
+        
+        private void run(int index) {
+            BankingOperation operation = operations.get(index);
+            complete(index, abandoned.get()
+                    ? OperationResult.failed(operation.getOperationId(), "Batch was abandoned")
+                    : execute(service, operation));
+        }
+        
+        private void complete(int index, OperationResult result) {
+            results[index] = result;
+            for (int dependent : dependents.get(index)) {
+                if (waitingFor[dependent].decrementAndGet() == 0) {
+                    submit(dependent);
+                }
+            }
+            remaining.countDown();
+        }
+        
+        List<OperationResult> await() throws InterruptedException {
+            try {
+                remaining.await();
+            } catch (InterruptedException e) {
+                abandoned.set(true);
+                throw e;
+            }
+            return Arrays.asList(results);
+        }
+    }
+}
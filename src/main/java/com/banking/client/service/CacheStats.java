@@ -0,0 +1,79 @@
+package com.banking.client.service;
+
+/**
+ * Snapshot of a {@link CachingBankingService}'s counters.
+ */
+public class CacheStats {
+    
+    private final long hits;
+    private final long misses;
+    private final long revalidations;
+    private final long notModified;
+    private final long evictions;
+    private final int size;
+    
+    public CacheStats(long hits, long misses, long revalidations, long notModified, long evictions, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.revalidations = revalidations;
+        this.notModified = notModified;
+        this.evictions = evictions;
+        this.size = size;
+    }
+    
+    /**
+     * Reads answered from a fresh entry without contacting the server.
+     */
+    public long getHits() {
+        return hits;
+    }
+    
+    /**
+     * Reads that had no usable entry and fetched the full value.
+     */
+    public long getMisses() {
+        return misses;
+    }
+    
+    /**
+     * Expired entries that were revalidated with a conditional request.
+     */
+    public long getRevalidations() {
+        return revalidations;
+    }
+    
+    /**
+     * Revalidations the server answered with 304 Not Modified.
+     */
+    public long getNotModified() {
+        return notModified;
+    }
+    
+    /**
+     * Entries dropped because the cache was full.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    public double getHitRatio() {
+        long reads = hits + misses + revalidations;
+        return reads == 0 ? 0.0 : (double) (hits + notModified) / reads;
+    }
+    
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hits=" + hits +
+                ", misses=" + misses +
+                ", revalidations=" + revalidations +
+                ", notModified=" + notModified +
+                ", evictions=" + evictions +
+                ", size=" + size +
+                '}';
+    }
+}
@@ -0,0 +1,404 @@
+package com.banking.client.service;
+
+import com.banking.client.model.Account;
+import com.banking.client.model.AccountUpdate;
+import com.banking.client.model.BankingOperation;
+import com.banking.client.model.InsufficientFundsException;
+import com.banking.client.model.OperationResult;
+import com.banking.client.model.Transaction;
+import com.banking.client.model.TransactionPage;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BankingService decorator that caches accounts and transaction history.
+ * The cache holds at most a fixed number of entries, evicting the least recently used.
+ * Entries are fresh for a fixed time to live; after that they are revalidated with the
+ * transport's conditional read (an ETag or Last-Modified check over REST), so an unchanged
+ * value costs a 304 rather than a full body. Deposits, withdrawals and transfers update or
+ * invalidate the affected accounts locally. Every invalidation bumps the account's
+ * generation, and a read that was in flight across one does not store its result, as it
+ * may have been answered before the change.
+ */
+public class CachingBankingService extends DelegatingBankingService {
+    
+    private static final Logger logger = LogManager.getLogger(CachingBankingService.class);
+    
+    private enum Kind {
+        ACCOUNT, HISTORY, PAGE
+    }
+    
+    private static final class CacheKey {
+        private final Kind kind;
+        private final String accountNumber;
+        private final String cursor;
+        private final int limit;
+        
+        CacheKey(Kind kind, String accountNumber, String cursor, int limit) {
+            this.kind = kind;
+            this.accountNumber = accountNumber;
+            this.cursor = cursor;
+            this.limit = limit;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return kind == other.kind && limit == other.limit
+                    && accountNumber.equals(other.accountNumber)
+                    && Objects.equals(cursor, other.cursor);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, accountNumber, cursor, limit);
+        }
+    }
+    
+    private static final class CacheEntry {
+        private final ConditionalResult<?> result;
+        private final long expiresAt;
+        
+        CacheEntry(ConditionalResult<?> result, long expiresAt) {
+            this.result = result;
+            this.expiresAt = expiresAt;
+        }
+    }
+    
+    /**
+     * A read that can optionally revalidate a previous result.
+     */
+    private interface ConditionalRead<T> {
+        ConditionalResult<T> fetch(ConditionalResult<T> previous) throws Exception;
+    }
+    
+    private final long ttlMillis;
+    private final Map<CacheKey, CacheEntry> entries;
+    // Guarded by entries, like the fields below: the generation of each recently
+    // invalidated account, oldest first and at most as many as there are entries
+    private final Map<String, Long> generations;
+    private long generation;
+    // Newest generation dropped from the map; reads older than it cannot be checked
+    private long forgottenGeneration;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    
+    public CachingBankingService(BankingService delegate, int maxEntries, long ttlMillis) {
+        super(delegate);
+        this.ttlMillis = ttlMillis;
+        // Access-ordered, so the eldest entry is the least recently used one
+        this.entries = new LinkedHashMap<CacheKey, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest) {
+                if (size() > maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.generations = new LinkedHashMap<String, Long>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                if (size() > maxEntries) {
+                    forgottenGeneration = eldest.getValue();
+                    return true;
+                }
+                return false;
+            }
+        };
+        logger.info("Caching enabled with {} entries and a TTL of {} ms", maxEntries, ttlMillis);
+    }
+    
+    /**
+     * Serve a read from the cache, revalidating or fetching it when there is no fresh
+     * entry. Without a cached value to revalidate, the caller's previous result is
+     * revalidated instead.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> ConditionalResult<T> read(CacheKey key, ConditionalResult<T> callerPrevious,
+                                          ConditionalRead<T> read) throws Exception {
+        CacheEntry entry;
+        long startGeneration;
+        synchronized (entries) {
+            entry = entries.get(key);
+            startGeneration = generation;
+        }
+        
+        long now = System.currentTimeMillis();
+        ConditionalResult<T> previous = null;
+        if (entry != null) {
+            if (now < entry.expiresAt) {
+                hits.incrementAndGet();
+                return (ConditionalResult<T>) entry.result;
+            }
+            if (entry.result.hasValidator()) {
+                previous = (ConditionalResult<T>) entry.result;
+            }
+        }
+        if (previous == null && callerPrevious != null && callerPrevious.hasValidator()) {
+            previous = callerPrevious;
+        }
+        
+        ConditionalResult<T> result;
+        if (previous != null) {
+            revalidations.incrementAndGet();
+            result = read.fetch(previous);
+            if (result.isNotModified()) {
+                notModified.incrementAndGet();
+            }
+        } else {
+            misses.incrementAndGet();
+            result = read.fetch(null);
+        }
+        
+        synchronized (entries) {
+            if (!invalidatedSince(key.accountNumber, startGeneration)) {
+                store(key, result);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Whether the account may have been invalidated after the given generation.
+     */
+    private boolean invalidatedSince(String accountNumber, long since) {
+        Long invalidated = generations.get(accountNumber);
+        return (invalidated != null && invalidated > since) || forgottenGeneration > since;
+    }
+    
+    private void bumpGeneration(String accountNumber) {
+        generation++;
+        // Re-inserted so the map stays ordered by generation
+        generations.remove(accountNumber);
+        generations.put(accountNumber, generation);
+    }
+    
+    /**
+     * A result as seen by a caller that holds the given previous result: not modified
+     * if it is the same version, modified otherwise, whatever it was for the cache.
+     */
+    private static <T> ConditionalResult<T> relativeTo(ConditionalResult<T> result, ConditionalResult<T> previous) {
+        if (previous == null) {
+            return result;
+        }
+        if (sameVersion(result, previous)) {
+            return ConditionalResult.notModified(previous, result.getEtag(), result.getLastModified());
+        }
+        return result.isNotModified()
+                ? ConditionalResult.modified(result.getValue(), result.getEtag(), result.getLastModified())
+                : result;
+    }
+    
+    private static boolean sameVersion(ConditionalResult<?> result, ConditionalResult<?> previous) {
+        if (result.getValue() == previous.getValue()) {
+            return true;
+        }
+        if (result.getEtag() != null || previous.getEtag() != null) {
+            return Objects.equals(result.getEtag(), previous.getEtag());
+        }
+        return result.getLastModified() != null && result.getLastModified().equals(previous.getLastModified());
+    }
+    
+    private void store(CacheKey key, ConditionalResult<?> result) {
+        synchronized (entries) {
+            entries.put(key, new CacheEntry(result, System.currentTimeMillis() + ttlMillis));
+        }
+    }
+    
+    private void storeAccount(Account account) {
+        if (account != null && account.getAccountNumber() != null) {
+            store(accountKey(account.getAccountNumber()), ConditionalResult.modified(account, null, null));
+        }
+    }
+    
+    /**
+     * Drop the account and every cached piece of its history.
+     */
+    public void invalidate(String accountNumber) {
+        synchronized (entries) {
+            bumpGeneration(accountNumber);
+            entries.keySet().removeIf(key -> key.accountNumber.equals(accountNumber));
+        }
+    }
+    
+    /**
+     * Drop every cached piece of an account's history, keeping the account itself.
+     */
+    private void invalidateHistory(String accountNumber) {
+        synchronized (entries) {
+            bumpGeneration(accountNumber);
+            entries.keySet().removeIf(key -> key.kind != Kind.ACCOUNT && key.accountNumber.equals(accountNumber));
+        }
+    }
+    
+    private static CacheKey accountKey(String accountNumber) {
+        return new CacheKey(Kind.ACCOUNT, accountNumber, null, 0);
+    }
+    
+    /**
+     * Current hit, miss, revalidation and eviction counters.
+     */
+    public CacheStats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new CacheStats(hits.get(), misses.get(), revalidations.get(), notModified.get(),
+                evictions.get(), size);
+    }
+    
+    @Override
+    public Account createAccount(String accountNumber, String accountHolderName, double initialBalance) throws Exception {
+        Account account = delegate.createAccount(accountNumber, accountHolderName, initialBalance);
+        storeAccount(account);
+        return account;
+    }
+    
+    @Override
+    public Account getAccount(String accountNumber) throws Exception {
+        return getAccountIfModified(accountNumber, null).getValue();
+    }
+    
+    @Override
+    public ConditionalResult<Account> getAccountIfModified(String accountNumber,
+                                                          ConditionalResult<Account> previous) throws Exception {
+        return relativeTo(read(accountKey(accountNumber), previous,
+                cached -> delegate.getAccountIfModified(accountNumber, cached)), previous);
+    }
+    
+    @Override
+    public Account deposit(String accountNumber, double amount) throws Exception {
+        Account account;
+        try {
+            account = delegate.deposit(accountNumber, amount);
+        } catch (Exception e) {
+            // The server may have applied the write before the call failed
+            invalidate(accountNumber);
+            throw e;
+        }
+        storeAccount(account);
+        invalidateHistory(accountNumber);
+        return account;
+    }
+    
+    @Override
+    public Account withdraw(String accountNumber, double amount) throws Exception, InsufficientFundsException {
+        Account account;
+        try {
+            account = delegate.withdraw(accountNumber, amount);
+        } catch (Exception e) {
+            // The server may have applied the write before the call failed
+            invalidate(accountNumber);
+            throw e;
+        }
+        storeAccount(account);
+        invalidateHistory(accountNumber);
+        return account;
+    }
+    
+    @Override
+    public boolean transfer(String sourceAccountNumber, String destinationAccountNumber, double amount)
+            throws Exception, InsufficientFundsException {
+        try {
+            return delegate.transfer(sourceAccountNumber, destinationAccountNumber, amount);
+        } finally {
+            invalidate(sourceAccountNumber);
+            invalidate(destinationAccountNumber);
+        }
+    }
+    
+    @Override
+    public List<OperationResult> executeBatch(List<BankingOperation> operations) throws Exception {
+        try {
+            return delegate.executeBatch(operations);
+        } finally {
+            Set<String> touched = new HashSet<>();
+            for (BankingOperation operation : operations) {
+                Collections.addAll(touched, operation.touchedAccounts());
+            }
+            synchronized (entries) {
+                touched.forEach(this::bumpGeneration);
+                entries.keySet().removeIf(key -> touched.contains(key.accountNumber));
+            }
+        }
+    }
+    
+    @Override
+    public List<Transaction> getTransactionHistory(String accountNumber) throws Exception {
+        return Collections.unmodifiableList(getTransactionHistoryIfModified(accountNumber, null).getValue());
+    }
+    
+    @Override
+    public ConditionalResult<List<Transaction>> getTransactionHistoryIfModified(
+            String accountNumber, ConditionalResult<List<Transaction>> previous) throws Exception {
+        return relativeTo(read(new CacheKey(Kind.HISTORY, accountNumber, null, 0), previous,
+                cached -> delegate.getTransactionHistoryIfModified(accountNumber, cached)), previous);
+    }
+    
+    /**
+     * Pages are cached for the time to live and invalidated with the account; there is
+     * no conditional read for a single page, so an expired page is fetched again.
+     */
+    @Override
+    public TransactionPage getTransactionHistory(String accountNumber, String cursor, int limit) throws Exception {
+        ConditionalRead<TransactionPage> pageRead = cached -> ConditionalResult.modified(
+                delegate.getTransactionHistory(accountNumber, cursor, limit), null, null);
+        return read(new CacheKey(Kind.PAGE, accountNumber, cursor, limit), null, pageRead).getValue();
+    }
+    
+    /**
+     * Pushed updates make cached copies of the account stale, so they are dropped
+     * before the listener sees the update.
+     */
+    @Override
+    public Subscription subscribe(String accountNumber, AccountUpdateListener listener) throws Exception {
+        return delegate.subscribe(accountNumber, new AccountUpdateListener() {
+            @Override
+            public void onUpdate(AccountUpdate update) {
+                invalidate(accountNumber);
+                listener.onUpdate(update);
+            }
+            
+            @Override
+            public void onConnectionLost(Throwable cause, boolean permanent) {
+                // Updates may have been missed while disconnected
+                invalidate(accountNumber);
+                listener.onConnectionLost(cause, permanent);
+            }
+            
+            @Override
+            public void onConnected() {
+                listener.onConnected();
+            }
+        });
+    }
+    
+    @Override
+    public void close() {
+        logger.info("Closing cache: {}", getStats());
+        synchronized (entries) {
+            entries.clear();
+        }
+        delegate.close();
+    }
+}
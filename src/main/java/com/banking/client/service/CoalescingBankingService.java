@@ -0,0 +1,335 @@
+package com.banking.client.service;
+
+import com.banking.client.model.Account;
+import com.banking.client.model.BankingOperation;
+import com.banking.client.model.InsufficientFundsException;
+import com.banking.client.model.OperationResult;
+import com.banking.client.model.Transaction;
+import com.banking.client.model.TransactionDelta;
+import com.banking.client.model.TransactionPage;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * BankingService decorator that lets concurrent identical reads share one request.
+ * The first caller of a read runs it; callers asking for the same read while it is in
+ * flight wait for that result instead of sending their own request, and receive a
+ * copy of the same value or the same exception. Every caller, the one that ran the
+ * read included, gets its own copy of the accounts and of the lists holding results,
+ * so it owns what it receives; the transactions in them are shared and must not be
+ * modified. A read only serves callers that arrive while it
+ * runs, so nothing is cached. A waiting caller that is interrupted stops waiting
+ * without affecting the others; if the caller running the read is interrupted, the
+ * waiting callers are not failed with its cancellation but retry, one of them running
+ * the read afresh. Once a deposit, withdrawal or transfer completes, reads of the
+ * accounts it touched that are still in flight stop accepting new callers, so a caller
+ * never receives a result that was fetched before its own write finished.
+ */
+public class CoalescingBankingService extends DelegatingBankingService {
+    
+    private static final Logger logger = LogManager.getLogger(CoalescingBankingService.class);
+    
+    private enum Kind {
+        ACCOUNT, ACCOUNT_IF_MODIFIED, ALL_ACCOUNTS, HISTORY, HISTORY_IF_MODIFIED, PAGE, SINCE
+    }
+    
+    private static final class ReadKey {
+        private final Kind kind;
+        private final String accountNumber;
+        // Cursor, last transaction id or revalidation validators, depending on the kind
+        private final String qualifier;
+        private final int limit;
+        
+        ReadKey(Kind kind, String accountNumber, String qualifier, int limit) {
+            this.kind = kind;
+            this.accountNumber = accountNumber;
+            this.qualifier = qualifier;
+            this.limit = limit;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ReadKey)) {
+                return false;
+            }
+            ReadKey other = (ReadKey) o;
+            return kind == other.kind && limit == other.limit
+                    && Objects.equals(accountNumber, other.accountNumber)
+                    && Objects.equals(qualifier, other.qualifier);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, accountNumber, qualifier, limit);
+        }
+    }
+    
+    /**
+     * Completes a read's waiting callers when the caller running it was cancelled.
+     */
+    private static final class LeaderCancelledException extends Exception {
+        private static final long serialVersionUID = 1L;
+        
+        LeaderCancelledException() {
+            super(null, null, false, false);
+        }
+    }
+    
+    private final Map<ReadKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    
+    public CoalescingBankingService(BankingService delegate) {
+        super(delegate);
+        logger.info("Coalescing concurrent identical reads");
+    }
+    
+    /**
+     * @param copy Makes a caller's own copy of the result; the result itself is kept
+     *             unchanged for the waiting callers to copy
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T coalesce(ReadKey key, Callable<T> read, UnaryOperator<T> copy) throws Exception {
+        while (true) {
+            CompletableFuture<Object> flight = new CompletableFuture<>();
+            CompletableFuture<Object> running = inFlight.putIfAbsent(key, flight);
+            if (running == null) {
+                return lead(key, flight, read, copy);
+            }
+            
+            coalesced.incrementAndGet();
+            try {
+                T result = (T) running.get();
+                return result != null ? copy.apply(result) : null;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof LeaderCancelledException) {
+                    coalesced.decrementAndGet();
+                    continue;
+                }
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new Exception(cause);
+            }
+        }
+    }
+    
+    private <T> T lead(ReadKey key, CompletableFuture<Object> flight, Callable<T> read, UnaryOperator<T> copy)
+            throws Exception {
+        requests.incrementAndGet();
+        Throwable failure = null;
+        try {
+            T result = read.call();
+            inFlight.remove(key, flight);
+            flight.complete(result);
+            return result != null ? copy.apply(result) : null;
+        } catch (Exception | Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (!flight.isDone()) {
+                inFlight.remove(key, flight);
+                flight.completeExceptionally(isCancellation(failure) ? new LeaderCancelledException() : failure);
+            }
+        }
+    }
+    
+    /**
+     * Whether a read failed because the thread running it was interrupted, rather than
+     * because of the read itself.
+     */
+    private static boolean isCancellation(Throwable failure) {
+        if (failure == null || Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedException || cause instanceof InterruptedIOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Stop in-flight reads of the given accounts, and of all accounts, from serving new
+     * callers. Callers already waiting still receive their results.
+     */
+    private void written(String... accountNumbers) {
+        written(new HashSet<>(Arrays.asList(accountNumbers)));
+    }
+    
+    private void written(Set<String> accountNumbers) {
+        inFlight.keySet().removeIf(key ->
+                key.kind == Kind.ALL_ACCOUNTS || accountNumbers.contains(key.accountNumber));
+    }
+    
+    private static Account copyAccount(Account account) {
+        Account copy = new Account(account.getAccountNumber(), account.getAccountHolderName(), account.getBalance());
+        copy.setCreationDate(account.getCreationDate() != null ? (Date) account.getCreationDate().clone() : null);
+        return copy;
+    }
+    
+    private static List<Account> copyAccounts(List<Account> accounts) {
+        List<Account> copy = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            copy.add(account != null ? copyAccount(account) : null);
+        }
+        return copy;
+    }
+    
+    private static List<Transaction> copyTransactions(List<Transaction> transactions) {
+        return new ArrayList<>(transactions);
+    }
+    
+    private static <T> ConditionalResult<T> copyResult(ConditionalResult<T> result, UnaryOperator<T> copy) {
+        return result.getValue() != null ? result.withValue(copy.apply(result.getValue())) : result;
+    }
+    
+    private static TransactionPage copyPage(TransactionPage page) {
+        return new TransactionPage(page.getTransactions() != null ? copyTransactions(page.getTransactions()) : null,
+                page.getNextCursor());
+    }
+    
+    private static TransactionDelta copyDelta(TransactionDelta delta) {
+        return new TransactionDelta(delta.getTransactions() != null ? copyTransactions(delta.getTransactions()) : null,
+                delta.isReloadRequired());
+    }
+    
+    private static String validators(ConditionalResult<?> previous) {
+        return previous == null ? null : previous.getEtag() + "\n" + previous.getLastModified();
+    }
+    
+    /**
+     * Current request and deduplication counters.
+     */
+    public CoalescingStats getStats() {
+        return new CoalescingStats(requests.get(), coalesced.get(), inFlight.size());
+    }
+    
+    @Override
+    public Account getAccount(String accountNumber) throws Exception {
+        return coalesce(new ReadKey(Kind.ACCOUNT, accountNumber, null, 0),
+                () -> delegate.getAccount(accountNumber), CoalescingBankingService::copyAccount);
+    }
+    
+    @Override
+    public ConditionalResult<Account> getAccountIfModified(String accountNumber,
+                                                          ConditionalResult<Account> previous) throws Exception {
+        return coalesce(new ReadKey(Kind.ACCOUNT_IF_MODIFIED, accountNumber, validators(previous), 0),
+                () -> delegate.getAccountIfModified(accountNumber, previous),
+                result -> copyResult(result, CoalescingBankingService::copyAccount));
+    }
+    
+    @Override
+    public List<Account> getAllAccounts() throws Exception {
+        return coalesce(new ReadKey(Kind.ALL_ACCOUNTS, null, null, 0), delegate::getAllAccounts,
+                CoalescingBankingService::copyAccounts);
+    }
+    
+    @Override
+    public Account deposit(String accountNumber, double amount) throws Exception {
+        try {
+            return delegate.deposit(accountNumber, amount);
+        } finally {
+            written(accountNumber);
+        }
+    }
+    
+    @Override
+    public Account withdraw(String accountNumber, double amount) throws Exception, InsufficientFundsException {
+        try {
+            return delegate.withdraw(accountNumber, amount);
+        } finally {
+            written(accountNumber);
+        }
+    }
+    
+    @Override
+    public boolean transfer(String sourceAccountNumber, String destinationAccountNumber, double amount)
+            throws Exception, InsufficientFundsException {
+        try {
+            return delegate.transfer(sourceAccountNumber, destinationAccountNumber, amount);
+        } finally {
+            written(sourceAccountNumber, destinationAccountNumber);
+        }
+    }
+    
+    @Override
+    public List<OperationResult> executeBatch(List<BankingOperation> operations) throws Exception {
+        try {
+            return delegate.executeBatch(operations);
+        } finally {
+            Set<String> touched = new HashSet<>();
+            for (BankingOperation operation : operations) {
+                touched.addAll(Arrays.asList(operation.touchedAccounts()));
+            }
+            written(touched);
+        }
+    }
+    
+    @Override
+    public Account createAccount(String accountNumber, String accountHolderName, double initialBalance) throws Exception {
+        try {
+            return delegate.createAccount(accountNumber, accountHolderName, initialBalance);
+        } finally {
+            written(accountNumber);
+        }
+    }
+    
+    @Override
+    public List<Transaction> getTransactionHistory(String accountNumber) throws Exception {
+        return coalesce(new ReadKey(Kind.HISTORY, accountNumber, null, 0),
+                () -> delegate.getTransactionHistory(accountNumber), CoalescingBankingService::copyTransactions);
+    }
+    
+    @Override
+    public ConditionalResult<List<Transaction>> getTransactionHistoryIfModified(
+            String accountNumber, ConditionalResult<List<Transaction>> previous) throws Exception {
+        return coalesce(new ReadKey(Kind.HISTORY_IF_MODIFIED, accountNumber, validators(previous), 0),
+                () -> delegate.getTransactionHistoryIfModified(accountNumber, previous),
+                result -> copyResult(result, CoalescingBankingService::copyTransactions));
+    }
+    
+    @Override
+    public TransactionPage getTransactionHistory(String accountNumber, String cursor, int limit) throws Exception {
+        return coalesce(new ReadKey(Kind.PAGE, accountNumber, cursor, limit),
+                () -> delegate.getTransactionHistory(accountNumber, cursor, limit),
+                CoalescingBankingService::copyPage);
+    }
+    
+    @Override
+    public TransactionDelta getTransactionsSince(String accountNumber, String lastTransactionId) throws Exception {
+        return coalesce(new ReadKey(Kind.SINCE, accountNumber, lastTransactionId, 0),
+                () -> delegate.getTransactionsSince(accountNumber, lastTransactionId),
+                CoalescingBankingService::copyDelta);
+    }
+    
+    @Override
+    public void close() {
+        logger.info("Closing coalescing layer: {}", getStats());
+        delegate.close();
+    }
+}
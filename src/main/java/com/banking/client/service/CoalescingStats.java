@@ -0,0 +1,52 @@
+package com.banking.client.service;
+
+/**
+ * Snapshot of a {@link CoalescingBankingService}'s counters.
+ */
+public class CoalescingStats {
+    
+    private final long requests;
+    private final long coalesced;
+    private final int inFlight;
+    
+    public CoalescingStats(long requests, long coalesced, int inFlight) {
+        this.requests = requests;
+        this.coalesced = coalesced;
+        this.inFlight = inFlight;
+    }
+    
+    /**
+     * Reads passed on to the wrapped service.
+     */
+    public long getRequests() {
+        return requests;
+    }
+    
+    /**
+     * Reads answered by another caller's identical read instead of a request of their own.
+     */
+    public long getCoalesced() {
+        return coalesced;
+    }
+    
+    /**
+     * Distinct reads currently running.
+     */
+    public int getInFlight() {
+        return inFlight;
+    }
+    
+    public double getCoalescedRatio() {
+        long reads = requests + coalesced;
+        return reads == 0 ? 0.0 : (double) coalesced / reads;
+    }
+    
+    @Override
+    public String toString() {
+        return "CoalescingStats{" +
+                "requests=" + requests +
+                ", coalesced=" + coalesced +
+                ", inFlight=" + inFlight +
+                '}';
+    }
+}
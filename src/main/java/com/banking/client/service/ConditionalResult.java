@@ -0,0 +1,69 @@
+package com.banking.client.service;
+
+/**
+ * Result of a read that can be revalidated against the server.
+ * Carries the cache validators the server sent (ETag and/or Last-Modified) and
+ * whether the server confirmed that a previously fetched value is still current.
+ */
+public class ConditionalResult<T> {
+    
+    private final T value;
+    private final String etag;
+    private final String lastModified;
+    private final boolean notModified;
+    
+    private ConditionalResult(T value, String etag, String lastModified, boolean notModified) {
+        this.value = value;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.notModified = notModified;
+    }
+    
+    /**
+     * A freshly transferred value.
+     */
+    public static <T> ConditionalResult<T> modified(T value, String etag, String lastModified) {
+        return new ConditionalResult<>(value, etag, lastModified, false);
+    }
+    
+    /**
+     * The server confirmed the previous value is unchanged; the previous value is carried over.
+     */
+    public static <T> ConditionalResult<T> notModified(ConditionalResult<T> previous, String etag,
+                                                       String lastModified) {
+        return new ConditionalResult<>(previous.value,
+                etag != null ? etag : previous.etag,
+                lastModified != null ? lastModified : previous.lastModified,
+                true);
+    }
+    
+    /**
+     * The same result carrying another value, such as a copy of this one's.
+     */
+    ConditionalResult<T> withValue(T value) {
+        return new ConditionalResult<>(value, etag, lastModified, notModified);
+    }
+    
+    public T getValue() {
+        return value;
+    }
+    
+    public String getEtag() {
+        return etag;
+    }
+    
+    public String getLastModified() {
+        return lastModified;
+    }
+    
+    public boolean isNotModified() {
+        return notModified;
+    }
+    
+    /**
+     * Whether the value can be revalidated with a conditional request.
+     */
+    public boolean hasValidator() {
+        return etag != null || lastModified != null;
+    }
+}
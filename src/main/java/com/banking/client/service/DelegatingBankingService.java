@@ -0,0 +1,111 @@
+package com.banking.client.service;
+
+import com.banking.client.model.Account;
+import com.banking.client.model.BankingOperation;
+import com.banking.client.model.InsufficientFundsException;
+import com.banking.client.model.OperationResult;
+import com.banking.client.model.Transaction;
+import com.banking.client.model.TransactionDelta;
+import com.banking.client.model.TransactionPage;
+
+import java.util.List;
+import java.util.concurrent.Flow;
+
+/**
+ * Base class for BankingService decorators.
+ * Every operation is forwarded to the wrapped service; subclasses override only the
+ * operations they add behaviour to.
+ */
+public abstract class DelegatingBankingService implements BankingService {
+    
+    protected final BankingService delegate;
+    
+    protected DelegatingBankingService(BankingService delegate) {
+        this.delegate = delegate;
+    }
+    
+    /**
+     * The wrapped service.
+     */
+    public BankingService getDelegate() {
+        return delegate;
+    }
+    
+    @Override
+    public Account createAccount(String accountNumber, String accountHolderName, double initialBalance) throws Exception {
+        return delegate.createAccount(accountNumber, accountHolderName, initialBalance);
+    }
+    
+    @Override
+    public Account getAccount(String accountNumber) throws Exception {
+        return delegate.getAccount(accountNumber);
+    }
+    
+    @Override
+    public ConditionalResult<Account> getAccountIfModified(String accountNumber,
+                                                          ConditionalResult<Account> previous) throws Exception {
+        return delegate.getAccountIfModified(accountNumber, previous);
+    }
+    
+    @Override
+    public List<Account> getAllAccounts() throws Exception {
+        return delegate.getAllAccounts();
+    }
+    
+    @Override
+    public Account deposit(String accountNumber, double amount) throws Exception {
+        return delegate.deposit(accountNumber, amount);
+    }
+    
+    @Override
+    public Account withdraw(String accountNumber, double amount) throws Exception, InsufficientFundsException {
+        return delegate.withdraw(accountNumber, amount);
+    }
+    
+    @Override
+    public boolean transfer(String sourceAccountNumber, String destinationAccountNumber, double amount)
+            throws Exception, InsufficientFundsException {
+        return delegate.transfer(sourceAccountNumber, destinationAccountNumber, amount);
+    }
+    
+    @Override
+    public List<OperationResult> executeBatch(List<BankingOperation> operations) throws Exception {
+        return delegate.executeBatch(operations);
+    }
+    
+    @Override
+    public List<Transaction> getTransactionHistory(String accountNumber) throws Exception {
+        return delegate.getTransactionHistory(accountNumber);
+    }
+    
+    @Override
+    public ConditionalResult<List<Transaction>> getTransactionHistoryIfModified(
+            String accountNumber, ConditionalResult<List<Transaction>> previous) throws Exception {
+        return delegate.getTransactionHistoryIfModified(accountNumber, previous);
+    }
+    
+    @Override
+    public TransactionPage getTransactionHistory(String accountNumber, String cursor, int limit) throws Exception {
+        return delegate.getTransactionHistory(accountNumber, cursor, limit);
+    }
+    
+    @Override
+    public TransactionDelta getTransactionsSince(String accountNumber, String lastTransactionId) throws Exception {
+        return delegate.getTransactionsSince(accountNumber, lastTransactionId);
+    }
+    
+    @Override
+    public Flow.Publisher<Transaction> streamTransactionHistory(String accountNumber) {
+        return delegate.streamTransactionHistory(accountNumber);
+    }
+    
+    @Override
+    public Subscription subscribe(String accountNumber, AccountUpdateListener listener) throws Exception {
+        return delegate.subscribe(accountNumber, listener);
+    }
+    
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
@@ -0,0 +1,99 @@
+package com.banking.client.service;
+
+/**
+ * Snapshot of one endpoint of a {@link LoadBalancedBankingService}.
+ */
+public class EndpointStats {
+    
+    /**
+     * Whether the endpoint receives requests.
+     */
+    public enum State {
+        /** In rotation at full share. */
+        ACTIVE,
+        /** Back in rotation after an ejection, with its share still ramping up. */
+        WARMING,
+        /** Out of rotation. */
+        EJECTED
+    }
+    
+    private final String url;
+    private final State state;
+    private final int outstanding;
+    private final long requests;
+    private final long failures;
+    private final long ejections;
+    private final double latencyMillis;
+    private final double weight;
+    
+    public EndpointStats(String url, State state, int outstanding, long requests, long failures, long ejections,
+                         double latencyMillis, double weight) {
+        this.url = url;
+        this.state = state;
+        this.outstanding = outstanding;
+        this.requests = requests;
+        this.failures = failures;
+        this.ejections = ejections;
+        this.latencyMillis = latencyMillis;
+        this.weight = weight;
+    }
+    
+    public String getUrl() {
+        return url;
+    }
+    
+    public State getState() {
+        return state;
+    }
+    
+    /**
+     * Requests sent to the endpoint that have not completed yet.
+     */
+    public int getOutstanding() {
+        return outstanding;
+    }
+    
+    public long getRequests() {
+        return requests;
+    }
+    
+    /**
+     * Calls and health probes that could not reach the endpoint or timed out; error
+     * responses to calls are not counted.
+     */
+    public long getFailures() {
+        return failures;
+    }
+    
+    public long getEjections() {
+        return ejections;
+    }
+    
+    /**
+     * Exponentially weighted moving average of the endpoint's response time.
+     */
+    public double getLatencyMillis() {
+        return latencyMillis;
+    }
+    
+    /**
+     * Share of new requests relative to a fully warmed endpoint, from 0 when ejected to 1.
+     */
+    public double getWeight() {
+        return weight;
+    }
+    
+    @Override
+    public String toString() {
+        return "EndpointStats{" +
+                "url='" + url + '\'' +
+                ", state=" + state +
+                ", outstanding=" + outstanding +
+                ", requests=" + requests +
+                ", failures=" + failures +
+                ", ejections=" + ejections +
+                ", latencyMillis=" + latencyMillis +
+                ", weight=" + weight +
+                '}';
+    }
+}
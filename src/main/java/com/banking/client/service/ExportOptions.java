@@ -0,0 +1,70 @@
+package com.banking.client.service;
+
+/**
+ * Settings for a {@link HistoryExporter} export.
+ */
+public class ExportOptions {
+    
+    /**
+     * Output file format.
+     */
+    public enum Format {
+        /** Comma-separated values with a header row. */
+        CSV,
+        /** One JSON object per line, as the REST API encodes transactions. */
+        JSON_LINES
+    }
+    
+    private Format format = Format.CSV;
+    private boolean gzip;
+    private Long fromMillis;
+    private Long toMillis;
+    
+    public Format getFormat() {
+        return format;
+    }
+    
+    public void setFormat(Format format) {
+        this.format = format;
+    }
+    
+    public boolean isGzip() {
+        return gzip;
+    }
+    
+    public void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+    
+    public Long getFromMillis() {
+        return fromMillis;
+    }
+    
+    /**
+     * Earliest timestamp to export, inclusive; null for no lower bound.
+     */
+    public void setFromMillis(Long fromMillis) {
+        this.fromMillis = fromMillis;
+    }
+    
+    public Long getToMillis() {
+        return toMillis;
+    }
+    
+    /**
+     * Timestamp to export up to, exclusive; null for no upper bound.
+     */
+    public void setToMillis(Long toMillis) {
+        this.toMillis = toMillis;
+    }
+    
+    @Override
+    public String toString() {
+        return "ExportOptions{" +
+                "format=" + format +
+                ", gzip=" + gzip +
+                ", fromMillis=" + fromMillis +
+                ", toMillis=" + toMillis +
+                '}';
+    }
+}
@@ -0,0 +1,397 @@
+package com.banking.client.service;
+
+import com.banking.client.model.Transaction;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports an account's transaction history to a CSV or JSON Lines file.
+ * Transactions are pulled from {@link BankingService#streamTransactionHistory} a batch
+ * at a time and encoded through buffers that are reused for every record, then written
+ * to a {@link FileChannel}, optionally gzip-compressed. Memory use therefore does not
+ * grow with the history, provided the transport streams it (REST does; the default
+ * implementation used by RMI loads the history first). The file is written under a
+ * temporary name and only moved into place once the export completes; a failed or
+ * interrupted export leaves nothing behind.
+ */
+public class HistoryExporter {
+    
+    private static final Logger logger = LogManager.getLogger(HistoryExporter.class);
+    
+    private static final int BUFFER_BYTES = 64 * 1024;
+    // Transactions requested from the stream ahead of the writer
+    private static final int BATCH_SIZE = 256;
+    private static final int PROGRESS_INTERVAL = 1000;
+    private static final String CSV_HEADER = "transactionId,timestamp,type,amount,resultingBalance,"
+            + "description,sourceAccountNumber,destinationAccountNumber\n";
+    
+    /**
+     * Receives export progress on the exporting thread.
+     */
+    public interface ProgressListener {
+        /**
+         * @param exported Transactions written so far
+         * @param bytesWritten Bytes written to the file so far, after compression
+         */
+        void onProgress(long exported, long bytesWritten);
+    }
+    
+    private final BankingService bankingService;
+    private final ObjectWriter transactionWriter;
+    
+    public HistoryExporter(BankingService bankingService) {
+        this.bankingService = bankingService;
+        // One flush when the export finishes, not one per record
+        this.transactionWriter = new ObjectMapper().writerFor(Transaction.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+    
+    /**
+     * Export the history of an account, blocking until it is written.
+     * Interrupting the calling thread aborts the export.
+     *
+     * @param accountNumber The account number
+     * @param target File to write; replaced if it exists
+     * @param options Format, compression and date range
+     * @param progress Receives progress every thousand transactions and on completion
+     * @return number of transactions exported
+     */
+    public long export(String accountNumber, Path target, ExportOptions options, ProgressListener progress)
+            throws Exception {
+        logger.info("Exporting transaction history of account {} to {} ({})", accountNumber, target, options);
+        
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        BlockingSubscriber subscriber = new BlockingSubscriber();
+        long exported = 0;
+        boolean completed = false;
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CountingOutputStream fileOutput = new CountingOutputStream(Channels.newOutputStream(channel));
+            OutputStream output = new BufferedOutputStream(options.isGzip()
+                    ? new GZIPOutputStream(fileOutput, BUFFER_BYTES) : fileOutput, BUFFER_BYTES);
+            RecordWriter writer = options.getFormat() == ExportOptions.Format.JSON_LINES
+                    ? new JsonLinesWriter(output, transactionWriter) : new CsvWriter(output);
+            
+            bankingService.streamTransactionHistory(accountNumber).subscribe(subscriber);
+            Transaction transaction;
+            while ((transaction = subscriber.next()) != null) {
+                if (inRange(transaction, options)) {
+                    writer.write(transaction);
+                    exported++;
+                    if (exported % PROGRESS_INTERVAL == 0) {
+                        progress.onProgress(exported, fileOutput.getCount());
+                    }
+                }
+            }
+            writer.finish();
+            // Writes the gzip trailer, if any, before the channel is closed
+            output.close();
+            completed = true;
+        } finally {
+            subscriber.cancel();
+            if (!completed) {
+                Files.deleteIfExists(partial);
+            }
+        }
+        
+        moveIntoPlace(partial, target);
+        progress.onProgress(exported, Files.size(target));
+        logger.info("Exported {} transactions of account {} to {}", exported, accountNumber, target);
+        return exported;
+    }
+    
+    private static boolean inRange(Transaction transaction, ExportOptions options) {
+        if (options.getFromMillis() == null && options.getToMillis() == null) {
+            return true;
+        }
+        if (transaction.getTimestamp() == null) {
+            return false;
+        }
+        long time = transaction.getTimestamp().getTime();
+        return (options.getFromMillis() == null || time >= options.getFromMillis())
+                && (options.getToMillis() == null || time < options.getToMillis());
+    }
+    
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    /**
+     * Encodes transactions in one output format.
+     */
+    private interface RecordWriter {
+        void write(Transaction transaction) throws IOException;
+        
+        /**
+         * Write out anything still buffered.
+         */
+        void finish() throws IOException;
+    }
+    
+    /**
+     * Builds each line in a reused StringBuilder and encodes it to UTF-8 through a
+     * reused encoder and byte buffer.
+     */
+    private static class CsvWriter implements RecordWriter {
+        private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ISO_INSTANT;
+        
+        private final OutputStream output;
+        private final StringBuilder line = new StringBuilder(256);
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private char[] chars = new char[256];
+        private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_BYTES);
+        
+        CsvWriter(OutputStream output) throws IOException {
+            this.output = output;
+            line.append(CSV_HEADER);
+            encodeLine();
+        }
+        
+        @Override
+        public void write(Transaction transaction) throws IOException {
+            line.setLength(0);
+            appendField(transaction.getTransactionId());
+            line.append(',');
+            if (transaction.getTimestamp() != null) {
+                TIMESTAMP_FORMAT.formatTo(Instant.ofEpochMilli(transaction.getTimestamp().getTime()), line);
+            }
+            line.append(',');
+            appendField(transaction.getType());
+            line.append(',');
+            appendAmount(transaction.getAmount());
+            line.append(',');
+            appendAmount(transaction.getResultingBalance());
+            line.append(',');
+            appendField(transaction.getDescription());
+            line.append(',');
+            appendField(transaction.getSourceAccountNumber());
+            line.append(',');
+            appendField(transaction.getDestinationAccountNumber());
+            line.append('\n');
+            encodeLine();
+        }
+        
+        @Override
+        public void finish() throws IOException {
+            flushBytes();
+            output.flush();
+        }
+        
+        /**
+         * Quote a field only when it contains a separator, quote or line break.
+         */
+        private void appendField(String value) {
+            if (value == null) {
+                return;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                line.append(value);
+                return;
+            }
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    line.append('"');
+                }
+                line.append(c);
+            }
+            line.append('"');
+        }
+        
+        /**
+         * Fixed two decimals, without the exponent notation Double.toString uses for large values.
+         */
+        private void appendAmount(double amount) {
+            long cents = Math.round(amount * 100);
+            if (cents < 0) {
+                line.append('-');
+                cents = -cents;
+            }
+            long fraction = cents % 100;
+            line.append(cents / 100).append('.');
+            if (fraction < 10) {
+                line.append('0');
+            }
+            line.append(fraction);
+        }
+        
+        private void encodeLine() throws IOException {
+            int length = line.length();
+            if (chars.length < length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+            }
+            line.getChars(0, length, chars, 0);
+            CharBuffer input = CharBuffer.wrap(chars, 0, length);
+            // Lines always end in a newline, so no character is split between two calls
+            while (true) {
+                CoderResult result = encoder.encode(input, bytes, false);
+                if (!result.isOverflow()) {
+                    break;
+                }
+                flushBytes();
+            }
+        }
+        
+        private void flushBytes() throws IOException {
+            output.write(bytes.array(), 0, bytes.position());
+            bytes.clear();
+        }
+    }
+    
+    /**
+     * Serializes each transaction with Jackson through one generator for the whole file.
+     */
+    private static class JsonLinesWriter implements RecordWriter {
+        private final JsonGenerator generator;
+        private final ObjectWriter transactionWriter;
+        
+        JsonLinesWriter(OutputStream output, ObjectWriter transactionWriter) throws IOException {
+            this.generator = transactionWriter.getFactory().createGenerator(output);
+            // Records are separated by the newline written after each one instead
+            this.generator.setRootValueSeparator(null);
+            this.transactionWriter = transactionWriter;
+        }
+        
+        @Override
+        public void write(Transaction transaction) throws IOException {
+            transactionWriter.writeValue(generator, transaction);
+            generator.writeRaw('\n');
+        }
+        
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+    
+    /**
+     * Counts the bytes that reach the file, for progress reporting.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+        
+        CountingOutputStream(OutputStream output) {
+            super(output);
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+        
+        long getCount() {
+            return count;
+        }
+    }
+    
+    /**
+     * Hands streamed transactions to the exporting thread. Demand is only renewed as
+     * transactions are taken, so at most one batch is ever held in memory.
+     */
+    private static class BlockingSubscriber implements Flow.Subscriber<Transaction> {
+        private static final Object END = new Object();
+        
+        // One slot more than the demand, for the completion signal
+        private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(BATCH_SIZE + 1);
+        private volatile Flow.Subscription subscription;
+        private volatile Throwable error;
+        private int taken;
+        
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(BATCH_SIZE);
+        }
+        
+        @Override
+        public void onNext(Transaction transaction) {
+            queue.add(transaction);
+        }
+        
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            queue.add(END);
+        }
+        
+        @Override
+        public void onComplete() {
+            queue.add(END);
+        }
+        
+        /**
+         * Wait for the next transaction.
+         *
+         * @return the transaction, or null when the history is complete
+         */
+        Transaction next() throws Exception {
+            Object item = queue.take();
+            if (item == END) {
+                if (error instanceof Exception) {
+                    throw (Exception) error;
+                } else if (error != null) {
+                    throw new Exception("Transaction history stream failed", error);
+                }
+                return null;
+            }
+            if (++taken == BATCH_SIZE / 2) {
+                taken = 0;
+                subscription.request(BATCH_SIZE / 2);
+            }
+            return (Transaction) item;
+        }
+        
+        void cancel() {
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+    }
+}
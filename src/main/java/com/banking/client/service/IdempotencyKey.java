@@ -0,0 +1,43 @@
+package com.banking.client.service;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Idempotency key of the write the current thread is sending. The
+ * {@link ResilientBankingService} sets one key for all attempts of a deposit,
+ * withdrawal, transfer or account creation; the REST transport sends it in the
+ * {@value #HEADER} header, so a server can recognise a retried write it already applied.
+ */
+final class IdempotencyKey {
+    
+    static final String HEADER = "Idempotency-Key";
+    
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+    
+    private IdempotencyKey() {
+    }
+    
+    /**
+     * The key of the write in progress on this thread, or null.
+     */
+    static String current() {
+        return CURRENT.get();
+    }
+    
+    /**
+     * Run a call with the given key set for this thread.
+     */
+    static <T> T with(String key, Callable<T> call) throws Exception {
+        String previous = CURRENT.get();
+        CURRENT.set(key);
+        try {
+            return call.call();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.banking.client.service;
+
+import com.banking.client.metrics.BankingMetrics;
+import com.banking.client.metrics.OperationMetrics;
+import com.banking.client.model.Account;
+import com.banking.client.model.BankingOperation;
+import com.banking.client.model.InsufficientFundsException;
+import com.banking.client.model.OperationResult;
+import com.banking.client.model.Transaction;
+import com.banking.client.model.TransactionDelta;
+import com.banking.client.model.TransactionPage;
+
+import java.util.List;
+
+/**
+ * BankingService decorator that records latency, throughput, errors, insufficient-funds
+ * outcomes and in-flight calls for every operation. The factory puts it directly around
+ * the transport, so it measures the requests that are actually sent.
+ * Metrics for each operation are resolved once at construction, so recording a call
+ * does not allocate.
+ */
+public class InstrumentedBankingService extends DelegatingBankingService {
+    
+    private final OperationMetrics createAccountMetrics;
+    private final OperationMetrics getAccountMetrics;
+    private final OperationMetrics getAllAccountsMetrics;
+    private final OperationMetrics depositMetrics;
+    private final OperationMetrics withdrawMetrics;
+    private final OperationMetrics transferMetrics;
+    private final OperationMetrics batchMetrics;
+    private final OperationMetrics historyMetrics;
+    private final OperationMetrics historyPageMetrics;
+    private final OperationMetrics transactionsSinceMetrics;
+    
+    public InstrumentedBankingService(BankingService delegate, String transport, BankingMetrics metrics) {
+        super(delegate);
+        this.createAccountMetrics = metrics.operation("createAccount", transport);
+        this.getAccountMetrics = metrics.operation("getAccount", transport);
+        this.getAllAccountsMetrics = metrics.operation("getAllAccounts", transport);
+        this.depositMetrics = metrics.operation("deposit", transport);
+        this.withdrawMetrics = metrics.operation("withdraw", transport);
+        this.transferMetrics = metrics.operation("transfer", transport);
+        this.batchMetrics = metrics.operation("executeBatch", transport);
+        this.historyMetrics = metrics.operation("getTransactionHistory", transport);
+        this.historyPageMetrics = metrics.operation("getTransactionHistoryPage", transport);
+        this.transactionsSinceMetrics = metrics.operation("getTransactionsSince", transport);
+    }
+    
+    @Override
+    public Account createAccount(String accountNumber, String accountHolderName, double initialBalance) throws Exception {
+        long start = createAccountMetrics.start();
+        try {
+            Account account = delegate.createAccount(accountNumber, accountHolderName, initialBalance);
+            createAccountMetrics.succeeded(start);
+            return account;
+        } catch (Exception e) {
+            createAccountMetrics.failed(start, e);
+            throw e;
+        }
+    }
+    
+    @Override
+    public Account getAccount(String accountNumber) throws Exception {
+        long start = getAccountMetrics.start();
+        try {
+            Account account = delegate.getAccount(accountNumber);
+            getAccountMetrics.succeeded(start);
+            return account;
+        } catch (Exception e) {
+            getAccountMetrics.failed(start, e);
+            throw e;
+        }
+    }
+    
+    @Override
+    public ConditionalResult<Account> getAccountIfModified(String accountNumber,
+                                                          ConditionalResult<Account> previous) throws Exception {
+        long start = getAccountMetrics.start();
+        try {
+            ConditionalResult<Account> result = delegate.getAccountIfModified(accountNumber, previous);
+            getAccountMetrics.succeeded(start);
+            return result;
+        } catch (Exception e) {
+            getAccountMetrics.failed(start, e);
+            throw e;
+        }
+    }
+    
+    @Override
+    public List<Account> getAllAccounts() throws Exception {
+        long start = getAllAccountsMetrics.start();
+        try {
+            List<Account> accounts = delegate.getAllAccounts();
+            getAllAccountsMetrics.succeeded(start);
+            return accounts;
+        } catch (Exception e) {
+            getAllAccountsMetrics.failed(start, e);
+            throw e;
+        }
+    }
+    
+    @Override
+    public Account deposit(String accountNumber, double amount) throws Exception {
+        long start = depositMetrics.start();
+        try {
+            Account account = delegate.deposit(accountNumber, amount);
+            depositMetrics.succeeded(start);
+            return account;
+        } catch (Exception e) {
+            depositMetrics.failed(start, e);
+            throw e;
+        }
+    }
+    
+    @Override
+    public Account withdraw(String accountNumber, double amount) throws Exception, InsufficientFundsException {
+        long start = withdrawMetrics.start();
+        try {
+            Account account = delegate.withdraw(accountNumber, amount);
+            withdrawMetrics.succeeded(start);
+            return account;
+        } catch (Exception e) {
+            withdrawMetrics.failed(start, e);
+            throw e;
+        }
+    }
+    
+    @Override
+    public boolean transfer(String sourceAccountNumber, String destinationAccountNumber, double amount)
+            throws Exception, InsufficientFundsException {
+        long start = transferMetrics.start();
+        try {
+            boolean success = delegate.transfer(sourceAccountNumber, destinationAccountNumber, amount);
+            transferMetrics.succeeded(start);
+            return success;
+        } catch (Exception e) {
+            transferMetrics.failed(start, e);
+            throw e;
+        }
+    }
+    
+    @Override
+    public List<OperationResult> executeBatch(List<BankingOperation> operations) throws Exception {
+        long start = batchMetrics.start();
+        try {
+            List<OperationResult> results = delegate.executeBatch(operations);
+            batchMetrics.succeeded(start);
+            return results;
+        } catch (Exception e) {
+            batchMetrics.failed(start, e);
+            throw e;
+        }
+    }
+    
+    @Override
+    public List<Transaction> getTransactionHistory(String accountNumber) throws Exception {
+        long start = historyMetrics.start();
+        try {
+            List<Transaction> transactions = delegate.getTransactionHistory(accountNumber);
+            historyMetrics.succeeded(start);
+            return transactions;
+        } catch (Exception e) {
+            historyMetrics.failed(start, e);
+            throw e;
+        }
+    }
+    
+    @Override
+    public ConditionalResult<List<Transaction>> getTransactionHistoryIfModified(
+            String accountNumber, ConditionalResult<List<Transaction>> previous) throws Exception {
+        long start = historyMetrics.start();
+        try {
+            ConditionalResult<List<Transaction>> result =
+                    delegate.getTransactionHistoryIfModified(accountNumber, previous);
+            historyMetrics.succeeded(start);
+            return result;
+        } catch (Exception e) {
+            historyMetrics.failed(start, e);
+            throw e;
+        }
+    }
+    
+    @Override
+    public TransactionPage getTransactionHistory(String accountNumber, String cursor, int limit) throws Exception {
+        long start = historyPageMetrics.start();
+        try {
+            TransactionPage page = delegate.getTransactionHistory(accountNumber, cursor, limit);
+            historyPageMetrics.succeeded(start);
+            return page;
+        } catch (Exception e) {
+            historyPageMetrics.failed(start, e);
+            throw e;
+        }
+    }
+    
+    @Override
+    public TransactionDelta getTransactionsSince(String accountNumber, String lastTransactionId) throws Exception {
+        long start = transactionsSinceMetrics.start();
+        try {
+            TransactionDelta delta = delegate.getTransactionsSince(accountNumber, lastTransactionId);
+            transactionsSinceMetrics.succeeded(start);
+            return delta;
+        } catch (Exception e) {
+            transactionsSinceMetrics.failed(start, e);
+            throw e;
+        }
+    }
+}
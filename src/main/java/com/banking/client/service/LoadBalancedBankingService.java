@@ -0,0 +1,511 @@
+package com.banking.client.service;
+
+import com.banking.client.model.Account;
+import com.banking.client.model.BankingOperation;
+import com.banking.client.model.InsufficientFundsException;
+import com.banking.client.model.OperationResult;
+import com.banking.client.model.Transaction;
+import com.banking.client.model.TransactionDelta;
+import com.banking.client.model.TransactionPage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.Timeout;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * REST transport that spreads calls over several application-tier replicas.
+ * Each endpoint has its own {@link RestBankingService} and connection pool. A call goes
+ * to the endpoint picked by the configured {@link LoadBalancerConfig.Strategy}, from its
+ * outstanding requests and the moving average of its response times. Connection
+ * failures and timeouts count against an endpoint, and one that fails repeatedly is
+ * ejected from rotation for a while. Periodic health probes eject endpoints that stop
+ * answering and decide when an ejected one may return. A returning endpoint starts with
+ * a small share of new requests that ramps up over the slow start period, so a cold
+ * replica is not flooded. A call whose connection is refused was never received, so it
+ * is retried on another endpoint, whatever the operation. If every endpoint is ejected,
+ * calls are spread over all of them rather than refused.
+ */
+public class LoadBalancedBankingService implements BankingService {
+    
+    private static final Logger logger = LogManager.getLogger(LoadBalancedBankingService.class);
+    
+    // Weight of the newest response time in an endpoint's latency average
+    private static final double LATENCY_DECAY = 0.2;
+    // Share of new requests a returning endpoint starts with
+    private static final double MIN_WEIGHT = 0.1;
+    private static final int MAX_EJECTION_MULTIPLIER = 10;
+    
+    private final List<Endpoint> endpoints = new ArrayList<>();
+    private final LoadBalancerConfig config;
+    private final CloseableHttpClient probeClient;
+    private final ScheduledExecutorService prober;
+    
+    public LoadBalancedBankingService(List<String> baseUrls, RestClientConfig clientConfig,
+                                      LoadBalancerConfig config) {
+        if (baseUrls.isEmpty()) {
+            throw new IllegalArgumentException("At least one endpoint URL is required");
+        }
+        this.config = config;
+        for (String baseUrl : baseUrls) {
+            endpoints.add(new Endpoint(baseUrl, new RestBankingService(baseUrl, clientConfig)));
+        }
+        
+        if (config.getProbeIntervalMillis() > 0) {
+            Timeout probeTimeout = Timeout.ofMilliseconds(config.getProbeTimeoutMillis());
+            this.probeClient = HttpClients.custom()
+                    .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                    .setConnectTimeout(probeTimeout)
+                                    .setSocketTimeout(probeTimeout)
+                                    .build())
+                            .build())
+                    .setDefaultRequestConfig(RequestConfig.custom()
+                            .setConnectionRequestTimeout(probeTimeout)
+                            .setResponseTimeout(probeTimeout)
+                            .build())
+                    .build();
+            this.prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "rest-endpoint-probe");
+                thread.setDaemon(true);
+                return thread;
+            });
+            prober.scheduleWithFixedDelay(this::probeAll, config.getProbeIntervalMillis(),
+                    config.getProbeIntervalMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            this.probeClient = null;
+            this.prober = null;
+        }
+        
+        logger.info("Load balancing over {} endpoints {}: {}", baseUrls.size(), baseUrls, config);
+    }
+    
+    /**
+     * A call made against one endpoint's service.
+     */
+    private interface Call<T> {
+        T call(BankingService service) throws Exception;
+    }
+    
+    private <T> T execute(Call<T> call) throws Exception {
+        List<Endpoint> refused = null;
+        while (true) {
+            Endpoint endpoint = select(refused);
+            long start = endpoint.started();
+            try {
+                T result = call.call(endpoint.service);
+                endpoint.completed(start);
+                return result;
+            } catch (Exception e) {
+                if (!isTransportFailure(e)) {
+                    // The endpoint answered; the error belongs to the request
+                    endpoint.completed(start);
+                    throw e;
+                }
+                endpoint.finished();
+                recordFailure(endpoint);
+                if (!isConnectFailure(e)) {
+                    throw e;
+                }
+                if (refused == null) {
+                    refused = new ArrayList<>();
+                }
+                refused.add(endpoint);
+                if (refused.size() == endpoints.size()) {
+                    throw e;
+                }
+                logger.warn("Could not connect to {}, trying another endpoint: {}", endpoint.url, e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Pick the endpoint for a call.
+     *
+     * @param excluded Endpoints the call already failed to connect to, or null
+     */
+    private Endpoint select(List<Endpoint> excluded) {
+        long now = System.currentTimeMillis();
+        boolean probing = prober != null;
+        List<Endpoint> candidates = new ArrayList<>(endpoints.size());
+        for (Endpoint endpoint : endpoints) {
+            if ((excluded == null || !excluded.contains(endpoint)) && endpoint.isAvailable(now, probing)) {
+                candidates.add(endpoint);
+            }
+        }
+        if (candidates.isEmpty()) {
+            // Every endpoint is ejected; keep trying them rather than failing every call
+            for (Endpoint endpoint : endpoints) {
+                if (excluded == null || !excluded.contains(endpoint)) {
+                    candidates.add(endpoint);
+                }
+            }
+        }
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (config.getStrategy() == LoadBalancerConfig.Strategy.LEAST_OUTSTANDING) {
+            // Start at a random endpoint so ties do not all go to the first one
+            int offset = random.nextInt(candidates.size());
+            Endpoint best = candidates.get(offset);
+            double bestLoad = Double.MAX_VALUE;
+            for (int i = 0; i < candidates.size(); i++) {
+                Endpoint endpoint = candidates.get((offset + i) % candidates.size());
+                // An ejected endpoint has no weight, but may still be all there is
+                double load = (endpoint.outstanding.get() + 1)
+                        / Math.max(endpoint.weight(now, config.getSlowStartMillis()), MIN_WEIGHT);
+                if (load < bestLoad) {
+                    best = endpoint;
+                    bestLoad = load;
+                }
+            }
+            return best;
+        }
+        
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        Endpoint a = candidates.get(first);
+        Endpoint b = candidates.get(second);
+        return a.cost(now, config.getSlowStartMillis()) <= b.cost(now, config.getSlowStartMillis()) ? a : b;
+    }
+    
+    private void recordFailure(Endpoint endpoint) {
+        if (endpoint.recordFailure(System.currentTimeMillis(), config.getEjectionFailures(), config.getEjectionMillis())) {
+            logger.warn("Ejected endpoint {} after {} consecutive failures", endpoint.url,
+                    config.getEjectionFailures());
+        }
+    }
+    
+    private void probeAll() {
+        for (Endpoint endpoint : endpoints) {
+            if (prober.isShutdown()) {
+                return;
+            }
+            if (probe(endpoint)) {
+                if (endpoint.probeSucceeded(System.currentTimeMillis())) {
+                    logger.info("Endpoint {} passed its health probe and is back in rotation", endpoint.url);
+                }
+            } else {
+                recordFailure(endpoint);
+            }
+        }
+    }
+    
+    private boolean probe(Endpoint endpoint) {
+        HttpGet httpGet = new HttpGet(endpoint.url + config.getProbePath());
+        try (CloseableHttpResponse response = probeClient.execute(httpGet)) {
+            EntityUtils.consume(response.getEntity());
+            boolean healthy = response.getCode() >= 200 && response.getCode() < 300;
+            if (!healthy) {
+                logger.debug("Health probe of {} answered {}", endpoint.url, response.getCode());
+            }
+            return healthy;
+        } catch (Exception e) {
+            logger.debug("Health probe of {} failed: {}", endpoint.url, e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Whether a call failed to reach the endpoint or get its answer, as opposed to
+     * receiving an error response.
+     */
+    private static boolean isTransportFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException && !(cause instanceof JsonProcessingException)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Whether a call failed before any of its request was sent.
+     */
+    private static boolean isConnectFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException
+                    || cause instanceof UnknownHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Current state and counters of every endpoint, in configuration order.
+     */
+    public List<EndpointStats> getEndpointStats() {
+        long now = System.currentTimeMillis();
+        List<EndpointStats> stats = new ArrayList<>(endpoints.size());
+        for (Endpoint endpoint : endpoints) {
+            stats.add(endpoint.stats(now, config.getSlowStartMillis()));
+        }
+        return stats;
+    }
+    
+    @Override
+    public Account createAccount(String accountNumber, String accountHolderName, double initialBalance) throws Exception {
+        return execute(service -> service.createAccount(accountNumber, accountHolderName, initialBalance));
+    }
+    
+    @Override
+    public Account getAccount(String accountNumber) throws Exception {
+        return execute(service -> service.getAccount(accountNumber));
+    }
+    
+    /**
+     * Validators are compared by the server, so replicas of one backend must agree on
+     * them for a revalidation sent to a different endpoint to be answered 304.
+     */
+    @Override
+    public ConditionalResult<Account> getAccountIfModified(String accountNumber,
+                                                          ConditionalResult<Account> previous) throws Exception {
+        return execute(service -> service.getAccountIfModified(accountNumber, previous));
+    }
+    
+    @Override
+    public List<Account> getAllAccounts() throws Exception {
+        return execute(BankingService::getAllAccounts);
+    }
+    
+    @Override
+    public Account deposit(String accountNumber, double amount) throws Exception {
+        return execute(service -> service.deposit(accountNumber, amount));
+    }
+    
+    @Override
+    public Account withdraw(String accountNumber, double amount) throws Exception, InsufficientFundsException {
+        return execute(service -> service.withdraw(accountNumber, amount));
+    }
+    
+    @Override
+    public boolean transfer(String sourceAccountNumber, String destinationAccountNumber, double amount)
+            throws Exception, InsufficientFundsException {
+        return execute(service -> service.transfer(sourceAccountNumber, destinationAccountNumber, amount));
+    }
+    
+    /**
+     * The whole batch goes to one endpoint, which keeps its operations in order per account.
+     */
+    @Override
+    public List<OperationResult> executeBatch(List<BankingOperation> operations) throws Exception {
+        return execute(service -> service.executeBatch(operations));
+    }
+    
+    @Override
+    public List<Transaction> getTransactionHistory(String accountNumber) throws Exception {
+        return execute(service -> service.getTransactionHistory(accountNumber));
+    }
+    
+    @Override
+    public ConditionalResult<List<Transaction>> getTransactionHistoryIfModified(
+            String accountNumber, ConditionalResult<List<Transaction>> previous) throws Exception {
+        return execute(service -> service.getTransactionHistoryIfModified(accountNumber, previous));
+    }
+    
+    @Override
+    public TransactionPage getTransactionHistory(String accountNumber, String cursor, int limit) throws Exception {
+        return execute(service -> service.getTransactionHistory(accountNumber, cursor, limit));
+    }
+    
+    @Override
+    public TransactionDelta getTransactionsSince(String accountNumber, String lastTransactionId) throws Exception {
+        return execute(service -> service.getTransactionsSince(accountNumber, lastTransactionId));
+    }
+    
+    /**
+     * The stream is bound to the endpoint picked when it is requested; it is not
+     * counted as outstanding while it is read.
+     */
+    @Override
+    public Flow.Publisher<Transaction> streamTransactionHistory(String accountNumber) {
+        return select(null).service.streamTransactionHistory(accountNumber);
+    }
+    
+    /**
+     * The subscription stays on the endpoint picked when it is opened, including
+     * when it reconnects.
+     */
+    @Override
+    public Subscription subscribe(String accountNumber, AccountUpdateListener listener) throws Exception {
+        return select(null).service.subscribe(accountNumber, listener);
+    }
+    
+    @Override
+    public void close() {
+        if (prober != null) {
+            prober.shutdownNow();
+            probeClient.close(CloseMode.GRACEFUL);
+        }
+        for (Endpoint endpoint : endpoints) {
+            endpoint.service.close();
+        }
+    }
+    
+    /**
+     * One replica with its load, latency and health state.
+     */
+    private static class Endpoint {
+        private final String url;
+        private final RestBankingService service;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        
+        // Guarded by this
+        private double latencyMillis;
+        private int consecutiveFailures;
+        private boolean ejected;
+        private long ejectedUntil;
+        private long ejections;
+        private int consecutiveEjections;
+        private long lastEjectionMillis;
+        private long reinstatedAt;
+        
+        Endpoint(String url, RestBankingService service) {
+            this.url = url;
+            this.service = service;
+        }
+        
+        long started() {
+            outstanding.incrementAndGet();
+            requests.incrementAndGet();
+            return System.nanoTime();
+        }
+        
+        synchronized void completed(long start) {
+            finished();
+            double elapsedMillis = (System.nanoTime() - start) / 1_000_000.0;
+            latencyMillis = latencyMillis == 0 ? elapsedMillis
+                    : latencyMillis + LATENCY_DECAY * (elapsedMillis - latencyMillis);
+            consecutiveFailures = 0;
+            // Healthy for as long as it was last ejected: the next ejection starts short again
+            if (consecutiveEjections > 0 && System.currentTimeMillis() - reinstatedAt >= lastEjectionMillis) {
+                consecutiveEjections = 0;
+            }
+        }
+        
+        void finished() {
+            outstanding.decrementAndGet();
+        }
+        
+        /**
+         * Record a failed call or probe.
+         *
+         * @return whether the failure ejected the endpoint
+         */
+        synchronized boolean recordFailure(long now, int ejectionFailures, long ejectionMillis) {
+            failures.incrementAndGet();
+            consecutiveFailures++;
+            if (ejected || consecutiveFailures < ejectionFailures) {
+                return false;
+            }
+            consecutiveEjections = Math.min(consecutiveEjections + 1, MAX_EJECTION_MULTIPLIER);
+            lastEjectionMillis = ejectionMillis * consecutiveEjections;
+            ejectedUntil = now + lastEjectionMillis;
+            ejected = true;
+            ejections++;
+            return true;
+        }
+        
+        /**
+         * @return whether the probe returned the endpoint to rotation
+         */
+        synchronized boolean probeSucceeded(long now) {
+            if (!ejected) {
+                consecutiveFailures = 0;
+                return false;
+            }
+            if (now < ejectedUntil) {
+                return false;
+            }
+            reinstate(now);
+            return true;
+        }
+        
+        /**
+         * Whether the endpoint may take new calls. Without probes, an ejected endpoint
+         * returns as soon as its ejection time is over.
+         */
+        synchronized boolean isAvailable(long now, boolean probing) {
+            if (!ejected) {
+                return true;
+            }
+            if (!probing && now >= ejectedUntil) {
+                reinstate(now);
+                logger.info("Endpoint {} is back in rotation", url);
+                return true;
+            }
+            return false;
+        }
+        
+        private void reinstate(long now) {
+            ejected = false;
+            consecutiveFailures = 0;
+            reinstatedAt = now;
+        }
+        
+        /**
+         * Share of new requests while the endpoint ramps up after an ejection.
+         */
+        synchronized double weight(long now, long slowStartMillis) {
+            if (ejected) {
+                return 0;
+            }
+            long elapsed = now - reinstatedAt;
+            if (reinstatedAt == 0 || slowStartMillis <= 0 || elapsed >= slowStartMillis) {
+                return 1;
+            }
+            return MIN_WEIGHT + (1 - MIN_WEIGHT) * elapsed / slowStartMillis;
+        }
+        
+        /**
+         * Expected cost of one more call: the time to work through what is already
+         * outstanding, scaled up while the endpoint ramps up.
+         */
+        double cost(long now, long slowStartMillis) {
+            double latency;
+            synchronized (this) {
+                latency = latencyMillis;
+            }
+            // An endpoint that has not answered yet is assumed to be fast, so it gets tried
+            return (outstanding.get() + 1) * (latency + 1) / Math.max(weight(now, slowStartMillis), MIN_WEIGHT);
+        }
+        
+        synchronized EndpointStats stats(long now, long slowStartMillis) {
+            double weight = weight(now, slowStartMillis);
+            EndpointStats.State state = ejected ? EndpointStats.State.EJECTED
+                    : weight < 1 ? EndpointStats.State.WARMING : EndpointStats.State.ACTIVE;
+            return new EndpointStats(url, state, outstanding.get(), requests.get(), failures.get(), ejections,
+                    latencyMillis, weight);
+        }
+    }
+}
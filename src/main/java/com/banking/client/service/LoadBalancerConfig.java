@@ -0,0 +1,145 @@
+package com.banking.client.service;
+
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Endpoint selection, ejection, health probe and slow start settings for the
+ * {@link LoadBalancedBankingService}.
+ */
+public class LoadBalancerConfig {
+    
+    /**
+     * How a call picks its endpoint.
+     */
+    public enum Strategy {
+        /**
+         * Compare two random endpoints and take the one with the lower expected cost,
+         * from its outstanding requests and observed latency.
+         */
+        POWER_OF_TWO_CHOICES,
+        /** Take the endpoint with the fewest outstanding requests. */
+        LEAST_OUTSTANDING
+    }
+    
+    private Strategy strategy = Strategy.POWER_OF_TWO_CHOICES;
+    private int ejectionFailures = 3;
+    private long ejectionMillis = 30000;
+    private long probeIntervalMillis = 5000;
+    private long probeTimeoutMillis = 2000;
+    private String probePath = "/actuator/health";
+    private long slowStartMillis = 30000;
+    
+    /**
+     * Build a configuration from application properties, falling back to defaults
+     * for anything that is not set.
+     *
+     * @param properties Application properties
+     * @return LoadBalancerConfig instance
+     */
+    public static LoadBalancerConfig fromProperties(Properties properties) {
+        LoadBalancerConfig config = new LoadBalancerConfig();
+        config.setStrategy(Strategy.valueOf(properties.getProperty(
+                "rest.lb.strategy", config.strategy.name()).trim().toUpperCase(Locale.ROOT)));
+        config.setEjectionFailures(Integer.parseInt(properties.getProperty(
+                "rest.lb.ejection.failures", String.valueOf(config.ejectionFailures))));
+        config.setEjectionMillis(Long.parseLong(properties.getProperty(
+                "rest.lb.ejection.ms", String.valueOf(config.ejectionMillis))));
+        config.setProbeIntervalMillis(Long.parseLong(properties.getProperty(
+                "rest.lb.probe.interval.ms", String.valueOf(config.probeIntervalMillis))));
+        config.setProbeTimeoutMillis(Long.parseLong(properties.getProperty(
+                "rest.lb.probe.timeout.ms", String.valueOf(config.probeTimeoutMillis))));
+        config.setProbePath(properties.getProperty("rest.lb.probe.path", config.probePath));
+        config.setSlowStartMillis(Long.parseLong(properties.getProperty(
+                "rest.lb.slow.start.ms", String.valueOf(config.slowStartMillis))));
+        return config;
+    }
+    
+    public Strategy getStrategy() {
+        return strategy;
+    }
+    
+    public void setStrategy(Strategy strategy) {
+        this.strategy = strategy;
+    }
+    
+    public int getEjectionFailures() {
+        return ejectionFailures;
+    }
+    
+    /**
+     * Consecutive connection failures, timeouts or failed probes after which an
+     * endpoint is taken out of rotation.
+     */
+    public void setEjectionFailures(int ejectionFailures) {
+        this.ejectionFailures = ejectionFailures;
+    }
+    
+    public long getEjectionMillis() {
+        return ejectionMillis;
+    }
+    
+    /**
+     * Time an endpoint stays out of rotation after its first ejection; each further
+     * ejection in a row adds the same time again, up to ten times.
+     */
+    public void setEjectionMillis(long ejectionMillis) {
+        this.ejectionMillis = ejectionMillis;
+    }
+    
+    public long getProbeIntervalMillis() {
+        return probeIntervalMillis;
+    }
+    
+    /**
+     * Interval between health probes of every endpoint; 0 disables probing, in which
+     * case an ejected endpoint returns as soon as its ejection time is over.
+     */
+    public void setProbeIntervalMillis(long probeIntervalMillis) {
+        this.probeIntervalMillis = probeIntervalMillis;
+    }
+    
+    public long getProbeTimeoutMillis() {
+        return probeTimeoutMillis;
+    }
+    
+    public void setProbeTimeoutMillis(long probeTimeoutMillis) {
+        this.probeTimeoutMillis = probeTimeoutMillis;
+    }
+    
+    public String getProbePath() {
+        return probePath;
+    }
+    
+    /**
+     * Path requested by health probes; any 2xx response counts as healthy.
+     */
+    public void setProbePath(String probePath) {
+        this.probePath = probePath;
+    }
+    
+    public long getSlowStartMillis() {
+        return slowStartMillis;
+    }
+    
+    /**
+     * Time over which a returning endpoint's share of new requests ramps up to full;
+     * 0 returns it at full share immediately.
+     */
+    public void setSlowStartMillis(long slowStartMillis) {
+        this.slowStartMillis = slowStartMillis;
+    }
+    
+    @Override
+    public String toString() {
+        return "LoadBalancerConfig{" +
+                "strategy=" + strategy +
+                ", ejectionFailures=" + ejectionFailures +
+                ", ejectionMillis=" + ejectionMillis +
+                ", probeIntervalMillis=" + probeIntervalMillis +
+                ", probeTimeoutMillis=" + probeTimeoutMillis +
+                ", probePath='" + probePath + '\'' +
+                ", slowStartMillis=" + slowStartMillis +
+                '}';
+    }
+}
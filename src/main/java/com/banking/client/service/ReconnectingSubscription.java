@@ -0,0 +1,152 @@
+package com.banking.client.service;
+
+import com.banking.client.model.AccountUpdate;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps an account update subscription alive on its own daemon thread.
+ * A transport implements one connection in {@link #runSession}; when it ends or fails,
+ * the subscription reconnects after a jittered exponential backoff and resumes after
+ * the last transaction delivered, so no update is lost or repeated across reconnects.
+ */
+abstract class ReconnectingSubscription implements Subscription {
+    
+    private static final Logger logger = LogManager.getLogger(ReconnectingSubscription.class);
+    private static final long INITIAL_BACKOFF_MILLIS = 1000;
+    private static final long MAX_BACKOFF_MILLIS = 30000;
+    
+    /**
+     * Thrown by a session when the server refuses the subscription for good,
+     * for example because the account does not exist.
+     */
+    static class RejectedException extends Exception {
+        private static final long serialVersionUID = 1L;
+        
+        RejectedException(String message) {
+            super(message);
+        }
+    }
+    
+    protected final String accountNumber;
+    private final AccountUpdateListener listener;
+    private final Thread thread;
+    private volatile boolean cancelled;
+    private volatile String lastTransactionId;
+    private volatile long initialBackoffMillis = INITIAL_BACKOFF_MILLIS;
+    private int failedAttempts;
+    
+    ReconnectingSubscription(String accountNumber, AccountUpdateListener listener, String threadName) {
+        this.accountNumber = accountNumber;
+        this.listener = listener;
+        this.thread = new Thread(this::run, threadName + "-" + accountNumber);
+        this.thread.setDaemon(true);
+    }
+    
+    void start() {
+        thread.start();
+    }
+    
+    /**
+     * Run one connection, delivering updates through {@link #publish}, until the server
+     * ends it or it fails.
+     * 
+     * @param lastTransactionId Last transaction delivered so far, or null on the first connection
+     */
+    protected abstract void runSession(String lastTransactionId) throws Exception;
+    
+    /**
+     * Unblock a running session from another thread. Called on cancellation.
+     */
+    protected abstract void abortSession();
+    
+    /**
+     * Report that a session has been established.
+     */
+    protected void connected() {
+        failedAttempts = 0;
+        logger.info("Subscribed to updates for account {}", accountNumber);
+        listener.onConnected();
+    }
+    
+    protected void publish(AccountUpdate update) {
+        if (cancelled) {
+            return;
+        }
+        if (update.getTransaction() != null && update.getTransaction().getTransactionId() != null) {
+            lastTransactionId = update.getTransaction().getTransactionId();
+        }
+        listener.onUpdate(update);
+    }
+    
+    /**
+     * Use the reconnect delay suggested by the server as the starting backoff.
+     */
+    protected void setInitialBackoffMillis(long initialBackoffMillis) {
+        this.initialBackoffMillis = initialBackoffMillis;
+    }
+    
+    private void run() {
+        while (!cancelled) {
+            try {
+                runSession(lastTransactionId);
+                if (!cancelled) {
+                    logger.info("Update stream for account {} ended, reconnecting", accountNumber);
+                }
+            } catch (RejectedException e) {
+                if (!cancelled) {
+                    logger.error("Subscription for account {} rejected: {}", accountNumber, e.getMessage());
+                    cancelled = true;
+                    listener.onConnectionLost(e, true);
+                }
+                return;
+            } catch (Exception e) {
+                if (cancelled) {
+                    return;
+                }
+                logger.warn("Update stream for account {} lost: {}", accountNumber, e.getMessage());
+                listener.onConnectionLost(e, false);
+            }
+            
+            if (!cancelled && !backOff()) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Sleep before the next attempt, doubling the delay after each consecutive failure.
+     * 
+     * @return false if interrupted by cancellation
+     */
+    private boolean backOff() {
+        long delay = Math.min(MAX_BACKOFF_MILLIS, initialBackoffMillis << Math.min(failedAttempts, 16));
+        failedAttempts++;
+        // Randomise the upper half of the delay so many clients do not reconnect in lockstep
+        long jittered = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        try {
+            Thread.sleep(jittered);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+    
+    @Override
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        logger.info("Unsubscribing from updates for account {}", accountNumber);
+        abortSession();
+        thread.interrupt();
+    }
+    
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
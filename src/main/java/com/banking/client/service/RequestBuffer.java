@@ -0,0 +1,151 @@
+package com.banking.client.service;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.AbstractHttpEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Growable buffer a request body is encoded into, one per thread and reused for every
+ * request the thread sends. The blocking transport sends a request on the calling
+ * thread, so the body has been written to the connection before the thread encodes
+ * the next one. Buffers grown past {@value #MAX_RETAINED_BYTES} bytes by a large batch
+ * are not kept.
+ */
+class RequestBuffer extends OutputStream {
+    
+    private static final int INITIAL_BYTES = 512;
+    private static final int MAX_RETAINED_BYTES = 64 * 1024;
+    private static final ThreadLocal<RequestBuffer> BUFFERS = ThreadLocal.withInitial(RequestBuffer::new);
+    
+    private byte[] bytes = new byte[INITIAL_BYTES];
+    private int size;
+    
+    private RequestBuffer() {
+    }
+    
+    /**
+     * The calling thread's buffer, emptied.
+     */
+    static RequestBuffer forCurrentThread() {
+        RequestBuffer buffer = BUFFERS.get();
+        if (buffer.bytes.length > MAX_RETAINED_BYTES) {
+            buffer.bytes = new byte[INITIAL_BYTES];
+        }
+        buffer.size = 0;
+        return buffer;
+    }
+    
+    @Override
+    public void write(int b) {
+        ensureCapacity(size + 1);
+        bytes[size++] = (byte) b;
+    }
+    
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensureCapacity(size + len);
+        System.arraycopy(b, off, bytes, size, len);
+        size += len;
+    }
+    
+    private void ensureCapacity(int capacity) {
+        if (capacity > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+        }
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+    
+    /**
+     * An entity that writes the buffer's content as is, with its Content-Length.
+     */
+    HttpEntity entity(ContentType contentType) {
+        return new AbstractHttpEntity(contentType, null) {
+            @Override
+            public InputStream getContent() {
+                return new ByteArrayInputStream(bytes, 0, size);
+            }
+            
+            @Override
+            public long getContentLength() {
+                return size;
+            }
+            
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                out.write(bytes, 0, size);
+            }
+            
+            @Override
+            public boolean isRepeatable() {
+                return true;
+            }
+            
+            @Override
+            public boolean isStreaming() {
+                return false;
+            }
+            
+            @Override
+            public void close() {
+            }
+        };
+    }
+    
+    /**
+     * An entity that compresses the buffer's content straight into the connection, sent
+     * chunked as its compressed length is not known up front.
+     */
+    HttpEntity compressedEntity(ContentType contentType, RestClientConfig.Compression compression) {
+        boolean gzip = compression == RestClientConfig.Compression.GZIP;
+        return new AbstractHttpEntity(contentType, gzip ? "gzip" : "deflate", true) {
+            @Override
+            public InputStream getContent() throws IOException {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(size / 2);
+                writeTo(compressed);
+                return new ByteArrayInputStream(compressed.toByteArray());
+            }
+            
+            @Override
+            public long getContentLength() {
+                return -1;
+            }
+            
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                try (OutputStream compressor = gzip ? new GZIPOutputStream(out) : new DeflaterOutputStream(out)) {
+                    compressor.write(bytes, 0, size);
+                }
+            }
+            
+            @Override
+            public boolean isRepeatable() {
+                return true;
+            }
+            
+            @Override
+            public boolean isStreaming() {
+                return false;
+            }
+            
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
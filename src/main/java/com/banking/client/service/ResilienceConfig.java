@@ -0,0 +1,145 @@
+package com.banking.client.service;
+
+import java.util.Properties;
+
+/**
+ * Retry, idempotency key and hedging settings for the {@link ResilientBankingService}.
+ */
+public class ResilienceConfig {
+    
+    private int maxAttempts = 3;
+    private long baseBackoffMillis = 100;
+    private long maxBackoffMillis = 2000;
+    private boolean retryWrites = false;
+    private boolean hedgingEnabled = false;
+    private double hedgePercentile = 95;
+    private long minHedgeDelayMillis = 10;
+    private double maxHedgeRatio = 0.1;
+    
+    /**
+     * Build a configuration from application properties, falling back to defaults
+     * for anything that is not set.
+     *
+     * @param properties Application properties
+     * @return ResilienceConfig instance
+     */
+    public static ResilienceConfig fromProperties(Properties properties) {
+        ResilienceConfig config = new ResilienceConfig();
+        config.setMaxAttempts(Integer.parseInt(properties.getProperty(
+                "resilience.retry.max.attempts", String.valueOf(config.maxAttempts))));
+        config.setBaseBackoffMillis(Long.parseLong(properties.getProperty(
+                "resilience.retry.backoff.base.ms", String.valueOf(config.baseBackoffMillis))));
+        config.setMaxBackoffMillis(Long.parseLong(properties.getProperty(
+                "resilience.retry.backoff.max.ms", String.valueOf(config.maxBackoffMillis))));
+        config.setRetryWrites(Boolean.parseBoolean(properties.getProperty(
+                "resilience.retry.writes", String.valueOf(config.retryWrites))));
+        config.setHedgingEnabled(Boolean.parseBoolean(properties.getProperty(
+                "resilience.hedge.enabled", String.valueOf(config.hedgingEnabled))));
+        config.setHedgePercentile(Double.parseDouble(properties.getProperty(
+                "resilience.hedge.percentile", String.valueOf(config.hedgePercentile))));
+        config.setMinHedgeDelayMillis(Long.parseLong(properties.getProperty(
+                "resilience.hedge.min.delay.ms", String.valueOf(config.minHedgeDelayMillis))));
+        config.setMaxHedgeRatio(Double.parseDouble(properties.getProperty(
+                "resilience.hedge.max.ratio", String.valueOf(config.maxHedgeRatio))));
+        return config;
+    }
+    
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+    
+    /**
+     * Attempts a call gets in total, the first one included; 1 disables retries.
+     */
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+    
+    public long getBaseBackoffMillis() {
+        return baseBackoffMillis;
+    }
+    
+    /**
+     * Upper bound of the wait before the first retry; it doubles for every further
+     * retry, and the actual wait is drawn uniformly below it.
+     */
+    public void setBaseBackoffMillis(long baseBackoffMillis) {
+        this.baseBackoffMillis = baseBackoffMillis;
+    }
+    
+    public long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+    
+    public void setMaxBackoffMillis(long maxBackoffMillis) {
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+    
+    public boolean isRetryWrites() {
+        return retryWrites;
+    }
+    
+    /**
+     * Whether deposits, withdrawals, transfers and account creation that may have
+     * reached a REST server are retried under their idempotency key. The server must
+     * answer a repeated key with the original result, so this is off by default. When
+     * off, or over RMI, writes are only retried when the connection could not be opened.
+     */
+    public void setRetryWrites(boolean retryWrites) {
+        this.retryWrites = retryWrites;
+    }
+    
+    public boolean isHedgingEnabled() {
+        return hedgingEnabled;
+    }
+    
+    public void setHedgingEnabled(boolean hedgingEnabled) {
+        this.hedgingEnabled = hedgingEnabled;
+    }
+    
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+    
+    /**
+     * Percentile of recent response times a read may take before a second request for
+     * it is sent.
+     */
+    public void setHedgePercentile(double hedgePercentile) {
+        this.hedgePercentile = hedgePercentile;
+    }
+    
+    public long getMinHedgeDelayMillis() {
+        return minHedgeDelayMillis;
+    }
+    
+    public void setMinHedgeDelayMillis(long minHedgeDelayMillis) {
+        this.minHedgeDelayMillis = minHedgeDelayMillis;
+    }
+    
+    public double getMaxHedgeRatio() {
+        return maxHedgeRatio;
+    }
+    
+    /**
+     * Largest share of reads that may be hedged, so a backend that is slow across the
+     * board does not receive twice the load.
+     */
+    public void setMaxHedgeRatio(double maxHedgeRatio) {
+        this.maxHedgeRatio = maxHedgeRatio;
+    }
+    
+    @Override
+    public String toString() {
+        return "ResilienceConfig{" +
+                "maxAttempts=" + maxAttempts +
+                ", baseBackoffMillis=" + baseBackoffMillis +
+                ", maxBackoffMillis=" + maxBackoffMillis +
+                ", retryWrites=" + retryWrites +
+                ", hedgingEnabled=" + hedgingEnabled +
+                ", hedgePercentile=" + hedgePercentile +
+                ", minHedgeDelayMillis=" + minHedgeDelayMillis +
+                ", maxHedgeRatio=" + maxHedgeRatio +
+                '}';
+    }
+}
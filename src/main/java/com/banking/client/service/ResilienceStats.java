@@ -0,0 +1,87 @@
+package com.banking.client.service;
+
+/**
+ * Snapshot of a {@link ResilientBankingService}'s counters.
+ */
+public class ResilienceStats {
+    
+    private final long calls;
+    private final long retries;
+    private final long exhausted;
+    private final long hedgeableReads;
+    private final long hedges;
+    private final long hedgeWins;
+    
+    public ResilienceStats(long calls, long retries, long exhausted, long hedgeableReads, long hedges,
+                           long hedgeWins) {
+        this.calls = calls;
+        this.retries = retries;
+        this.exhausted = exhausted;
+        this.hedgeableReads = hedgeableReads;
+        this.hedges = hedges;
+        this.hedgeWins = hedgeWins;
+    }
+    
+    /**
+     * Calls made through the layer.
+     */
+    public long getCalls() {
+        return calls;
+    }
+    
+    /**
+     * Attempts made after a call's first one failed.
+     */
+    public long getRetries() {
+        return retries;
+    }
+    
+    /**
+     * Calls that failed on their last allowed attempt, or on an attempt that could not
+     * be retried safely.
+     */
+    public long getExhausted() {
+        return exhausted;
+    }
+    
+    /**
+     * Reads eligible for hedging, whether or not they were hedged.
+     */
+    public long getHedgeableReads() {
+        return hedgeableReads;
+    }
+    
+    /**
+     * Second requests sent for reads that were slower than the hedge delay.
+     */
+    public long getHedges() {
+        return hedges;
+    }
+    
+    /**
+     * Hedged reads answered by the second request, i.e. where the hedge cut the latency.
+     */
+    public long getHedgeWins() {
+        return hedgeWins;
+    }
+    
+    public double getRetryRatio() {
+        return calls == 0 ? 0.0 : (double) retries / calls;
+    }
+    
+    public double getHedgeRatio() {
+        return hedgeableReads == 0 ? 0.0 : (double) hedges / hedgeableReads;
+    }
+    
+    @Override
+    public String toString() {
+        return "ResilienceStats{" +
+                "calls=" + calls +
+                ", retries=" + retries +
+                ", exhausted=" + exhausted +
+                ", hedgeableReads=" + hedgeableReads +
+                ", hedges=" + hedges +
+                ", hedgeWins=" + hedgeWins +
+                '}';
+    }
+}
@@ -0,0 +1,364 @@
+package com.banking.client.service;
+
+import com.banking.client.model.Account;
+import com.banking.client.model.InsufficientFundsException;
+import com.banking.client.model.Transaction;
+import com.banking.client.model.TransactionDelta;
+import com.banking.client.model.TransactionPage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.rmi.ConnectIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BankingService decorator that retries calls failing on the network and hedges slow
+ * reads. A call whose attempt could not reach the server or get its answer is tried
+ * again after a random wait below an exponentially growing bound, up to the configured
+ * number of attempts; error responses are passed on as they are. Reads are always safe
+ * to retry. Each deposit, withdrawal, transfer and account creation gets an idempotency
+ * key that all its attempts share, which a REST transport sends with the request. A
+ * write is only retried when its connection could not be opened, as nothing was sent
+ * then, unless write retries are turned on for a server that deduplicates by the key;
+ * over REST such a write is then retried whatever the failure. Batches are passed
+ * through, as they report failures per operation.
+ * <p>
+ * With hedging enabled, account and history reads that take longer than the configured
+ * percentile of their recent response times get a second, identical request. It is
+ * sent over another pooled connection, or to another replica when load-balanced, and
+ * whichever answer comes first is returned. No more than the configured share of reads
+ * is hedged.
+ */
+public class ResilientBankingService extends DelegatingBankingService {
+    
+    private static final Logger logger = LogManager.getLogger(ResilientBankingService.class);
+    
+    // Recent response times a hedge delay is computed from
+    private static final int LATENCY_WINDOW = 256;
+    // Reads are not hedged until this many response times have been seen
+    private static final int MIN_LATENCY_SAMPLES = 32;
+    private static final int PERCENTILE_REFRESH_INTERVAL = 16;
+    
+    /**
+     * Ring of recent response times of one kind of read, and their percentile.
+     */
+    private static final class LatencyWindow {
+        
+        private final double percentile;
+        private final long[] samples = new long[LATENCY_WINDOW];
+        private long count;
+        private volatile long percentileNanos = -1;
+        
+        LatencyWindow(double percentile) {
+            this.percentile = percentile;
+        }
+        
+        synchronized void record(long nanos) {
+            samples[(int) (count % LATENCY_WINDOW)] = nanos;
+            count++;
+            if (count >= MIN_LATENCY_SAMPLES && count % PERCENTILE_REFRESH_INTERVAL == 0) {
+                long[] sorted = Arrays.copyOf(samples, (int) Math.min(count, LATENCY_WINDOW));
+                Arrays.sort(sorted);
+                int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+                percentileNanos = sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+            }
+        }
+        
+        /**
+         * The percentile of recent response times, or -1 while too few are known.
+         */
+        long percentileNanos() {
+            return percentileNanos;
+        }
+    }
+    
+    private final ResilienceConfig config;
+    private final boolean idempotencyKeys;
+    // Null unless hedging is enabled
+    private final ExecutorService hedgeExecutor;
+    private final LatencyWindow accountLatency;
+    private final LatencyWindow historyLatency;
+    private final LatencyWindow pageLatency;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+    private final AtomicLong hedgeableReads = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    
+    /**
+     * @param delegate Service to wrap
+     * @param config Retry and hedging settings
+     * @param idempotencyKeys Whether the wrapped transport sends idempotency keys
+     */
+    public ResilientBankingService(BankingService delegate, ResilienceConfig config, boolean idempotencyKeys) {
+        super(delegate);
+        this.config = config;
+        this.idempotencyKeys = idempotencyKeys;
+        this.accountLatency = new LatencyWindow(config.getHedgePercentile());
+        this.historyLatency = new LatencyWindow(config.getHedgePercentile());
+        this.pageLatency = new LatencyWindow(config.getHedgePercentile());
+        if (config.isHedgingEnabled()) {
+            AtomicInteger threadCount = new AtomicInteger();
+            this.hedgeExecutor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "hedged-read-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.hedgeExecutor = null;
+        }
+        logger.info("Retrying failed calls: {}", config);
+    }
+    
+    private <T> T read(Callable<T> call) throws Exception {
+        return retry(call, false);
+    }
+    
+    private <T> T hedgedRead(LatencyWindow latency, Callable<T> call) throws Exception {
+        if (hedgeExecutor == null) {
+            return retry(call, false);
+        }
+        return retry(() -> hedge(latency, call), false);
+    }
+    
+    /**
+     * Run a write under a fresh idempotency key, shared by all its attempts.
+     */
+    private <T> T write(Callable<T> call) throws Exception {
+        return IdempotencyKey.with(UUID.randomUUID().toString(), () -> retry(call, true));
+    }
+    
+    private <T> T retry(Callable<T> call, boolean write) throws Exception {
+        calls.incrementAndGet();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.call();
+            } catch (Exception e) {
+                if (!isTransportFailure(e)) {
+                    throw e;
+                }
+                boolean retryable = !write || (idempotencyKeys && config.isRetryWrites()) || isConnectFailure(e);
+                if (!retryable || attempt >= config.getMaxAttempts()) {
+                    exhausted.incrementAndGet();
+                    throw e;
+                }
+                long backoff = backoffMillis(attempt);
+                logger.warn("Attempt {} failed, retrying in {} ms: {}", attempt, backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                retries.incrementAndGet();
+            }
+        }
+    }
+    
+    /**
+     * Wait before the given attempt's retry: uniformly random below a bound that starts
+     * at the base backoff and doubles per attempt, up to the maximum backoff.
+     */
+    private long backoffMillis(int attempt) {
+        long bound = Math.min(config.getMaxBackoffMillis(),
+                config.getBaseBackoffMillis() << Math.min(attempt - 1, 30));
+        return bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+    
+    /**
+     * Run a read, and run it a second time in parallel if it has not answered once the
+     * hedge delay is over. The first answer wins; the read fails only when both fail.
+     */
+    private <T> T hedge(LatencyWindow latency, Callable<T> call) throws Exception {
+        hedgeableReads.incrementAndGet();
+        long delayNanos = latency.percentileNanos();
+        if (delayNanos < 0) {
+            return timed(latency, call);
+        }
+        delayNanos = Math.max(delayNanos, TimeUnit.MILLISECONDS.toNanos(config.getMinHedgeDelayMillis()));
+        
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger running = new AtomicInteger(1);
+        hedgeExecutor.execute(() -> runLeg(latency, call, result, running, false));
+        try {
+            return result.get(delayNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (hedges.get() < config.getMaxHedgeRatio() * hedgeableReads.get()) {
+                running.incrementAndGet();
+                // The first request may have failed in the meantime and completed the result
+                if (result.isDone()) {
+                    running.decrementAndGet();
+                } else {
+                    hedges.incrementAndGet();
+                    hedgeExecutor.execute(() -> runLeg(latency, call, result, running, true));
+                }
+            }
+            return await(result);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+    
+    private <T> void runLeg(LatencyWindow latency, Callable<T> call, CompletableFuture<T> result,
+                            AtomicInteger running, boolean hedge) {
+        try {
+            T value = timed(latency, call);
+            if (result.complete(value) && hedge) {
+                hedgeWins.incrementAndGet();
+            }
+        } catch (Exception | Error e) {
+            if (running.decrementAndGet() == 0) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+    
+    private static <T> T timed(LatencyWindow latency, Callable<T> call) throws Exception {
+        long start = System.nanoTime();
+        T value = call.call();
+        latency.record(System.nanoTime() - start);
+        return value;
+    }
+    
+    private static <T> T await(CompletableFuture<T> result) throws Exception {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+    
+    private static Exception unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof Exception) {
+            return (Exception) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new Exception(cause);
+    }
+    
+    /**
+     * Whether a call failed to reach the server or get its answer, as opposed to
+     * receiving an error response. A call interrupted by its caller does not count.
+     */
+    private static boolean isTransportFailure(Throwable error) {
+        if (Thread.currentThread().isInterrupted()) {
+            return false;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException && !(cause instanceof JsonProcessingException)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Whether a call failed before any of its request was sent.
+     */
+    private static boolean isConnectFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException
+                    || cause instanceof UnknownHostException || cause instanceof java.rmi.ConnectException
+                    || cause instanceof ConnectIOException || cause instanceof java.rmi.UnknownHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Current retry and hedging counters.
+     */
+    public ResilienceStats getStats() {
+        return new ResilienceStats(calls.get(), retries.get(), exhausted.get(), hedgeableReads.get(),
+                hedges.get(), hedgeWins.get());
+    }
+    
+    @Override
+    public Account createAccount(String accountNumber, String accountHolderName, double initialBalance) throws Exception {
+        return write(() -> delegate.createAccount(accountNumber, accountHolderName, initialBalance));
+    }
+    
+    @Override
+    public Account getAccount(String accountNumber) throws Exception {
+        return hedgedRead(accountLatency, () -> delegate.getAccount(accountNumber));
+    }
+    
+    @Override
+    public ConditionalResult<Account> getAccountIfModified(String accountNumber,
+                                                          ConditionalResult<Account> previous) throws Exception {
+        return hedgedRead(accountLatency, () -> delegate.getAccountIfModified(accountNumber, previous));
+    }
+    
+    @Override
+    public List<Account> getAllAccounts() throws Exception {
+        return read(delegate::getAllAccounts);
+    }
+    
+    @Override
+    public Account deposit(String accountNumber, double amount) throws Exception {
+        return write(() -> delegate.deposit(accountNumber, amount));
+    }
+    
+    @Override
+    public Account withdraw(String accountNumber, double amount) throws Exception, InsufficientFundsException {
+        return write(() -> delegate.withdraw(accountNumber, amount));
+    }
+    
+    @Override
+    public boolean transfer(String sourceAccountNumber, String destinationAccountNumber, double amount)
+            throws Exception, InsufficientFundsException {
+        return write(() -> delegate.transfer(sourceAccountNumber, destinationAccountNumber, amount));
+    }
+    
+    @Override
+    public List<Transaction> getTransactionHistory(String accountNumber) throws Exception {
+        return hedgedRead(historyLatency, () -> delegate.getTransactionHistory(accountNumber));
+    }
+    
+    @Override
+    public ConditionalResult<List<Transaction>> getTransactionHistoryIfModified(
+            String accountNumber, ConditionalResult<List<Transaction>> previous) throws Exception {
+        return hedgedRead(historyLatency, () -> delegate.getTransactionHistoryIfModified(accountNumber, previous));
+    }
+    
+    @Override
+    public TransactionPage getTransactionHistory(String accountNumber, String cursor, int limit) throws Exception {
+        return hedgedRead(pageLatency, () -> delegate.getTransactionHistory(accountNumber, cursor, limit));
+    }
+    
+    @Override
+    public TransactionDelta getTransactionsSince(String accountNumber, String lastTransactionId) throws Exception {
+        return hedgedRead(pageLatency, () -> delegate.getTransactionsSince(accountNumber, lastTransactionId));
+    }
+    
+    @Override
+    public void close() {
+        logger.info("Closing retry layer: {}", getStats());
+        if (hedgeExecutor != null) {
+            hedgeExecutor.shutdownNow();
+        }
+        delegate.close();
+    }
+}
@@ -0,0 +1,165 @@
+package com.banking.client.service;
+
+import com.banking.client.model.AccountUpdate;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.util.Timeout;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Account update subscription over Server-Sent Events.
+ * The application tier streams {@code GET /api/accounts/{accountNumber}/events} as
+ * {@code text/event-stream}; each event's data is an {@link AccountUpdate} in JSON and
+ * its id is the transaction id. Reconnects send the last id as {@code Last-Event-ID}
+ * so the server resumes from there.
+ */
+class RestAccountSubscription extends ReconnectingSubscription {
+    
+    private static final Logger logger = LogManager.getLogger(RestAccountSubscription.class);
+    // The server sends heartbeat comments; a stream that stays silent this long is dead
+    private static final Timeout STREAM_IDLE_TIMEOUT = Timeout.ofSeconds(90);
+    
+    private final CloseableHttpClient httpClient;
+    private final ObjectReader updateReader;
+    private final String eventsUrl;
+    private volatile HttpGet currentRequest;
+    
+    RestAccountSubscription(CloseableHttpClient httpClient, ObjectMapper objectMapper, String baseUrl,
+                            String accountNumber, AccountUpdateListener listener) {
+        super(accountNumber, listener, "rest-account-updates");
+        this.httpClient = httpClient;
+        this.updateReader = objectMapper.readerFor(AccountUpdate.class);
+        this.eventsUrl = baseUrl + "/api/accounts/" + accountNumber + "/events";
+    }
+    
+    @Override
+    protected void runSession(String lastTransactionId) throws Exception {
+        HttpGet httpGet = new HttpGet(eventsUrl);
+        httpGet.setHeader(HttpHeaders.ACCEPT, "text/event-stream");
+        if (lastTransactionId != null) {
+            httpGet.setHeader("Last-Event-ID", lastTransactionId);
+        }
+        httpGet.setConfig(RequestConfig.custom().setResponseTimeout(STREAM_IDLE_TIMEOUT).build());
+        
+        currentRequest = httpGet;
+        if (isCancelled()) {
+            return;
+        }
+        
+        try (CloseableHttpResponse response = httpClient.execute(httpGet)) {
+            int statusCode = response.getCode();
+            HttpEntity entity = response.getEntity();
+            
+            if (statusCode == 404) {
+                EntityUtils.consume(entity);
+                throw new RejectedException("Account not found: " + accountNumber);
+            } else if (statusCode != 200 || entity == null) {
+                EntityUtils.consume(entity);
+                throw new Exception("Failed to subscribe to account updates: " + statusCode);
+            }
+            
+            connected();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8))) {
+                readEvents(reader);
+            }
+        } finally {
+            currentRequest = null;
+        }
+    }
+    
+    /**
+     * Parse the event stream until the server closes it.
+     */
+    private void readEvents(BufferedReader reader) throws Exception {
+        String eventName = null;
+        StringBuilder data = new StringBuilder();
+        String line;
+        
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                // A blank line ends the event
+                if (data.length() > 0) {
+                    dispatch(eventName, data.toString());
+                }
+                eventName = null;
+                data.setLength(0);
+                continue;
+            }
+            if (line.startsWith(":")) {
+                // Comment, used by the server as a heartbeat
+                continue;
+            }
+            
+            int colon = line.indexOf(':');
+            String field = colon >= 0 ? line.substring(0, colon) : line;
+            String value = colon >= 0 ? line.substring(colon + 1) : "";
+            if (value.startsWith(" ")) {
+                value = value.substring(1);
+            }
+            
+            switch (field) {
+                case "event":
+                    eventName = value;
+                    break;
+                case "data":
+                    if (data.length() > 0) {
+                        data.append('\n');
+                    }
+                    data.append(value);
+                    break;
+                case "retry":
+                    try {
+                        setInitialBackoffMillis(Long.parseLong(value));
+                    } catch (NumberFormatException e) {
+                        logger.debug("Ignoring invalid retry value: {}", value);
+                    }
+                    break;
+                default:
+                    // "id" duplicates the transaction id carried in the data
+                    break;
+            }
+        }
+    }
+    
+    private void dispatch(String eventName, String data) throws Exception {
+        if (eventName != null && !"update".equals(eventName)) {
+            logger.debug("Ignoring {} event for account {}", eventName, accountNumber);
+            return;
+        }
+        
+        AccountUpdate update;
+        try {
+            update = updateReader.readValue(data);
+        } catch (JsonProcessingException e) {
+            // Skip it; failing the stream would replay the same event forever
+            logger.warn("Ignoring malformed update for account {}: {}", accountNumber, e.getOriginalMessage());
+            return;
+        }
+        if (update.getAccountNumber() == null) {
+            update.setAccountNumber(accountNumber);
+        }
+        publish(update);
+    }
+    
+    @Override
+    protected void abortSession() {
+        HttpGet request = currentRequest;
+        if (request != null) {
+            request.cancel();
+        }
+    }
+}
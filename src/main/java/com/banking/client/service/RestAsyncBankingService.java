@@ -0,0 +1,246 @@
+package com.banking.client.service;
+
+import com.banking.client.model.Account;
+import com.banking.client.model.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * REST implementation of the AsyncBankingService.
+ * Requests are multiplexed over a small number of NIO reactor threads, so thousands of
+ * calls can be in flight without a thread per call.
+ */
+public class RestAsyncBankingService implements AsyncBankingService {
+    
+    private static final Logger logger = LogManager.getLogger(RestAsyncBankingService.class);
+    private final String baseUrl;
+    private final RestCodec codec;
+    private final PoolingAsyncClientConnectionManager connectionManager;
+    private final CloseableHttpAsyncClient httpClient;
+    
+    public RestAsyncBankingService(String baseUrl) {
+        this(baseUrl, new RestClientConfig());
+    }
+    
+    public RestAsyncBankingService(String baseUrl, RestClientConfig config) {
+        this.baseUrl = baseUrl;
+        this.codec = RestCodec.json(new ObjectMapper());
+        
+        this.connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(config.getMaxTotalConnections())
+                .setMaxConnPerRoute(config.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(config.getConnectTimeoutMillis()))
+                        .setSocketTimeout(Timeout.ofMilliseconds(config.getSocketTimeoutMillis()))
+                        .build())
+                .build();
+        
+        TimeValue keepAlive = TimeValue.ofSeconds(config.getKeepAliveSeconds());
+        this.httpClient = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setIOReactorConfig(IOReactorConfig.custom()
+                        .setIoThreadCount(config.getAsyncIoThreads())
+                        .build())
+                .setKeepAliveStrategy((response, context) -> keepAlive)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(config.getIdleEvictionSeconds()))
+                .build();
+        this.httpClient.start();
+        
+        logger.info("Async REST client started: {}", config);
+    }
+    
+    /**
+     * Maps a completed response to a result; exceptions complete the future exceptionally.
+     */
+    private interface ResponseHandler<T> {
+        T handle(int statusCode, InputStream responseBody) throws Exception;
+    }
+    
+    /**
+     * Encodes a request body.
+     */
+    private interface RequestBody {
+        void encode(OutputStream out) throws Exception;
+    }
+    
+    /**
+     * The request body as an array of its own, as it is sent after this method returns
+     * and the thread's buffer may be reused by then.
+     */
+    private static byte[] encode(RequestBody body) throws Exception {
+        RequestBuffer buffer = RequestBuffer.forCurrentThread();
+        body.encode(buffer);
+        return buffer.toByteArray();
+    }
+    
+    private <T> CompletableFuture<T> execute(SimpleHttpRequest request, ResponseHandler<T> handler) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        
+        Future<SimpleHttpResponse> exchange = httpClient.execute(request, new FutureCallback<SimpleHttpResponse>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                try {
+                    byte[] body = response.getBodyBytes();
+                    result.complete(handler.handle(response.getCode(),
+                            body != null ? new ByteArrayInputStream(body) : null));
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            }
+            
+            @Override
+            public void failed(Exception e) {
+                result.completeExceptionally(e);
+            }
+            
+            @Override
+            public void cancelled() {
+                result.cancel(false);
+            }
+        });
+        
+        // Propagate cancellation of the returned future to the underlying exchange
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return result;
+    }
+    
+    private <T> CompletableFuture<T> failed(Exception e) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        result.completeExceptionally(e);
+        return result;
+    }
+    
+    /**
+     * Current statistics of the shared connection pool (leased, pending, available and max).
+     */
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+    
+    @Override
+    public CompletableFuture<Account> createAccount(String accountNumber, String accountHolderName,
+                                                    double initialBalance) {
+        logger.debug("Creating account asynchronously: {}", accountNumber);
+        
+        try {
+            Account account = new Account(accountNumber, accountHolderName, initialBalance);
+            SimpleHttpRequest request = SimpleRequestBuilder.post(baseUrl + "/api/accounts")
+                    .setBody(encode(out -> codec.encodeAccount(account, out)), codec.getContentType())
+                    .build();
+            return execute(request, codec::toCreatedAccount);
+        } catch (Exception e) {
+            return failed(e);
+        }
+    }
+    
+    @Override
+    public CompletableFuture<Account> getAccount(String accountNumber) {
+        logger.debug("Getting account asynchronously: {}", accountNumber);
+        
+        SimpleHttpRequest request = SimpleRequestBuilder.get(baseUrl + "/api/accounts/" + accountNumber).build();
+        return execute(request, (statusCode, responseBody) ->
+                codec.toAccount(statusCode, responseBody, accountNumber));
+    }
+    
+    @Override
+    public CompletableFuture<List<Account>> getAllAccounts() {
+        logger.debug("Getting all accounts asynchronously");
+        
+        SimpleHttpRequest request = SimpleRequestBuilder.get(baseUrl + "/api/accounts").build();
+        return execute(request, codec::toAccounts);
+    }
+    
+    @Override
+    public CompletableFuture<Account> deposit(String accountNumber, double amount) {
+        logger.debug("Depositing {} to account {} asynchronously", amount, accountNumber);
+        
+        try {
+            SimpleHttpRequest request = SimpleRequestBuilder
+                    .post(baseUrl + "/api/accounts/" + accountNumber + "/deposit")
+                    .setBody(encode(out -> codec.encodeAmount(amount, out)), codec.getContentType())
+                    .build();
+            return execute(request, (statusCode, responseBody) ->
+                    codec.toDepositResult(statusCode, responseBody, accountNumber));
+        } catch (Exception e) {
+            return failed(e);
+        }
+    }
+    
+    @Override
+    public CompletableFuture<Account> withdraw(String accountNumber, double amount) {
+        logger.debug("Withdrawing {} from account {} asynchronously", amount, accountNumber);
+        
+        try {
+            SimpleHttpRequest request = SimpleRequestBuilder
+                    .post(baseUrl + "/api/accounts/" + accountNumber + "/withdraw")
+                    .setBody(encode(out -> codec.encodeAmount(amount, out)), codec.getContentType())
+                    .build();
+            return execute(request, (statusCode, responseBody) ->
+                    codec.toWithdrawResult(statusCode, responseBody, accountNumber));
+        } catch (Exception e) {
+            return failed(e);
+        }
+    }
+    
+    @Override
+    public CompletableFuture<Boolean> transfer(String sourceAccountNumber, String destinationAccountNumber,
+                                               double amount) {
+        logger.debug("Transferring {} from account {} to account {} asynchronously",
+                amount, sourceAccountNumber, destinationAccountNumber);
+        
+        try {
+            SimpleHttpRequest request = SimpleRequestBuilder
+                    .post(baseUrl + "/api/accounts/" + sourceAccountNumber + "/transfer")
+                    .setBody(encode(out -> codec.encodeTransfer(destinationAccountNumber, amount, out)),
+                            codec.getContentType())
+                    .build();
+            return execute(request, codec::toTransferResult);
+        } catch (Exception e) {
+            return failed(e);
+        }
+    }
+    
+    @Override
+    public CompletableFuture<List<Transaction>> getTransactionHistory(String accountNumber) {
+        logger.debug("Getting transaction history for account {} asynchronously", accountNumber);
+        
+        SimpleHttpRequest request = SimpleRequestBuilder
+                .get(baseUrl + "/api/accounts/" + accountNumber + "/transactions")
+                .build();
+        return execute(request, (statusCode, responseBody) ->
+                codec.toTransactionHistory(statusCode, responseBody, accountNumber));
+    }
+    
+    @Override
+    public void close() {
+        logger.info("Closing async REST client");
+        httpClient.close(CloseMode.GRACEFUL);
+    }
+}
@@ -1,222 +1,438 @@
 package com.banking.client.service;
 
 import com.banking.client.model.Account;
+import com.banking.client.model.BankingOperation;
 import com.banking.client.model.InsufficientFundsException;
+import com.banking.client.model.OperationResult;
 import com.banking.client.model.Transaction;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.banking.client.model.TransactionDelta;
+import com.banking.client.model.TransactionPage;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.apache.hc.client5.http.classic.methods.*;
+import org.apache.hc.client5.http.config.ConnectionConfig;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ClassicHttpRequest;
 import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
-import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.net.URIBuilder;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
 
 /**
  * REST implementation of the BankingService.
- * This communicates with the application tier using HTTP/REST.
+ * This communicates with the application tier using HTTP/REST over a shared,
+ * pooled connection manager so that keep-alive connections are reused across calls.
+ * Bodies are exchanged in binary Smile when configured and the server supports it,
+ * in JSON otherwise, and compressed as configured in {@link RestClientConfig}.
  */
 public class RestBankingService implements BankingService {
     
     private static final Logger logger = LogManager.getLogger(RestBankingService.class);
+    private static final String ACCEPT_SMILE_OR_JSON =
+            RestCodec.APPLICATION_SMILE.getMimeType() + ", " + ContentType.APPLICATION_JSON.getMimeType() + ";q=0.9";
     private final String baseUrl;
     private final ObjectMapper objectMapper;
+    private final RestCodec jsonCodec;
+    // Null when the configured wire format is JSON
+    private final RestCodec smileCodec;
+    private final RestClientConfig.Compression compression;
+    // Content coding name of the configured compression; null when it is NONE
+    private final String requestCoding;
+    private final int compressionThresholdBytes;
+    // Set once the server has answered in Smile, unless it has rejected a Smile body
+    private volatile boolean smileRequests;
+    private volatile boolean smileRequestsRejected;
+    // Set once the server has listed the coding in Accept-Encoding, unless it has rejected a compressed body
+    private volatile boolean compressRequests;
+    private volatile boolean compressedRequestsRejected;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final BatchPipeline batchPipeline;
+    private final int batchMaxSize;
+    // Whether the server offers a batch endpoint; null until it has been asked
+    private volatile Boolean batchEndpoint;
     
     public RestBankingService(String baseUrl) {
-        this.baseUrl = baseUrl;
-        this.objectMapper = new ObjectMapper();
+        this(baseUrl, new RestClientConfig());
     }
     
-    @Override
-    public Account createAccount(String accountNumber, String accountHolderName, double initialBalance) throws Exception {
-        logger.info("Creating account: {}", accountNumber);
+    public RestBankingService(String baseUrl, RestClientConfig config) {
+        this.baseUrl = baseUrl;
+        this.objectMapper = new ObjectMapper();
+        this.jsonCodec = RestCodec.json(objectMapper);
+        this.smileCodec = config.getWireFormat() == RestClientConfig.WireFormat.SMILE ? RestCodec.smile() : null;
+        this.compression = config.getCompression();
+        this.requestCoding = compression != RestClientConfig.Compression.NONE
+                ? compression.name().toLowerCase(Locale.ROOT) : null;
+        this.compressionThresholdBytes = config.getCompressionThresholdBytes();
         
-        Account account = new Account(accountNumber, accountHolderName, initialBalance);
+        this.connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(config.getMaxTotalConnections())
+                .setMaxConnPerRoute(config.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(config.getConnectTimeoutMillis()))
+                        .setSocketTimeout(Timeout.ofMilliseconds(config.getSocketTimeoutMillis()))
+                        .build())
+                .build();
+        
+        TimeValue keepAlive = TimeValue.ofSeconds(config.getKeepAliveSeconds());
+        HttpClientBuilder clientBuilder = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy((response, context) -> keepAlive)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(config.getIdleEvictionSeconds()));
+        if (!config.isAcceptCompressedResponses()) {
+            // Otherwise responses are requested with Accept-Encoding and decompressed transparently
+            clientBuilder.disableContentCompression();
+        }
+        this.httpClient = clientBuilder.build();
+        
+        this.batchPipeline = new BatchPipeline(this, config.getBatchConcurrency(), "rest-batch");
+        this.batchMaxSize = Math.max(1, config.getBatchMaxSize());
         
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-            HttpPost httpPost = new HttpPost(baseUrl + "/api/accounts");
+        logger.info("REST connection pool initialised: {}", config);
+    }
+    
+    /**
+     * Handles a response with the codec of the format the server answered in, reading
+     * the body straight from the connection. The body stream is closed after the handler
+     * runs, which consumes whatever the handler left unread, so the underlying connection
+     * is always released back to the pool.
+     */
+    private interface ResponseHandler<T> {
+        T handle(RestCodec codec, int statusCode, InputStream responseBody) throws Exception;
+    }
+    
+    /**
+     * Encodes a request body with the codec of the format the server is sent.
+     */
+    private interface RequestBody {
+        void encode(RestCodec codec, OutputStream out) throws Exception;
+    }
+    
+    private <T> T execute(ClassicHttpRequest request, ResponseHandler<T> handler) throws Exception {
+        acceptFormats(request);
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            return handle(response, handler);
+        }
+    }
+    
+    private <T> T handle(CloseableHttpResponse response, ResponseHandler<T> handler) throws Exception {
+        checkAcceptedEncodings(response);
+        HttpEntity entity = response.getEntity();
+        try (InputStream responseBody = entity != null ? entity.getContent() : null) {
+            return handler.handle(codecFor(entity), response.getCode(), responseBody);
+        }
+    }
+    
+    /**
+     * POST a body in the negotiated format, compressed if it is large enough and the
+     * server accepts compressed bodies. When the server answers 415 Unsupported Media
+     * Type, the body is sent again in JSON or uncompressed, and so are later bodies. Any
+     * other error, including 400 Bad Request, may mean the server read the body and acted
+     * on it, so it is never sent twice. The idempotency key of a write in progress on this thread goes with the request.
+     */
+    private <T> T post(String url, RequestBody body, ResponseHandler<T> handler) throws Exception {
+        while (true) {
+            RestCodec requestCodec = smileRequests ? smileCodec : jsonCodec;
+            RequestBuffer content = RequestBuffer.forCurrentThread();
+            body.encode(requestCodec, content);
+            boolean compressed = compressRequests && content.size() >= compressionThresholdBytes;
             
-            String json = objectMapper.writeValueAsString(account);
-            StringEntity entity = new StringEntity(json, ContentType.APPLICATION_JSON);
-            httpPost.setEntity(entity);
+            HttpPost httpPost = new HttpPost(url);
+            acceptFormats(httpPost);
+            String idempotencyKey = IdempotencyKey.current();
+            if (idempotencyKey != null) {
+                httpPost.setHeader(IdempotencyKey.HEADER, idempotencyKey);
+            }
+            httpPost.setEntity(compressed ? content.compressedEntity(requestCodec.getContentType(), compression)
+                    : content.entity(requestCodec.getContentType()));
             
             try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
-                int statusCode = response.getCode();
-                
-                if (statusCode == 201) {
-                    String responseBody = EntityUtils.toString(response.getEntity());
-                    return objectMapper.readValue(responseBody, Account.class);
-                } else {
-                    throw new Exception("Failed to create account: " + statusCode);
+                HttpEntity entity = response.getEntity();
+                if (response.getCode() == 415 && (requestCodec != jsonCodec || compressed)) {
+                    EntityUtils.consume(entity);
+                    if (requestCodec != jsonCodec) {
+                        logger.warn("Server at {} rejected a Smile request body, sending JSON", baseUrl);
+                        smileRequestsRejected = true;
+                        smileRequests = false;
+                    } else {
+                        logger.warn("Server at {} rejected a compressed request body, sending it uncompressed",
+                                baseUrl);
+                        compressedRequestsRejected = true;
+                        compressRequests = false;
+                    }
+                    continue;
                 }
+                return handle(response, handler);
             }
         }
     }
     
-    @Override
-    public Account getAccount(String accountNumber) throws Exception {
-        logger.info("Getting account: {}", accountNumber);
+    /**
+     * Starts compressing request bodies once a response lists the configured coding in
+     * its Accept-Encoding header, which is how a server says it reads compressed
+     * requests (RFC 7694).
+     */
+    private void checkAcceptedEncodings(HttpResponse response) {
+        if (requestCoding == null || compressRequests || compressedRequestsRejected) {
+            return;
+        }
+        String acceptEncoding = headerValue(response, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding != null && acceptsCoding(acceptEncoding, requestCoding)) {
+            logger.info("Server at {} accepts {} request bodies, compressing them", baseUrl, requestCoding);
+            compressRequests = true;
+        }
+    }
+    
+    static boolean acceptsCoding(String acceptEncoding, String coding) {
+        for (String element : acceptEncoding.split(",")) {
+            String[] parameters = element.split(";");
+            if (parameters[0].trim().equalsIgnoreCase(coding)) {
+                for (int i = 1; i < parameters.length; i++) {
+                    if (parameters[i].trim().matches("[qQ]\\s*=\\s*0(\\.0*)?")) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private void acceptFormats(ClassicHttpRequest request) {
+        if (smileCodec != null) {
+            request.setHeader(HttpHeaders.ACCEPT, ACCEPT_SMILE_OR_JSON);
+        }
+    }
+    
+    /**
+     * The codec for a response body's format. The first Smile response also switches
+     * request bodies to Smile, as a server that writes it reads it as well.
+     */
+    private RestCodec codecFor(HttpEntity entity) {
+        if (smileCodec != null && entity != null && smileCodec.reads(entity.getContentType())) {
+            if (!smileRequests && !smileRequestsRejected) {
+                logger.info("Server at {} answers in Smile, sending Smile request bodies", baseUrl);
+                smileRequests = true;
+            }
+            return smileCodec;
+        }
+        return jsonCodec;
+    }
+    
+    /**
+     * Execute a GET that revalidates a previous result. Sends If-None-Match (or
+     * If-Modified-Since when only Last-Modified is known) and keeps the previous value
+     * when the server answers 304 Not Modified.
+     */
+    private <T> ConditionalResult<T> executeConditional(HttpGet httpGet, ConditionalResult<T> previous,
+                                                        ResponseHandler<T> handler) throws Exception {
+        acceptFormats(httpGet);
+        if (previous != null) {
+            if (previous.getEtag() != null) {
+                httpGet.setHeader(HttpHeaders.IF_NONE_MATCH, previous.getEtag());
+            } else if (previous.getLastModified() != null) {
+                httpGet.setHeader(HttpHeaders.IF_MODIFIED_SINCE, previous.getLastModified());
+            }
+        }
         
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-            HttpGet httpGet = new HttpGet(baseUrl + "/api/accounts/" + accountNumber);
+        try (CloseableHttpResponse response = httpClient.execute(httpGet)) {
+            String etag = headerValue(response, HttpHeaders.ETAG);
+            String lastModified = headerValue(response, HttpHeaders.LAST_MODIFIED);
+            HttpEntity entity = response.getEntity();
             
-            try (CloseableHttpResponse response = httpClient.execute(httpGet)) {
-                int statusCode = response.getCode();
-                
-                if (statusCode == 200) {
-                    String responseBody = EntityUtils.toString(response.getEntity());
-                    return objectMapper.readValue(responseBody, Account.class);
-                } else if (statusCode == 404) {
-                    throw new Exception("Account not found: " + accountNumber);
-                } else {
-                    throw new Exception("Failed to get account: " + statusCode);
-                }
+            if (response.getCode() == 304 && previous != null) {
+                EntityUtils.consume(entity);
+                return ConditionalResult.notModified(previous, etag, lastModified);
             }
+            
+            return ConditionalResult.modified(handle(response, handler), etag, lastModified);
         }
     }
     
+    private static String headerValue(HttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return header != null ? header.getValue() : null;
+    }
+    
+    /**
+     * Current statistics of the shared connection pool (leased, pending, available and max).
+     */
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+    
+    @Override
+    public Account createAccount(String accountNumber, String accountHolderName, double initialBalance) throws Exception {
+        logger.info("Creating account: {}", accountNumber);
+        
+        Account account = new Account(accountNumber, accountHolderName, initialBalance);
+        
+        return post(baseUrl + "/api/accounts", (codec, out) -> codec.encodeAccount(account, out), RestCodec::toCreatedAccount);
+    }
+    
+    @Override
+    public Account getAccount(String accountNumber) throws Exception {
+        logger.info("Getting account: {}", accountNumber);
+        
+        HttpGet httpGet = new HttpGet(baseUrl + "/api/accounts/" + accountNumber);
+        
+        return execute(httpGet, (codec, statusCode, responseBody) ->
+                codec.toAccount(statusCode, responseBody, accountNumber));
+    }
+    
+    @Override
+    public ConditionalResult<Account> getAccountIfModified(String accountNumber,
+                                                          ConditionalResult<Account> previous) throws Exception {
+        logger.info("Getting account: {} (conditional)", accountNumber);
+        
+        HttpGet httpGet = new HttpGet(baseUrl + "/api/accounts/" + accountNumber);
+        
+        return executeConditional(httpGet, previous, (codec, statusCode, responseBody) ->
+                codec.toAccount(statusCode, responseBody, accountNumber));
+    }
+    
     @Override
     public List<Account> getAllAccounts() throws Exception {
         logger.info("Getting all accounts");
         
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-            HttpGet httpGet = new HttpGet(baseUrl + "/api/accounts");
-            
-            try (CloseableHttpResponse response = httpClient.execute(httpGet)) {
-                int statusCode = response.getCode();
-                
-                if (statusCode == 200) {
-                    String responseBody = EntityUtils.toString(response.getEntity());
-                    return objectMapper.readValue(responseBody, new TypeReference<List<Account>>() {});
-                } else {
-                    throw new Exception("Failed to get accounts: " + statusCode);
-                }
-            }
-        }
+        HttpGet httpGet = new HttpGet(baseUrl + "/api/accounts");
+        
+        return execute(httpGet, RestCodec::toAccounts);
     }
     
     @Override
     public Account deposit(String accountNumber, double amount) throws Exception {
         logger.info("Depositing {} to account {}", amount, accountNumber);
         
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-            HttpPost httpPost = new HttpPost(baseUrl + "/api/accounts/" + accountNumber + "/deposit");
-            
-            Map<String, Double> depositData = new HashMap<>();
-            depositData.put("amount", amount);
-            
-            String json = objectMapper.writeValueAsString(depositData);
-            StringEntity entity = new StringEntity(json, ContentType.APPLICATION_JSON);
-            httpPost.setEntity(entity);
-            
-            try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
-                int statusCode = response.getCode();
-                
-                if (statusCode == 200) {
-                    String responseBody = EntityUtils.toString(response.getEntity());
-                    return objectMapper.readValue(responseBody, Account.class);
-                } else if (statusCode == 404) {
-                    throw new Exception("Account not found: " + accountNumber);
-                } else {
-                    throw new Exception("Failed to deposit: " + statusCode);
-                }
-            }
-        }
+        return post(baseUrl + "/api/accounts/" + accountNumber + "/deposit",
+                (codec, out) -> codec.encodeAmount(amount, out), (codec, statusCode, responseBody) ->
+                codec.toDepositResult(statusCode, responseBody, accountNumber));
     }
     
     @Override
     public Account withdraw(String accountNumber, double amount) throws Exception, InsufficientFundsException {
         logger.info("Withdrawing {} from account {}", amount, accountNumber);
         
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-            HttpPost httpPost = new HttpPost(baseUrl + "/api/accounts/" + accountNumber + "/withdraw");
-            
-            Map<String, Double> withdrawData = new HashMap<>();
-            withdrawData.put("amount", amount);
-            
-            String json = objectMapper.writeValueAsString(withdrawData);
-            StringEntity entity = new StringEntity(json, ContentType.APPLICATION_JSON);
-            httpPost.setEntity(entity);
-            
-            try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
-                int statusCode = response.getCode();
-                String responseBody = EntityUtils.toString(response.getEntity());
-                
-                if (statusCode == 200) {
-                    return objectMapper.readValue(responseBody, Account.class);
-                } else if (statusCode == 400) {
-                    // Check if it's an insufficient funds error
-                    Map<String, Object> errorResponse = objectMapper.readValue(responseBody, 
-                            new TypeReference<Map<String, Object>>() {});
-                    
-                    if (errorResponse.containsKey("error") && 
-                            "Insufficient funds".equals(errorResponse.get("error"))) {
-                        double requestedAmount = ((Number) errorResponse.get("requestedAmount")).doubleValue();
-                        double availableBalance = ((Number) errorResponse.get("availableBalance")).doubleValue();
-                        throw new InsufficientFundsException(requestedAmount, availableBalance);
-                    }
-                    throw new Exception("Bad request: " + responseBody);
-                } else if (statusCode == 404) {
-                    throw new Exception("Account not found: " + accountNumber);
-                } else {
-                    throw new Exception("Failed to withdraw: " + statusCode);
-                }
-            }
-        }
+        return post(baseUrl + "/api/accounts/" + accountNumber + "/withdraw",
+                (codec, out) -> codec.encodeAmount(amount, out), (codec, statusCode, responseBody) ->
+                codec.toWithdrawResult(statusCode, responseBody, accountNumber));
     }
     
     @Override
-    public boolean transfer(String sourceAccountNumber, String destinationAccountNumber, double amount) 
+    public boolean transfer(String sourceAccountNumber, String destinationAccountNumber, double amount)
             throws Exception, InsufficientFundsException {
-        logger.info("Transferring {} from account {} to account {}", 
+        logger.info("Transferring {} from account {} to account {}",
                 amount, sourceAccountNumber, destinationAccountNumber);
         
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-            HttpPost httpPost = new HttpPost(baseUrl + "/api/accounts/" + sourceAccountNumber + "/transfer");
-            
-            Map<String, Object> transferData = new HashMap<>();
-            transferData.put("destinationAccountNumber", destinationAccountNumber);
-            transferData.put("amount", amount);
-            
-            String json = objectMapper.writeValueAsString(transferData);
-            StringEntity entity = new StringEntity(json, ContentType.APPLICATION_JSON);
-            httpPost.setEntity(entity);
-            
-            try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
-                int statusCode = response.getCode();
-                String responseBody = EntityUtils.toString(response.getEntity());
-                
-                if (statusCode == 200) {
-                    Map<String, Object> successResponse = objectMapper.readValue(responseBody, 
-                            new TypeReference<Map<String, Object>>() {});
-                    return (boolean) successResponse.get("success");
-                } else if (statusCode == 400) {
-                    // Check if it's an insufficient funds error
-                    Map<String, Object> errorResponse = objectMapper.readValue(responseBody, 
-                            new TypeReference<Map<String, Object>>() {});
-                    
-                    if (errorResponse.containsKey("error") && 
-                            "Insufficient funds".equals(errorResponse.get("error"))) {
-                        double requestedAmount = ((Number) errorResponse.get("requestedAmount")).doubleValue();
-                        double availableBalance = ((Number) errorResponse.get("availableBalance")).doubleValue();
-                        throw new InsufficientFundsException(requestedAmount, availableBalance);
-                    }
-                    throw new Exception("Bad request: " + responseBody);
-                } else if (statusCode == 404) {
-                    throw new Exception("Account not found");
-                } else {
-                    throw new Exception("Failed to transfer: " + statusCode);
+        return post(baseUrl + "/api/accounts/" + sourceAccountNumber + "/transfer",
+                (codec, out) -> codec.encodeTransfer(destinationAccountNumber, amount, out), RestCodec::toTransferResult);
+    }
+    
+    /**
+     * Sends the batch to {@code /api/accounts/batch} when the server advertises that
+     * endpoint, in requests of at most the configured batch size. Otherwise each operation
+     * is sent as its own request over the connection pool, operations on different
+     * accounts in flight together up to the configured batch concurrency. A batch request
+     * that fails marks its operations as failed; later requests are still sent.
+     */
+    @Override
+    public List<OperationResult> executeBatch(List<BankingOperation> operations) throws Exception {
+        logger.info("Executing batch of {} operations", operations.size());
+        
+        if (operations.isEmpty() || !hasBatchEndpoint()) {
+            return batchPipeline.execute(operations);
+        }
+        
+        List<OperationResult> results = new ArrayList<>(operations.size());
+        for (int from = 0; from < operations.size(); from += batchMaxSize) {
+            List<BankingOperation> chunk = operations.subList(from, Math.min(from + batchMaxSize, operations.size()));
+            try {
+                List<OperationResult> chunkResults = post(baseUrl + "/api/accounts/batch",
+                        (codec, out) -> codec.encodeBatch(chunk, out), (codec, statusCode, responseBody) ->
+                        statusCode == 404 || statusCode == 405 ? null
+                                : codec.toBatchResults(statusCode, responseBody, chunk.size()));
+                if (chunkResults == null) {
+                    logger.warn("Batch endpoint of {} is gone, sending operations individually", baseUrl);
+                    batchEndpoint = false;
+                    results.addAll(batchPipeline.execute(operations.subList(from, operations.size())));
+                    break;
+                }
+                results.addAll(chunkResults);
+            } catch (Exception e) {
+                logger.error("Batch request failed: {}", e.getMessage(), e);
+                for (BankingOperation operation : chunk) {
+                    results.add(OperationResult.failed(operation.getOperationId(),
+                            "Batch request failed: " + e.getMessage()));
+                }
+            }
+        }
+        return results;
+    }
+    
+    private boolean hasBatchEndpoint() {
+        Boolean supported = batchEndpoint;
+        if (supported == null) {
+            supported = probeBatchEndpoint();
+            if (supported == null) {
+                return false;
+            }
+            batchEndpoint = supported;
+        }
+        return supported;
+    }
+    
+    /**
+     * Ask the server whether it accepts batches, from the Allow header of an OPTIONS
+     * request to the batch endpoint.
+     * 
+     * @return null if the server could not be asked, so it is asked again next time
+     */
+    private Boolean probeBatchEndpoint() {
+        HttpOptions httpOptions = new HttpOptions(baseUrl + "/api/accounts/batch");
+        try (CloseableHttpResponse response = httpClient.execute(httpOptions)) {
+            EntityUtils.consume(response.getEntity());
+            checkAcceptedEncodings(response);
+            String allow = headerValue(response, HttpHeaders.ALLOW);
+            boolean supported = false;
+            if (response.getCode() / 100 == 2 && allow != null) {
+                for (String method : allow.split(",")) {
+                    supported |= "POST".equalsIgnoreCase(method.trim());
                 }
             }
+            logger.info("Server at {} {} a batch endpoint", baseUrl, supported ? "offers" : "does not offer");
+            return supported;
+        } catch (Exception e) {
+            logger.warn("Could not ask {} for a batch endpoint, sending operations individually: {}",
+                    baseUrl, e.getMessage());
+            return null;
         }
     }
     
@@ -224,21 +440,121 @@ public class RestBankingService implements BankingService {
     public List<Transaction> getTransactionHistory(String accountNumber) throws Exception {
         logger.info("Getting transaction history for account {}", accountNumber);
         
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
+        HttpGet httpGet = new HttpGet(baseUrl + "/api/accounts/" + accountNumber + "/transactions");
+        
+        return execute(httpGet, (codec, statusCode, responseBody) ->
+                codec.toTransactionHistory(statusCode, responseBody, accountNumber));
+    }
+    
+    @Override
+    public ConditionalResult<List<Transaction>> getTransactionHistoryIfModified(
+            String accountNumber, ConditionalResult<List<Transaction>> previous) throws Exception {
+        logger.info("Getting transaction history for account {} (conditional)", accountNumber);
+        
+        HttpGet httpGet = new HttpGet(baseUrl + "/api/accounts/" + accountNumber + "/transactions");
+        
+        return executeConditional(httpGet, previous, (codec, statusCode, responseBody) ->
+                codec.toTransactionHistory(statusCode, responseBody, accountNumber));
+    }
+    
+    @Override
+    public TransactionPage getTransactionHistory(String accountNumber, String cursor, int limit) throws Exception {
+        logger.info("Getting transaction history page for account {} (cursor {}, limit {})",
+                accountNumber, cursor, limit);
+        
+        URIBuilder uriBuilder = new URIBuilder(baseUrl + "/api/accounts/" + accountNumber + "/transactions")
+                .addParameter("limit", String.valueOf(limit));
+        if (cursor != null) {
+            uriBuilder.addParameter("cursor", cursor);
+        }
+        HttpGet httpGet = new HttpGet(uriBuilder.build());
+        
+        return execute(httpGet, (codec, statusCode, responseBody) ->
+                codec.toTransactionPage(statusCode, responseBody, accountNumber));
+    }
+    
+    /**
+     * Asks for {@code /api/accounts/{accountNumber}/transactions?since=<transactionId>},
+     * so only transactions newer than the given one cross the wire.
+     */
+    @Override
+    public TransactionDelta getTransactionsSince(String accountNumber, String lastTransactionId) throws Exception {
+        logger.info("Getting transactions for account {} since {}", accountNumber, lastTransactionId);
+        
+        URIBuilder uriBuilder = new URIBuilder(baseUrl + "/api/accounts/" + accountNumber + "/transactions")
+                .addParameter("since", lastTransactionId);
+        HttpGet httpGet = new HttpGet(uriBuilder.build());
+        
+        return execute(httpGet, (codec, statusCode, responseBody) ->
+                codec.toTransactionDelta(statusCode, responseBody, accountNumber, lastTransactionId));
+    }
+    
+    /**
+     * Streams the history straight from the response body: the array is parsed one
+     * element at a time and the socket is only read as fast as the subscriber requests
+     * items. Cancelling the subscription aborts the request.
+     */
+    @Override
+    public Flow.Publisher<Transaction> streamTransactionHistory(String accountNumber) {
+        logger.info("Streaming transaction history for account {}", accountNumber);
+        
+        ObjectReader transactionReader = objectMapper.readerFor(Transaction.class);
+        
+        return new StreamPublisher<>(StreamPublisher.threadPerSubscription("rest-history-stream"), sink -> {
             HttpGet httpGet = new HttpGet(baseUrl + "/api/accounts/" + accountNumber + "/transactions");
+            acceptFormats(httpGet);
             
             try (CloseableHttpResponse response = httpClient.execute(httpGet)) {
                 int statusCode = response.getCode();
+                HttpEntity entity = response.getEntity();
+                RestCodec codec = codecFor(entity);
                 
-                if (statusCode == 200) {
-                    String responseBody = EntityUtils.toString(response.getEntity());
-                    return objectMapper.readValue(responseBody, new TypeReference<List<Transaction>>() {});
-                } else if (statusCode == 404) {
-                    throw new Exception("Account not found: " + accountNumber);
-                } else {
-                    throw new Exception("Failed to get transaction history: " + statusCode);
+                if (statusCode != 200) {
+                    handle(response, (responseCodec, code, responseBody) ->
+                            responseCodec.toTransactionHistory(code, responseBody, accountNumber));
+                    return;
+                }
+                
+                try (InputStream content = entity.getContent();
+                     JsonParser parser = codec.createParser(content)) {
+                    if (parser.nextToken() != JsonToken.START_ARRAY) {
+                        throw new Exception("Unexpected transaction history payload for account " + accountNumber);
+                    }
+                    
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        Transaction transaction = transactionReader.readValue(parser);
+                        if (!sink.emit(transaction)) {
+                            // Abort rather than draining the rest of a potentially huge body
+                            httpGet.cancel();
+                            return;
+                        }
+                    }
                 }
             }
-        }
+        });
+    }
+    
+    /**
+     * Subscribes over Server-Sent Events on {@code /api/accounts/{accountNumber}/events}.
+     * The stream holds one pooled connection for as long as the subscription is active.
+     */
+    @Override
+    public Subscription subscribe(String accountNumber, AccountUpdateListener listener) {
+        logger.info("Subscribing to updates for account {}", accountNumber);
+        
+        subscriptions.removeIf(Subscription::isCancelled);
+        RestAccountSubscription subscription =
+                new RestAccountSubscription(httpClient, objectMapper, baseUrl, accountNumber, listener);
+        subscriptions.add(subscription);
+        subscription.start();
+        return subscription;
+    }
+    
+    @Override
+    public void close() {
+        logger.info("Closing REST connection pool");
+        subscriptions.forEach(Subscription::cancel);
+        batchPipeline.close();
+        httpClient.close(CloseMode.GRACEFUL);
     }
 }
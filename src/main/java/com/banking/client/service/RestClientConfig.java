@@ -0,0 +1,230 @@
+package com.banking.client.service;
+
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Connection pool, timeout and encoding settings for the REST transport.
+ */
+public class RestClientConfig {
+    
+    /**
+     * Encoding of request and response bodies.
+     */
+    public enum WireFormat {
+        /** Textual JSON only. */
+        JSON,
+        /**
+         * Ask for binary Smile responses and fall back to JSON when the server answers in
+         * JSON. Request bodies switch to Smile once the server has answered in Smile.
+         */
+        SMILE
+    }
+    
+    /**
+     * Content coding of request bodies.
+     */
+    public enum Compression {
+        NONE,
+        GZIP,
+        DEFLATE
+    }
+    
+    private int maxTotalConnections = 50;
+    private int maxConnectionsPerRoute = 20;
+    private long idleEvictionSeconds = 30;
+    private long keepAliveSeconds = 30;
+    private long connectTimeoutMillis = 5000;
+    private long socketTimeoutMillis = 30000;
+    private int asyncIoThreads = Runtime.getRuntime().availableProcessors();
+    private int batchConcurrency = 8;
+    private int batchMaxSize = 500;
+    private WireFormat wireFormat = WireFormat.SMILE;
+    private Compression compression = Compression.NONE;
+    private int compressionThresholdBytes = 2048;
+    private boolean acceptCompressedResponses = true;
+    
+    /**
+     * Build a configuration from application properties, falling back to defaults
+     * for anything that is not set.
+     *
+     * @param properties Application properties
+     * @return RestClientConfig instance
+     */
+    public static RestClientConfig fromProperties(Properties properties) {
+        RestClientConfig config = new RestClientConfig();
+        config.setMaxTotalConnections(Integer.parseInt(properties.getProperty(
+                "rest.pool.max.total", String.valueOf(config.maxTotalConnections))));
+        config.setMaxConnectionsPerRoute(Integer.parseInt(properties.getProperty(
+                "rest.pool.max.per.route", String.valueOf(config.maxConnectionsPerRoute))));
+        config.setIdleEvictionSeconds(Long.parseLong(properties.getProperty(
+                "rest.pool.idle.eviction.seconds", String.valueOf(config.idleEvictionSeconds))));
+        config.setKeepAliveSeconds(Long.parseLong(properties.getProperty(
+                "rest.keep.alive.seconds", String.valueOf(config.keepAliveSeconds))));
+        config.setConnectTimeoutMillis(Long.parseLong(properties.getProperty(
+                "rest.connect.timeout.ms", String.valueOf(config.connectTimeoutMillis))));
+        config.setSocketTimeoutMillis(Long.parseLong(properties.getProperty(
+                "rest.socket.timeout.ms", String.valueOf(config.socketTimeoutMillis))));
+        config.setAsyncIoThreads(Integer.parseInt(properties.getProperty(
+                "rest.async.io.threads", String.valueOf(config.asyncIoThreads))));
+        config.setBatchConcurrency(Integer.parseInt(properties.getProperty(
+                "rest.batch.concurrency", String.valueOf(config.batchConcurrency))));
+        config.setBatchMaxSize(Integer.parseInt(properties.getProperty(
+                "rest.batch.max.size", String.valueOf(config.batchMaxSize))));
+        config.setWireFormat(WireFormat.valueOf(properties.getProperty(
+                "rest.wire.format", config.wireFormat.name()).trim().toUpperCase(Locale.ROOT)));
+        config.setCompression(Compression.valueOf(properties.getProperty(
+                "rest.compression", config.compression.name()).trim().toUpperCase(Locale.ROOT)));
+        config.setCompressionThresholdBytes(Integer.parseInt(properties.getProperty(
+                "rest.compression.threshold.bytes", String.valueOf(config.compressionThresholdBytes))));
+        config.setAcceptCompressedResponses(Boolean.parseBoolean(properties.getProperty(
+                "rest.compression.responses", String.valueOf(config.acceptCompressedResponses))));
+        return config;
+    }
+    
+    public int getMaxTotalConnections() {
+        return maxTotalConnections;
+    }
+    
+    public void setMaxTotalConnections(int maxTotalConnections) {
+        this.maxTotalConnections = maxTotalConnections;
+    }
+    
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+    
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+    
+    public long getIdleEvictionSeconds() {
+        return idleEvictionSeconds;
+    }
+    
+    public void setIdleEvictionSeconds(long idleEvictionSeconds) {
+        this.idleEvictionSeconds = idleEvictionSeconds;
+    }
+    
+    public long getKeepAliveSeconds() {
+        return keepAliveSeconds;
+    }
+    
+    public void setKeepAliveSeconds(long keepAliveSeconds) {
+        this.keepAliveSeconds = keepAliveSeconds;
+    }
+    
+    public long getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+    
+    public void setConnectTimeoutMillis(long connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+    
+    public long getSocketTimeoutMillis() {
+        return socketTimeoutMillis;
+    }
+    
+    public void setSocketTimeoutMillis(long socketTimeoutMillis) {
+        this.socketTimeoutMillis = socketTimeoutMillis;
+    }
+    
+    public int getAsyncIoThreads() {
+        return asyncIoThreads;
+    }
+    
+    public void setAsyncIoThreads(int asyncIoThreads) {
+        this.asyncIoThreads = asyncIoThreads;
+    }
+    
+    public int getBatchConcurrency() {
+        return batchConcurrency;
+    }
+    
+    /**
+     * Operations of batches sent as individual requests that may be in flight at once,
+     * when the server has no batch endpoint.
+     */
+    public void setBatchConcurrency(int batchConcurrency) {
+        this.batchConcurrency = batchConcurrency;
+    }
+    
+    public int getBatchMaxSize() {
+        return batchMaxSize;
+    }
+    
+    /**
+     * Operations per request to the server's batch endpoint; larger batches are sent
+     * as several requests, one after another.
+     */
+    public void setBatchMaxSize(int batchMaxSize) {
+        this.batchMaxSize = batchMaxSize;
+    }
+    
+    public WireFormat getWireFormat() {
+        return wireFormat;
+    }
+    
+    public void setWireFormat(WireFormat wireFormat) {
+        this.wireFormat = wireFormat;
+    }
+    
+    public Compression getCompression() {
+        return compression;
+    }
+    
+    /**
+     * How request bodies of at least the compression threshold are compressed, NONE by
+     * default. Bodies are only compressed once the server has listed the coding in the
+     * Accept-Encoding header of a response. A server that answers a compressed request
+     * with 415 Unsupported Media Type, or with 400 Bad Request while the same body sent
+     * uncompressed is accepted, is sent uncompressed requests from then on.
+     */
+    public void setCompression(Compression compression) {
+        this.compression = compression;
+    }
+    
+    public int getCompressionThresholdBytes() {
+        return compressionThresholdBytes;
+    }
+    
+    /**
+     * Smallest request body that is compressed; smaller bodies gain too little to be
+     * worth the CPU.
+     */
+    public void setCompressionThresholdBytes(int compressionThresholdBytes) {
+        this.compressionThresholdBytes = compressionThresholdBytes;
+    }
+    
+    public boolean isAcceptCompressedResponses() {
+        return acceptCompressedResponses;
+    }
+    
+    /**
+     * Whether gzip and deflate responses are requested with Accept-Encoding and
+     * decompressed transparently; independent of request body compression.
+     */
+    public void setAcceptCompressedResponses(boolean acceptCompressedResponses) {
+        this.acceptCompressedResponses = acceptCompressedResponses;
+    }
+    
+    @Override
+    public String toString() {
+        return "RestClientConfig{" +
+                "maxTotalConnections=" + maxTotalConnections +
+                ", maxConnectionsPerRoute=" + maxConnectionsPerRoute +
+                ", idleEvictionSeconds=" + idleEvictionSeconds +
+                ", keepAliveSeconds=" + keepAliveSeconds +
+                ", connectTimeoutMillis=" + connectTimeoutMillis +
+                ", socketTimeoutMillis=" + socketTimeoutMillis +
+                ", asyncIoThreads=" + asyncIoThreads +
+                ", batchConcurrency=" + batchConcurrency +
+                ", batchMaxSize=" + batchMaxSize +
+                ", wireFormat=" + wireFormat +
+                ", compression=" + compression +
+                ", compressionThresholdBytes=" + compressionThresholdBytes +
+                ", acceptCompressedResponses=" + acceptCompressedResponses +
+                '}';
+    }
+}
@@ -0,0 +1,286 @@
+package com.banking.client.service;
+
+import com.banking.client.model.Account;
+import com.banking.client.model.BankingOperation;
+import com.banking.client.model.InsufficientFundsException;
+import com.banking.client.model.OperationResult;
+import com.banking.client.model.Transaction;
+import com.banking.client.model.TransactionDelta;
+import com.banking.client.model.TransactionPage;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.apache.hc.core5.http.ContentType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Request encoding and response mapping shared by the blocking and asynchronous
+ * REST transports, so both report the same results and errors for the same responses.
+ * A codec reads and writes one wire format: textual JSON or binary Smile.
+ * Bodies are typed and go through readers and writers built once per codec, so a call
+ * neither builds maps nor copies bodies into Strings: requests are written to an output
+ * stream and responses read straight from the input stream.
+ */
+class RestCodec {
+    
+    static final ContentType APPLICATION_SMILE = ContentType.create("application/x-jackson-smile");
+    
+    private final ObjectMapper objectMapper;
+    private final ContentType contentType;
+    private final ObjectWriter accountWriter;
+    private final ObjectWriter amountWriter;
+    private final ObjectWriter transferWriter;
+    private final ObjectWriter batchWriter;
+    private final ObjectReader accountReader;
+    private final ObjectReader accountListReader;
+    private final ObjectReader transactionListReader;
+    private final ObjectReader transactionPageReader;
+    private final ObjectReader transferResponseReader;
+    private final ObjectReader errorResponseReader;
+    private final ObjectReader batchResultsReader;
+    
+    private RestCodec(ObjectMapper objectMapper, ContentType contentType) {
+        this.objectMapper = objectMapper;
+        this.contentType = contentType;
+        this.accountWriter = objectMapper.writerFor(Account.class);
+        this.amountWriter = objectMapper.writerFor(RestMessages.AmountRequest.class);
+        this.transferWriter = objectMapper.writerFor(RestMessages.TransferRequest.class);
+        this.batchWriter = objectMapper.writerFor(new TypeReference<List<BankingOperation>>() {});
+        this.accountReader = objectMapper.readerFor(Account.class);
+        this.accountListReader = objectMapper.readerFor(new TypeReference<List<Account>>() {});
+        this.transactionListReader = objectMapper.readerFor(new TypeReference<List<Transaction>>() {});
+        this.transactionPageReader = objectMapper.readerFor(TransactionPage.class);
+        // Servers add fields of their own to status and error bodies
+        this.transferResponseReader = objectMapper.readerFor(RestMessages.TransferResponse.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.errorResponseReader = objectMapper.readerFor(RestMessages.ErrorResponse.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.batchResultsReader = objectMapper.readerFor(new TypeReference<List<OperationResult>>() {});
+    }
+    
+    static RestCodec json(ObjectMapper objectMapper) {
+        return new RestCodec(objectMapper, ContentType.APPLICATION_JSON);
+    }
+    
+    static RestCodec smile() {
+        return new RestCodec(new ObjectMapper(new SmileFactory()), APPLICATION_SMILE);
+    }
+    
+    ContentType getContentType() {
+        return contentType;
+    }
+    
+    /**
+     * Whether a response of the given Content-Type is in this codec's format.
+     */
+    boolean reads(String responseContentType) {
+        String mimeType = contentType.getMimeType();
+        if (responseContentType == null || !responseContentType.regionMatches(true, 0, mimeType, 0,
+                mimeType.length())) {
+            return false;
+        }
+        // Parameters such as a charset may follow the MIME type
+        return responseContentType.length() == mimeType.length()
+                || responseContentType.charAt(mimeType.length()) == ';'
+                || responseContentType.charAt(mimeType.length()) == ' ';
+    }
+    
+    JsonParser createParser(InputStream content) throws IOException {
+        return objectMapper.getFactory().createParser(content);
+    }
+    
+    void encodeAccount(Account account, OutputStream out) throws Exception {
+        accountWriter.writeValue(out, account);
+    }
+    
+    void encodeAmount(double amount, OutputStream out) throws Exception {
+        amountWriter.writeValue(out, new RestMessages.AmountRequest(amount));
+    }
+    
+    void encodeTransfer(String destinationAccountNumber, double amount, OutputStream out) throws Exception {
+        transferWriter.writeValue(out, new RestMessages.TransferRequest(destinationAccountNumber, amount));
+    }
+    
+    void encodeBatch(List<BankingOperation> operations, OutputStream out) throws Exception {
+        batchWriter.writeValue(out, operations);
+    }
+    
+    Account toCreatedAccount(int statusCode, InputStream responseBody) throws Exception {
+        if (statusCode == 201) {
+            return accountReader.readValue(responseBody);
+        } else {
+            throw new Exception("Failed to create account: " + statusCode);
+        }
+    }
+    
+    Account toAccount(int statusCode, InputStream responseBody, String accountNumber) throws Exception {
+        if (statusCode == 200) {
+            return accountReader.readValue(responseBody);
+        } else if (statusCode == 404) {
+            throw new Exception("Account not found: " + accountNumber);
+        } else {
+            throw new Exception("Failed to get account: " + statusCode);
+        }
+    }
+    
+    List<Account> toAccounts(int statusCode, InputStream responseBody) throws Exception {
+        if (statusCode == 200) {
+            return accountListReader.readValue(responseBody);
+        } else {
+            throw new Exception("Failed to get accounts: " + statusCode);
+        }
+    }
+    
+    Account toDepositResult(int statusCode, InputStream responseBody, String accountNumber) throws Exception {
+        if (statusCode == 200) {
+            return accountReader.readValue(responseBody);
+        } else if (statusCode == 404) {
+            throw new Exception("Account not found: " + accountNumber);
+        } else {
+            throw new Exception("Failed to deposit: " + statusCode);
+        }
+    }
+    
+    Account toWithdrawResult(int statusCode, InputStream responseBody, String accountNumber)
+            throws Exception, InsufficientFundsException {
+        if (statusCode == 200) {
+            return accountReader.readValue(responseBody);
+        } else if (statusCode == 400) {
+            throw toBadRequest(responseBody);
+        } else if (statusCode == 404) {
+            throw new Exception("Account not found: " + accountNumber);
+        } else {
+            throw new Exception("Failed to withdraw: " + statusCode);
+        }
+    }
+    
+    boolean toTransferResult(int statusCode, InputStream responseBody) throws Exception, InsufficientFundsException {
+        if (statusCode == 200) {
+            RestMessages.TransferResponse response = transferResponseReader.readValue(responseBody);
+            return response.isSuccess();
+        } else if (statusCode == 400) {
+            throw toBadRequest(responseBody);
+        } else if (statusCode == 404) {
+            throw new Exception("Account not found");
+        } else {
+            throw new Exception("Failed to transfer: " + statusCode);
+        }
+    }
+    
+    /**
+     * Map a batch endpoint response: one result per operation, in request order.
+     */
+    List<OperationResult> toBatchResults(int statusCode, InputStream responseBody, int operationCount)
+            throws Exception {
+        if (statusCode == 200) {
+            List<OperationResult> results = batchResultsReader.readValue(responseBody);
+            if (results.size() != operationCount) {
+                throw new Exception("Batch response has " + results.size() + " results for "
+                        + operationCount + " operations");
+            }
+            return results;
+        } else {
+            throw new Exception("Failed to execute batch: " + statusCode);
+        }
+    }
+    
+    List<Transaction> toTransactionHistory(int statusCode, InputStream responseBody, String accountNumber)
+            throws Exception {
+        if (statusCode == 200) {
+            return transactionListReader.readValue(responseBody);
+        } else if (statusCode == 404) {
+            throw new Exception("Account not found: " + accountNumber);
+        } else {
+            throw new Exception("Failed to get transaction history: " + statusCode);
+        }
+    }
+    
+    /**
+     * Map a paged history response. A server without pagination support answers with
+     * the plain history array, which is treated as a single, final page.
+     */
+    TransactionPage toTransactionPage(int statusCode, InputStream responseBody, String accountNumber)
+            throws Exception {
+        if (statusCode == 200) {
+            try (JsonParser parser = createParser(responseBody)) {
+                if (parser.nextToken() == JsonToken.START_ARRAY) {
+                    return new TransactionPage(transactionListReader.readValue(parser), null);
+                }
+                return transactionPageReader.readValue(parser);
+            }
+        } else if (statusCode == 404) {
+            throw new Exception("Account not found: " + accountNumber);
+        } else {
+            throw new Exception("Failed to get transaction history: " + statusCode);
+        }
+    }
+    
+    /**
+     * Map a history delta response. 410 Gone means the server no longer holds the
+     * given transaction and the caller must reload. A server that ignores the
+     * {@code since} parameter answers with the full history, which still contains the
+     * given transaction; that is treated as a reload as well.
+     */
+    TransactionDelta toTransactionDelta(int statusCode, InputStream responseBody, String accountNumber,
+                                        String lastTransactionId) throws Exception {
+        if (statusCode == 200) {
+            List<Transaction> transactions = transactionListReader.readValue(responseBody);
+            for (Transaction transaction : transactions) {
+                if (lastTransactionId.equals(transaction.getTransactionId())) {
+                    return TransactionDelta.reload();
+                }
+            }
+            return TransactionDelta.of(transactions);
+        } else if (statusCode == 410) {
+            return TransactionDelta.reload();
+        } else if (statusCode == 404) {
+            throw new Exception("Account not found: " + accountNumber);
+        } else {
+            throw new Exception("Failed to get transaction history: " + statusCode);
+        }
+    }
+    
+    /**
+     * Map a 400 response body to an InsufficientFundsException when the server reports one,
+     * or to a generic bad request otherwise. The body is read into memory first, as the
+     * generic error quotes it.
+     */
+    Exception toBadRequest(InputStream responseBody) throws Exception {
+        byte[] body = readSmallBody(responseBody);
+        RestMessages.ErrorResponse errorResponse = errorResponseReader.readValue(body);
+        
+        // Check if it's an insufficient funds error
+        if ("Insufficient funds".equals(errorResponse.getError())
+                && errorResponse.getRequestedAmount() != null && errorResponse.getAvailableBalance() != null) {
+            return new InsufficientFundsException(errorResponse.getRequestedAmount(),
+                    errorResponse.getAvailableBalance());
+        }
+        return new Exception("Bad request: " + (objectMapper.getFactory().canHandleBinaryNatively()
+                ? objectMapper.readTree(body).toString() : new String(body, StandardCharsets.UTF_8)));
+    }
+    
+    /**
+     * Read a body expected to be a few hundred bytes at most; InputStream.readAllBytes
+     * would allocate an 8 KB buffer for it.
+     */
+    private static byte[] readSmallBody(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+        byte[] chunk = new byte[256];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            body.write(chunk, 0, read);
+        }
+        return body.toByteArray();
+    }
+}
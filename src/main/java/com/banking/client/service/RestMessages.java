@@ -0,0 +1,107 @@
+package com.banking.client.service;
+
+/**
+ * Request and response bodies of the REST API that have no model class of their own.
+ * They are encoded and decoded by the prebuilt readers and writers of {@link RestCodec}.
+ */
+final class RestMessages {
+    
+    private RestMessages() {
+    }
+    
+    /**
+     * Body of deposit and withdraw requests.
+     */
+    static class AmountRequest {
+        
+        private final double amount;
+        
+        AmountRequest(double amount) {
+            this.amount = amount;
+        }
+        
+        public double getAmount() {
+            return amount;
+        }
+    }
+    
+    /**
+     * Body of transfer requests.
+     */
+    static class TransferRequest {
+        
+        private final String destinationAccountNumber;
+        private final double amount;
+        
+        TransferRequest(String destinationAccountNumber, double amount) {
+            this.destinationAccountNumber = destinationAccountNumber;
+            this.amount = amount;
+        }
+        
+        public String getDestinationAccountNumber() {
+            return destinationAccountNumber;
+        }
+        
+        public double getAmount() {
+            return amount;
+        }
+    }
+    
+    /**
+     * Body of a successful transfer response.
+     */
+    static class TransferResponse {
+        
+        private boolean success;
+        
+        // Default constructor for JSON deserialization
+        TransferResponse() {
+        }
+        
+        public boolean isSuccess() {
+            return success;
+        }
+        
+        public void setSuccess(boolean success) {
+            this.success = success;
+        }
+    }
+    
+    /**
+     * Body of a 400 response. Only insufficient-funds errors carry the amounts.
+     */
+    static class ErrorResponse {
+        
+        private String error;
+        private Double requestedAmount;
+        private Double availableBalance;
+        
+        // Default constructor for JSON deserialization
+        ErrorResponse() {
+        }
+        
+        public String getError() {
+            return error;
+        }
+        
+        public void setError(String error) {
+            this.error = error;
+        }
+        
+        public Double getRequestedAmount() {
+            return requestedAmount;
+        }
+        
+        public void setRequestedAmount(Double requestedAmount) {
+            this.requestedAmount = requestedAmount;
+        }
+        
+        public Double getAvailableBalance() {
+            return availableBalance;
+        }
+        
+        public void setAvailableBalance(Double availableBalance) {
+            this.availableBalance = availableBalance;
+        }
+    }
+}
@@ -1,16 +1,32 @@
 package com.banking.client.service;
 
 import com.banking.client.model.Account;
+import com.banking.client.model.AccountUpdate;
+import com.banking.client.model.BankingOperation;
 import com.banking.client.model.InsufficientFundsException;
+import com.banking.client.model.OperationResult;
 import com.banking.client.model.Transaction;
+import com.banking.client.model.TransactionDelta;
+import com.banking.client.model.TransactionPage;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.rmi.ConnectException;
+import java.rmi.ConnectIOException;
+import java.rmi.NoSuchObjectException;
+import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.rmi.UnmarshalException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * RMI implementation of the BankingService.
@@ -33,13 +49,51 @@ public class RmiBankingService implements BankingService {
         double withdraw(double amount) throws RemoteException, com.banking.client.model.InsufficientFundsException;
         boolean transfer(RemoteAccount destinationAccount, double amount) throws RemoteException, com.banking.client.model.InsufficientFundsException;
         List<Transaction> getTransactionHistory() throws RemoteException;
+        TransactionPage getTransactionHistory(String cursor, int limit) throws RemoteException;
+        TransactionDelta getTransactionsSince(String lastTransactionId) throws RemoteException;
     }
     
     private interface AccountRegistry {
         RemoteAccount getAccount(String accountNumber) throws RemoteException;
         RemoteAccount createAccount(String accountNumber, String accountHolderName, double initialBalance) throws RemoteException;
+        // Coarse-grained read: number, holder and balance in one round trip
+        Account getAccountSnapshot(String accountNumber) throws RemoteException;
+        // Runs the operations in one round trip, in order per account, one result per operation
+        List<OperationResult> executeBatch(List<BankingOperation> operations) throws RemoteException;
+        // Push updates to a client callback, starting after the given transaction (null for new ones only)
+        void addAccountListener(String accountNumber, RemoteAccountListener listener, String lastTransactionId) throws RemoteException;
+        // Lease renewal; false if the server no longer holds the listener
+        boolean renewAccountListener(String accountNumber, RemoteAccountListener listener) throws RemoteException;
+        void removeAccountListener(String accountNumber, RemoteAccountListener listener) throws RemoteException;
     }
     
+    /**
+     * Callback exported by the client and invoked by the server for each account update.
+     */
+    private interface RemoteAccountListener extends Remote {
+        void accountUpdated(AccountUpdate update) throws RemoteException;
+    }
+    
+    /**
+     * A remote operation against cached stubs.
+     */
+    private interface RemoteCall<T> {
+        T call() throws Exception;
+    }
+    
+    private static final int MAX_CACHED_ACCOUNTS = 1000;
+    
+    // Stubs are cached so each operation does not start with a registry lookup;
+    // they are dropped when the server reports them stale or unreachable, and the
+    // least recently used accounts are dropped beyond MAX_CACHED_ACCOUNTS
+    private volatile AccountRegistry accountRegistry;
+    private final Map<String, RemoteAccount> accountStubs = leastRecentlyUsed(MAX_CACHED_ACCOUNTS);
+    private final Map<String, String> accountHolderNames = leastRecentlyUsed(MAX_CACHED_ACCOUNTS);
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    // Cleared when the server turns out not to implement the coarse-grained read or the batched call
+    private volatile boolean snapshotSupported = true;
+    private volatile boolean batchSupported = true;
+    
     public RmiBankingService(String host, int port) {
         this.host = host;
         this.port = port;
@@ -51,56 +105,163 @@ public class RmiBankingService implements BankingService {
         }
     }
     
+    private static <V> Map<String, V> leastRecentlyUsed(int maxEntries) {
+        // Access-ordered, so the eldest entry is the least recently used one
+        return Collections.synchronizedMap(new LinkedHashMap<String, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+    
     private AccountRegistry getAccountRegistry() throws Exception {
+        AccountRegistry cached = accountRegistry;
+        if (cached != null) {
+            return cached;
+        }
+        
         try {
-            return (AccountRegistry) registry.lookup("AccountRegistry");
+            cached = (AccountRegistry) registry.lookup("AccountRegistry");
+            accountRegistry = cached;
+            return cached;
         } catch (Exception e) {
             logger.error("Failed to locate AccountRegistry: {}", e.getMessage(), e);
-            throw new Exception("Failed to connect to banking service: " + e.getMessage());
+            throw new Exception("Failed to connect to banking service: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Get the remote stub for an account, looking it up only on first use.
+     * 
+     * @return the stub, or null if the account does not exist
+     */
+    private RemoteAccount getRemoteAccount(String accountNumber) throws Exception {
+        RemoteAccount remoteAccount = accountStubs.get(accountNumber);
+        if (remoteAccount == null) {
+            remoteAccount = getAccountRegistry().getAccount(accountNumber);
+            if (remoteAccount != null) {
+                accountStubs.put(accountNumber, remoteAccount);
+            }
+        }
+        return remoteAccount;
+    }
+    
+    private String getAccountHolderName(String accountNumber, RemoteAccount remoteAccount) throws RemoteException {
+        String holderName = accountHolderNames.get(accountNumber);
+        if (holderName == null) {
+            holderName = remoteAccount.getAccountHolderName();
+            accountHolderNames.put(accountNumber, holderName);
+        }
+        return holderName;
+    }
+    
+    /**
+     * Run a remote call, retrying once with fresh stubs if a cached stub turns out to be
+     * stale (the remote object was unexported) or its endpoint is unreachable.
+     */
+    private <T> T withStubs(RemoteCall<T> call) throws Exception {
+        try {
+            return call.call();
+        } catch (NoSuchObjectException | ConnectException | ConnectIOException e) {
+            logger.warn("Cached RMI stubs are stale, looking them up again: {}", e.getMessage());
+            invalidateStubs();
+            return call.call();
         }
     }
     
+    /**
+     * Whether a call failed because the server does not implement the method, as happens
+     * with a server built against an older version of the remote interface.
+     */
+    private static boolean isUnrecognizedMethod(RemoteException e) {
+        return e instanceof UnmarshalException && e.getMessage() != null
+                && e.getMessage().contains("unrecognized method hash");
+    }
+    
+    private void invalidateStubs() {
+        accountRegistry = null;
+        accountStubs.clear();
+    }
+    
+    private Account toAccount(String accountNumber, String accountHolderName, double balance) {
+        Account account = new Account();
+        account.setAccountNumber(accountNumber);
+        account.setAccountHolderName(accountHolderName);
+        account.setBalance(balance);
+        return account;
+    }
+    
     @Override
     public Account createAccount(String accountNumber, String accountHolderName, double initialBalance) throws Exception {
         logger.info("Creating account via RMI: {}", accountNumber);
         
         try {
-            RemoteAccount remoteAccount = getAccountRegistry().createAccount(accountNumber, accountHolderName, initialBalance);
+            RemoteAccount remoteAccount = withStubs(() ->
+                    getAccountRegistry().createAccount(accountNumber, accountHolderName, initialBalance));
             
             if (remoteAccount != null) {
-                Account account = new Account();
-                account.setAccountNumber(remoteAccount.getAccountNumber());
-                account.setAccountHolderName(remoteAccount.getAccountHolderName());
-                account.setBalance(remoteAccount.getBalance());
-                return account;
+                accountStubs.put(accountNumber, remoteAccount);
+                accountHolderNames.put(accountNumber, accountHolderName);
+                return toAccount(accountNumber, accountHolderName, initialBalance);
             } else {
                 throw new Exception("Failed to create account");
             }
         } catch (RemoteException e) {
             logger.error("RMI error during account creation: {}", e.getMessage(), e);
-            throw new Exception("Failed to create account: " + e.getMessage());
+            throw new Exception("Failed to create account: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * Reads the account in one remote call. A server too old to know that call gets the
+     * account stub's getters instead.
+     */
     @Override
     public Account getAccount(String accountNumber) throws Exception {
         logger.info("Getting account via RMI: {}", accountNumber);
         
         try {
-            RemoteAccount remoteAccount = getAccountRegistry().getAccount(accountNumber);
+            Account account = null;
+            if (snapshotSupported) {
+                account = getAccountSnapshot(accountNumber);
+            }
+            // Checked again, as the snapshot call may have just found it missing
+            if (!snapshotSupported) {
+                account = withStubs(() -> {
+                    RemoteAccount remoteAccount = getRemoteAccount(accountNumber);
+                    return remoteAccount != null
+                            ? toAccount(accountNumber, getAccountHolderName(accountNumber, remoteAccount),
+                                    remoteAccount.getBalance())
+                            : null;
+                });
+            }
             
-            if (remoteAccount != null) {
-                Account account = new Account();
-                account.setAccountNumber(remoteAccount.getAccountNumber());
-                account.setAccountHolderName(remoteAccount.getAccountHolderName());
-                account.setBalance(remoteAccount.getBalance());
+            if (account != null) {
+                accountHolderNames.put(accountNumber, account.getAccountHolderName());
                 return account;
             } else {
                 throw new Exception("Account not found: " + accountNumber);
             }
         } catch (RemoteException e) {
             logger.error("RMI error while getting account: {}", e.getMessage(), e);
-            throw new Exception("Failed to get account: " + e.getMessage());
+            throw new Exception("Failed to get account: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * @return the account, or null if it does not exist or the server does not support the call
+     */
+    private Account getAccountSnapshot(String accountNumber) throws Exception {
+        try {
+            return withStubs(() -> getAccountRegistry().getAccountSnapshot(accountNumber));
+        } catch (RemoteException e) {
+            if (!isUnrecognizedMethod(e)) {
+                throw e;
+            }
+            logger.warn("RMI server does not support account snapshots, reading accounts through their stubs");
+            snapshotSupported = false;
+            return null;
         }
     }
     
@@ -116,22 +277,19 @@ public class RmiBankingService implements BankingService {
         logger.info("Depositing {} to account {} via RMI", amount, accountNumber);
         
         try {
-            RemoteAccount remoteAccount = getAccountRegistry().getAccount(accountNumber);
-            
-            if (remoteAccount != null) {
-                double newBalance = remoteAccount.deposit(amount);
+            return withStubs(() -> {
+                RemoteAccount remoteAccount = getRemoteAccount(accountNumber);
                 
-                Account account = new Account();
-                account.setAccountNumber(remoteAccount.getAccountNumber());
-                account.setAccountHolderName(remoteAccount.getAccountHolderName());
-                account.setBalance(newBalance);
-                return account;
-            } else {
-                throw new Exception("Account not found: " + accountNumber);
-            }
+                if (remoteAccount != null) {
+                    double newBalance = remoteAccount.deposit(amount);
+                    return toAccount(accountNumber, getAccountHolderName(accountNumber, remoteAccount), newBalance);
+                } else {
+                    throw new Exception("Account not found: " + accountNumber);
+                }
+            });
         } catch (RemoteException e) {
             logger.error("RMI error during deposit: {}", e.getMessage(), e);
-            throw new Exception("Failed to deposit: " + e.getMessage());
+            throw new Exception("Failed to deposit: " + e.getMessage(), e);
         }
     }
     
@@ -140,24 +298,21 @@ public class RmiBankingService implements BankingService {
         logger.info("Withdrawing {} from account {} via RMI", amount, accountNumber);
         
         try {
-            RemoteAccount remoteAccount = getAccountRegistry().getAccount(accountNumber);
-            
-            if (remoteAccount != null) {
-                double newBalance = remoteAccount.withdraw(amount);
+            return withStubs(() -> {
+                RemoteAccount remoteAccount = getRemoteAccount(accountNumber);
                 
-                Account account = new Account();
-                account.setAccountNumber(remoteAccount.getAccountNumber());
-                account.setAccountHolderName(remoteAccount.getAccountHolderName());
-                account.setBalance(newBalance);
-                return account;
-            } else {
-                throw new Exception("Account not found: " + accountNumber);
-            }
+                if (remoteAccount != null) {
+                    double newBalance = remoteAccount.withdraw(amount);
+                    return toAccount(accountNumber, getAccountHolderName(accountNumber, remoteAccount), newBalance);
+                } else {
+                    throw new Exception("Account not found: " + accountNumber);
+                }
+            });
         } catch (com.banking.client.model.InsufficientFundsException e) {
             throw new InsufficientFundsException(e.getRequestedAmount(), e.getAvailableBalance());
         } catch (RemoteException e) {
             logger.error("RMI error during withdrawal: {}", e.getMessage(), e);
-            throw new Exception("Failed to withdraw: " + e.getMessage());
+            throw new Exception("Failed to withdraw: " + e.getMessage(), e);
         }
     }
     
@@ -168,41 +323,209 @@ public class RmiBankingService implements BankingService {
                 amount, sourceAccountNumber, destinationAccountNumber);
         
         try {
-            RemoteAccount sourceAccount = getAccountRegistry().getAccount(sourceAccountNumber);
-            RemoteAccount destinationAccount = getAccountRegistry().getAccount(destinationAccountNumber);
-            
-            if (sourceAccount == null) {
-                throw new Exception("Source account not found: " + sourceAccountNumber);
-            }
-            
-            if (destinationAccount == null) {
-                throw new Exception("Destination account not found: " + destinationAccountNumber);
-            }
-            
-            return sourceAccount.transfer(destinationAccount, amount);
+            return withStubs(() -> {
+                RemoteAccount sourceAccount = getRemoteAccount(sourceAccountNumber);
+                RemoteAccount destinationAccount = getRemoteAccount(destinationAccountNumber);
+                
+                if (sourceAccount == null) {
+                    throw new Exception("Source account not found: " + sourceAccountNumber);
+                }
+                
+                if (destinationAccount == null) {
+                    throw new Exception("Destination account not found: " + destinationAccountNumber);
+                }
+                
+                return sourceAccount.transfer(destinationAccount, amount);
+            });
         } catch (com.banking.client.model.InsufficientFundsException e) {
             throw new InsufficientFundsException(e.getRequestedAmount(), e.getAvailableBalance());
         } catch (RemoteException e) {
             logger.error("RMI error during transfer: {}", e.getMessage(), e);
-            throw new Exception("Failed to transfer: " + e.getMessage());
+            throw new Exception("Failed to transfer: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * Sends the whole batch in one remote call. A server too old to know the batched
+     * call gets the operations one call at a time instead. If the batched call fails,
+     * every operation is reported as failed, since the server may have run any of them.
+     */
+    @Override
+    public List<OperationResult> executeBatch(List<BankingOperation> operations) throws Exception {
+        logger.info("Executing batch of {} operations via RMI", operations.size());
+        
+        if (batchSupported) {
+            try {
+                return withStubs(() -> getAccountRegistry().executeBatch(operations));
+            } catch (RemoteException e) {
+                if (!isUnrecognizedMethod(e)) {
+                    logger.error("RMI error during batch: {}", e.getMessage(), e);
+                    return failedBatch(operations, "Failed to execute batch: " + e.getMessage());
+                }
+                logger.warn("RMI server does not support batches, sending operations individually");
+                batchSupported = false;
+            } catch (Exception e) {
+                return failedBatch(operations, e.getMessage());
+            }
+        }
+        return BankingService.super.executeBatch(operations);
+    }
+    
+    private static List<OperationResult> failedBatch(List<BankingOperation> operations, String message) {
+        List<OperationResult> results = new ArrayList<>(operations.size());
+        for (BankingOperation operation : operations) {
+            results.add(OperationResult.failed(operation.getOperationId(), message));
+        }
+        return results;
+    }
+    
     @Override
     public List<Transaction> getTransactionHistory(String accountNumber) throws Exception {
         logger.info("Getting transaction history for account {} via RMI", accountNumber);
         
         try {
-            RemoteAccount remoteAccount = getAccountRegistry().getAccount(accountNumber);
-            
-            if (remoteAccount != null) {
-                return remoteAccount.getTransactionHistory();
-            } else {
-                throw new Exception("Account not found: " + accountNumber);
-            }
+            return withStubs(() -> {
+                RemoteAccount remoteAccount = getRemoteAccount(accountNumber);
+                
+                if (remoteAccount != null) {
+                    return remoteAccount.getTransactionHistory();
+                } else {
+                    throw new Exception("Account not found: " + accountNumber);
+                }
+            });
         } catch (RemoteException e) {
             logger.error("RMI error while getting transaction history: {}", e.getMessage(), e);
-            throw new Exception("Failed to get transaction history: " + e.getMessage());
+            throw new Exception("Failed to get transaction history: " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public TransactionPage getTransactionHistory(String accountNumber, String cursor, int limit) throws Exception {
+        logger.info("Getting transaction history page for account {} via RMI (cursor {}, limit {})",
+                accountNumber, cursor, limit);
+        
+        try {
+            return withStubs(() -> {
+                RemoteAccount remoteAccount = getRemoteAccount(accountNumber);
+                
+                if (remoteAccount != null) {
+                    return remoteAccount.getTransactionHistory(cursor, limit);
+                } else {
+                    throw new Exception("Account not found: " + accountNumber);
+                }
+            });
+        } catch (RemoteException e) {
+            logger.error("RMI error while getting transaction history page: {}", e.getMessage(), e);
+            throw new Exception("Failed to get transaction history: " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public TransactionDelta getTransactionsSince(String accountNumber, String lastTransactionId) throws Exception {
+        logger.info("Getting transactions for account {} since {} via RMI", accountNumber, lastTransactionId);
+        
+        try {
+            return withStubs(() -> {
+                RemoteAccount remoteAccount = getRemoteAccount(accountNumber);
+                
+                if (remoteAccount != null) {
+                    return remoteAccount.getTransactionsSince(lastTransactionId);
+                } else {
+                    throw new Exception("Account not found: " + accountNumber);
+                }
+            });
+        } catch (RemoteException e) {
+            logger.error("RMI error while getting transactions since {}: {}", lastTransactionId, e.getMessage(), e);
+            throw new Exception("Failed to get transaction history: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Subscribes through a remote callback registered with the AccountRegistry.
+     * The registration is renewed periodically as a lease; a failed renewal means the
+     * server or the connection went away, and the subscription registers again.
+     */
+    @Override
+    public Subscription subscribe(String accountNumber, AccountUpdateListener listener) {
+        logger.info("Subscribing to updates for account {} via RMI", accountNumber);
+        
+        subscriptions.removeIf(Subscription::isCancelled);
+        RmiAccountSubscription subscription = new RmiAccountSubscription(accountNumber, listener);
+        subscriptions.add(subscription);
+        subscription.start();
+        return subscription;
+    }
+    
+    @Override
+    public void close() {
+        subscriptions.forEach(Subscription::cancel);
+    }
+    
+    private class RmiAccountSubscription extends ReconnectingSubscription implements RemoteAccountListener {
+        
+        private static final long LEASE_RENEWAL_MILLIS = 15000;
+        private RemoteAccountListener callbackStub;
+        
+        RmiAccountSubscription(String accountNumber, AccountUpdateListener listener) {
+            super(accountNumber, listener, "rmi-account-updates");
+        }
+        
+        @Override
+        public void accountUpdated(AccountUpdate update) {
+            publish(update);
+        }
+        
+        @Override
+        protected void runSession(String lastTransactionId) throws Exception {
+            RemoteAccountListener stub = exportCallback();
+            withStubs(() -> {
+                getAccountRegistry().addAccountListener(accountNumber, stub, lastTransactionId);
+                return null;
+            });
+            connected();
+            
+            try {
+                while (!isCancelled()) {
+                    Thread.sleep(LEASE_RENEWAL_MILLIS);
+                    if (!getAccountRegistry().renewAccountListener(accountNumber, stub)) {
+                        throw new Exception("Server dropped the listener for account " + accountNumber);
+                    }
+                }
+            } catch (NoSuchObjectException | ConnectException | ConnectIOException e) {
+                invalidateStubs();
+                throw e;
+            } finally {
+                if (isCancelled()) {
+                    unregister(stub);
+                }
+            }
+        }
+        
+        private synchronized RemoteAccountListener exportCallback() throws RemoteException {
+            if (callbackStub == null) {
+                callbackStub = (RemoteAccountListener) UnicastRemoteObject.exportObject(this, 0);
+            }
+            return callbackStub;
+        }
+        
+        private void unregister(RemoteAccountListener stub) {
+            try {
+                getAccountRegistry().removeAccountListener(accountNumber, stub);
+            } catch (Exception e) {
+                logger.debug("Could not remove listener for account {}: {}", accountNumber, e.getMessage());
+            }
+        }
+        
+        @Override
+        protected synchronized void abortSession() {
+            if (callbackStub != null) {
+                try {
+                    UnicastRemoteObject.unexportObject(this, true);
+                } catch (NoSuchObjectException e) {
+                    logger.debug("Listener for account {} was already unexported", accountNumber);
+                }
+                callbackStub = null;
+            }
         }
     }
-}
+}
\ No newline at end of file
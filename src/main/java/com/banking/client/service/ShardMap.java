@@ -0,0 +1,273 @@
+package com.banking.client.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable mapping of account numbers to the backend shards that own them.
+ * Accounts are assigned either by a range table, where each shard owns the account
+ * numbers from its lower bound up to the next shard's, or by consistent hashing over a
+ * ring of virtual nodes, so adding or removing a shard only moves the accounts of the
+ * neighbouring ring segments. Range bounds compare numerically when both account
+ * numbers are all digits, and as strings otherwise.
+ * <p>
+ * A map is read from properties:
+ * <pre>
+ * # RANGE or HASH
+ * shard.strategy=RANGE
+ * # Several comma-separated URLs are load-balanced
+ * shard.east.url=http://east:8080
+ * # RANGE: lowest account number of the shard, empty for no lower bound
+ * shard.east.from=
+ * shard.west.url=http://west:8080
+ * shard.west.from=500000
+ * # HASH: ring positions per shard
+ * shard.hash.virtual.nodes=128
+ * </pre>
+ */
+public class ShardMap {
+    
+    /**
+     * How account numbers are assigned to shards.
+     */
+    public enum Strategy {
+        RANGE,
+        HASH
+    }
+    
+    private static final Pattern SHARD_URL = Pattern.compile("shard\\.([^.]+)\\.url");
+    private static final int DEFAULT_VIRTUAL_NODES = 128;
+    
+    /**
+     * Orders account numbers numerically when both are all digits, as strings otherwise.
+     */
+    static final Comparator<String> ACCOUNT_ORDER = (a, b) -> {
+        if (isDigits(a) && isDigits(b)) {
+            String x = stripLeadingZeros(a);
+            String y = stripLeadingZeros(b);
+            return x.length() != y.length() ? Integer.compare(x.length(), y.length()) : x.compareTo(y);
+        }
+        return a.compareTo(b);
+    };
+    
+    private final Strategy strategy;
+    private final Map<String, String> shardUrls;
+    // RANGE: lower bounds in ascending order and the shard owning each range
+    private final String[] lowerBounds;
+    private final String[] rangeShards;
+    // HASH: ring positions in ascending order and the shard at each position
+    private final long[] ringPositions;
+    private final String[] ringShards;
+    
+    private ShardMap(Strategy strategy, Map<String, String> shardUrls, String[] lowerBounds, String[] rangeShards,
+                     long[] ringPositions, String[] ringShards) {
+        this.strategy = strategy;
+        this.shardUrls = Collections.unmodifiableMap(shardUrls);
+        this.lowerBounds = lowerBounds;
+        this.rangeShards = rangeShards;
+        this.ringPositions = ringPositions;
+        this.ringShards = ringShards;
+    }
+    
+    /**
+     * Read a shard map from a properties file.
+     *
+     * @throws IOException If the file cannot be read
+     * @throws IllegalArgumentException If the file does not describe a valid map
+     */
+    public static ShardMap load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream input = Files.newInputStream(file)) {
+            properties.load(input);
+        }
+        return fromProperties(properties);
+    }
+    
+    /**
+     * Build a shard map from properties in the format described on this class.
+     *
+     * @throws IllegalArgumentException If the properties do not describe a valid map
+     */
+    public static ShardMap fromProperties(Properties properties) {
+        Map<String, String> shardUrls = new LinkedHashMap<>();
+        for (String name : new TreeSet<>(properties.stringPropertyNames())) {
+            Matcher matcher = SHARD_URL.matcher(name);
+            if (matcher.matches()) {
+                String url = properties.getProperty(name).trim();
+                if (url.isEmpty()) {
+                    throw new IllegalArgumentException("No URL for shard " + matcher.group(1));
+                }
+                shardUrls.put(matcher.group(1), url);
+            }
+        }
+        if (shardUrls.isEmpty()) {
+            throw new IllegalArgumentException("The shard map defines no shards");
+        }
+        
+        Strategy strategy = Strategy.valueOf(properties.getProperty("shard.strategy", Strategy.RANGE.name())
+                .trim().toUpperCase(Locale.ROOT));
+        if (strategy == Strategy.RANGE) {
+            return range(shardUrls, properties);
+        }
+        int virtualNodes = Integer.parseInt(properties.getProperty("shard.hash.virtual.nodes",
+                String.valueOf(DEFAULT_VIRTUAL_NODES)).trim());
+        return hash(shardUrls, virtualNodes);
+    }
+    
+    private static ShardMap range(Map<String, String> shardUrls, Properties properties) {
+        List<String[]> ranges = new ArrayList<>();
+        for (String shard : shardUrls.keySet()) {
+            String from = properties.getProperty("shard." + shard + ".from");
+            if (from == null) {
+                throw new IllegalArgumentException("No lower bound (shard." + shard + ".from) for shard " + shard);
+            }
+            ranges.add(new String[] {from.trim(), shard});
+        }
+        ranges.sort((a, b) -> ACCOUNT_ORDER.compare(a[0], b[0]));
+        
+        String[] lowerBounds = new String[ranges.size()];
+        String[] rangeShards = new String[ranges.size()];
+        for (int i = 0; i < ranges.size(); i++) {
+            lowerBounds[i] = ranges.get(i)[0];
+            rangeShards[i] = ranges.get(i)[1];
+            if (i > 0 && ACCOUNT_ORDER.compare(lowerBounds[i - 1], lowerBounds[i]) == 0) {
+                throw new IllegalArgumentException("Shards " + rangeShards[i - 1] + " and " + rangeShards[i]
+                        + " have the same lower bound '" + lowerBounds[i] + "'");
+            }
+        }
+        return new ShardMap(Strategy.RANGE, shardUrls, lowerBounds, rangeShards, null, null);
+    }
+    
+    private static ShardMap hash(Map<String, String> shardUrls, int virtualNodes) {
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("shard.hash.virtual.nodes must be at least 1");
+        }
+        int size = shardUrls.size() * virtualNodes;
+        long[] positions = new long[size];
+        String[] shards = new String[size];
+        Integer[] order = new Integer[size];
+        int i = 0;
+        for (String shard : shardUrls.keySet()) {
+            for (int node = 0; node < virtualNodes; node++) {
+                positions[i] = hash(shard + "#" + node);
+                shards[i] = shard;
+                order[i] = i;
+                i++;
+            }
+        }
+        Arrays.sort(order, Comparator.comparingLong((Integer index) -> positions[index])
+                .thenComparing(index -> shards[index]));
+        
+        long[] ringPositions = new long[size];
+        String[] ringShards = new String[size];
+        for (int j = 0; j < size; j++) {
+            ringPositions[j] = positions[order[j]];
+            ringShards[j] = shards[order[j]];
+        }
+        return new ShardMap(Strategy.HASH, shardUrls, null, null, ringPositions, ringShards);
+    }
+    
+    /**
+     * Name of the shard that owns an account.
+     */
+    public String shardFor(String accountNumber) {
+        if (strategy == Strategy.RANGE) {
+            // Last range starting at or below the account; accounts below every bound go to the first range
+            int low = 0;
+            int high = lowerBounds.length - 1;
+            int owner = 0;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (ACCOUNT_ORDER.compare(lowerBounds[middle], accountNumber) <= 0) {
+                    owner = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return rangeShards[owner];
+        }
+        
+        // First virtual node at or after the account's position, wrapping around the ring
+        long position = hash(accountNumber);
+        int index = Arrays.binarySearch(ringPositions, position);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return ringShards[index == ringPositions.length ? 0 : index];
+    }
+    
+    public Strategy getStrategy() {
+        return strategy;
+    }
+    
+    /**
+     * Base URL specification of each shard by name; a specification may list several
+     * comma-separated replica URLs.
+     */
+    public Map<String, String> getShardUrls() {
+        return shardUrls;
+    }
+    
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer so that
+     * similar account numbers land far apart on the ring.
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+    
+    private static boolean isDigits(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static String stripLeadingZeros(String digits) {
+        int start = 0;
+        while (start < digits.length() - 1 && digits.charAt(start) == '0') {
+            start++;
+        }
+        return digits.substring(start);
+    }
+    
+    @Override
+    public String toString() {
+        return "ShardMap{" +
+                "strategy=" + strategy +
+                ", shardUrls=" + shardUrls +
+                (strategy == Strategy.RANGE ? ", lowerBounds=" + Arrays.toString(lowerBounds) : "") +
+                '}';
+    }
+}
@@ -0,0 +1,418 @@
+package com.banking.client.service;
+
+import com.banking.client.model.Account;
+import com.banking.client.model.BankingOperation;
+import com.banking.client.model.InsufficientFundsException;
+import com.banking.client.model.OperationResult;
+import com.banking.client.model.Transaction;
+import com.banking.client.model.TransactionDelta;
+import com.banking.client.model.TransactionPage;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Routes each call to the backend shard that owns its account, as given by a
+ * {@link ShardMap}, so requests do not take an extra hop through a forwarding node.
+ * A transfer goes to the shard of the source account, which owns the debit and the
+ * funds check and settles the credit with the destination's shard itself; the client
+ * never splits a transfer into separate withdraw and deposit calls, which could leave
+ * money debited but not credited. {@link #getAllAccounts()} asks every shard in
+ * parallel and merges the results.
+ * <p>
+ * The map can be replaced at runtime. Calls already running finish on the shards they
+ * started on; the transports of shards that were removed or moved to a new URL are
+ * closed once those calls have completed, which also ends subscriptions opened on them.
+ */
+public class ShardedBankingService implements BankingService {
+    
+    private static final Logger logger = LogManager.getLogger(ShardedBankingService.class);
+    
+    private final Function<String, BankingService> transportFactory;
+    private final AtomicReference<Routing> routing = new AtomicReference<>();
+    private final ExecutorService fanOutExecutor;
+    private ScheduledExecutorService watcher;
+    
+    /**
+     * @param shardMap The initial shard map
+     * @param transportFactory Creates the transport for a shard's URL specification
+     */
+    public ShardedBankingService(ShardMap shardMap, Function<String, BankingService> transportFactory) {
+        this.transportFactory = transportFactory;
+        this.routing.set(new Routing(shardMap, createServices(shardMap, new HashMap<>())));
+        AtomicInteger threadCount = new AtomicInteger();
+        this.fanOutExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "shard-fan-out-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("Routing calls by {}", shardMap);
+    }
+    
+    /**
+     * Switch to a new shard map. New calls are routed by it straight away; transports
+     * the new map still uses are kept, along with their connections.
+     */
+    public synchronized void reload(ShardMap shardMap) {
+        Routing previous = routing.get();
+        Map<String, BankingService> byUrl = new HashMap<>();
+        previous.services.forEach((shard, service) -> byUrl.put(previous.shardMap.getShardUrls().get(shard), service));
+        
+        Routing next = new Routing(shardMap, createServices(shardMap, byUrl));
+        routing.set(next);
+        
+        Set<BankingService> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        kept.addAll(next.services.values());
+        for (BankingService service : previous.services.values()) {
+            if (!kept.contains(service)) {
+                previous.retiredServices.add(service);
+            }
+        }
+        previous.retire();
+        logger.info("Reloaded shard map: {}", shardMap);
+    }
+    
+    /**
+     * Poll a shard map file and reload the map whenever the file changes. A file that
+     * cannot be read or parsed is logged and the current map kept.
+     */
+    public synchronized void watch(Path file, long intervalMillis) {
+        if (watcher != null) {
+            throw new IllegalStateException("Already watching a shard map file");
+        }
+        watcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shard-map-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicReference<FileTime> lastModified = new AtomicReference<>();
+        try {
+            lastModified.set(Files.getLastModifiedTime(file));
+        } catch (Exception e) {
+            logger.warn("Cannot read shard map file {}: {}", file, e.getMessage());
+        }
+        watcher.scheduleWithFixedDelay(() -> {
+            try {
+                FileTime modified = Files.getLastModifiedTime(file);
+                if (!modified.equals(lastModified.get())) {
+                    lastModified.set(modified);
+                    reload(ShardMap.load(file));
+                }
+            } catch (Exception e) {
+                logger.error("Failed to reload shard map from {}: {}", file, e.getMessage(), e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        logger.info("Watching shard map file {} every {} ms", file, intervalMillis);
+    }
+    
+    public ShardMap getShardMap() {
+        return routing.get().shardMap;
+    }
+    
+    private Map<String, BankingService> createServices(ShardMap shardMap, Map<String, BankingService> existing) {
+        Map<String, BankingService> services = new LinkedHashMap<>();
+        for (Map.Entry<String, String> shard : shardMap.getShardUrls().entrySet()) {
+            BankingService service = existing.get(shard.getValue());
+            if (service == null) {
+                service = transportFactory.apply(shard.getValue());
+                existing.put(shard.getValue(), service);
+            }
+            services.put(shard.getKey(), service);
+        }
+        return services;
+    }
+    
+    /**
+     * A call made against the shard that owns its account.
+     */
+    private interface Call<T> {
+        T call(BankingService service) throws Exception;
+    }
+    
+    private <T> T route(String accountNumber, Call<T> call) throws Exception {
+        Routing current = acquire();
+        try {
+            return call.call(current.serviceFor(accountNumber));
+        } finally {
+            current.release();
+        }
+    }
+    
+    /**
+     * The current routing, held until released so its transports stay open.
+     */
+    private Routing acquire() {
+        while (true) {
+            Routing current = routing.get();
+            current.inFlight.incrementAndGet();
+            if (routing.get() == current) {
+                return current;
+            }
+            // Reloaded in between; the retired routing may already be closing
+            current.release();
+        }
+    }
+    
+    @Override
+    public Account createAccount(String accountNumber, String accountHolderName, double initialBalance) throws Exception {
+        return route(accountNumber, service -> service.createAccount(accountNumber, accountHolderName, initialBalance));
+    }
+    
+    @Override
+    public Account getAccount(String accountNumber) throws Exception {
+        return route(accountNumber, service -> service.getAccount(accountNumber));
+    }
+    
+    @Override
+    public ConditionalResult<Account> getAccountIfModified(String accountNumber,
+                                                          ConditionalResult<Account> previous) throws Exception {
+        return route(accountNumber, service -> service.getAccountIfModified(accountNumber, previous));
+    }
+    
+    /**
+     * Fetch the accounts of every shard in parallel. Fails if any shard fails, rather
+     * than returning a list that silently lacks a shard's accounts. An account listed by
+     * more than one shard, as can happen while accounts are moved, is returned once.
+     */
+    @Override
+    public List<Account> getAllAccounts() throws Exception {
+        Routing current = acquire();
+        try {
+            Map<String, Future<List<Account>>> results = new LinkedHashMap<>();
+            Set<BankingService> asked = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Map.Entry<String, BankingService> shard : current.services.entrySet()) {
+                BankingService service = shard.getValue();
+                if (asked.add(service)) {
+                    results.put(shard.getKey(), fanOutExecutor.submit(service::getAllAccounts));
+                }
+            }
+            
+            Map<String, Account> accounts = new LinkedHashMap<>();
+            for (Map.Entry<String, Future<List<Account>>> result : results.entrySet()) {
+                List<Account> shardAccounts;
+                try {
+                    shardAccounts = result.getValue().get();
+                } catch (ExecutionException e) {
+                    results.values().forEach(future -> future.cancel(true));
+                    throw new Exception("Failed to get accounts from shard " + result.getKey() + ": "
+                            + e.getCause().getMessage(), e.getCause());
+                }
+                for (Account account : shardAccounts) {
+                    accounts.putIfAbsent(account.getAccountNumber(), account);
+                }
+            }
+            return new ArrayList<>(accounts.values());
+        } finally {
+            current.release();
+        }
+    }
+    
+    @Override
+    public Account deposit(String accountNumber, double amount) throws Exception {
+        return route(accountNumber, service -> service.deposit(accountNumber, amount));
+    }
+    
+    @Override
+    public Account withdraw(String accountNumber, double amount) throws Exception, InsufficientFundsException {
+        return route(accountNumber, service -> service.withdraw(accountNumber, amount));
+    }
+    
+    /**
+     * Sent to the source account's shard, whether or not the destination lives on the
+     * same shard.
+     */
+    @Override
+    public boolean transfer(String sourceAccountNumber, String destinationAccountNumber, double amount)
+            throws Exception, InsufficientFundsException {
+        return route(sourceAccountNumber,
+                service -> service.transfer(sourceAccountNumber, destinationAccountNumber, amount));
+    }
+    
+    /**
+     * Splits the batch by the shard of each operation's account, transfers going with
+     * their source account, and sends every shard its part in parallel. Where a transfer
+     * links an account to operations that go to another shard, the batch is cut into
+     * stages that run one after another, so each account still sees its operations in
+     * batch order. A shard whose part fails has its operations reported as failed.
+     */
+    @Override
+    public List<OperationResult> executeBatch(List<BankingOperation> operations) throws Exception {
+        Routing current = acquire();
+        try {
+            OperationResult[] results = new OperationResult[operations.size()];
+            Map<String, List<Integer>> stage = new LinkedHashMap<>();
+            // Shard running each account's operations in the current stage
+            Map<String, String> stageShards = new HashMap<>();
+            for (int i = 0; i < operations.size(); i++) {
+                BankingOperation operation = operations.get(i);
+                String shard = current.shardMap.shardFor(operation.getAccountNumber());
+                for (String accountNumber : operation.touchedAccounts()) {
+                    String owner = stageShards.get(accountNumber);
+                    if (owner != null && !owner.equals(shard)) {
+                        runStage(current, operations, stage, results);
+                        stage.clear();
+                        stageShards.clear();
+                        break;
+                    }
+                }
+                stage.computeIfAbsent(shard, key -> new ArrayList<>()).add(i);
+                for (String accountNumber : operation.touchedAccounts()) {
+                    stageShards.put(accountNumber, shard);
+                }
+            }
+            runStage(current, operations, stage, results);
+            return Arrays.asList(results);
+        } finally {
+            current.release();
+        }
+    }
+    
+    /**
+     * Send each shard its operations of one stage in parallel and place the results at
+     * the operations' positions in the batch.
+     */
+    private void runStage(Routing current, List<BankingOperation> operations, Map<String, List<Integer>> stage,
+                          OperationResult[] results) throws InterruptedException {
+        Map<String, Future<List<OperationResult>>> shardResults = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Integer>> part : stage.entrySet()) {
+            List<BankingOperation> shardOperations = new ArrayList<>(part.getValue().size());
+            for (int index : part.getValue()) {
+                shardOperations.add(operations.get(index));
+            }
+            BankingService service = current.services.get(part.getKey());
+            shardResults.put(part.getKey(), fanOutExecutor.submit(() -> service.executeBatch(shardOperations)));
+        }
+        
+        for (Map.Entry<String, Future<List<OperationResult>>> shardResult : shardResults.entrySet()) {
+            List<Integer> indexes = stage.get(shardResult.getKey());
+            try {
+                List<OperationResult> partResults = shardResult.getValue().get();
+                for (int i = 0; i < indexes.size(); i++) {
+                    results[indexes.get(i)] = partResults.get(i);
+                }
+            } catch (InterruptedException e) {
+                shardResults.values().forEach(future -> future.cancel(true));
+                throw e;
+            } catch (ExecutionException e) {
+                logger.error("Batch failed on shard {}: {}", shardResult.getKey(), e.getCause().getMessage(), e.getCause());
+                for (int index : indexes) {
+                    results[index] = OperationResult.failed(operations.get(index).getOperationId(),
+                            "Failed to execute batch on shard " + shardResult.getKey() + ": "
+                                    + e.getCause().getMessage());
+                }
+            }
+        }
+    }
+    
+    @Override
+    public List<Transaction> getTransactionHistory(String accountNumber) throws Exception {
+        return route(accountNumber, service -> service.getTransactionHistory(accountNumber));
+    }
+    
+    @Override
+    public ConditionalResult<List<Transaction>> getTransactionHistoryIfModified(
+            String accountNumber, ConditionalResult<List<Transaction>> previous) throws Exception {
+        return route(accountNumber, service -> service.getTransactionHistoryIfModified(accountNumber, previous));
+    }
+    
+    @Override
+    public TransactionPage getTransactionHistory(String accountNumber, String cursor, int limit) throws Exception {
+        return route(accountNumber, service -> service.getTransactionHistory(accountNumber, cursor, limit));
+    }
+    
+    @Override
+    public TransactionDelta getTransactionsSince(String accountNumber, String lastTransactionId) throws Exception {
+        return route(accountNumber, service -> service.getTransactionsSince(accountNumber, lastTransactionId));
+    }
+    
+    @Override
+    public Flow.Publisher<Transaction> streamTransactionHistory(String accountNumber) {
+        return routing.get().serviceFor(accountNumber).streamTransactionHistory(accountNumber);
+    }
+    
+    @Override
+    public Subscription subscribe(String accountNumber, AccountUpdateListener listener) throws Exception {
+        return route(accountNumber, service -> service.subscribe(accountNumber, listener));
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+        }
+        fanOutExecutor.shutdownNow();
+        Set<BankingService> closed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (BankingService service : routing.get().services.values()) {
+            if (closed.add(service)) {
+                service.close();
+            }
+        }
+    }
+    
+    /**
+     * One shard map with its transports, and the calls currently using them.
+     */
+    private static class Routing {
+        private final ShardMap shardMap;
+        private final Map<String, BankingService> services;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final List<BankingService> retiredServices = new ArrayList<>();
+        private volatile boolean retired;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        
+        Routing(ShardMap shardMap, Map<String, BankingService> services) {
+            this.shardMap = shardMap;
+            this.services = services;
+        }
+        
+        BankingService serviceFor(String accountNumber) {
+            return services.get(shardMap.shardFor(accountNumber));
+        }
+        
+        void release() {
+            if (inFlight.decrementAndGet() == 0 && retired) {
+                closeRetired();
+            }
+        }
+        
+        /**
+         * Stop routing by this map; its dropped transports close once no call uses them.
+         */
+        void retire() {
+            retired = true;
+            if (inFlight.get() == 0) {
+                closeRetired();
+            }
+        }
+        
+        private void closeRetired() {
+            if (closed.compareAndSet(false, true) && !retiredServices.isEmpty()) {
+                logger.info("Closing {} transport(s) no longer in the shard map", retiredServices.size());
+                retiredServices.forEach(BankingService::close);
+            }
+        }
+    }
+}
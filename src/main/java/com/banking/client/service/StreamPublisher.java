@@ -0,0 +1,139 @@
+package com.banking.client.service;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cold {@link Flow.Publisher} over a blocking producer.
+ * Each subscription runs the producer once on the given executor. The producer hands
+ * items to a {@link Sink}, which blocks while the subscriber has no outstanding demand,
+ * so a slow subscriber stops the producer from reading further input.
+ */
+class StreamPublisher<T> implements Flow.Publisher<T> {
+    
+    /**
+     * Receives produced items on behalf of a subscriber.
+     */
+    interface Sink<T> {
+        /**
+         * Deliver an item, waiting for demand if necessary.
+         * 
+         * @return false if the subscription was cancelled and the producer should stop
+         */
+        boolean emit(T item) throws InterruptedException;
+        
+        /**
+         * Whether the subscriber has cancelled.
+         */
+        boolean isCancelled();
+    }
+    
+    /**
+     * Produces items into a sink until the source is exhausted or the sink is cancelled.
+     */
+    interface Producer<T> {
+        void produce(Sink<T> sink) throws Exception;
+    }
+    
+    private final Executor executor;
+    private final Producer<T> producer;
+    
+    StreamPublisher(Executor executor, Producer<T> producer) {
+        this.executor = executor;
+        this.producer = producer;
+    }
+    
+    /**
+     * Executor that runs each subscription on its own daemon thread.
+     */
+    static Executor threadPerSubscription(String name) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.start();
+        };
+    }
+    
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        StreamSubscription subscription = new StreamSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        executor.execute(subscription::run);
+    }
+    
+    private class StreamSubscription implements Flow.Subscription, Sink<T> {
+        
+        private final Flow.Subscriber<? super T> subscriber;
+        private long demand;
+        private boolean cancelled;
+        private Throwable requestError;
+        
+        StreamSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+        
+        @Override
+        public synchronized void request(long n) {
+            if (n <= 0) {
+                requestError = new IllegalArgumentException("Demand must be positive: " + n);
+                cancelled = true;
+            } else {
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            }
+            notifyAll();
+        }
+        
+        @Override
+        public synchronized void cancel() {
+            cancelled = true;
+            notifyAll();
+        }
+        
+        @Override
+        public synchronized boolean isCancelled() {
+            return cancelled;
+        }
+        
+        @Override
+        public boolean emit(T item) throws InterruptedException {
+            synchronized (this) {
+                while (demand == 0 && !cancelled) {
+                    wait();
+                }
+                if (cancelled) {
+                    return false;
+                }
+                demand--;
+            }
+            subscriber.onNext(item);
+            return true;
+        }
+        
+        void run() {
+            try {
+                producer.produce(this);
+            } catch (Throwable e) {
+                if (!isCancelled()) {
+                    subscriber.onError(e);
+                    return;
+                }
+            }
+            
+            Throwable error;
+            boolean wasCancelled;
+            synchronized (this) {
+                error = requestError;
+                wasCancelled = cancelled;
+            }
+            if (error != null) {
+                subscriber.onError(error);
+            } else if (!wasCancelled) {
+                subscriber.onComplete();
+            }
+        }
+    }
+}
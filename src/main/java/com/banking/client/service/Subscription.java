@@ -0,0 +1,19 @@
+package com.banking.client.service;
+
+/**
+ * Handle for an account update subscription.
+ */
+public interface Subscription extends AutoCloseable {
+    
+    /**
+     * Stop receiving updates and release the connection. Safe to call more than once.
+     */
+    void cancel();
+    
+    boolean isCancelled();
+    
+    @Override
+    default void close() {
+        cancel();
+    }
+}
@@ -0,0 +1,410 @@
+package com.banking.client.store;
+
+import com.banking.client.model.Transaction;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory transaction history held in primitive columns instead of one object per
+ * transaction.
+ * Timestamps are epoch millis, amounts and resulting balances are whole minor units
+ * (cents), the type is a byte code, descriptions and account numbers are interned in a
+ * string pool and transaction ids are packed as bytes, so a scan over one column walks
+ * a single array. Rows are read through a reusable {@link Cursor} or the column
+ * accessors without creating an object per row; only transaction ids are decoded into
+ * a new String when read. {@link #get(int)} materializes a {@link Transaction} when one
+ * is needed.
+ * Not thread-safe: rows are added and read by one thread, or under external locking.
+ */
+public class ColumnarTransactionStore {
+    
+    /** Minor units per major currency unit. */
+    public static final int MINOR_UNITS = 100;
+    
+    /** Timestamp column value of a transaction without a timestamp. */
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    
+    /** Type code of a transaction without a type. */
+    public static final byte NO_TYPE = -1;
+    
+    private static final int NO_STRING = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    private final StringPool strings = new StringPool();
+    // Type codes 0..3 are the TransactionType ordinals; other server types follow
+    private final List<String> typeNames = new ArrayList<>();
+    private final Map<String, Byte> typeCodes = new HashMap<>();
+    
+    private int size;
+    // Transaction ids are unique, so interning gains nothing; their UTF-8 bytes are
+    // packed into one array instead of a String object each
+    private byte[] idBytes;
+    private int idBytesUsed;
+    private int[] idOffsets;
+    private int[] idLengths;
+    private long[] timestamps;
+    private long[] amounts;
+    private long[] balances;
+    private byte[] types;
+    private int[] descriptions;
+    private int[] sourceAccounts;
+    private int[] destinationAccounts;
+    
+    public ColumnarTransactionStore() {
+        this(INITIAL_CAPACITY);
+    }
+    
+    public ColumnarTransactionStore(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        idBytes = new byte[capacity * 16];
+        idOffsets = new int[capacity];
+        idLengths = new int[capacity];
+        timestamps = new long[capacity];
+        amounts = new long[capacity];
+        balances = new long[capacity];
+        types = new byte[capacity];
+        descriptions = new int[capacity];
+        sourceAccounts = new int[capacity];
+        destinationAccounts = new int[capacity];
+        for (Transaction.TransactionType type : Transaction.TransactionType.values()) {
+            typeCode(type.name());
+        }
+    }
+    
+    /**
+     * Append a transaction.
+     *
+     * @return the row it was stored at
+     */
+    public int add(Transaction transaction) {
+        ensureCapacity(size + 1);
+        int row = size++;
+        storeTransactionId(row, transaction.getTransactionId());
+        timestamps[row] = transaction.getTimestamp() != null ? transaction.getTimestamp().getTime() : NO_TIMESTAMP;
+        amounts[row] = toMinorUnits(transaction.getAmount());
+        balances[row] = toMinorUnits(transaction.getResultingBalance());
+        types[row] = transaction.getType() != null ? typeCode(transaction.getType()) : NO_TYPE;
+        descriptions[row] = strings.intern(transaction.getDescription());
+        sourceAccounts[row] = strings.intern(transaction.getSourceAccountNumber());
+        destinationAccounts[row] = strings.intern(transaction.getDestinationAccountNumber());
+        return row;
+    }
+    
+    public void addAll(List<Transaction> transactions) {
+        ensureCapacity(size + transactions.size());
+        for (Transaction transaction : transactions) {
+            add(transaction);
+        }
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Remove every row. The string pool is emptied as well, so strings of earlier rows
+     * are not kept alive across reloads of different histories.
+     */
+    public void clear() {
+        size = 0;
+        idBytesUsed = 0;
+        strings.clear();
+    }
+    
+    /**
+     * Materialize a row as a Transaction.
+     */
+    public Transaction get(int row) {
+        checkRow(row);
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(transactionIdAt(row));
+        transaction.setTimestamp(timestamps[row] != NO_TIMESTAMP ? new Date(timestamps[row]) : null);
+        transaction.setType(typeNameAt(row));
+        transaction.setAmount(toMajorUnits(amounts[row]));
+        transaction.setResultingBalance(toMajorUnits(balances[row]));
+        transaction.setDescription(descriptionAt(row));
+        transaction.setSourceAccountNumber(sourceAccountAt(row));
+        transaction.setDestinationAccountNumber(destinationAccountAt(row));
+        return transaction;
+    }
+    
+    /**
+     * A cursor positioned before the first row.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+    
+    public String transactionIdAt(int row) {
+        checkRow(row);
+        return loadTransactionId(row);
+    }
+    
+    public long timestampAt(int row) {
+        checkRow(row);
+        return timestamps[row];
+    }
+    
+    public long amountMinorAt(int row) {
+        checkRow(row);
+        return amounts[row];
+    }
+    
+    public long resultingBalanceMinorAt(int row) {
+        checkRow(row);
+        return balances[row];
+    }
+    
+    public byte typeCodeAt(int row) {
+        checkRow(row);
+        return types[row];
+    }
+    
+    public String typeNameAt(int row) {
+        checkRow(row);
+        return types[row] != NO_TYPE ? typeNames.get(types[row]) : null;
+    }
+    
+    public String descriptionAt(int row) {
+        checkRow(row);
+        return strings.get(descriptions[row]);
+    }
+    
+    public String sourceAccountAt(int row) {
+        checkRow(row);
+        return strings.get(sourceAccounts[row]);
+    }
+    
+    public String destinationAccountAt(int row) {
+        checkRow(row);
+        return strings.get(destinationAccounts[row]);
+    }
+    
+    /**
+     * Code the type column uses for a type name; the TransactionType ordinal for the
+     * known types.
+     *
+     * @return the code, or {@link #NO_TYPE} if the store has never seen the type
+     */
+    public byte typeCodeOf(String typeName) {
+        Byte code = typeCodes.get(typeName);
+        return code != null ? code : NO_TYPE;
+    }
+    
+    /**
+     * Number of distinct type codes in use, including the four TransactionType codes.
+     */
+    public int typeCount() {
+        return typeNames.size();
+    }
+    
+    public static long toMinorUnits(double amount) {
+        return Math.round(amount * MINOR_UNITS);
+    }
+    
+    public static double toMajorUnits(long minorUnits) {
+        return (double) minorUnits / MINOR_UNITS;
+    }
+    
+    private byte typeCode(String typeName) {
+        Byte code = typeCodes.get(typeName);
+        if (code == null) {
+            if (typeNames.size() > Byte.MAX_VALUE) {
+                throw new IllegalStateException("Too many transaction types: " + typeName);
+            }
+            code = (byte) typeNames.size();
+            typeNames.add(typeName);
+            typeCodes.put(typeName, code);
+        }
+        return code;
+    }
+    
+    private void storeTransactionId(int row, String transactionId) {
+        if (transactionId == null) {
+            idLengths[row] = -1;
+            return;
+        }
+        byte[] bytes = transactionId.getBytes(StandardCharsets.UTF_8);
+        if (idBytesUsed + bytes.length > idBytes.length) {
+            idBytes = Arrays.copyOf(idBytes, Math.max(idBytesUsed + bytes.length, idBytes.length * 2));
+        }
+        System.arraycopy(bytes, 0, idBytes, idBytesUsed, bytes.length);
+        idOffsets[row] = idBytesUsed;
+        idLengths[row] = bytes.length;
+        idBytesUsed += bytes.length;
+    }
+    
+    private String loadTransactionId(int row) {
+        int length = idLengths[row];
+        return length >= 0 ? new String(idBytes, idOffsets[row], length, StandardCharsets.UTF_8) : null;
+    }
+    
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+    }
+    
+    private void ensureCapacity(int required) {
+        if (required <= timestamps.length) {
+            return;
+        }
+        int capacity = Math.max(required, timestamps.length + (timestamps.length >> 1));
+        idOffsets = Arrays.copyOf(idOffsets, capacity);
+        idLengths = Arrays.copyOf(idLengths, capacity);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        balances = Arrays.copyOf(balances, capacity);
+        types = Arrays.copyOf(types, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+        sourceAccounts = Arrays.copyOf(sourceAccounts, capacity);
+        destinationAccounts = Arrays.copyOf(destinationAccounts, capacity);
+    }
+    
+    /**
+     * Reusable view of one row at a time. Moving the cursor allocates nothing; the
+     * values read are those of the row it is on.
+     */
+    public class Cursor {
+        
+        private int row = -1;
+        
+        /**
+         * Move to the next row.
+         *
+         * @return false if there is no next row
+         */
+        public boolean next() {
+            if (row + 1 >= size) {
+                return false;
+            }
+            row++;
+            return true;
+        }
+        
+        public Cursor moveTo(int row) {
+            checkRow(row);
+            this.row = row;
+            return this;
+        }
+        
+        public int getRow() {
+            return row;
+        }
+        
+        public String getTransactionId() {
+            return loadTransactionId(row);
+        }
+        
+        public long getTimestampMillis() {
+            return timestamps[row];
+        }
+        
+        public long getAmountMinor() {
+            return amounts[row];
+        }
+        
+        public double getAmount() {
+            return toMajorUnits(amounts[row]);
+        }
+        
+        public long getResultingBalanceMinor() {
+            return balances[row];
+        }
+        
+        public double getResultingBalance() {
+            return toMajorUnits(balances[row]);
+        }
+        
+        public byte getTypeCode() {
+            return types[row];
+        }
+        
+        public String getType() {
+            return typeNameAt(row);
+        }
+        
+        public String getDescription() {
+            return strings.get(descriptions[row]);
+        }
+        
+        public String getSourceAccountNumber() {
+            return strings.get(sourceAccounts[row]);
+        }
+        
+        public String getDestinationAccountNumber() {
+            return strings.get(destinationAccounts[row]);
+        }
+    }
+    
+    /**
+     * Interns strings as int handles, so repeated descriptions and account numbers are
+     * held once. Open addressing over an int table keeps the per-string overhead to a
+     * few bytes instead of a map entry and a boxed handle.
+     */
+    private static class StringPool {
+        private String[] values = new String[64];
+        // Handle + 1 of the string hashed to each slot, 0 for an empty slot
+        private int[] slots = new int[128];
+        private int count;
+        
+        int intern(String value) {
+            if (value == null) {
+                return NO_STRING;
+            }
+            int mask = slots.length - 1;
+            int slot = mix(value.hashCode()) & mask;
+            while (slots[slot] != 0) {
+                int handle = slots[slot] - 1;
+                if (values[handle].equals(value)) {
+                    return handle;
+                }
+                slot = (slot + 1) & mask;
+            }
+            
+            int handle = count++;
+            if (handle == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[handle] = value;
+            slots[slot] = handle + 1;
+            if (count * 2 > slots.length) {
+                rehash(slots.length * 2);
+            }
+            return handle;
+        }
+        
+        String get(int handle) {
+            return handle != NO_STRING ? values[handle] : null;
+        }
+        
+        void clear() {
+            values = new String[64];
+            slots = new int[128];
+            count = 0;
+        }
+        
+        private void rehash(int capacity) {
+            slots = new int[capacity];
+            int mask = capacity - 1;
+            for (int handle = 0; handle < count; handle++) {
+                int slot = mix(values[handle].hashCode()) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = handle + 1;
+            }
+        }
+        
+        private static int mix(int hash) {
+            // Spread the high bits so similar strings do not cluster in the table
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
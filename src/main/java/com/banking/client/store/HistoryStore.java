@@ -0,0 +1,462 @@
+package com.banking.client.store;
+
+import com.banking.client.model.Account;
+import com.banking.client.model.Transaction;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Local, append-only store of the transaction history and last account snapshot of
+ * each account, so a view can be shown from disk before the server answers and stays
+ * readable while the server cannot be reached.
+ * Each account has one binary log file of length-prefixed records with a CRC32
+ * checksum. Reading stops at the first record that is torn or fails its checksum, and
+ * the file is truncated there so later appends stay readable. Transactions that are
+ * written again replace their earlier copy. When a log grows past its size cap, or
+ * mostly holds superseded records, it is rewritten with only the latest snapshot and
+ * the newest transactions that fit, and swapped in atomically. Thread-safe.
+ */
+public class HistoryStore {
+    
+    private static final Logger logger = LogManager.getLogger(HistoryStore.class);
+    
+    private static final int MAGIC = 0x42484C47; // "BHLG"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    // Length prefix and checksum around each record
+    private static final int RECORD_OVERHEAD = 8;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final byte TRANSACTION_RECORD = 1;
+    private static final byte SNAPSHOT_RECORD = 2;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    // Superseded records are only worth rewriting once a log has some size
+    private static final int MIN_RECORDS_FOR_COMPACTION = 1000;
+    
+    private final Path directory;
+    private final long maxBytesPerAccount;
+    // Accounts whose log has been checked for a torn tail since this store was opened
+    private final Set<String> verifiedAccounts = new HashSet<>();
+    
+    /**
+     * @param directory Directory holding one log file per account; created when needed
+     * @param maxBytesPerAccount Size a log may reach before its oldest transactions are dropped
+     */
+    public HistoryStore(Path directory, long maxBytesPerAccount) {
+        this.directory = directory;
+        this.maxBytesPerAccount = maxBytesPerAccount;
+    }
+    
+    /**
+     * Read what is stored for an account, repairing and compacting its log on the way
+     * when necessary.
+     *
+     * @param accountNumber The account number
+     * @return the stored history, or null if nothing is stored for the account
+     */
+    public synchronized StoredHistory load(String accountNumber) throws IOException {
+        Path file = fileFor(accountNumber);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        
+        long start = System.nanoTime();
+        LogContents contents = recover(accountNumber, file);
+        if (needsCompaction(contents)) {
+            compact(accountNumber, file, contents);
+        }
+        
+        StoredHistory history = contents.toStoredHistory();
+        logger.debug("Loaded {} for account {} in {} ms", history, accountNumber,
+                (System.nanoTime() - start) / 1_000_000);
+        return history.isEmpty() ? null : history;
+    }
+    
+    /**
+     * Append fetched transactions to an account's log. Transactions already stored are
+     * written again and replace the earlier copy when the log is next read.
+     *
+     * @param accountNumber The account number
+     * @param transactions Transactions to store
+     */
+    public synchronized void append(String accountNumber, List<Transaction> transactions) throws IOException {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(transactions.size() * 128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (Transaction transaction : transactions) {
+            writeRecord(out, encodeTransaction(transaction));
+        }
+        appendRecords(accountNumber, bytes.toByteArray());
+    }
+    
+    /**
+     * Record the latest state of an account, replacing any earlier snapshot.
+     *
+     * @param account The account
+     * @param newestFirst Whether the view lists the newest transactions first, so the
+     *                    stored history can be shown in the same order
+     */
+    public synchronized void saveSnapshot(Account account, boolean newestFirst) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        writeRecord(new DataOutputStream(bytes), encodeSnapshot(account, newestFirst));
+        appendRecords(account.getAccountNumber(), bytes.toByteArray());
+    }
+    
+    /**
+     * Remove everything stored for an account.
+     */
+    public synchronized void delete(String accountNumber) throws IOException {
+        Files.deleteIfExists(fileFor(accountNumber));
+        verifiedAccounts.remove(accountNumber);
+    }
+    
+    private void appendRecords(String accountNumber, byte[] records) throws IOException {
+        Path file = fileFor(accountNumber);
+        if (!verifiedAccounts.contains(accountNumber) && Files.exists(file)) {
+            // Records appended behind a torn tail would never be read back
+            recover(accountNumber, file);
+        }
+        if (!Files.exists(file)) {
+            createLog(file);
+        }
+        verifiedAccounts.add(accountNumber);
+        
+        // No force here: the store is a cache, and a write lost in a crash is refetched
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            writeFully(channel, ByteBuffer.wrap(records));
+        }
+        
+        if (Files.size(file) > maxBytesPerAccount) {
+            compact(accountNumber, file, read(file));
+        }
+    }
+    
+    /**
+     * Read a log and cut off anything after the last intact record. A log whose header
+     * is unreadable is discarded.
+     */
+    private LogContents recover(String accountNumber, Path file) throws IOException {
+        LogContents contents = read(file);
+        if (contents.validBytes < contents.fileBytes) {
+            if (contents.validBytes < HEADER_BYTES) {
+                logger.warn("History log for account {} is not readable, discarding it", accountNumber);
+                Files.delete(file);
+            } else {
+                logger.warn("History log for account {} is corrupt after {} of {} bytes, truncating it",
+                        accountNumber, contents.validBytes, contents.fileBytes);
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(contents.validBytes);
+                }
+            }
+            contents.fileBytes = contents.validBytes;
+        }
+        verifiedAccounts.add(accountNumber);
+        return contents;
+    }
+    
+    private LogContents read(Path file) throws IOException {
+        LogContents contents = new LogContents();
+        contents.fileBytes = Files.size(file);
+        
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), BUFFER_BYTES))) {
+            if (contents.fileBytes < HEADER_BYTES || in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return contents;
+            }
+            
+            long offset = HEADER_BYTES;
+            contents.validBytes = offset;
+            byte[] record = new byte[256];
+            CRC32 crc = new CRC32();
+            while (contents.fileBytes - offset >= RECORD_OVERHEAD) {
+                int length = in.readInt();
+                if (length < 1 || length > MAX_RECORD_BYTES
+                        || length > contents.fileBytes - offset - RECORD_OVERHEAD) {
+                    break;
+                }
+                if (record.length < length) {
+                    record = new byte[Math.max(length, record.length * 2)];
+                }
+                in.readFully(record, 0, length);
+                int checksum = in.readInt();
+                
+                crc.reset();
+                crc.update(record, 0, length);
+                if ((int) crc.getValue() != checksum || !decodeRecord(record, length, contents)) {
+                    break;
+                }
+                offset += RECORD_OVERHEAD + length;
+                contents.validBytes = offset;
+            }
+        } catch (EOFException e) {
+            // Sizes are checked before reading, so this only happens if the file shrank meanwhile
+            logger.warn("History log {} ended unexpectedly", file);
+        }
+        return contents;
+    }
+    
+    private boolean needsCompaction(LogContents contents) {
+        int current = contents.transactions.size() + (contents.account != null ? 1 : 0);
+        int superseded = contents.records - current;
+        return contents.fileBytes > maxBytesPerAccount
+                || (contents.records >= MIN_RECORDS_FOR_COMPACTION && superseded * 2 > contents.records);
+    }
+    
+    /**
+     * Rewrite a log with only the latest snapshot and the newest transactions that fit
+     * in three quarters of the size cap, leaving room to append before the next rewrite.
+     */
+    private void compact(String accountNumber, Path file, LogContents contents) throws IOException {
+        long targetBytes = maxBytesPerAccount / 4 * 3;
+        List<Transaction> transactions = contents.chronological();
+        List<byte[]> encoded = new ArrayList<>(transactions.size());
+        long totalBytes = HEADER_BYTES;
+        for (Transaction transaction : transactions) {
+            byte[] record = encodeTransaction(transaction);
+            encoded.add(record);
+            totalBytes += RECORD_OVERHEAD + record.length;
+        }
+        
+        byte[] snapshot = null;
+        if (contents.account != null) {
+            snapshot = encodeSnapshot(contents.account, contents.newestFirst);
+            totalBytes += RECORD_OVERHEAD + snapshot.length;
+        }
+        
+        // Drop the oldest transactions until the log fits
+        int first = 0;
+        while (totalBytes > targetBytes && first < encoded.size()) {
+            totalBytes -= RECORD_OVERHEAD + encoded.get(first).length;
+            first++;
+        }
+        
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        try (FileChannel channel = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_BYTES));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            if (snapshot != null) {
+                writeRecord(out, snapshot);
+            }
+            for (int i = first; i < encoded.size(); i++) {
+                writeRecord(out, encoded.get(i));
+            }
+            out.flush();
+            // The rewritten log must be complete on disk before it replaces the original
+            channel.force(false);
+        }
+        replace(compacted, file);
+        
+        logger.info("Compacted history log for account {} from {} to {} bytes, dropped {} old transactions",
+                accountNumber, contents.fileBytes, totalBytes, first);
+    }
+    
+    private void createLog(Path file) throws IOException {
+        Files.createDirectories(directory);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+        header.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            writeFully(channel, header);
+        }
+    }
+    
+    private static void replace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+    
+    private static void writeRecord(DataOutputStream out, byte[] record) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, record.length);
+        out.writeInt(record.length);
+        out.write(record);
+        out.writeInt((int) crc.getValue());
+    }
+    
+    private static byte[] encodeTransaction(Transaction transaction) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(TRANSACTION_RECORD);
+        writeString(out, transaction.getTransactionId());
+        writeDate(out, transaction.getTimestamp());
+        writeString(out, transaction.getType());
+        out.writeDouble(transaction.getAmount());
+        out.writeDouble(transaction.getResultingBalance());
+        writeString(out, transaction.getDescription());
+        writeString(out, transaction.getSourceAccountNumber());
+        writeString(out, transaction.getDestinationAccountNumber());
+        return bytes.toByteArray();
+    }
+    
+    private static byte[] encodeSnapshot(Account account, boolean newestFirst) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(SNAPSHOT_RECORD);
+        writeString(out, account.getAccountNumber());
+        writeString(out, account.getAccountHolderName());
+        out.writeDouble(account.getBalance());
+        writeDate(out, account.getCreationDate());
+        out.writeBoolean(newestFirst);
+        return bytes.toByteArray();
+    }
+    
+    /**
+     * Decode one record into the log contents.
+     *
+     * @return false if the record is not one this version understands
+     */
+    private static boolean decodeRecord(byte[] record, int length, LogContents contents) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record, 0, length))) {
+            byte type = in.readByte();
+            if (type == TRANSACTION_RECORD) {
+                Transaction transaction = new Transaction();
+                transaction.setTransactionId(readString(in));
+                transaction.setTimestamp(readDate(in));
+                transaction.setType(readString(in));
+                transaction.setAmount(in.readDouble());
+                transaction.setResultingBalance(in.readDouble());
+                transaction.setDescription(readString(in));
+                transaction.setSourceAccountNumber(readString(in));
+                transaction.setDestinationAccountNumber(readString(in));
+                // Re-inserting moves a rewritten transaction behind the ones stored after it
+                String key = keyOf(transaction);
+                contents.transactions.remove(key);
+                contents.transactions.put(key, transaction);
+            } else if (type == SNAPSHOT_RECORD) {
+                Account account = new Account();
+                account.setAccountNumber(readString(in));
+                account.setAccountHolderName(readString(in));
+                account.setBalance(in.readDouble());
+                account.setCreationDate(readDate(in));
+                contents.account = account;
+                contents.newestFirst = in.readBoolean();
+            } else {
+                return false;
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        contents.records++;
+        return true;
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+    
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+    
+    private static void writeDate(DataOutputStream out, Date value) throws IOException {
+        out.writeLong(value != null ? value.getTime() : NO_TIMESTAMP);
+    }
+    
+    private static Date readDate(DataInputStream in) throws IOException {
+        long time = in.readLong();
+        return time != NO_TIMESTAMP ? new Date(time) : null;
+    }
+    
+    /**
+     * Identity of a stored transaction. Transactions without an id fall back to their content.
+     */
+    private static String keyOf(Transaction transaction) {
+        if (transaction.getTransactionId() != null) {
+            return transaction.getTransactionId();
+        }
+        long time = transaction.getTimestamp() != null ? transaction.getTimestamp().getTime() : 0;
+        return time + "|" + transaction.getType() + "|" + transaction.getAmount() + "|"
+                + transaction.getResultingBalance();
+    }
+    
+    /**
+     * Log file of an account. Characters that are not safe in file names are escaped.
+     */
+    private Path fileFor(String accountNumber) {
+        StringBuilder name = new StringBuilder(accountNumber.length() + 4);
+        for (int i = 0; i < accountNumber.length(); i++) {
+            char c = accountNumber.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-') {
+                name.append(c);
+            } else {
+                name.append('_').append(String.format("%04x", (int) c));
+            }
+        }
+        return directory.resolve(name.append(".log").toString());
+    }
+    
+    /**
+     * Records read from one log, with the latest copy of each transaction.
+     */
+    private static class LogContents {
+        private final Map<String, Transaction> transactions = new LinkedHashMap<>();
+        private Account account;
+        private boolean newestFirst = true;
+        private int records;
+        private long fileBytes;
+        private long validBytes;
+        
+        /**
+         * Transactions oldest first. Transactions with the same or no timestamp keep
+         * the order they were stored in.
+         */
+        List<Transaction> chronological() {
+            List<Transaction> sorted = new ArrayList<>(transactions.values());
+            sorted.sort(Comparator.comparingLong(transaction ->
+                    transaction.getTimestamp() != null ? transaction.getTimestamp().getTime() : NO_TIMESTAMP));
+            return sorted;
+        }
+        
+        StoredHistory toStoredHistory() {
+            List<Transaction> ordered = chronological();
+            if (newestFirst) {
+                Collections.reverse(ordered);
+            }
+            return new StoredHistory(account, ordered, newestFirst);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.banking.client.store;
+
+import java.util.Arrays;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Row numbers of a columnar store sorted by one long column, for range lookups by
+ * binary search. New rows are sorted among themselves and merged in, so adding a
+ * page costs a pass over the index rather than a full re-sort. Rows with equal keys
+ * stay in the order they were added.
+ */
+final class SortedRowIndex {
+    
+    private final IntToLongFunction key;
+    private int[] rows = new int[16];
+    private int size;
+    
+    SortedRowIndex(IntToLongFunction key) {
+        this.key = key;
+    }
+    
+    /**
+     * Add the consecutive rows {@code firstRow} to {@code firstRow + count - 1}.
+     */
+    void addRows(int firstRow, int count) {
+        int[] added = new int[count];
+        for (int i = 0; i < count; i++) {
+            added[i] = firstRow + i;
+        }
+        sort(added, count);
+        
+        if (size + count > rows.length) {
+            rows = Arrays.copyOf(rows, Math.max(size + count, rows.length + (rows.length >> 1)));
+        }
+        // Merge from the back so the existing rows can be moved in place. Rows keyed before
+        // the smallest new key stay where they are, so rows added in key order cost no moves.
+        int stop = upperBound(key.applyAsLong(added[0]));
+        int existing = size - 1;
+        int next = count - 1;
+        for (int target = size + count - 1; next >= 0; target--) {
+            if (existing >= stop && key.applyAsLong(rows[existing]) > key.applyAsLong(added[next])) {
+                rows[target] = rows[existing--];
+            } else {
+                rows[target] = added[next--];
+            }
+        }
+        size += count;
+    }
+    
+    void clear() {
+        size = 0;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    int rowAt(int position) {
+        return rows[position];
+    }
+    
+    /**
+     * First position whose key is at least {@code value}.
+     */
+    int lowerBound(long value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (key.applyAsLong(rows[middle]) < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * First position whose key is greater than {@code value}.
+     */
+    int upperBound(long value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (key.applyAsLong(rows[middle]) <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Stable sort of the first {@code count} rows by key, bottom-up merge sort.
+     */
+    void sort(int[] values, int count) {
+        int[] buffer = new int[count];
+        int[] source = values;
+        int[] target = buffer;
+        for (int width = 1; width < count; width *= 2) {
+            for (int start = 0; start < count; start += 2 * width) {
+                int middle = Math.min(start + width, count);
+                int end = Math.min(start + 2 * width, count);
+                int left = start;
+                int right = middle;
+                for (int i = start; i < end; i++) {
+                    if (left < middle && (right >= end
+                            || key.applyAsLong(source[left]) <= key.applyAsLong(source[right]))) {
+                        target[i] = source[left++];
+                    } else {
+                        target[i] = source[right++];
+                    }
+                }
+            }
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        if (source != values) {
+            System.arraycopy(source, 0, values, 0, count);
+        }
+    }
+}
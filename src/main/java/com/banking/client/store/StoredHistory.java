@@ -0,0 +1,51 @@
+package com.banking.client.store;
+
+import com.banking.client.model.Account;
+import com.banking.client.model.Transaction;
+
+import java.util.List;
+
+/**
+ * What the history store holds for one account: the last account snapshot, if one was
+ * saved, and the transactions fetched so far in the order the view listed them.
+ */
+public class StoredHistory {
+    
+    private final Account account;
+    private final List<Transaction> transactions;
+    private final boolean newestFirst;
+    
+    StoredHistory(Account account, List<Transaction> transactions, boolean newestFirst) {
+        this.account = account;
+        this.transactions = transactions;
+        this.newestFirst = newestFirst;
+    }
+    
+    /**
+     * Last saved account snapshot, or null if only transactions were stored.
+     */
+    public Account getAccount() {
+        return account;
+    }
+    
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+    
+    public boolean isNewestFirst() {
+        return newestFirst;
+    }
+    
+    public boolean isEmpty() {
+        return account == null && transactions.isEmpty();
+    }
+    
+    @Override
+    public String toString() {
+        return "StoredHistory{" +
+                "account=" + (account != null ? account.getAccountNumber() : null) +
+                ", transactions=" + transactions.size() +
+                ", newestFirst=" + newestFirst +
+                '}';
+    }
+}
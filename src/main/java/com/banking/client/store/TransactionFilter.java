@@ -0,0 +1,97 @@
+package com.banking.client.store;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Criteria for a {@link TransactionIndex} query. Unset criteria match every
+ * transaction; set criteria must all match.
+ */
+public class TransactionFilter {
+    
+    private Long fromMillis;
+    private Long toMillis;
+    private Double minAmount;
+    private Double maxAmount;
+    private Set<String> types = Collections.emptySet();
+    private String text = "";
+    
+    public Long getFromMillis() {
+        return fromMillis;
+    }
+    
+    /**
+     * Earliest timestamp to match, inclusive; null for no lower bound.
+     */
+    public void setFromMillis(Long fromMillis) {
+        this.fromMillis = fromMillis;
+    }
+    
+    public Long getToMillis() {
+        return toMillis;
+    }
+    
+    /**
+     * Timestamp to match up to, exclusive; null for no upper bound.
+     */
+    public void setToMillis(Long toMillis) {
+        this.toMillis = toMillis;
+    }
+    
+    public Double getMinAmount() {
+        return minAmount;
+    }
+    
+    public void setMinAmount(Double minAmount) {
+        this.minAmount = minAmount;
+    }
+    
+    public Double getMaxAmount() {
+        return maxAmount;
+    }
+    
+    public void setMaxAmount(Double maxAmount) {
+        this.maxAmount = maxAmount;
+    }
+    
+    public Set<String> getTypes() {
+        return types;
+    }
+    
+    /**
+     * Transaction types to match; empty for any type.
+     */
+    public void setTypes(Set<String> types) {
+        this.types = new LinkedHashSet<>(types);
+    }
+    
+    public String getText() {
+        return text;
+    }
+    
+    /**
+     * Words that must each start a word of the description or a counterpart account
+     * number, ignoring case; empty for no text criterion.
+     */
+    public void setText(String text) {
+        this.text = text != null ? text : "";
+    }
+    
+    public boolean isEmpty() {
+        return fromMillis == null && toMillis == null && minAmount == null && maxAmount == null
+                && types.isEmpty() && text.trim().isEmpty();
+    }
+    
+    @Override
+    public String toString() {
+        return "TransactionFilter{" +
+                "fromMillis=" + fromMillis +
+                ", toMillis=" + toMillis +
+                ", minAmount=" + minAmount +
+                ", maxAmount=" + maxAmount +
+                ", types=" + types +
+                ", text='" + text + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,361 @@
+package com.banking.client.store;
+
+import com.banking.client.model.Transaction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Searchable index over the loaded transaction history.
+ * Transactions are held in a {@link ColumnarTransactionStore} and indexed four ways:
+ * row numbers sorted by timestamp and by amount for range queries, a bitmap of rows
+ * per transaction type, and a token dictionary over description words and
+ * counterpart account numbers whose posting lists give the rows containing each
+ * token. A query intersects the bitmaps of its selective criteria and walks the
+ * timestamp index once to apply the date range and return rows in date order, so it
+ * never touches a Transaction object. Transactions are added incrementally. A
+ * transaction whose id is already indexed replaces the earlier one if it differs: the
+ * old row is retired, so queries skip it, and the new one is appended.
+ * Not thread-safe: use from one thread, such as the JavaFX Application Thread.
+ */
+public class TransactionIndex {
+    
+    // A sparse result is sorted by date directly instead of walking the date index
+    private static final int SPARSE_FACTOR = 16;
+    
+    private final ColumnarTransactionStore store = new ColumnarTransactionStore();
+    private final SortedRowIndex byTimestamp = new SortedRowIndex(store::timestampAt);
+    private final SortedRowIndex byAmount = new SortedRowIndex(store::amountMinorAt);
+    private final BitSet[] byType = new BitSet[Byte.MAX_VALUE + 1];
+    private final TokenDictionary byToken = new TokenDictionary();
+    private final Map<String, Integer> rowsByTransactionId = new HashMap<>();
+    // Rows of transactions that were replaced by a later row with the same id
+    private final BitSet retired = new BitSet();
+    private int retiredCount;
+    
+    /**
+     * Add transactions that are not indexed yet, and replace indexed ones that changed.
+     *
+     * @return number of rows added, replacements included
+     */
+    public int addAll(List<Transaction> transactions) {
+        int firstRow = store.size();
+        for (Transaction transaction : transactions) {
+            String transactionId = transaction.getTransactionId();
+            Integer previousRow = transactionId != null ? rowsByTransactionId.get(transactionId) : null;
+            if (previousRow != null) {
+                if (isUnchanged(previousRow, transaction)) {
+                    continue;
+                }
+                retired.set(previousRow);
+                retiredCount++;
+            }
+            int row = store.add(transaction);
+            if (transactionId != null) {
+                rowsByTransactionId.put(transactionId, row);
+            }
+            byte type = store.typeCodeAt(row);
+            if (type != ColumnarTransactionStore.NO_TYPE) {
+                if (byType[type] == null) {
+                    byType[type] = new BitSet();
+                }
+                byType[type].set(row);
+            }
+            indexTokens(row, store.descriptionAt(row));
+            indexTokens(row, store.sourceAccountAt(row));
+            indexTokens(row, store.destinationAccountAt(row));
+        }
+        
+        int added = store.size() - firstRow;
+        if (added > 0) {
+            byTimestamp.addRows(firstRow, added);
+            byAmount.addRows(firstRow, added);
+        }
+        return added;
+    }
+    
+    private boolean isUnchanged(int row, Transaction transaction) {
+        long timestamp = transaction.getTimestamp() != null
+                ? transaction.getTimestamp().getTime() : ColumnarTransactionStore.NO_TIMESTAMP;
+        return store.timestampAt(row) == timestamp
+                && store.amountMinorAt(row) == ColumnarTransactionStore.toMinorUnits(transaction.getAmount())
+                && store.resultingBalanceMinorAt(row)
+                        == ColumnarTransactionStore.toMinorUnits(transaction.getResultingBalance())
+                && Objects.equals(store.typeNameAt(row), transaction.getType())
+                && Objects.equals(store.descriptionAt(row), transaction.getDescription())
+                && Objects.equals(store.sourceAccountAt(row), transaction.getSourceAccountNumber())
+                && Objects.equals(store.destinationAccountAt(row), transaction.getDestinationAccountNumber());
+    }
+    
+    public void clear() {
+        store.clear();
+        byTimestamp.clear();
+        byAmount.clear();
+        Arrays.fill(byType, null);
+        byToken.clear();
+        rowsByTransactionId.clear();
+        retired.clear();
+        retiredCount = 0;
+    }
+    
+    /**
+     * Number of indexed transactions, not counting replaced rows.
+     */
+    public int size() {
+        return store.size() - retiredCount;
+    }
+    
+    /**
+     * The indexed transactions; rows returned by {@link #query} refer to this store,
+     * which also holds the retired rows of replaced transactions.
+     */
+    public ColumnarTransactionStore getStore() {
+        return store;
+    }
+    
+    /**
+     * Find the rows matching a filter.
+     *
+     * @param filter The criteria
+     * @param newestFirst Whether to return the newest transactions first
+     * @return matching rows of {@link #getStore()}, ordered by date
+     */
+    public int[] query(TransactionFilter filter, boolean newestFirst) {
+        BitSet matches = null;
+        
+        for (String token : tokenize(filter.getText())) {
+            matches = intersect(matches, tokenMatches(token));
+            if (matches.isEmpty()) {
+                return new int[0];
+            }
+        }
+        
+        if (!filter.getTypes().isEmpty()) {
+            BitSet typeMatches = new BitSet(store.size());
+            for (String type : filter.getTypes()) {
+                byte code = store.typeCodeOf(type);
+                if (code != ColumnarTransactionStore.NO_TYPE && byType[code] != null) {
+                    typeMatches.or(byType[code]);
+                }
+            }
+            matches = intersect(matches, typeMatches);
+        }
+        
+        if (filter.getMinAmount() != null || filter.getMaxAmount() != null) {
+            matches = amountMatches(filter, matches);
+        }
+        if (matches != null && retiredCount > 0) {
+            matches.andNot(retired);
+        }
+        
+        long from = filter.getFromMillis() != null ? filter.getFromMillis() : Long.MIN_VALUE;
+        int start = byTimestamp.lowerBound(from);
+        int end = filter.getToMillis() != null ? byTimestamp.lowerBound(filter.getToMillis()) : byTimestamp.size();
+        if (start >= end) {
+            return new int[0];
+        }
+        
+        int matched = matches != null ? matches.cardinality() : end - start;
+        if (matches != null && matched * SPARSE_FACTOR < end - start) {
+            return sortedByDate(matches, matched, from, filter.getToMillis(), newestFirst);
+        }
+        
+        // Walk the date range in order, keeping the rows the other criteria matched
+        int[] result = new int[Math.min(matched, end - start)];
+        int count = 0;
+        for (int i = 0; i < end - start; i++) {
+            int row = byTimestamp.rowAt(newestFirst ? end - 1 - i : start + i);
+            if (matches != null ? matches.get(row) : retiredCount == 0 || !retired.get(row)) {
+                result[count++] = row;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+    
+    private BitSet amountMatches(TransactionFilter filter, BitSet matches) {
+        long min = filter.getMinAmount() != null
+                ? ColumnarTransactionStore.toMinorUnits(filter.getMinAmount()) : Long.MIN_VALUE;
+        long max = filter.getMaxAmount() != null
+                ? ColumnarTransactionStore.toMinorUnits(filter.getMaxAmount()) : Long.MAX_VALUE;
+        int start = byAmount.lowerBound(min);
+        int end = byAmount.upperBound(max);
+        
+        // Check the few rows already matched against the column, or else mark the range
+        if (matches != null && matches.cardinality() < end - start) {
+            BitSet result = new BitSet(store.size());
+            for (int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row + 1)) {
+                long amount = store.amountMinorAt(row);
+                if (amount >= min && amount <= max) {
+                    result.set(row);
+                }
+            }
+            return result;
+        }
+        
+        BitSet range = new BitSet(store.size());
+        for (int i = start; i < end; i++) {
+            range.set(byAmount.rowAt(i));
+        }
+        return intersect(matches, range);
+    }
+    
+    private int[] sortedByDate(BitSet matches, int matched, long from, Long to, boolean newestFirst) {
+        int[] rows = new int[matched];
+        int count = 0;
+        for (int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row + 1)) {
+            long timestamp = store.timestampAt(row);
+            if (timestamp >= from && (to == null || timestamp < to)) {
+                rows[count++] = row;
+            }
+        }
+        byTimestamp.sort(rows, count);
+        if (newestFirst) {
+            for (int i = 0, j = count - 1; i < j; i++, j--) {
+                int swap = rows[i];
+                rows[i] = rows[j];
+                rows[j] = swap;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+    
+    /**
+     * Rows containing a token that starts with the given prefix.
+     */
+    private BitSet tokenMatches(String prefix) {
+        BitSet rows = new BitSet(store.size());
+        for (Postings postings : byToken.withPrefix(prefix)) {
+            for (int i = 0; i < postings.size; i++) {
+                rows.set(postings.rows[i]);
+            }
+        }
+        return rows;
+    }
+    
+    private void indexTokens(int row, String text) {
+        for (String token : tokenize(text)) {
+            byToken.add(token, row);
+        }
+    }
+    
+    private static BitSet intersect(BitSet matches, BitSet other) {
+        if (matches == null) {
+            return other;
+        }
+        matches.and(other);
+        return matches;
+    }
+    
+    /**
+     * Lower-case words of letters and digits, each once.
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new HashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+    
+    /**
+     * Token postings by exact token, plus the tokens in sorted order for prefix lookups.
+     * New tokens collect in an unsorted tail that is sorted and merged in once it grows
+     * past an eighth of the sorted tokens, so indexing a row never pays for a tree
+     * insertion and a lookup scans at most a small tail.
+     */
+    private static class TokenDictionary {
+        private static final int MIN_UNSORTED = 4096;
+        
+        private final Map<String, Postings> postings = new HashMap<>();
+        private String[] sorted = new String[0];
+        private final List<String> unsorted = new ArrayList<>();
+        
+        void add(String token, int row) {
+            Postings tokenPostings = postings.get(token);
+            if (tokenPostings == null) {
+                tokenPostings = new Postings();
+                postings.put(token, tokenPostings);
+                unsorted.add(token);
+                if (unsorted.size() > Math.max(MIN_UNSORTED, sorted.length / 8)) {
+                    mergeUnsorted();
+                }
+            }
+            tokenPostings.add(row);
+        }
+        
+        List<Postings> withPrefix(String prefix) {
+            List<Postings> matches = new ArrayList<>();
+            int position = Arrays.binarySearch(sorted, prefix);
+            int first = position >= 0 ? position : -position - 1;
+            for (int i = first; i < sorted.length && sorted[i].startsWith(prefix); i++) {
+                matches.add(postings.get(sorted[i]));
+            }
+            for (String token : unsorted) {
+                if (token.startsWith(prefix)) {
+                    matches.add(postings.get(token));
+                }
+            }
+            return matches;
+        }
+        
+        void clear() {
+            postings.clear();
+            sorted = new String[0];
+            unsorted.clear();
+        }
+        
+        private void mergeUnsorted() {
+            String[] added = unsorted.toArray(new String[0]);
+            Arrays.sort(added);
+            String[] merged = new String[sorted.length + added.length];
+            int i = 0;
+            int j = 0;
+            for (int k = 0; k < merged.length; k++) {
+                if (j >= added.length || (i < sorted.length && sorted[i].compareTo(added[j]) <= 0)) {
+                    merged[k] = sorted[i++];
+                } else {
+                    merged[k] = added[j++];
+                }
+            }
+            sorted = merged;
+            unsorted.clear();
+        }
+    }
+    
+    /**
+     * Rows containing one token, in ascending order since rows are only ever appended.
+     */
+    private static class Postings {
+        private int[] rows = new int[1];
+        private int size;
+        
+        void add(int row) {
+            // A row repeating a token is added once, and always last
+            if (size > 0 && rows[size - 1] == row) {
+                return;
+            }
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size++] = row;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.banking.client.service;
+
+import com.banking.client.model.Account;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingBankingServiceTest {
+    
+    private static final String ACCOUNT = "100001";
+    
+    private final BankingService delegate = mock(BankingService.class);
+    private final CachingBankingService cache = new CachingBankingService(delegate, 100, 60_000);
+    
+    @AfterEach
+    void tearDown() {
+        cache.close();
+    }
+    
+    private static ConditionalResult<Account> version(double balance, String etag) {
+        return ConditionalResult.modified(new Account(ACCOUNT, "Test", balance), etag, null);
+    }
+    
+    @Test
+    void readInFlightDuringInvalidationIsNotStored() throws Exception {
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        when(delegate.getAccountIfModified(eq(ACCOUNT), any())).thenAnswer(invocation -> {
+            fetching.countDown();
+            invalidated.await();
+            return version(100.0, "v1");
+        }).thenReturn(version(110.0, "v2"));
+        
+        CompletableFuture<Account> stale = CompletableFuture.supplyAsync(() -> {
+            try {
+                return cache.getAccount(ACCOUNT);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(fetching.await(10, TimeUnit.SECONDS));
+        cache.invalidate(ACCOUNT);
+        invalidated.countDown();
+        assertEquals(100.0, stale.get(10, TimeUnit.SECONDS).getBalance());
+        
+        assertEquals(110.0, cache.getAccount(ACCOUNT).getBalance());
+        assertEquals(110.0, cache.getAccount(ACCOUNT).getBalance());
+        verify(delegate, times(2)).getAccountIfModified(eq(ACCOUNT), any());
+    }
+    
+    @Test
+    void readsThatDoNotOverlapAnInvalidationAreStored() throws Exception {
+        when(delegate.getAccountIfModified(eq(ACCOUNT), any())).thenReturn(version(100.0, "v1"));
+        cache.invalidate(ACCOUNT);
+        
+        cache.getAccount(ACCOUNT);
+        cache.getAccount(ACCOUNT);
+        
+        verify(delegate, times(1)).getAccountIfModified(eq(ACCOUNT), any());
+    }
+    
+    @Test
+    void cachedValueIsNotModifiedForCallerHoldingTheSameVersion() throws Exception {
+        when(delegate.getAccountIfModified(eq(ACCOUNT), isNull())).thenReturn(version(100.0, "v1"));
+        cache.getAccount(ACCOUNT);
+        
+        ConditionalResult<Account> result = cache.getAccountIfModified(ACCOUNT, version(100.0, "v1"));
+        
+        assertTrue(result.isNotModified());
+        assertEquals("v1", result.getEtag());
+    }
+    
+    @Test
+    void cachedValueIsModifiedForCallerHoldingAnOlderVersion() throws Exception {
+        ConditionalResult<Account> current = version(110.0, "v2");
+        when(delegate.getAccountIfModified(eq(ACCOUNT), isNull())).thenReturn(current);
+        cache.getAccount(ACCOUNT);
+        
+        ConditionalResult<Account> result = cache.getAccountIfModified(ACCOUNT, version(100.0, "v1"));
+        
+        assertFalse(result.isNotModified());
+        assertSame(current.getValue(), result.getValue());
+    }
+    
+    @Test
+    void callersPreviousIsRevalidatedWhenNothingIsCached() throws Exception {
+        ConditionalResult<Account> previous = version(100.0, "v1");
+        when(delegate.getAccountIfModified(ACCOUNT, previous))
+                .thenReturn(ConditionalResult.notModified(previous, null, null));
+        
+        ConditionalResult<Account> result = cache.getAccountIfModified(ACCOUNT, previous);
+        
+        assertTrue(result.isNotModified());
+        assertSame(previous.getValue(), result.getValue());
+        assertEquals(1, cache.getStats().getNotModified());
+    }
+    
+    @Test
+    void failedDepositDropsTheCachedAccount() throws Exception {
+        when(delegate.getAccountIfModified(eq(ACCOUNT), any()))
+                .thenReturn(version(100.0, "v1"), version(110.0, "v2"));
+        when(delegate.deposit(eq(ACCOUNT), anyDouble())).thenThrow(new SocketTimeoutException("Read timed out"));
+        cache.getAccount(ACCOUNT);
+        
+        assertThrows(SocketTimeoutException.class, () -> cache.deposit(ACCOUNT, 10.0));
+        
+        assertEquals(110.0, cache.getAccount(ACCOUNT).getBalance());
+        verify(delegate, times(2)).getAccountIfModified(eq(ACCOUNT), any());
+    }
+}
@@ -0,0 +1,185 @@
+package com.banking.client.service;
+
+import com.banking.client.model.Account;
+import com.banking.client.model.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CoalescingBankingServiceTest {
+    
+    private static final String ACCOUNT = "100001";
+    
+    private final BankingService delegate = mock(BankingService.class);
+    private final CoalescingBankingService service = new CoalescingBankingService(delegate);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+    
+    private static Transaction transaction(String id) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(id);
+        return transaction;
+    }
+    
+    /**
+     * Wait until the given number of callers are waiting on a read in flight.
+     */
+    private void awaitCoalesced(long callers) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (service.getStats().getCoalesced() < callers && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(callers, service.getStats().getCoalesced());
+    }
+    
+    @Test
+    void waitingCallersReceiveTheirOwnCopies() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Transaction> history = new ArrayList<>(List.of(transaction("tx-2"), transaction("tx-1")));
+        when(delegate.getTransactionHistory(ACCOUNT)).thenAnswer(invocation -> {
+            release.await();
+            return history;
+        });
+        
+        Future<List<Transaction>> leader = executor.submit(() -> service.getTransactionHistory(ACCOUNT));
+        while (service.getStats().getInFlight() == 0) {
+            Thread.sleep(5);
+        }
+        Future<List<Transaction>> follower = executor.submit(() -> service.getTransactionHistory(ACCOUNT));
+        awaitCoalesced(1);
+        release.countDown();
+        
+        List<Transaction> led = leader.get(10, TimeUnit.SECONDS);
+        List<Transaction> followed = follower.get(10, TimeUnit.SECONDS);
+        assertNotSame(led, followed);
+        followed.sort((a, b) -> a.getTransactionId().compareTo(b.getTransactionId()));
+        assertEquals("tx-2", led.get(0).getTransactionId());
+        assertEquals("tx-1", followed.get(0).getTransactionId());
+        verify(delegate, times(1)).getTransactionHistory(ACCOUNT);
+    }
+    
+    @Test
+    void waitingCallersGetTheirOwnAccount() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.getAccount(ACCOUNT)).thenAnswer(invocation -> {
+            release.await();
+            return new Account(ACCOUNT, "Test", 100.0);
+        });
+        
+        Future<Account> leader = executor.submit(() -> service.getAccount(ACCOUNT));
+        while (service.getStats().getInFlight() == 0) {
+            Thread.sleep(5);
+        }
+        Future<Account> follower = executor.submit(() -> service.getAccount(ACCOUNT));
+        awaitCoalesced(1);
+        release.countDown();
+        
+        Account led = leader.get(10, TimeUnit.SECONDS);
+        led.setBalance(0.0);
+        assertEquals(100.0, follower.get(10, TimeUnit.SECONDS).getBalance());
+    }
+    
+    @Test
+    void failingReadFailsEveryWaitingCaller() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        IOException failure = new IOException("Connection reset");
+        when(delegate.getTransactionHistory(ACCOUNT)).thenAnswer(invocation -> {
+            release.await();
+            throw failure;
+        });
+        
+        Future<List<Transaction>> leader = executor.submit(() -> service.getTransactionHistory(ACCOUNT));
+        while (service.getStats().getInFlight() == 0) {
+            Thread.sleep(5);
+        }
+        List<Future<List<Transaction>>> followers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            followers.add(executor.submit(() -> service.getTransactionHistory(ACCOUNT)));
+        }
+        awaitCoalesced(3);
+        release.countDown();
+        
+        ExecutionException led = assertThrows(ExecutionException.class, () -> leader.get(10, TimeUnit.SECONDS));
+        assertSame(failure, led.getCause());
+        for (Future<List<Transaction>> follower : followers) {
+            ExecutionException followed = assertThrows(ExecutionException.class,
+                    () -> follower.get(10, TimeUnit.SECONDS));
+            assertSame(failure, followed.getCause());
+        }
+        verify(delegate, times(1)).getTransactionHistory(ACCOUNT);
+        assertEquals(0, service.getStats().getInFlight());
+    }
+    
+    @Test
+    void waitingCallerRunsTheReadAgainWhenTheLeaderIsCancelled() throws Exception {
+        CountDownLatch never = new CountDownLatch(1);
+        when(delegate.getTransactionHistory(ACCOUNT)).thenAnswer(invocation -> {
+            never.await();
+            return Collections.emptyList();
+        }).thenReturn(List.of(transaction("tx-1")));
+        
+        Future<List<Transaction>> leader = executor.submit(() -> service.getTransactionHistory(ACCOUNT));
+        while (service.getStats().getInFlight() == 0) {
+            Thread.sleep(5);
+        }
+        Future<List<Transaction>> follower = executor.submit(() -> service.getTransactionHistory(ACCOUNT));
+        awaitCoalesced(1);
+        leader.cancel(true);
+        
+        List<Transaction> followed = follower.get(10, TimeUnit.SECONDS);
+        assertEquals("tx-1", followed.get(0).getTransactionId());
+        assertTrue(leader.isCancelled());
+        verify(delegate, times(2)).getTransactionHistory(ACCOUNT);
+        // The retry ran the read itself rather than waiting on another caller
+        assertEquals(0, service.getStats().getCoalesced());
+        assertEquals(2, service.getStats().getRequests());
+    }
+    
+    @Test
+    void cancelledLeaderIsNotSeenAsAFailure() throws Exception {
+        CountDownLatch never = new CountDownLatch(1);
+        when(delegate.getAccount(ACCOUNT)).thenAnswer(invocation -> {
+            never.await();
+            return null;
+        }).thenThrow(new IOException("Connection refused"));
+        
+        Future<Account> leader = executor.submit(() -> service.getAccount(ACCOUNT));
+        while (service.getStats().getInFlight() == 0) {
+            Thread.sleep(5);
+        }
+        Future<Account> follower = executor.submit(() -> service.getAccount(ACCOUNT));
+        awaitCoalesced(1);
+        leader.cancel(true);
+        
+        // The waiting caller sees the failure of its own read, never the cancellation
+        ExecutionException followed = assertThrows(ExecutionException.class,
+                () -> follower.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, followed.getCause());
+        assertEquals("Connection refused", followed.getCause().getMessage());
+    }
+}
@@ -0,0 +1,97 @@
+package com.banking.client.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs the load-balanced REST transport against in-process application tier stubs that
+ * either answer or drop the connection without a response.
+ */
+class LoadBalancedBankingServiceTest {
+    
+    private static final String ACCOUNT = "100001";
+    
+    private final List<HttpServer> servers = new ArrayList<>();
+    private final List<ExecutorService> executors = new ArrayList<>();
+    private volatile boolean dropping = true;
+    private LoadBalancedBankingService service;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        for (int i = 0; i < 2; i++) {
+            HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 16);
+            ExecutorService executor = Executors.newCachedThreadPool();
+            server.setExecutor(executor);
+            server.createContext("/api/accounts/", this::handle);
+            server.start();
+            servers.add(server);
+            executors.add(executor);
+        }
+    }
+    
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.close();
+        }
+        servers.forEach(server -> server.stop(0));
+        executors.forEach(ExecutorService::shutdownNow);
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        if (dropping) {
+            exchange.close();
+            return;
+        }
+        byte[] body = ("{\"accountNumber\":\"" + ACCOUNT + "\",\"accountHolderName\":\"Test\",\"balance\":100.0}")
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+    
+    @Test
+    void leastOutstandingKeepsCallingWhenEveryEndpointIsEjected() throws Exception {
+        RestClientConfig clientConfig = new RestClientConfig();
+        clientConfig.setWireFormat(RestClientConfig.WireFormat.JSON);
+        LoadBalancerConfig config = new LoadBalancerConfig();
+        config.setStrategy(LoadBalancerConfig.Strategy.LEAST_OUTSTANDING);
+        config.setEjectionFailures(1);
+        config.setEjectionMillis(60_000);
+        config.setProbeIntervalMillis(0);
+        List<String> urls = new ArrayList<>();
+        for (HttpServer server : servers) {
+            urls.add("http://127.0.0.1:" + server.getAddress().getPort());
+        }
+        service = new LoadBalancedBankingService(urls, clientConfig, config);
+        
+        // One failure ejects an endpoint, and the next call goes to the other one
+        assertThrows(IOException.class, () -> service.getAccount(ACCOUNT));
+        assertThrows(IOException.class, () -> service.getAccount(ACCOUNT));
+        for (EndpointStats stats : service.getEndpointStats()) {
+            assertEquals(EndpointStats.State.EJECTED, stats.getState());
+        }
+        
+        dropping = false;
+        assertEquals(100.0, service.getAccount(ACCOUNT).getBalance());
+    }
+}
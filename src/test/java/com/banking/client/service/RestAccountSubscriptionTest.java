@@ -0,0 +1,258 @@
+package com.banking.client.service;
+
+import com.banking.client.model.AccountUpdate;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs REST account update subscriptions against an in-process Server-Sent Events stub.
+ * Each connection to the stub is served by the next scripted session; once the script
+ * is used up, connections are held open without events until the test ends.
+ */
+class RestAccountSubscriptionTest {
+    
+    private static final String ACCOUNT = "100001";
+    private static final long TIMEOUT_SECONDS = 10;
+    
+    /**
+     * Serves one connection to the events endpoint.
+     */
+    private interface Session {
+        void serve(HttpExchange exchange) throws IOException;
+    }
+    
+    /**
+     * Records everything a subscription reports.
+     */
+    private static class RecordingListener implements AccountUpdateListener {
+        
+        final BlockingQueue<AccountUpdate> updates = new LinkedBlockingQueue<>();
+        final BlockingQueue<Boolean> connectionsLost = new LinkedBlockingQueue<>();
+        final BlockingQueue<Boolean> connections = new LinkedBlockingQueue<>();
+        
+        @Override
+        public void onUpdate(AccountUpdate update) {
+            updates.add(update);
+        }
+        
+        @Override
+        public void onConnectionLost(Throwable cause, boolean permanent) {
+            connectionsLost.add(permanent);
+        }
+        
+        @Override
+        public void onConnected() {
+            connections.add(true);
+        }
+        
+        AccountUpdate nextUpdate() throws InterruptedException {
+            AccountUpdate update = updates.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            assertNotNull(update, "No update received");
+            return update;
+        }
+    }
+    
+    private final BlockingQueue<Session> sessions = new LinkedBlockingQueue<>();
+    // Last-Event-ID of each connection, empty when the header was not sent
+    private final BlockingQueue<String> lastEventIds = new LinkedBlockingQueue<>();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private HttpServer server;
+    private ExecutorService executor;
+    private RestBankingService service;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 16);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/api/accounts/" + ACCOUNT + "/events", this::handle);
+        server.createContext("/api/accounts/missing/events", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+        
+        RestClientConfig config = new RestClientConfig();
+        config.setWireFormat(RestClientConfig.WireFormat.JSON);
+        service = new RestBankingService("http://127.0.0.1:" + server.getAddress().getPort(), config);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        service.close();
+        stopped.countDown();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        String lastEventId = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+        lastEventIds.add(lastEventId != null ? lastEventId : "");
+        Session session = sessions.poll();
+        if (session != null) {
+            session.serve(exchange);
+            return;
+        }
+        openStream(exchange);
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        exchange.close();
+    }
+    
+    private static void openStream(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        // Reconnect quickly instead of after the default backoff
+        send(exchange, "retry: 50\n\n");
+    }
+    
+    private static void send(HttpExchange exchange, String text) throws IOException {
+        OutputStream out = exchange.getResponseBody();
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+    
+    private static String update(String transactionId, double balance) {
+        return "event: update\nid: " + transactionId + "\ndata: {\"accountNumber\":\"" + ACCOUNT
+                + "\",\"balance\":" + balance + ",\"transaction\":{\"transactionId\":\"" + transactionId
+                + "\",\"type\":\"DEPOSIT\",\"amount\":10.0,\"resultingBalance\":" + balance + "}}\n\n";
+    }
+    
+    /**
+     * A session that sends the given events and then closes the stream.
+     */
+    private static Session eventsThenClose(String... events) {
+        return exchange -> {
+            openStream(exchange);
+            for (String event : events) {
+                send(exchange, event);
+            }
+            exchange.close();
+        };
+    }
+    
+    private String nextLastEventId() throws InterruptedException {
+        String lastEventId = lastEventIds.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertNotNull(lastEventId, "No connection received");
+        return lastEventId;
+    }
+    
+    @Test
+    void deliversPushedUpdatesInOrder() throws Exception {
+        sessions.add(exchange -> {
+            openStream(exchange);
+            send(exchange, ": heartbeat\n\n");
+            send(exchange, update("tx-1", 110.0));
+            send(exchange, "event: ping\ndata: {}\n\n");
+            send(exchange, update("tx-2", 120.0));
+            try {
+                stopped.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        RecordingListener listener = new RecordingListener();
+        
+        Subscription subscription = service.subscribe(ACCOUNT, listener);
+        
+        assertNotNull(listener.connections.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        AccountUpdate first = listener.nextUpdate();
+        assertEquals("tx-1", first.getTransaction().getTransactionId());
+        assertEquals(110.0, first.getBalance());
+        assertEquals(ACCOUNT, first.getAccountNumber());
+        AccountUpdate second = listener.nextUpdate();
+        assertEquals("tx-2", second.getTransaction().getTransactionId());
+        assertEquals(120.0, second.getBalance());
+        assertEquals("", nextLastEventId());
+        assertFalse(subscription.isCancelled());
+        subscription.cancel();
+        assertTrue(subscription.isCancelled());
+    }
+    
+    @Test
+    void reconnectsAfterServerDropsAndResumesAfterLastUpdate() throws Exception {
+        sessions.add(eventsThenClose(update("tx-1", 110.0)));
+        sessions.add(exchange -> {
+            byte[] body = "Internal server error".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(500, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        sessions.add(eventsThenClose(update("tx-2", 120.0)));
+        RecordingListener listener = new RecordingListener();
+        
+        Subscription subscription = service.subscribe(ACCOUNT, listener);
+        
+        assertEquals("tx-1", listener.nextUpdate().getTransaction().getTransactionId());
+        assertEquals("tx-2", listener.nextUpdate().getTransaction().getTransactionId());
+        assertEquals("", nextLastEventId());
+        assertEquals("tx-1", nextLastEventId());
+        assertEquals("tx-1", nextLastEventId());
+        // The stream that ended after tx-2 is followed by a connection resuming from there
+        assertEquals("tx-2", nextLastEventId());
+        // Only the 500 is reported, and not as permanent
+        assertEquals(Boolean.FALSE, listener.connectionsLost.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertNull(listener.connectionsLost.poll());
+        assertFalse(subscription.isCancelled());
+        subscription.cancel();
+    }
+    
+    @Test
+    void resubscribingAfterCancelStartsAFreshStream() throws Exception {
+        sessions.add(eventsThenClose(update("tx-1", 110.0)));
+        RecordingListener firstListener = new RecordingListener();
+        Subscription first = service.subscribe(ACCOUNT, firstListener);
+        assertEquals("tx-1", firstListener.nextUpdate().getTransaction().getTransactionId());
+        assertEquals("", nextLastEventId());
+        // The first subscription reconnects after the stream ends and is then held open
+        assertEquals("tx-1", nextLastEventId());
+        
+        first.cancel();
+        assertTrue(first.isCancelled());
+        
+        sessions.add(eventsThenClose(update("tx-2", 120.0)));
+        RecordingListener secondListener = new RecordingListener();
+        Subscription second = service.subscribe(ACCOUNT, secondListener);
+        
+        assertEquals("tx-2", secondListener.nextUpdate().getTransaction().getTransactionId());
+        assertEquals("", nextLastEventId());
+        assertNull(firstListener.updates.poll(200, TimeUnit.MILLISECONDS));
+        second.cancel();
+    }
+    
+    @Test
+    void unknownAccountIsRejectedForGood() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        
+        Subscription subscription = service.subscribe("missing", listener);
+        
+        assertEquals(Boolean.TRUE, listener.connectionsLost.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(subscription.isCancelled());
+        assertNull(listener.connections.poll());
+    }
+}
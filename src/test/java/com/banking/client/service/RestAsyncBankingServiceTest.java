@@ -0,0 +1,117 @@
+package com.banking.client.service;
+
+import com.banking.client.model.Account;
+import com.banking.client.model.InsufficientFundsException;
+import com.banking.client.model.Transaction;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs the non-blocking REST client against an in-process application tier stub.
+ */
+class RestAsyncBankingServiceTest {
+    
+    private static final String ACCOUNT = "100001";
+    private static final String OVERDRAWN = "100002";
+    private static final String MISSING = "999999";
+    
+    private HttpServer server;
+    private ExecutorService executor;
+    private RestAsyncBankingService service;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 16);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/api/accounts/", this::handle);
+        server.start();
+        service = new RestAsyncBankingService("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+    
+    @AfterEach
+    void tearDown() {
+        service.close();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        String path = exchange.getRequestURI().getPath();
+        if (path.startsWith("/api/accounts/" + MISSING)) {
+            respond(exchange, 404, "{\"error\":\"Account not found\"}");
+        } else if (path.equals("/api/accounts/" + OVERDRAWN + "/withdraw")) {
+            respond(exchange, 400,
+                    "{\"error\":\"Insufficient funds\",\"requestedAmount\":10.0,\"availableBalance\":5.0}");
+        } else if (path.endsWith("/transactions")) {
+            respond(exchange, 200, "[{\"transactionId\":\"tx-1\",\"type\":\"DEPOSIT\",\"amount\":10.0}]");
+        } else {
+            respond(exchange, 200,
+                    "{\"accountNumber\":\"" + ACCOUNT + "\",\"accountHolderName\":\"Test\",\"balance\":100.0}");
+        }
+    }
+    
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+    
+    private static Throwable failureOf(CompletableFuture<?> future) {
+        return assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS)).getCause();
+    }
+    
+    @Test
+    void accountAndHistoryAreFetchedTogether() throws Exception {
+        CompletableFuture<Account> account = service.getAccount(ACCOUNT);
+        CompletableFuture<List<Transaction>> history = service.getTransactionHistory(ACCOUNT);
+        
+        String summary = account.thenCombine(history,
+                (fetched, transactions) -> fetched.getAccountNumber() + ":" + transactions.size())
+                .get(10, TimeUnit.SECONDS);
+        
+        assertEquals(ACCOUNT + ":1", summary);
+        assertEquals(100.0, account.get().getBalance());
+        assertEquals("tx-1", history.get().get(0).getTransactionId());
+    }
+    
+    @Test
+    void errorResponsesCompleteTheFutureExceptionally() {
+        Throwable missing = failureOf(service.getAccount(MISSING));
+        assertEquals("Account not found: " + MISSING, missing.getMessage());
+        
+        Throwable overdrawn = failureOf(service.withdraw(OVERDRAWN, 10.0));
+        InsufficientFundsException e = assertInstanceOf(InsufficientFundsException.class, overdrawn);
+        assertEquals(5.0, e.getAvailableBalance());
+    }
+    
+    @Test
+    void callsAfterCloseCompleteExceptionally() {
+        service.close();
+        
+        failureOf(service.getAccount(ACCOUNT));
+    }
+}
@@ -0,0 +1,177 @@
+package com.banking.client.service;
+
+import com.banking.client.model.InsufficientFundsException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs request body compression against an in-process stub that may advertise gzip in
+ * Accept-Encoding and may answer compressed bodies with 415 Unsupported Media Type.
+ */
+class RestCompressionTest {
+    
+    private static final String ACCOUNT = "100001";
+    private static final String OVERDRAWN = "100002";
+    private static final String ACCOUNT_JSON =
+            "{\"accountNumber\":\"" + ACCOUNT + "\",\"accountHolderName\":\"Test\",\"balance\":110.0}";
+    private static final String INSUFFICIENT_FUNDS_JSON =
+            "{\"error\":\"Insufficient funds\",\"requestedAmount\":10.0,\"availableBalance\":5.0}";
+    
+    // Content-Encoding of each request body received, empty when it was not compressed
+    private final List<String> encodings = new CopyOnWriteArrayList<>();
+    // Each request body received, decompressed
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private volatile boolean advertiseGzip;
+    private volatile boolean rejectCompressedBodies;
+    private HttpServer server;
+    private ExecutorService executor;
+    private RestBankingService service;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 16);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/api/accounts/", this::handle);
+        server.start();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.close();
+        }
+        server.stop(0);
+        executor.shutdownNow();
+    }
+    
+    private RestBankingService connect(RestClientConfig.Compression compression) {
+        RestClientConfig config = new RestClientConfig();
+        config.setWireFormat(RestClientConfig.WireFormat.JSON);
+        config.setCompression(compression);
+        config.setCompressionThresholdBytes(0);
+        service = new RestBankingService("http://127.0.0.1:" + server.getAddress().getPort(), config);
+        return service;
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        encodings.add(encoding != null ? encoding : "");
+        try (InputStream in = "gzip".equals(encoding)
+                ? new GZIPInputStream(exchange.getRequestBody()) : exchange.getRequestBody()) {
+            bodies.add(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        
+        if (advertiseGzip) {
+            exchange.getResponseHeaders().set("Accept-Encoding", "gzip");
+        }
+        if (encoding != null && rejectCompressedBodies) {
+            respond(exchange, 415, "{\"error\":\"Unsupported content encoding\"}");
+        } else if (exchange.getRequestURI().getPath().contains("/" + OVERDRAWN + "/")) {
+            respond(exchange, 400, INSUFFICIENT_FUNDS_JSON);
+        } else {
+            respond(exchange, 200, ACCOUNT_JSON);
+        }
+    }
+    
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+    
+    @Test
+    void requestsAreNotCompressedByDefault() throws Exception {
+        advertiseGzip = true;
+        RestClientConfig config = new RestClientConfig();
+        config.setWireFormat(RestClientConfig.WireFormat.JSON);
+        config.setCompressionThresholdBytes(0);
+        service = new RestBankingService("http://127.0.0.1:" + server.getAddress().getPort(), config);
+        
+        service.deposit(ACCOUNT, 10.0);
+        service.deposit(ACCOUNT, 10.0);
+        
+        assertEquals(List.of("", ""), encodings);
+    }
+    
+    @Test
+    void requestsAreNotCompressedUnlessTheServerAdvertisesTheCoding() throws Exception {
+        RestBankingService client = connect(RestClientConfig.Compression.GZIP);
+        
+        client.deposit(ACCOUNT, 10.0);
+        client.deposit(ACCOUNT, 10.0);
+        
+        assertEquals(List.of("", ""), encodings);
+    }
+    
+    @Test
+    void requestsAreCompressedOnceTheServerAdvertisesTheCoding() throws Exception {
+        advertiseGzip = true;
+        RestBankingService client = connect(RestClientConfig.Compression.GZIP);
+        
+        assertEquals(110.0, client.deposit(ACCOUNT, 10.0).getBalance());
+        assertEquals(110.0, client.deposit(ACCOUNT, 10.0).getBalance());
+        
+        assertEquals(List.of("", "gzip"), encodings);
+        assertEquals(bodies.get(0), bodies.get(1));
+    }
+    
+    @Test
+    void compressedBodyRejectedAsUnsupportedIsResentUncompressed() throws Exception {
+        advertiseGzip = true;
+        rejectCompressedBodies = true;
+        RestBankingService client = connect(RestClientConfig.Compression.GZIP);
+        
+        client.deposit(ACCOUNT, 10.0);
+        assertEquals(110.0, client.deposit(ACCOUNT, 10.0).getBalance());
+        client.deposit(ACCOUNT, 10.0);
+        
+        assertEquals(List.of("", "gzip", "", ""), encodings);
+    }
+    
+    @Test
+    void badRequestFromTheHandlerIsNotResent() throws Exception {
+        advertiseGzip = true;
+        RestBankingService client = connect(RestClientConfig.Compression.GZIP);
+        client.deposit(ACCOUNT, 10.0);
+        
+        InsufficientFundsException e = assertThrows(InsufficientFundsException.class,
+                () -> client.withdraw(OVERDRAWN, 10.0));
+        assertEquals(5.0, e.getAvailableBalance());
+        client.deposit(ACCOUNT, 10.0);
+        
+        assertEquals(List.of("", "gzip", "gzip"), encodings);
+    }
+    
+    @Test
+    void acceptEncodingIsParsedByCodingAndQuality() {
+        assertTrue(RestBankingService.acceptsCoding("gzip", "gzip"));
+        assertTrue(RestBankingService.acceptsCoding("deflate, GZIP;q=0.5", "gzip"));
+        assertFalse(RestBankingService.acceptsCoding("gzip;q=0", "gzip"));
+        assertFalse(RestBankingService.acceptsCoding("gzip; q=0.000, deflate", "gzip"));
+        assertFalse(RestBankingService.acceptsCoding("identity, x-gzip", "gzip"));
+    }
+}
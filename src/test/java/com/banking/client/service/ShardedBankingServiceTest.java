@@ -0,0 +1,220 @@
+package com.banking.client.service;
+
+import com.banking.client.model.Account;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs sharded and load-balanced REST transports, as the factory builds them, against
+ * in-process application tier stubs. Each stub answers with its own name as the account
+ * holder, so a result shows which server it came from.
+ */
+class ShardedBankingServiceTest {
+    
+    private static final String EAST_ACCOUNT = "100001";
+    private static final String WEST_ACCOUNT = "600001";
+    
+    /**
+     * An application tier stub that knows every account number and records the paths
+     * it was asked for.
+     */
+    private static class StubServer {
+        
+        final String name;
+        final List<String> paths = new CopyOnWriteArrayList<>();
+        final List<String> accounts;
+        private final HttpServer server;
+        private final ExecutorService executor;
+        
+        StubServer(String name, String... accounts) throws IOException {
+            this.name = name;
+            this.accounts = List.of(accounts);
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 16);
+            executor = Executors.newCachedThreadPool();
+            server.setExecutor(executor);
+            server.createContext("/api/accounts", this::handle);
+            server.start();
+        }
+        
+        String url() {
+            return "http://127.0.0.1:" + server.getAddress().getPort();
+        }
+        
+        private void handle(HttpExchange exchange) throws IOException {
+            exchange.getRequestBody().readAllBytes();
+            String path = exchange.getRequestURI().getPath();
+            paths.add(path);
+            if (path.equals("/api/accounts")) {
+                List<String> bodies = new ArrayList<>();
+                for (String account : accounts) {
+                    bodies.add(account(account));
+                }
+                respond(exchange, "[" + String.join(",", bodies) + "]");
+            } else if (path.endsWith("/transfer")) {
+                respond(exchange, "{\"success\":true}");
+            } else {
+                respond(exchange, account(path.substring("/api/accounts/".length())));
+            }
+        }
+        
+        private String account(String accountNumber) {
+            return "{\"accountNumber\":\"" + accountNumber + "\",\"accountHolderName\":\"" + name
+                    + "\",\"balance\":100.0}";
+        }
+        
+        private static void respond(HttpExchange exchange, String json) throws IOException {
+            byte[] body = json.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+        
+        void stop() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+    
+    @TempDir
+    Path directory;
+    private final List<StubServer> servers = new ArrayList<>();
+    private StubServer east;
+    private StubServer west;
+    private StubServer north;
+    private ShardedBankingService service;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        east = start("east", EAST_ACCOUNT);
+        west = start("west", WEST_ACCOUNT);
+        north = start("north", WEST_ACCOUNT);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.close();
+        }
+        servers.forEach(StubServer::stop);
+    }
+    
+    private StubServer start(String name, String... accounts) throws IOException {
+        StubServer server = new StubServer(name, accounts);
+        servers.add(server);
+        return server;
+    }
+    
+    private Path writeShardMap(String eastUrls, String westUrls) throws IOException {
+        Path file = directory.resolve("shards.properties");
+        Files.writeString(file, "shard.strategy=RANGE\n"
+                + "shard.east.url=" + eastUrls + "\n"
+                + "shard.east.from=\n"
+                + "shard.west.url=" + westUrls + "\n"
+                + "shard.west.from=500000\n");
+        return file;
+    }
+    
+    private ShardedBankingService connect(Path shardMap, long reloadMillis) throws IOException {
+        RestClientConfig clientConfig = new RestClientConfig();
+        clientConfig.setWireFormat(RestClientConfig.WireFormat.JSON);
+        LoadBalancerConfig loadBalancerConfig = new LoadBalancerConfig();
+        loadBalancerConfig.setProbeIntervalMillis(0);
+        service = BankingServiceFactory.createShardedService(shardMap, reloadMillis, clientConfig,
+                loadBalancerConfig);
+        return service;
+    }
+    
+    @Test
+    void routesEachAccountToTheShardThatOwnsIt() throws Exception {
+        ShardedBankingService sharded = connect(writeShardMap(east.url(), west.url()), 0);
+        
+        assertEquals("east", sharded.getAccount(EAST_ACCOUNT).getAccountHolderName());
+        assertEquals("west", sharded.getAccount(WEST_ACCOUNT).getAccountHolderName());
+        assertEquals("west", sharded.deposit(WEST_ACCOUNT, 10.0).getAccountHolderName());
+        // A transfer goes to the source account's shard only
+        assertTrue(sharded.transfer(WEST_ACCOUNT, EAST_ACCOUNT, 5.0));
+        
+        assertEquals(List.of("/api/accounts/" + EAST_ACCOUNT), east.paths);
+        assertEquals(List.of("/api/accounts/" + WEST_ACCOUNT, "/api/accounts/" + WEST_ACCOUNT + "/deposit",
+                "/api/accounts/" + WEST_ACCOUNT + "/transfer"), west.paths);
+    }
+    
+    @Test
+    void getAllAccountsMergesEveryShard() throws Exception {
+        ShardedBankingService sharded = connect(writeShardMap(east.url(), west.url()), 0);
+        
+        Set<String> accountNumbers = new TreeSet<>();
+        for (Account account : sharded.getAllAccounts()) {
+            accountNumbers.add(account.getAccountNumber());
+        }
+        
+        assertEquals(Set.of(EAST_ACCOUNT, WEST_ACCOUNT), accountNumbers);
+        assertTrue(north.paths.isEmpty());
+    }
+    
+    @Test
+    void failsOverToAnotherReplicaOfTheShard() throws Exception {
+        StubServer eastReplica = start("east-replica", EAST_ACCOUNT);
+        ShardedBankingService sharded = connect(writeShardMap(east.url() + "," + eastReplica.url(), west.url()), 0);
+        for (int i = 0; i < 20; i++) {
+            sharded.getAccount(EAST_ACCOUNT);
+        }
+        assertTrue(!east.paths.isEmpty() && !eastReplica.paths.isEmpty(),
+                "Calls were not spread over both replicas");
+        
+        east.stop();
+        int replicaCalls = eastReplica.paths.size();
+        for (int i = 0; i < 20; i++) {
+            assertEquals("east-replica", sharded.getAccount(EAST_ACCOUNT).getAccountHolderName());
+        }
+        
+        assertEquals(replicaCalls + 20, eastReplica.paths.size());
+        assertTrue(west.paths.isEmpty());
+    }
+    
+    @Test
+    void reloadsTheShardMapWhenTheFileChanges() throws Exception {
+        Path shardMap = writeShardMap(east.url(), west.url());
+        ShardedBankingService sharded = connect(shardMap, 50);
+        assertEquals("west", sharded.getAccount(WEST_ACCOUNT).getAccountHolderName());
+        
+        writeShardMap(east.url(), north.url());
+        // Make sure the change is seen on file systems with a coarse timestamp resolution
+        Files.setLastModifiedTime(shardMap, FileTime.fromMillis(System.currentTimeMillis() + 2000));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!sharded.getShardMap().getShardUrls().get("west").equals(north.url())
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        
+        assertEquals(north.url(), sharded.getShardMap().getShardUrls().get("west"));
+        assertEquals("north", sharded.getAccount(WEST_ACCOUNT).getAccountHolderName());
+        assertEquals("east", sharded.getAccount(EAST_ACCOUNT).getAccountHolderName());
+        assertEquals(1, west.paths.size());
+    }
+}
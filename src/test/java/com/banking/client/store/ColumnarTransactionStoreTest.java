@@ -0,0 +1,43 @@
+package com.banking.client.store;
+
+import com.banking.client.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ColumnarTransactionStoreTest {
+    
+    private static Transaction transaction(String id, String description, String source) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(id);
+        transaction.setTimestamp(new Date(1000));
+        transaction.setType("DEPOSIT");
+        transaction.setAmount(10.0);
+        transaction.setDescription(description);
+        transaction.setSourceAccountNumber(source);
+        return transaction;
+    }
+    
+    @Test
+    void rowsAddedAfterClearReadBackTheirOwnStrings() {
+        ColumnarTransactionStore store = new ColumnarTransactionStore();
+        for (int i = 0; i < 1000; i++) {
+            store.add(transaction("old-" + i, "Old description " + i, "100001"));
+        }
+        
+        store.clear();
+        int row = store.add(transaction("new-1", "New description", null));
+        int repeated = store.add(transaction("new-2", "New description", "200002"));
+        
+        assertEquals(2, store.size());
+        assertEquals("new-1", store.transactionIdAt(row));
+        assertEquals("New description", store.descriptionAt(row));
+        assertNull(store.sourceAccountAt(row));
+        assertEquals("New description", store.descriptionAt(repeated));
+        assertEquals("200002", store.sourceAccountAt(repeated));
+        assertEquals("DEPOSIT", store.typeNameAt(repeated));
+    }
+}
@@ -0,0 +1,87 @@
+package com.banking.client.store;
+
+import com.banking.client.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TransactionIndexTest {
+    
+    private final TransactionIndex index = new TransactionIndex();
+    
+    private static Transaction transaction(String id, long timestamp, String type, double amount,
+                                           String description) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(id);
+        transaction.setTimestamp(new Date(timestamp));
+        transaction.setType(type);
+        transaction.setAmount(amount);
+        transaction.setDescription(description);
+        return transaction;
+    }
+    
+    private int[] query(String text) {
+        TransactionFilter filter = new TransactionFilter();
+        filter.setText(text);
+        return index.query(filter, false);
+    }
+    
+    @Test
+    void unchangedTransactionIsNotIndexedTwice() {
+        index.addAll(List.of(transaction("tx-1", 1000, "DEPOSIT", 10.0, "Salary")));
+        
+        int added = index.addAll(List.of(transaction("tx-1", 1000, "DEPOSIT", 10.0, "Salary")));
+        
+        assertEquals(0, added);
+        assertEquals(1, index.size());
+        assertEquals(1, query("").length);
+    }
+    
+    @Test
+    void changedTransactionReplacesTheIndexedOne() {
+        index.addAll(List.of(
+                transaction("tx-1", 1000, "DEPOSIT", 10.0, "Pending salary"),
+                transaction("tx-2", 2000, "WITHDRAWAL", 5.0, "Groceries")));
+        
+        int added = index.addAll(List.of(transaction("tx-1", 1000, "TRANSFER", 12.5, "Rent")));
+        
+        assertEquals(1, added);
+        assertEquals(2, index.size());
+        assertEquals(0, query("pending").length);
+        int[] rent = query("rent");
+        assertEquals(1, rent.length);
+        ColumnarTransactionStore store = index.getStore();
+        assertEquals("tx-1", store.transactionIdAt(rent[0]));
+        assertEquals(1250, store.amountMinorAt(rent[0]));
+        
+        TransactionFilter deposits = new TransactionFilter();
+        deposits.setTypes(Set.of("DEPOSIT"));
+        assertEquals(0, index.query(deposits, false).length);
+        
+        TransactionFilter amounts = new TransactionFilter();
+        amounts.setMinAmount(10.0);
+        assertArrayEquals(rent, index.query(amounts, false));
+        
+        int[] all = query("");
+        assertEquals(2, all.length);
+        assertEquals("tx-1", store.transactionIdAt(all[0]));
+        assertEquals("tx-2", store.transactionIdAt(all[1]));
+    }
+    
+    @Test
+    void clearForgetsReplacedRows() {
+        index.addAll(List.of(transaction("tx-1", 1000, "DEPOSIT", 10.0, "Salary")));
+        index.addAll(List.of(transaction("tx-1", 1000, "DEPOSIT", 11.0, "Salary")));
+        
+        index.clear();
+        index.addAll(List.of(transaction("tx-1", 1000, "DEPOSIT", 10.0, "Salary")));
+        
+        assertEquals(1, index.size());
+        assertEquals(1, query("salary").length);
+    }
+}